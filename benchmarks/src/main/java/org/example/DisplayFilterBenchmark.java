@@ -0,0 +1,80 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation is one packet tested against a display filter, three ways:
+ *
+ *   protocolName  the old PacketCapturing.shouldDisplayPacket: parse the headers, then
+ *                 compare the protocol name with the one picked in the combo box
+ *                 (only meaningful for the bare protocol filters)
+ *   interpreted   DisplayFilter.matches, walking the expression tree over a stored row
+ *   compiled      FrameFilter.test on the raw frame, as the capture thread runs it
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DisplayFilterBenchmark {
+
+    @Param({"tcp", "udp.dstport == 53", "ip.addr == 10.0.0.0/8 and tcp.flags.syn", "len > 1000 or icmp or icmpv6"})
+    public String expression;
+
+    private DisplayFilter filter;
+    private FrameFilter frameFilter;
+    private String protocolName;
+    private CaptureStore store;
+    private int next;
+
+    @Setup
+    public void compile(ReplayState replay) {
+        filter = DisplayFilter.compile(expression);
+        frameFilter = filter.compileFrames(replay.linkType);
+        protocolName = expression.toUpperCase();
+        store = new CaptureStore(replay.addresses);
+        for (int i = 0; i < replay.size(); i++) {
+            PacketSummary summary = replay.summaries[i];
+            store.append(summary.timestampMicros, summary.length, summary.rawData.length,
+                replay.sourceIds[i], replay.destIds[i], summary.protocolId, summary.sourcePort, summary.destPort,
+                summary.tcpFlags, i, summary.interfaceId);
+        }
+    }
+
+    private int next(int size) {
+        int index = next;
+        next = index + 1 == size ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public boolean protocolName(ReplayState replay) {
+        PacketSummary summary = replay.parse(next(replay.size()));
+        return summary.protocol != null && summary.protocol.equals(protocolName);
+    }
+
+    @Benchmark
+    public boolean interpreted(ReplayState replay) {
+        return filter.matches(store, next(replay.size()));
+    }
+
+    @Benchmark
+    public boolean compiled(ReplayState replay) {
+        int i = next(replay.size());
+        byte[] frame = replay.frames[i];
+        return frameFilter.test(frame, frame.length, replay.originalLengths[i], replay.timestamps[i]);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pcap4j.packet.IpPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One operation is one packet going through one stage of the capture-to-display path.
+ * Packets are taken round-robin from the replayed capture, so every stage sees the real
+ * protocol mix. Run with the gc profiler (BenchmarkMain adds it by default) to get
+ * gc.alloc.rate.norm, the bytes allocated per packet.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next(int size) {
+            int index = next;
+            next = index + 1 == size ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    // A table as the EDT sees it, emptied before it grows without bound
+    @State(Scope.Thread)
+    public static class Table {
+        static final int MAX_ROWS = 4_000_000;
+        CaptureStore store;
+        PacketTableModel model;
+
+        @Setup(Level.Iteration)
+        public void reset(ReplayState replay) {
+            store = new CaptureStore(replay.addresses);
+            model = new PacketTableModel(store);
+        }
+    }
+
+    // The renderer PacketCapturing keeps for the EDT
+    @State(Scope.Thread)
+    public static class Renderer {
+        PacketDetailsRenderer renderer = new PacketDetailsRenderer();
+    }
+
+    // The graph's recorder, shared by all benchmark threads and drained every iteration like the graph tick
+    @State(Scope.Benchmark)
+    public static class Traffic {
+        TrafficRecorder recorder = new TrafficRecorder();
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            recorder.drain();
+        }
+    }
+
+    @Benchmark
+    public PacketSummary parseHeaders(ReplayState replay, Cursor cursor) {
+        return replay.parse(cursor.next(replay.size()));
+    }
+
+    @Benchmark
+    public Packet decodePcap4j(ReplayState replay, Cursor cursor) {
+        byte[] frame = replay.frames[cursor.next(replay.size())];
+        return PacketFactories.getFactory(Packet.class, DataLinkType.class)
+            .newInstance(frame, 0, frame.length, DataLinkType.getInstance(replay.linkType));
+    }
+
+    @Benchmark
+    public String encapsulatedProtocol(ReplayState replay, Cursor cursor) {
+        IpPacket ipPacket = replay.ipPackets[cursor.next(replay.ipPackets.length)];
+        return CaptureEngine.getEncapsulatedProtocol(ipPacket);
+    }
+
+    @Benchmark
+    public String packetDetails(ReplayState replay, Cursor cursor, Renderer renderer) {
+        int i = cursor.next(replay.size());
+        byte[] frame = replay.frames[i];
+        return renderer.renderer.details(frame, frame.length, replay.originalLengths[i], replay.linkType);
+    }
+
+    // The first page of the hex pane for the selected row
+    @Benchmark
+    public String hexView(ReplayState replay, Cursor cursor, Renderer renderer) {
+        byte[] frame = replay.frames[cursor.next(replay.size())];
+        return renderer.renderer.hexPage(frame, frame.length, 0);
+    }
+
+    @Benchmark
+    public int internAddresses(ReplayState replay, Cursor cursor) {
+        PacketSummary summary = replay.summaries[cursor.next(replay.size())];
+        return replay.addresses.intern(summary.sourceHigh, summary.sourceLow)
+            + replay.addresses.intern(summary.destHigh, summary.destLow);
+    }
+
+    // What a decode shard records per packet for the traffic graph
+    @Benchmark
+    public void updateTraffic(ReplayState replay, Cursor cursor, Traffic traffic) {
+        int i = cursor.next(replay.size());
+        PacketSummary summary = replay.summaries[i];
+        traffic.recorder.record(replay.sourceIds[i], replay.destIds[i], summary.protocolId,
+            TrafficInterval.service(summary.ipProtocol, summary.sourcePort, summary.destPort), summary.length);
+    }
+
+    // Four threads recording at once: per-thread stripes should keep this close to 4x updateTraffic
+    @Benchmark
+    @Threads(4)
+    public void updateTrafficFourThreads(ReplayState replay, Cursor cursor, Traffic traffic) {
+        updateTraffic(replay, cursor, traffic);
+    }
+
+    // CaptureStore append plus the table event, batched per UI frame as publishRows does
+    @Benchmark
+    public int tableAppend(ReplayState replay, Cursor cursor, Table table) {
+        int i = cursor.next(replay.size());
+        PacketSummary summary = replay.summaries[i];
+        int row = table.store.append(summary.timestampMicros, summary.length, summary.rawData.length,
+            replay.sourceIds[i], replay.destIds[i], summary.protocolId, summary.sourcePort, summary.destPort,
+            summary.tcpFlags, i, summary.interfaceId);
+        if (row % CaptureConfig.DEFAULT_MAX_ROWS_PER_FRAME == 0) {
+            table.model.rowsAppended();
+        }
+        if (row == Table.MAX_ROWS) {
+            table.store.clear();
+            table.model.cleared();
+        }
+        return row;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end pcap writing: the capture thread's enqueue plus the writer thread getting
+ * the batch onto disk. Each invocation writes BATCH packets and waits for the flush, so
+ * packets dropped on a full writer queue cannot inflate the score. The output rotates
+ * over two 256 MB files in the temp directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PcapWriteBenchmark {
+
+    private static final int BATCH = 1024;
+
+    private Path directory;
+    private PcapFileWriter writer;
+    private CapturedPacket[] packets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void open(ReplayState replay) throws IOException {
+        directory = Files.createTempDirectory("npa-bench");
+        CaptureConfig config = new CaptureConfig();
+        config.setOutputFile(directory.resolve("bench.pcap").toString());
+        config.setRotateBytes(256L * 1024 * 1024);
+        config.setRotateFiles(2);
+        writer = new PcapFileWriter(config, replay.linkType, false);
+        packets = new CapturedPacket[replay.size()];
+        for (int i = 0; i < packets.length; i++) {
+            packets[i] = new CapturedPacket(i, replay.frames[i], null, replay.timestamps[i], replay.originalLengths[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean writeAndFlush() throws IOException {
+        for (int i = 0; i < BATCH; i++) {
+            writer.write(packets[next]);
+            next = next + 1 == packets.length ? 0 : next + 1;
+        }
+        return writer.flush(10_000);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        WriterStats stats = writer.getStats();
+        writer.close();
+        System.out.println("\n" + stats);
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pcap4j.packet.IpPacket;
+import org.pcap4j.packet.Packet;
+import org.pcap4j.packet.factory.PacketFactories;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A capture loaded into memory once per trial, in every form a pipeline stage takes as
+ * input: raw frames, pcap4j packets, parsed summaries and interned address ids.
+ *
+ * "out.pcap" is the capture shipped with the project (looked up in the working directory
+ * and its parent, or wherever -Dbench.pcap points); "synthetic-N" is N packets generated
+ * from it by SyntheticPcap.
+ */
+@State(Scope.Benchmark)
+public class ReplayState {
+
+    @Param({"out.pcap", "synthetic-100000"})
+    public String capture;
+
+    int linkType;
+    byte[][] frames;
+    long[] timestamps;
+    int[] originalLengths;
+    Packet[] packets;
+    IpPacket[] ipPackets;         // the IP layer of every packet that has one
+    PacketSummary[] summaries;
+    AddressDictionary addresses;
+    int[] sourceIds;
+    int[] destIds;
+
+    @Setup
+    public void load() throws IOException {
+        Path file = resolve(capture);
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            linkType = reader.getLinkType();
+            int count = reader.getPacketCount();
+            frames = new byte[count][];
+            timestamps = new long[count];
+            originalLengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                frames[i] = reader.readPacket(i);
+                timestamps[i] = reader.getTimestampMicros(i);
+                originalLengths[i] = reader.getOriginalLength(i);
+            }
+        }
+
+        DataLinkType dlt = DataLinkType.getInstance(linkType);
+        int count = frames.length;
+        packets = new Packet[count];
+        summaries = new PacketSummary[count];
+        addresses = new AddressDictionary();
+        sourceIds = new int[count];
+        destIds = new int[count];
+        List<IpPacket> ip = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            packets[i] = PacketFactories.getFactory(Packet.class, DataLinkType.class)
+                .newInstance(frames[i], 0, frames[i].length, dlt);
+            if (packets[i].contains(IpPacket.class)) {
+                ip.add(packets[i].get(IpPacket.class));
+            }
+            summaries[i] = parse(i);
+            sourceIds[i] = addresses.intern(summaries[i].sourceHigh, summaries[i].sourceLow);
+            destIds[i] = addresses.intern(summaries[i].destHigh, summaries[i].destLow);
+        }
+        ipPackets = ip.toArray(new IpPacket[0]);
+    }
+
+    // The lazy decode stage, as PacketCapturing.decodeRaw does it
+    PacketSummary parse(int i) {
+        byte[] frame = frames[i];
+        PacketSummary summary = new PacketSummary(i, timestamps[i], originalLengths[i], frame, null);
+        if (FrameHeaderParser.parse(frame, frame.length, linkType, summary)) {
+            summary.protocol = CaptureStore.protocolName(summary.protocolId);
+        }
+        return summary;
+    }
+
+    int size() {
+        return frames.length;
+    }
+
+    private static Path resolve(String capture) throws IOException {
+        Path base = Path.of(System.getProperty("bench.pcap", "out.pcap"));
+        if (!Files.isRegularFile(base) && Files.isRegularFile(Path.of("..").resolve(base))) {
+            base = Path.of("..").resolve(base);
+        }
+        if (capture.startsWith("synthetic-")) {
+            return SyntheticPcap.cached(base, Integer.parseInt(capture.substring("synthetic-".length())));
+        }
+        return capture.equals("out.pcap") ? base : Path.of(capture);
+    }
+}
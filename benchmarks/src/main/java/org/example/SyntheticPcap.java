@@ -0,0 +1,86 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Builds a larger capture out of a small one: the source frames are repeated until the
+ * requested packet count is reached, 10 µs apart. Every repetition XORs the copy number
+ * into the low 16 bits of the IPv4 source and destination addresses of Ethernet frames,
+ * so the synthetic file has many more hosts and flows than the original.
+ */
+public final class SyntheticPcap {
+
+    private SyntheticPcap() {
+    }
+
+    public static void generate(Path source, Path target, int packets) throws IOException {
+        try (PcapFileReader reader = new PcapFileReader(source);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            int count = reader.getPacketCount();
+            if (count == 0) {
+                throw new IOException("No packets in " + source);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(4 * 1024 * 1024).order(ByteOrder.nativeOrder());
+            buffer.putInt(0xA1B2C3D4);
+            buffer.putShort((short) 2);
+            buffer.putShort((short) 4);
+            buffer.putInt(0);
+            buffer.putInt(0);
+            buffer.putInt(reader.getSnapshotLength());
+            buffer.putInt(reader.getLinkType());
+
+            long timestamp = reader.getTimestampMicros(0);
+            for (int i = 0; i < packets; i++) {
+                int copy = i / count;
+                byte[] frame = reader.readPacket(i % count);
+                if (copy > 0 && reader.getLinkType() == FrameHeaderParser.LINKTYPE_ETHERNET) {
+                    spreadAddresses(frame, copy);
+                }
+                if (buffer.remaining() < 16 + frame.length) {
+                    drain(buffer, out);
+                }
+                buffer.putInt((int) (timestamp / 1_000_000L));
+                buffer.putInt((int) (timestamp % 1_000_000L));
+                buffer.putInt(frame.length);
+                buffer.putInt(reader.getOriginalLength(i % count));
+                buffer.put(frame);
+                timestamp += 10;
+            }
+            drain(buffer, out);
+        }
+    }
+
+    // Returns the capture, generating it once into the temp directory
+    public static Path cached(Path source, int packets) throws IOException {
+        Path target = Path.of(System.getProperty("java.io.tmpdir"), "npa-synthetic-" + packets + ".pcap");
+        if (!Files.isRegularFile(target) || Files.getLastModifiedTime(target).compareTo(Files.getLastModifiedTime(source)) < 0) {
+            generate(source, target, packets);
+        }
+        return target;
+    }
+
+    private static void spreadAddresses(byte[] frame, int copy) {
+        if (frame.length < 34 || FrameHeaderParser.readShort(frame, 12) != FrameHeaderParser.ETHERTYPE_IPV4) {
+            return;
+        }
+        frame[28] ^= (byte) (copy >>> 8);
+        frame[29] ^= (byte) copy;
+        frame[32] ^= (byte) (copy >>> 8);
+        frame[33] ^= (byte) copy;
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
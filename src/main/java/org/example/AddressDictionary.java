@@ -0,0 +1,187 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Gives every distinct IP address (packed as in IpAddresses) a compact int id, so rows,
+ * counters and maps can key on an int instead of an InetAddress or a String. Id 0 is the
+ * unknown address 0/0. Ids are handed out in order and never reused until clear().
+ *
+ * Only interning a new address takes a lock. Addresses already known, and looking an id
+ * back up, need none: entries are written before the id is published through size, and
+ * the chunks never move; a lookup that sees an id not yet published falls back to the
+ * lock. Text is produced lazily by
+ * format(), through a bounded direct-mapped cache.
+ */
+public class AddressDictionary {
+
+    public static final int UNKNOWN = 0;
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int FORMAT_CACHE_SIZE = 8192;
+
+    // id -> address
+    private volatile long[][] highs = new long[0][];
+    private volatile long[][] lows = new long[0][];
+    private volatile int size;
+
+    // address -> id, open addressing; slot value is id + 1, 0 = empty
+    private volatile int[] slots = new int[1024];
+
+    private final FormattedAddress[] formatCache = new FormattedAddress[FORMAT_CACHE_SIZE];
+
+    // One immutable entry per cache slot, so racing readers never see a torn pair
+    private static final class FormattedAddress {
+        final int id;
+        final String text;
+
+        FormattedAddress(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+    }
+
+    public AddressDictionary() {
+        clear();
+    }
+
+    // Safe from any thread; the decode shards call it for every packet
+    public int intern(long high, long low) {
+        int id = lookup(high, low);
+        return id >= 0 ? id : insert(high, low);
+    }
+
+    // Lock-free; -1 when the address is new or its id is not published yet
+    private int lookup(long high, long low) {
+        if (high == 0 && low == 0) {
+            return UNKNOWN;
+        }
+        int published = size;  // read first: every id below it has its entry written
+        int[] table = slots;
+        int mask = table.length - 1;
+        int slot;
+        for (int i = hash(high, low) & mask; (slot = table[i]) != 0; i = (i + 1) & mask) {
+            int id = slot - 1;
+            if (id < published && getLow(id) == low && getHigh(id) == high) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private synchronized int insert(long high, long low) {
+        int[] table = slots;
+        int mask = table.length - 1;
+        int i = hash(high, low) & mask;
+        int slot;
+        while ((slot = table[i]) != 0) {
+            int id = slot - 1;
+            if (getLow(id) == low && getHigh(id) == high) {
+                return id;
+            }
+            i = (i + 1) & mask;
+        }
+        int id = size;
+        int chunk = id >>> CHUNK_BITS;
+        if (chunk == highs.length) {
+            long[][] newHighs = Arrays.copyOf(highs, chunk + 1);
+            long[][] newLows = Arrays.copyOf(lows, chunk + 1);
+            newHighs[chunk] = new long[CHUNK_SIZE];
+            newLows[chunk] = new long[CHUNK_SIZE];
+            highs = newHighs;
+            lows = newLows;
+        }
+        highs[chunk][id & CHUNK_MASK] = high;
+        lows[chunk][id & CHUNK_MASK] = low;
+        table[i] = id + 1;
+        size = id + 1;  // publishes the entry
+        if (size > table.length / 2) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    // The id of an address seen before, or -1; unlike intern() it never adds one
+    public synchronized int find(long high, long low) {
+        if (high == 0 && low == 0) {
+            return UNKNOWN;
+        }
+        int mask = slots.length - 1;
+        int slot;
+        for (int i = hash(high, low) & mask; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+            int id = slot - 1;
+            if (getLow(id) == low && getHigh(id) == high) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] newSlots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 1; id < size; id++) {
+            int i = hash(getHigh(id), getLow(id)) & mask;
+            while (newSlots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            newSlots[i] = id + 1;
+        }
+        slots = newSlots;
+    }
+
+    public long getHigh(int id) {
+        return highs[id >>> CHUNK_BITS][id & CHUNK_MASK];
+    }
+
+    public long getLow(int id) {
+        return lows[id >>> CHUNK_BITS][id & CHUNK_MASK];
+    }
+
+    public boolean isIpV4(int id) {
+        return IpAddresses.isIpV4(getHigh(id), getLow(id));
+    }
+
+    // Text form for display; "Unknown" for id 0
+    public String format(int id) {
+        if (id == UNKNOWN) {
+            return "Unknown";
+        }
+        int slot = id & (FORMAT_CACHE_SIZE - 1);
+        FormattedAddress cached = formatCache[slot];
+        if (cached != null && cached.id == id) {
+            return cached.text;
+        }
+        String text = IpAddresses.format(getHigh(id), getLow(id));
+        formatCache[slot] = new FormattedAddress(id, text);
+        return text;
+    }
+
+    // Number of ids handed out, including UNKNOWN
+    public int size() {
+        return size;
+    }
+
+    public long getMemoryUsage() {
+        return highs.length * (long) CHUNK_SIZE * 16 + slots.length * 4L;
+    }
+
+    public synchronized void clear() {
+        long[][] newHighs = {new long[CHUNK_SIZE]};
+        long[][] newLows = {new long[CHUNK_SIZE]};
+        highs = newHighs;
+        lows = newLows;
+        slots = new int[1024];
+        Arrays.fill(formatCache, null);
+        size = 1;  // UNKNOWN
+    }
+
+    private static int hash(long high, long low) {
+        long value = (high * 0x9E3779B97F4A7C15L) ^ low;
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return (int) (value ^ (value >>> 31));
+    }
+}
@@ -0,0 +1,430 @@
+package org.example;
+
+// Tuning knobs for the live capture engine in PacketCapturing
+public class CaptureConfig {
+
+    public enum CaptureMode {
+        SINGLE,    // handle.loop(1, ...) per iteration, the original one-at-a-time engine
+        LOOP,      // handle.loop(batchSize, ...), returns once batchSize packets were delivered
+        DISPATCH   // handle.dispatch(batchSize, ...), returns after one buffer or the read timeout
+    }
+
+    public static final int DEFAULT_SNAPSHOT_LENGTH = 65536;
+    public static final int DEFAULT_READ_TIMEOUT = 50;             // ms
+    public static final int DEFAULT_BATCH_SIZE = 512;              // packets per loop/dispatch call
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024 * 1024; // libpcap kernel buffer, bytes
+    public static final int DEFAULT_RING_CAPACITY = 65536;         // packets between capture and decode
+    public static final int DEFAULT_PUBLISH_QUEUE_CAPACITY = 65536; // decoded packets waiting for the UI
+    public static final int DEFAULT_UI_REFRESH = 100;              // ms between UI frames
+    public static final int DEFAULT_MAX_ROWS_PER_FRAME = 5000;
+    public static final String DEFAULT_OUTPUT_FILE = "out.pcap";
+    public static final int DEFAULT_WRITER_QUEUE_CAPACITY = 131072; // packets waiting for the disk
+    public static final int DEFAULT_WRITER_BUFFER_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_MAX_FLOWS = 1 << 20;           // conversations tracked at once
+    public static final int DEFAULT_FLOW_IDLE_TIMEOUT = 120;       // s without packets before a flow expires
+    public static final int DEFAULT_FLOW_ACTIVE_TIMEOUT = 1800;    // s before a long-lived flow record restarts
+    public static final int DEFAULT_MAX_DNS_QUERIES = 65536;       // DNS queries waiting for their response
+    public static final int DEFAULT_MAX_DNS_NAMES = 1024;          // query names with their own latency histogram
+    public static final int DEFAULT_MAX_DNS_SERVERS = 256;
+    public static final int DEFAULT_DNS_TIMEOUT = 5000;            // ms before an unanswered query counts as timed out
+    public static final int DEFAULT_MAX_TCP_CONNECTIONS = 32768;   // TCP connections analysed at once, about 260 bytes each
+    public static final int DEFAULT_MAX_TCP_SERVERS = 512;         // server:port entries with their own histograms
+    public static final long DEFAULT_REASSEMBLY_MEMORY = 64L * 1024 * 1024; // off-heap bytes for out-of-order TCP segments
+    public static final int DEFAULT_MAX_TCP_STREAMS = 16384;        // TCP streams reassembled at once
+    public static final int DEFAULT_REORDER_WINDOW = 2 * DEFAULT_READ_TIMEOUT;  // ms a merged packet may wait for the other interfaces
+
+    private CaptureMode mode = CaptureMode.DISPATCH;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int snapshotLength = DEFAULT_SNAPSHOT_LENGTH;
+    private int readTimeoutMillis = DEFAULT_READ_TIMEOUT;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean immediateMode = false;
+    private int ringCapacity = DEFAULT_RING_CAPACITY;
+    private int decodeWorkers = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private CapturePipeline.BackpressurePolicy backpressurePolicy = CapturePipeline.BackpressurePolicy.DROP_NEWEST;
+    private int publishQueueCapacity = DEFAULT_PUBLISH_QUEUE_CAPACITY;
+    private int uiRefreshMillis = DEFAULT_UI_REFRESH;
+    private int maxRowsPerFrame = DEFAULT_MAX_ROWS_PER_FRAME;
+    private boolean lazyDecoding = true;
+    private String outputFile = DEFAULT_OUTPUT_FILE;  // null = no capture file
+    private long rotateBytes = 0;      // 0 = never rotate by size
+    private int rotateSeconds = 0;     // 0 = never rotate by time
+    private int rotateFiles = 1;       // size of the file ring when rotating
+    private int writerQueueCapacity = DEFAULT_WRITER_QUEUE_CAPACITY;
+    private int writerBufferSize = DEFAULT_WRITER_BUFFER_SIZE;
+    private int maxFlows = DEFAULT_MAX_FLOWS;
+    private int flowIdleTimeoutSeconds = DEFAULT_FLOW_IDLE_TIMEOUT;
+    private int flowActiveTimeoutSeconds = DEFAULT_FLOW_ACTIVE_TIMEOUT;  // 0 = never
+    private int reorderWindowMillis = DEFAULT_REORDER_WINDOW;
+    private int maxDnsQueries = DEFAULT_MAX_DNS_QUERIES;
+    private int maxDnsNames = DEFAULT_MAX_DNS_NAMES;
+    private int maxDnsServers = DEFAULT_MAX_DNS_SERVERS;
+    private int dnsTimeoutMillis = DEFAULT_DNS_TIMEOUT;
+    private int maxTcpConnections = DEFAULT_MAX_TCP_CONNECTIONS;
+    private int maxTcpServers = DEFAULT_MAX_TCP_SERVERS;
+    private boolean tcpReassembly = false;
+    private long reassemblyMemoryBytes = DEFAULT_REASSEMBLY_MEMORY;
+    private int maxTcpStreams = DEFAULT_MAX_TCP_STREAMS;
+
+    public CaptureMode getMode() {
+        return mode;
+    }
+
+    public void setMode(CaptureMode mode) {
+        this.mode = mode;
+    }
+
+    public int getBatchSize() {
+        return mode == CaptureMode.SINGLE ? 1 : batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getSnapshotLength() {
+        return snapshotLength;
+    }
+
+    public void setSnapshotLength(int snapshotLength) {
+        this.snapshotLength = snapshotLength;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // 0 keeps the libpcap default
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public boolean isImmediateMode() {
+        return immediateMode;
+    }
+
+    // Deliver packets as soon as they arrive instead of waiting for the buffer to fill
+    public void setImmediateMode(boolean immediateMode) {
+        this.immediateMode = immediateMode;
+    }
+
+    public int getRingCapacity() {
+        return ringCapacity;
+    }
+
+    public void setRingCapacity(int ringCapacity) {
+        this.ringCapacity = ringCapacity;
+    }
+
+    public int getDecodeWorkers() {
+        return decodeWorkers;
+    }
+
+    public void setDecodeWorkers(int decodeWorkers) {
+        if (decodeWorkers < 1) {
+            throw new IllegalArgumentException("At least one decode shard is required");
+        }
+        this.decodeWorkers = decodeWorkers;
+    }
+
+    public CapturePipeline.BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    public void setBackpressurePolicy(CapturePipeline.BackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    public int getPublishQueueCapacity() {
+        return publishQueueCapacity;
+    }
+
+    public void setPublishQueueCapacity(int publishQueueCapacity) {
+        this.publishQueueCapacity = publishQueueCapacity;
+    }
+
+    public int getUiRefreshMillis() {
+        return uiRefreshMillis;
+    }
+
+    public void setUiRefreshMillis(int uiRefreshMillis) {
+        this.uiRefreshMillis = uiRefreshMillis;
+    }
+
+    public int getMaxRowsPerFrame() {
+        return maxRowsPerFrame;
+    }
+
+    public void setMaxRowsPerFrame(int maxRowsPerFrame) {
+        this.maxRowsPerFrame = maxRowsPerFrame;
+    }
+
+    public boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    // Capture raw bytes and parse only the summary headers; full decode happens on row selection
+    public void setLazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+    }
+
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    public void setOutputFile(String outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    public long getRotateBytes() {
+        return rotateBytes;
+    }
+
+    public void setRotateBytes(long rotateBytes) {
+        this.rotateBytes = rotateBytes;
+    }
+
+    public int getRotateSeconds() {
+        return rotateSeconds;
+    }
+
+    public void setRotateSeconds(int rotateSeconds) {
+        this.rotateSeconds = rotateSeconds;
+    }
+
+    public int getRotateFiles() {
+        return rotateFiles;
+    }
+
+    public void setRotateFiles(int rotateFiles) {
+        if (rotateFiles < 1) {
+            throw new IllegalArgumentException("The file ring needs at least one file");
+        }
+        this.rotateFiles = rotateFiles;
+    }
+
+    public int getWriterQueueCapacity() {
+        return writerQueueCapacity;
+    }
+
+    public void setWriterQueueCapacity(int writerQueueCapacity) {
+        this.writerQueueCapacity = writerQueueCapacity;
+    }
+
+    public int getWriterBufferSize() {
+        return writerBufferSize;
+    }
+
+    // Must hold at least one full record (snapshot length plus up to 32 bytes of pcapng block framing)
+    public void setWriterBufferSize(int writerBufferSize) {
+        if (writerBufferSize < snapshotLength + 32) {
+            throw new IllegalArgumentException("Writer buffer smaller than a single record");
+        }
+        this.writerBufferSize = writerBufferSize;
+    }
+
+    public int getMaxFlows() {
+        return maxFlows;
+    }
+
+    public void setMaxFlows(int maxFlows) {
+        if (maxFlows < 1) {
+            throw new IllegalArgumentException("The flow table needs room for at least one flow");
+        }
+        this.maxFlows = maxFlows;
+    }
+
+    public int getFlowIdleTimeoutSeconds() {
+        return flowIdleTimeoutSeconds;
+    }
+
+    public void setFlowIdleTimeoutSeconds(int flowIdleTimeoutSeconds) {
+        if (flowIdleTimeoutSeconds < 1) {
+            throw new IllegalArgumentException("Flow idle timeout must be at least one second");
+        }
+        this.flowIdleTimeoutSeconds = flowIdleTimeoutSeconds;
+    }
+
+    public int getFlowActiveTimeoutSeconds() {
+        return flowActiveTimeoutSeconds;
+    }
+
+    public void setFlowActiveTimeoutSeconds(int flowActiveTimeoutSeconds) {
+        this.flowActiveTimeoutSeconds = flowActiveTimeoutSeconds;
+    }
+
+    public int getReorderWindowMillis() {
+        return reorderWindowMillis;
+    }
+
+    /**
+     * With several interfaces, how long the merge holds a packet back waiting for older
+     * ones from the other interfaces. Should cover the read timeout, which is how long
+     * libpcap may sit on a packet before handing it over.
+     */
+    public void setReorderWindowMillis(int reorderWindowMillis) {
+        if (reorderWindowMillis < 0) {
+            throw new IllegalArgumentException("Reorder window must not be negative");
+        }
+        this.reorderWindowMillis = reorderWindowMillis;
+    }
+
+    public int getMaxDnsQueries() {
+        return maxDnsQueries;
+    }
+
+    public void setMaxDnsQueries(int maxDnsQueries) {
+        if (maxDnsQueries < 1) {
+            throw new IllegalArgumentException("The DNS query table needs room for at least one query");
+        }
+        this.maxDnsQueries = maxDnsQueries;
+    }
+
+    public int getMaxDnsNames() {
+        return maxDnsNames;
+    }
+
+    // Each name that got an answer holds a LatencyHistogram of about 5.5 KB
+    public void setMaxDnsNames(int maxDnsNames) {
+        if (maxDnsNames < 1) {
+            throw new IllegalArgumentException("The DNS name table needs room for at least one name");
+        }
+        this.maxDnsNames = maxDnsNames;
+    }
+
+    public int getMaxDnsServers() {
+        return maxDnsServers;
+    }
+
+    public void setMaxDnsServers(int maxDnsServers) {
+        if (maxDnsServers < 1) {
+            throw new IllegalArgumentException("The DNS server table needs room for at least one server");
+        }
+        this.maxDnsServers = maxDnsServers;
+    }
+
+    public int getDnsTimeoutMillis() {
+        return dnsTimeoutMillis;
+    }
+
+    public void setDnsTimeoutMillis(int dnsTimeoutMillis) {
+        if (dnsTimeoutMillis < 1) {
+            throw new IllegalArgumentException("DNS timeout must be at least one millisecond");
+        }
+        this.dnsTimeoutMillis = dnsTimeoutMillis;
+    }
+
+    public int getMaxTcpConnections() {
+        return maxTcpConnections;
+    }
+
+    public void setMaxTcpConnections(int maxTcpConnections) {
+        if (maxTcpConnections < 1) {
+            throw new IllegalArgumentException("The TCP connection table needs room for at least one connection");
+        }
+        this.maxTcpConnections = maxTcpConnections;
+    }
+
+    public int getMaxTcpServers() {
+        return maxTcpServers;
+    }
+
+    // Each server holds up to two LatencyHistograms, handshake and RTT, of about 5.5 KB each
+    public void setMaxTcpServers(int maxTcpServers) {
+        if (maxTcpServers < 1) {
+            throw new IllegalArgumentException("The TCP server table needs room for at least one server");
+        }
+        this.maxTcpServers = maxTcpServers;
+    }
+
+    public boolean isTcpReassembly() {
+        return tcpReassembly;
+    }
+
+    // Off by default: only worth its memory when something listens to the streams
+    public void setTcpReassembly(boolean tcpReassembly) {
+        this.tcpReassembly = tcpReassembly;
+    }
+
+    public long getReassemblyMemoryBytes() {
+        return reassemblyMemoryBytes;
+    }
+
+    /**
+     * Cap on the off-heap memory holding out-of-order TCP segments, split evenly across
+     * the decode workers. When a worker's share is used up, the stream that was quiet
+     * longest is flushed and evicted.
+     */
+    public void setReassemblyMemoryBytes(long reassemblyMemoryBytes) {
+        if (reassemblyMemoryBytes < ChunkPool.CHUNK_SIZE) {
+            throw new IllegalArgumentException("Reassembly memory must hold at least one " + ChunkPool.CHUNK_SIZE + " byte chunk");
+        }
+        this.reassemblyMemoryBytes = reassemblyMemoryBytes;
+    }
+
+    public int getMaxTcpStreams() {
+        return maxTcpStreams;
+    }
+
+    public void setMaxTcpStreams(int maxTcpStreams) {
+        if (maxTcpStreams < 1) {
+            throw new IllegalArgumentException("The reassembler needs room for at least one TCP stream");
+        }
+        this.maxTcpStreams = maxTcpStreams;
+    }
+
+    public CaptureConfig copy() {
+        CaptureConfig copy = new CaptureConfig();
+        copy.mode = mode;
+        copy.batchSize = batchSize;
+        copy.snapshotLength = snapshotLength;
+        copy.readTimeoutMillis = readTimeoutMillis;
+        copy.bufferSize = bufferSize;
+        copy.immediateMode = immediateMode;
+        copy.ringCapacity = ringCapacity;
+        copy.decodeWorkers = decodeWorkers;
+        copy.backpressurePolicy = backpressurePolicy;
+        copy.publishQueueCapacity = publishQueueCapacity;
+        copy.uiRefreshMillis = uiRefreshMillis;
+        copy.maxRowsPerFrame = maxRowsPerFrame;
+        copy.lazyDecoding = lazyDecoding;
+        copy.outputFile = outputFile;
+        copy.rotateBytes = rotateBytes;
+        copy.rotateSeconds = rotateSeconds;
+        copy.rotateFiles = rotateFiles;
+        copy.writerQueueCapacity = writerQueueCapacity;
+        copy.writerBufferSize = writerBufferSize;
+        copy.maxFlows = maxFlows;
+        copy.flowIdleTimeoutSeconds = flowIdleTimeoutSeconds;
+        copy.flowActiveTimeoutSeconds = flowActiveTimeoutSeconds;
+        copy.reorderWindowMillis = reorderWindowMillis;
+        copy.maxDnsQueries = maxDnsQueries;
+        copy.maxDnsNames = maxDnsNames;
+        copy.maxDnsServers = maxDnsServers;
+        copy.dnsTimeoutMillis = dnsTimeoutMillis;
+        copy.maxTcpConnections = maxTcpConnections;
+        copy.maxTcpServers = maxTcpServers;
+        copy.tcpReassembly = tcpReassembly;
+        copy.reassemblyMemoryBytes = reassemblyMemoryBytes;
+        copy.maxTcpStreams = maxTcpStreams;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mode=%s batch=%d snaplen=%d timeout=%dms buffer=%d immediate=%b ring=%d workers=%d policy=%s refresh=%dms rows/frame=%d lazy=%b",
+            mode, getBatchSize(), snapshotLength, readTimeoutMillis, bufferSize, immediateMode,
+            ringCapacity, decodeWorkers, backpressurePolicy, uiRefreshMillis, maxRowsPerFrame, lazyDecoding);
+    }
+}
@@ -0,0 +1,788 @@
+package org.example;
+
+import org.pcap4j.core.*;
+import org.pcap4j.core.BpfProgram.BpfCompileMode;
+import org.pcap4j.packet.*;
+import org.pcap4j.packet.TcpPacket.TcpHeader;
+import org.pcap4j.packet.UdpPacket.UdpHeader;
+import org.pcap4j.packet.namednumber.DataLinkType;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * The capture side of the analyzer, without any UI: opens the pcap handles (or replays a
+ * pcap file), runs the capture threads, feeds the pcap writer and the decode pipeline and
+ * tracks conversations. Decoded summaries are handed to the sink through the given
+ * executor; PacketCapturing passes SwingUtilities::invokeLater and fills its table, the
+ * headless command line runs the sink directly on the publisher thread. Besides the BPF
+ * filter, a display filter can be set to drop frames in Java before they are written or
+ * decoded, compiled into a FrameFilter for the link type of each capture.
+ *
+ * Several interfaces can be captured at once, each on its own handle and thread; a
+ * PacketMerger then puts their frames back into timestamp order before they are numbered,
+ * written (as pcapng, one interface block each) and decoded. Every frame keeps the id of
+ * the interface it came from, and drops are counted per interface.
+ */
+public class CaptureEngine {
+
+    // Matches no real frame: installed while paused so the kernel drops packets before copying them
+    private static final String PAUSE_FILTER = "less 1";
+    private static final long PAUSE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Consumer<List<PacketSummary>> sink;
+    private final Executor sinkExecutor;
+    private final AddressDictionary addresses;        // with trafficRecorder, or both null
+    private final TrafficRecorder trafficRecorder;
+    private final FlowTracker flowTracker = new FlowTracker();
+    private final DnsTracker dnsTracker = new DnsTracker();
+    private final TcpMetricsTracker tcpMetrics = new TcpMetricsTracker();
+    private final TcpReassembly tcpReassembly = new TcpReassembly();
+    private CaptureConfig captureConfig = new CaptureConfig();
+    private volatile DataLinkType linkType = DataLinkType.EN10MB;  // of the first interface
+    private volatile DataLinkType[] linkTypes = {DataLinkType.EN10MB};
+    private volatile boolean isRunning = false;
+    private volatile boolean paused = false;
+    private volatile InterfaceCapture[] interfaces = new InterfaceCapture[0];
+    private volatile PcapFileWriter writer;
+    private List<PcapNetworkInterface> currentDevices = Collections.emptyList();
+    private String filterExpression;
+    private volatile DisplayFilter frameFilter;
+    private volatile long packetLimit = Long.MAX_VALUE;
+    private volatile boolean limitReached;
+    private long nextSequence;  // Only touched by the thread feeding the pipeline (capture or merge thread)
+    private long runPackets;    // Delivered since the last start or resume, for the packet limit; same thread
+    private volatile CapturePipeline pipeline;
+    private volatile PacketMerger merger;
+    private volatile CountDownLatch sourceDone = new CountDownLatch(0);
+
+    // One interface's handle, capture thread and counters
+    private final class InterfaceCapture {
+        final int id;
+        final PcapNetworkInterface device;
+        final PcapHandle handle;
+        final DataLinkType linkType;
+        volatile CaptureStats stats = CaptureStats.EMPTY;
+        private int batchPackets;  // Only touched by the capture thread
+        private long mergeDrops;   // Only touched by the capture thread
+
+        InterfaceCapture(int id, PcapNetworkInterface device) throws PcapNativeException, NotOpenException {
+            this.id = id;
+            this.device = device;
+            handle = openHandle(device);
+            try {
+                // Apply BPF filter if provided
+                if (filterExpression != null && !filterExpression.isEmpty()) {
+                    handle.setFilter(filterExpression, BpfCompileMode.OPTIMIZE);
+                }
+                linkType = handle.getDlt();
+            } catch (PcapNativeException | NotOpenException e) {
+                handle.close();
+                throw e;
+            }
+
+            // Check if this is a wireless interface
+            if (device.getLinkLayerAddresses() != null && !device.getLinkLayerAddresses().isEmpty()) {
+                System.err.println("Link type of " + device.getName() + ": " + linkType);
+                if (linkType == DataLinkType.IEEE802_11) {
+                    System.err.println("Wireless interface detected: " + device.getName());
+                }
+            }
+        }
+
+        /**
+         * Starts the capture thread, handing every frame to target on that thread: the
+         * delivery itself with a single interface, the merger's queue with several.
+         * onExit runs once the thread has taken its last frame.
+         */
+        void start(Consumer<CapturedPacket> target, Runnable onExit, String threadName) {
+            CaptureConfig.CaptureMode mode = captureConfig.getMode();
+            int batchSize = captureConfig.getBatchSize();
+            boolean lazy = captureConfig.isLazyDecoding();
+            FrameFilter displayFilter = compileFrameFilter(linkType);
+            // Lazy decoding: pcap4j hands over the bytes without running the packet factory
+            RawPacketListener rawListener = rawData -> gotFrame(rawData, null, target, displayFilter);
+            PacketListener listener = packet -> gotFrame(packet.getRawData(), packet, target, displayFilter);
+
+            Thread captureThread = new Thread(() -> {
+                boolean filterPaused = false;
+                try {
+                    while (isRunning && handle.isOpen() && !limitReached) {
+                        boolean pause = paused;
+                        if (pause != filterPaused) {
+                            setPauseFilter(pause);
+                            filterPaused = pause;
+                        }
+                        batchPackets = 0;
+                        try {
+                            if (mode == CaptureConfig.CaptureMode.DISPATCH) {
+                                if (lazy) {
+                                    handle.dispatch(batchSize, rawListener);
+                                } else {
+                                    handle.dispatch(batchSize, listener);
+                                }
+                            } else if (lazy) {
+                                handle.loop(batchSize, rawListener);
+                            } else {
+                                handle.loop(batchSize, listener);
+                            }
+                        } catch (InterruptedException e) {
+                            // breakLoop(): stopping, or the pause state changed
+                        }
+                        if (batchPackets > 0) {
+                            recordBatch(batchPackets);
+                        }
+                    }
+                } catch (NotOpenException | PcapNativeException e) {
+                    if (isRunning) {
+                        e.printStackTrace();
+                    }
+                } finally {
+                    onExit.run();
+                }
+            }, threadName);
+            captureThread.setDaemon(true);
+            captureThread.start();
+        }
+
+        // Runs on the capture thread: stamp, filter and pass on
+        private void gotFrame(byte[] rawData, Packet packet, Consumer<CapturedPacket> target, FrameFilter displayFilter) {
+            if (limitReached || paused) {
+                return;
+            }
+            batchPackets++;
+            long timestamp = toMicros(handle.getTimestamp());
+            int originalLength = handle.getOriginalLength();
+            if (displayFilter != null && !displayFilter.test(rawData, rawData.length, originalLength, timestamp)) {
+                return;
+            }
+            CapturedPacket captured = new CapturedPacket(-1, rawData, packet, timestamp, originalLength);
+            captured.interfaceId = id;
+            target.accept(captured);
+        }
+
+        // Capture thread only: libpcap does not support changing the filter during a dispatch
+        private void setPauseFilter(boolean pause) throws NotOpenException {
+            try {
+                if (pause) {
+                    handle.setFilter(PAUSE_FILTER, BpfCompileMode.NONOPTIMIZE);
+                } else {
+                    // An empty expression matches everything
+                    handle.setFilter(filterExpression != null ? filterExpression : "", BpfCompileMode.OPTIMIZE);
+                }
+            } catch (PcapNativeException e) {
+                // The listeners still drop everything while paused, only in user space
+                System.err.println("Could not change the capture filter on " + device.getName() + ": " + e.getMessage());
+            }
+        }
+
+        private void recordBatch(int packets) {
+            PcapStat stat = null;
+            try {
+                stat = handle.getStats();
+            } catch (PcapNativeException | NotOpenException e) {
+                // Not supported on every platform / savefile; keep the previous counters
+            }
+            stats = stats.next(packets, stat, mergeDrops);
+        }
+
+        // Makes the capture thread return from dispatch/loop
+        void wake() {
+            if (handle.isOpen()) {
+                try {
+                    handle.breakLoop();
+                } catch (NotOpenException e) {
+                    // Closed meanwhile
+                }
+            }
+        }
+
+        void close() {
+            wake();
+            if (handle.isOpen()) {
+                handle.close();
+            }
+        }
+    }
+
+    public CaptureEngine(Consumer<List<PacketSummary>> sink, Executor sinkExecutor) {
+        this(sink, sinkExecutor, null, null);
+    }
+
+    // The decode shards intern every packet's addresses and record its traffic for the graph
+    public CaptureEngine(Consumer<List<PacketSummary>> sink, Executor sinkExecutor, AddressDictionary addresses,
+                         TrafficRecorder trafficRecorder) {
+        this.sink = sink;
+        this.sinkExecutor = sinkExecutor;
+        this.addresses = addresses;
+        this.trafficRecorder = trafficRecorder;
+    }
+
+    public void startCapturing(PcapNetworkInterface device, String filterExpression) throws PcapNativeException, NotOpenException, IOException {
+        startCapturing(Collections.singletonList(device), filterExpression);
+    }
+
+    /**
+     * Captures on all the given interfaces at once, with the same BPF filter on each. With
+     * more than one the frames are merged into timestamp order (see PacketMerger) and the
+     * capture file is written as pcapng.
+     */
+    public void startCapturing(List<PcapNetworkInterface> devices, String filterExpression) throws PcapNativeException, NotOpenException, IOException {
+        if (devices.isEmpty()) {
+            throw new IllegalArgumentException("No interface to capture on");
+        }
+        try {
+            isRunning = true;
+            paused = false;
+            limitReached = false;
+            currentDevices = new ArrayList<>(devices);
+            this.filterExpression = filterExpression;
+            nextSequence = 0;
+            runPackets = 0;
+
+            openInterfaces();
+            writer = captureConfig.getOutputFile() != null ? createWriter(false) : null;
+
+            pipeline = createPipeline(captureConfig);
+            startCaptureThreads();
+        } catch (PcapNativeException | NotOpenException | IOException e) {
+            stopCapturing();  // Clean up resources if initialization fails
+            throw e;  // Re-throw the exception to be handled by the caller
+        }
+    }
+
+    // Opens a handle per device; if one fails, those already open are closed by the caller's stopCapturing
+    private void openInterfaces() throws PcapNativeException, NotOpenException {
+        InterfaceCapture[] opened = new InterfaceCapture[currentDevices.size()];
+        interfaces = opened;
+        DataLinkType[] types = new DataLinkType[opened.length];
+        for (int i = 0; i < opened.length; i++) {
+            opened[i] = new InterfaceCapture(i, currentDevices.get(i));
+            types[i] = opened[i].linkType;
+        }
+        linkTypes = types;
+        linkType = types[0];
+    }
+
+    private PcapFileWriter createWriter(boolean append) throws IOException {
+        InterfaceCapture[] captures = interfaces;
+        int[] types = new int[captures.length];
+        String[] names = new String[captures.length];
+        for (int i = 0; i < captures.length; i++) {
+            types[i] = captures[i].linkType.value();
+            names[i] = captures[i].device.getName();
+        }
+        PcapFileWriter fileWriter = new PcapFileWriter(captureConfig, types, names, append);
+        fileWriter.setStatistics(id -> captures[id].stats);
+        return fileWriter;
+    }
+
+    /**
+     * Stops taking packets in without closing anything: the capture threads give their
+     * handles a filter that matches nothing, so the kernel discards traffic instead of
+     * buffering it, and idle on the read timeout. Frames already buffered are dropped by
+     * the listeners. A file replay waits instead.
+     */
+    public void pauseCapturing() {
+        if (paused || sourceDone.getCount() == 0) {
+            return;  // nothing is feeding the pipeline
+        }
+        paused = true;
+        wakeCaptureThreads();
+    }
+
+    /**
+     * Continues a paused capture on the same handles, filter, capture file and sequence
+     * numbers; after a stop, reopens the last interfaces with the same settings and
+     * appends to the same capture file.
+     */
+    public void resumeCapturing() throws PcapNativeException, NotOpenException, IOException {
+        if (paused) {
+            paused = false;
+            wakeCaptureThreads();
+            return;
+        }
+        if (currentDevices.isEmpty()) {
+            throw new IllegalStateException("No network interface was previously captured");
+        }
+        try {
+            isRunning = true;
+            limitReached = false;  // a capture that ended on its limit gets another limit's worth
+            runPackets = 0;
+            openInterfaces();
+            // Continue the existing capture file instead of truncating it
+            writer = captureConfig.getOutputFile() != null ? createWriter(true) : null;
+
+            pipeline = createPipeline(captureConfig);
+            startCaptureThreads();
+        } catch (PcapNativeException | NotOpenException | IOException e) {
+            stopCapturing();
+            throw e;
+        }
+    }
+
+    // Makes the capture threads return from dispatch/loop and look at the pause state
+    private void wakeCaptureThreads() {
+        if (isRunning) {
+            for (InterfaceCapture capture : interfaces) {
+                capture.wake();
+            }
+        }
+    }
+
+    private PcapHandle openHandle(PcapNetworkInterface device) throws PcapNativeException {
+        PcapHandle.Builder builder = new PcapHandle.Builder(device.getName())
+                .snaplen(captureConfig.getSnapshotLength())
+                .promiscuousMode(PcapNetworkInterface.PromiscuousMode.PROMISCUOUS)
+                .timeoutMillis(captureConfig.getReadTimeoutMillis())
+                .immediateMode(captureConfig.isImmediateMode());
+        if (captureConfig.getBufferSize() > 0) {
+            builder.bufferSize(captureConfig.getBufferSize());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Feeds the packets of an opened pcap file through the same decode/publish pipeline
+     * as a live capture. Frames stay in the memory-mapped file; summaries carry their
+     * offsets. The BPF filter, if any, is compiled for the file's link type and applied
+     * here since there is no live handle; with writeOutput the matching packets are also
+     * written to the configured output file.
+     */
+    public void replayFile(PcapFileReader reader, String filterExpression, boolean writeOutput) throws PcapNativeException, IOException {
+        if (isRunning) {
+            stopCapturing();
+        }
+        CapturePipeline previous = pipeline;
+        if (previous != null) {
+            previous.stop();
+        }
+        currentDevices = Collections.emptyList();  // nothing to resume
+        interfaces = new InterfaceCapture[0];
+        merger = null;
+        paused = false;
+        this.filterExpression = filterExpression;
+        linkType = DataLinkType.getInstance(reader.getLinkType());
+        linkTypes = new DataLinkType[] {linkType};
+        BpfProgram filter = filterExpression == null || filterExpression.isEmpty() ? null
+            : Pcaps.compileFilter(reader.getSnapshotLength(), linkType, filterExpression,
+                BpfCompileMode.OPTIMIZE, PcapHandle.PCAP_NETMASK_UNKNOWN);
+        FrameFilter displayFilter = compileFrameFilter(linkType);
+        PcapFileWriter fileWriter = writeOutput && captureConfig.getOutputFile() != null ? new PcapFileWriter(captureConfig, reader.getLinkType(), false) : null;
+        writer = fileWriter;
+
+        // Nothing may be lost when reading from disk: the loader waits for the decoders
+        CaptureConfig offlineConfig = captureConfig.copy();
+        offlineConfig.setBackpressurePolicy(CapturePipeline.BackpressurePolicy.BLOCK);
+        CapturePipeline filePipeline = createPipeline(offlineConfig);
+        pipeline = filePipeline;
+        CountDownLatch done = new CountDownLatch(1);
+        sourceDone = done;
+        long limit = packetLimit;
+
+        Thread loader = new Thread(() -> {
+            try {
+                int count = reader.getPacketCount();
+                long loaded = 0;
+                for (int i = 0; i < count && loaded < limit && filePipeline.isRunning(); i++) {
+                    while (paused && filePipeline.isRunning()) {
+                        LockSupport.parkNanos(PAUSE_POLL_NANOS);
+                    }
+                    byte[] frame = reader.readPacket(i);
+                    if (filter != null && !filter.applyFilter(frame, reader.getOriginalLength(i), frame.length)) {
+                        continue;
+                    }
+                    if (displayFilter != null && !displayFilter.test(frame, frame.length,
+                            reader.getOriginalLength(i), reader.getTimestampMicros(i))) {
+                        continue;
+                    }
+                    CapturedPacket captured = new CapturedPacket(i, frame, null,
+                        reader.getTimestampMicros(i), reader.getOriginalLength(i), reader.getFrameOffset(i));
+                    if (fileWriter != null) {
+                        fileWriter.writeBlocking(captured);
+                    }
+                    filePipeline.publish(captured);
+                    loaded++;
+                }
+            } finally {
+                if (filter != null) {
+                    filter.free();
+                }
+                filePipeline.stop();
+                done.countDown();
+            }
+        }, "pcap-file-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Numbers a frame, queues it for the writer and hands it to the decode stage. Runs on
+     * the single thread feeding both: the capture thread, or the merge thread when there
+     * are several interfaces.
+     */
+    private Consumer<CapturedPacket> createDelivery() {
+        CapturePipeline capturePipeline = pipeline;
+        PcapFileWriter fileWriter = writer;
+        long limit = packetLimit;
+        return captured -> {
+            if (runPackets >= limit) {
+                return;  // already queued by another interface when the limit was reached
+            }
+            captured.sequence = nextSequence++;
+            if (fileWriter != null) {
+                fileWriter.write(captured);
+            }
+            capturePipeline.publish(captured);
+            if (++runPackets >= limit) {
+                limitReached = true;
+            }
+        };
+    }
+
+    private void startCaptureThreads() {
+        InterfaceCapture[] captures = interfaces;
+        CapturePipeline capturePipeline = pipeline;
+        CountDownLatch done = new CountDownLatch(1);
+        sourceDone = done;
+        Consumer<CapturedPacket> delivery = createDelivery();
+        Runnable sourceFinished = () -> {
+            if (limitReached) {
+                capturePipeline.stop();
+            }
+            done.countDown();
+        };
+
+        if (captures.length == 1) {
+            merger = null;
+            captures[0].start(delivery, sourceFinished, "pcap-capture");
+            return;
+        }
+        int queueCapacity = Math.max(1024, captureConfig.getRingCapacity() / captures.length);
+        PacketMerger packetMerger = new PacketMerger(captures.length, queueCapacity,
+            captureConfig.getReorderWindowMillis(), delivery, sourceFinished);
+        merger = packetMerger;
+        packetMerger.start();
+        for (InterfaceCapture capture : captures) {
+            int id = capture.id;
+            capture.start(captured -> {
+                if (!packetMerger.offer(id, captured)) {
+                    capture.mergeDrops++;
+                }
+            }, () -> packetMerger.finish(id), "pcap-capture-" + capture.device.getName());
+        }
+    }
+
+    // A fresh compiled filter for a link type: each capture thread needs its own, and starts its relative times over
+    private FrameFilter compileFrameFilter(DataLinkType dataLinkType) {
+        DisplayFilter filter = frameFilter;
+        return filter != null ? filter.compileFrames(dataLinkType.value()) : null;
+    }
+
+    private static long toMicros(Timestamp timestamp) {
+        return (timestamp.getTime() / 1000) * 1_000_000L + timestamp.getNanos() / 1000;
+    }
+
+    private CapturePipeline createPipeline(CaptureConfig config) {
+        flowTracker.configure(config);
+        dnsTracker.configure(config);
+        tcpMetrics.configure(config);
+        tcpReassembly.configure(config);
+        DataLinkType[] types = linkTypes;
+        int[] values = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            values[i] = types[i].value();
+        }
+        return new CapturePipeline(config, values, this::decodePacket, sink, sinkExecutor);
+    }
+
+    // Runs on the decode shard owning the packet's flow
+    private PacketSummary decodePacket(CapturedPacket captured, int shard) {
+        PacketSummary summary = captured.packet == null ? decodeRaw(captured) : decodeEager(captured);
+        summary.interfaceId = captured.interfaceId;
+        flowTracker.update(summary, shard);
+        dnsTracker.update(summary, shard);
+        tcpMetrics.update(summary, shard);
+        tcpReassembly.update(summary, shard);
+        if (trafficRecorder != null) {
+            // Before the publish queue, so the graph counts rows that backpressure drops later
+            summary.sourceId = addresses.intern(summary.sourceHigh, summary.sourceLow);
+            summary.destId = addresses.intern(summary.destHigh, summary.destLow);
+            if (summary.hasAddresses()) {
+                trafficRecorder.record(summary.sourceId, summary.destId, summary.protocolId,
+                    TrafficInterval.service(summary.ipProtocol, summary.sourcePort, summary.destPort), summary.length);
+            }
+        }
+        return summary;
+    }
+
+    private PacketSummary decodeEager(CapturedPacket captured) {
+        Packet packet = captured.packet;
+        PacketSummary summary = new PacketSummary(captured.sequence, captured.timestampMicros,
+            captured.originalLength, captured.rawData, packet);
+        IpPacket ipPacket = null;
+
+        // First, check if it's a raw 802.11 frame
+        if (packet instanceof EthernetPacket) {
+            EthernetPacket ethernetPacket = (EthernetPacket) packet;
+
+            // Try to get the encapsulated IP packet
+            if (ethernetPacket.getPayload() instanceof IpPacket) {
+                ipPacket = (IpPacket) ethernetPacket.getPayload();
+            }
+        }
+        // Handle IPv4 packets
+        else if (packet.contains(IpV4Packet.class)) {
+            ipPacket = packet.get(IpV4Packet.class);
+        }
+        // Handle IPv6 packets
+        else if (packet.contains(IpV6Packet.class)) {
+            ipPacket = packet.get(IpV6Packet.class);
+        }
+
+        if (ipPacket == null) {
+            return summary;
+        }
+        InetAddress src = ipPacket.getHeader().getSrcAddr();
+        InetAddress dst = ipPacket.getHeader().getDstAddr();
+        summary.protocol = getEncapsulatedProtocol(ipPacket);
+        summary.protocolId = CaptureStore.protocolId(summary.protocol);
+        summary.ipProtocol = ipPacket.getHeader().getProtocol().value() & 0xFF;
+        summary.sourceHigh = IpAddresses.high(src);
+        summary.sourceLow = IpAddresses.low(src);
+        summary.destHigh = IpAddresses.high(dst);
+        summary.destLow = IpAddresses.low(dst);
+        if (ipPacket.getPayload() instanceof TcpPacket) {
+            TcpHeader tcp = ((TcpPacket) ipPacket.getPayload()).getHeader();
+            summary.sourcePort = tcp.getSrcPort().valueAsInt();
+            summary.destPort = tcp.getDstPort().valueAsInt();
+            summary.tcpFlags = tcp.getRawData()[13] & 0xFF;
+        } else if (ipPacket.getPayload() instanceof UdpPacket) {
+            UdpHeader udp = ((UdpPacket) ipPacket.getPayload()).getHeader();
+            summary.sourcePort = udp.getSrcPort().valueAsInt();
+            summary.destPort = udp.getDstPort().valueAsInt();
+        }
+        if (summary.sourcePort >= 0) {
+            // pcap4j does not tell where the payload starts in the frame; the header parser does
+            PacketSummary located = new PacketSummary(0, 0, 0, null, null);
+            if (FrameHeaderParser.parse(captured.rawData, captured.rawData.length,
+                    linkTypes[captured.interfaceId].value(), located)) {
+                summary.payloadOffset = located.payloadOffset;
+                summary.payloadLength = located.payloadLength;
+                summary.tcpSequence = located.tcpSequence;
+                summary.tcpAck = located.tcpAck;
+                summary.tcpWindow = located.tcpWindow;
+            }
+        }
+        return summary;
+    }
+
+    private PacketSummary decodeRaw(CapturedPacket captured) {
+        PacketSummary summary = new PacketSummary(captured.sequence, captured.timestampMicros,
+            captured.originalLength, captured.rawData, null);
+        summary.frameOffset = captured.frameOffset;
+        if (FrameHeaderParser.parse(captured.rawData, captured.rawData.length, linkTypes[captured.interfaceId].value(), summary)) {
+            summary.protocol = CaptureStore.protocolName(summary.protocolId);
+        }
+        return summary;
+    }
+
+    // Column names by IP protocol number, one table per IP version
+    private static final String[] IPV4_PROTOCOLS = protocolTable(FrameHeaderParser.IPPROTO_ICMP, "ICMP");
+    private static final String[] IPV6_PROTOCOLS = protocolTable(FrameHeaderParser.IPPROTO_ICMPV6, "ICMPv6");
+
+    private static String[] protocolTable(int icmp, String icmpName) {
+        String[] names = new String[256];
+        Arrays.fill(names, "IP");
+        names[FrameHeaderParser.IPPROTO_TCP] = "TCP";
+        names[FrameHeaderParser.IPPROTO_UDP] = "UDP";
+        names[icmp] = icmpName;
+        return names;
+    }
+
+    static String getEncapsulatedProtocol(IpPacket ipPacket) {
+        int protocol = ipPacket.getHeader().getProtocol().value() & 0xFF;
+        return (ipPacket instanceof IpV4Packet ? IPV4_PROTOCOLS : IPV6_PROTOCOLS)[protocol];
+    }
+
+    public void stopCapturing() {
+        isRunning = false;
+        paused = false;
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+        PacketMerger packetMerger = merger;
+        if (packetMerger != null) {
+            packetMerger.stop();
+        }
+        for (InterfaceCapture capture : interfaces) {
+            if (capture != null) {  // null when opening a later interface failed
+                capture.close();
+            }
+        }
+        if (writer != null) {
+            try {
+                writer.close();  // drains whatever is still queued
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stops the capture or replay and throws away whatever has not been published yet.
+     * Returns true once no decode shard touches the trackers or the address dictionary
+     * any more, so they can be cleared; may be called on the sink's thread.
+     */
+    public boolean discardPipeline(long timeout, TimeUnit unit) throws InterruptedException {
+        if (isRunning) {
+            stopCapturing();
+        }
+        CapturePipeline current = pipeline;
+        return current == null || current.abort(timeout, unit);
+    }
+
+    /**
+     * Waits until the capture threads (and merger) or the file loader have stopped feeding the pipeline:
+     * the packet limit was reached, the file ended, or the capture was stopped.
+     */
+    public boolean awaitSource(long timeout, TimeUnit unit) throws InterruptedException {
+        return sourceDone.await(timeout, unit);
+    }
+
+    // Waits until every packet fed so far has been decoded and handed to the sink; call after a stop
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        CapturePipeline current = pipeline;
+        return current == null || current.awaitTermination(timeout, unit);
+    }
+
+    // Packets per capture, resume after a stop, or replay, counted after the BPF and frame filters; takes effect on the next start
+    public void setPacketLimit(long packetLimit) {
+        this.packetLimit = packetLimit > 0 ? packetLimit : Long.MAX_VALUE;
+    }
+
+    /**
+     * Drops the frames that do not match a display filter (null keeps everything) on the
+     * capture thread or file loader, after the BPF filter and before the writer, the
+     * decoders and the packet limit see them. Takes effect on the next start/resume/replay.
+     */
+    public void setFrameFilter(DisplayFilter frameFilter) {
+        this.frameFilter = frameFilter;
+    }
+
+    public DisplayFilter getFrameFilter() {
+        return frameFilter;
+    }
+
+    // Returns the file the packets were flushed to
+    public Path flushCapture(long timeoutMillis) throws IOException {
+        PcapFileWriter current = writer;
+        if (current == null) {
+            return null;
+        }
+        if (!current.flush(timeoutMillis)) {
+            throw new IOException("Timed out waiting for the writer, backlog " + current.getStats().getBacklog());
+        }
+        return current.getCurrentFile();
+    }
+
+    // Of the first interface, or of the replayed file
+    public DataLinkType getLinkType() {
+        return linkType;
+    }
+
+    public DataLinkType getLinkType(int interfaceId) {
+        return linkTypes[interfaceId];
+    }
+
+    // Of the interfaces of the current or last capture, by interface id; empty for a replay
+    public String[] getInterfaceNames() {
+        InterfaceCapture[] captures = interfaces;
+        String[] names = new String[captures.length];
+        for (int i = 0; i < captures.length; i++) {
+            names[i] = captures[i] != null ? captures[i].device.getName() : null;
+        }
+        return names;
+    }
+
+    public int getInterfaceCount() {
+        return interfaces.length;
+    }
+
+    public FlowTracker getFlowTracker() {
+        return flowTracker;
+    }
+
+    public DnsTracker getDnsTracker() {
+        return dnsTracker;
+    }
+
+    public TcpMetricsTracker getTcpMetrics() {
+        return tcpMetrics;
+    }
+
+    // Streams stay open across pause/resume; call closeAll() once the pipeline has drained to flush them
+    public TcpReassembly getTcpReassembly() {
+        return tcpReassembly;
+    }
+
+    public WriterStats getWriterStats() {
+        PcapFileWriter current = writer;
+        return current != null ? current.getStats() : WriterStats.EMPTY;
+    }
+
+    public CaptureConfig getCaptureConfig() {
+        return captureConfig;
+    }
+
+    // Takes effect on the next start/resume
+    public void setCaptureConfig(CaptureConfig captureConfig) {
+        this.captureConfig = captureConfig;
+    }
+
+    // Summed over all interfaces
+    public CaptureStats getCaptureStats() {
+        InterfaceCapture[] captures = interfaces;
+        CaptureStats[] stats = new CaptureStats[captures.length];
+        for (int i = 0; i < captures.length; i++) {
+            stats[i] = captures[i] != null ? captures[i].stats : CaptureStats.EMPTY;
+        }
+        return CaptureStats.sum(stats);
+    }
+
+    public CaptureStats getCaptureStats(int interfaceId) {
+        InterfaceCapture capture = interfaces[interfaceId];
+        return capture != null ? capture.stats : CaptureStats.EMPTY;
+    }
+
+    // Packets the merger had to hand on out of timestamp order; 0 with a single interface
+    public long getLatePackets() {
+        PacketMerger packetMerger = merger;
+        return packetMerger != null ? packetMerger.getLate() : 0;
+    }
+
+    public PipelineStats getPipelineStats() {
+        CapturePipeline current = pipeline;
+        return current != null ? current.getStats() : PipelineStats.EMPTY;
+    }
+
+    // True while a live capture is running, paused or not
+    public boolean isCapturing() {
+        return isRunning;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
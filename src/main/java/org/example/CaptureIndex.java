@@ -0,0 +1,129 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over a CaptureStore, maintained as rows are appended: a RowSet per
+ * protocol, per source and destination address id, per source and destination port and
+ * per capture second. A display filter ORs and ANDs these instead of scanning the rows,
+ * so re-filtering a large capture costs about a bitmap's worth of work per term. Costs
+ * a few bytes per row and index. Appended and read on the EDT, like the store.
+ */
+public class CaptureIndex {
+
+    private static final int PORTS = 65536;
+
+    private final RowSet[] byProtocol = new RowSet[CaptureStore.PROTOCOL_COUNT];
+    private RowSet[] bySource = new RowSet[0];
+    private RowSet[] byDest = new RowSet[0];
+    private RowSet[] bySourcePort;  // allocated with the first port
+    private RowSet[] byDestPort;
+    private final TreeMap<Long, RowSet> bySecond = new TreeMap<>();
+    private long lastSecond = Long.MIN_VALUE;
+    private RowSet lastSecondRows;
+
+    public CaptureIndex() {
+        clear();
+    }
+
+    // Ports are 0 when the packet has none
+    void add(int row, long timestampMicros, int sourceId, int destId, int protocolId, int sourcePort, int destPort) {
+        byProtocol[protocolId].add(row);
+        bySource = addTo(bySource, sourceId, row);
+        byDest = addTo(byDest, destId, row);
+        if (sourcePort > 0 || destPort > 0) {
+            if (bySourcePort == null) {
+                bySourcePort = new RowSet[PORTS];
+                byDestPort = new RowSet[PORTS];
+            }
+            addTo(bySourcePort, sourcePort, row);
+            addTo(byDestPort, destPort, row);
+        }
+        // Rows come in capture order, so nearly every row lands in the same second as the one before
+        long second = Math.floorDiv(timestampMicros, 1_000_000L);
+        if (second != lastSecond) {
+            lastSecond = second;
+            lastSecondRows = bySecond.computeIfAbsent(second, s -> new RowSet());
+        }
+        lastSecondRows.add(row);
+    }
+
+    private static RowSet[] addTo(RowSet[] sets, int key, int row) {
+        if (key >= sets.length) {
+            sets = Arrays.copyOf(sets, Math.max(key + 1, sets.length * 2));
+        }
+        RowSet set = sets[key];
+        if (set == null) {
+            set = new RowSet();
+            sets[key] = set;
+        }
+        set.add(row);
+        return sets;
+    }
+
+    // The rows of a key, or null when there are none
+    public RowSet getProtocol(int protocolId) {
+        return protocolId >= 0 && protocolId < byProtocol.length ? byProtocol[protocolId] : null;
+    }
+
+    public RowSet getSource(int addressId) {
+        return addressId >= 0 && addressId < bySource.length ? bySource[addressId] : null;
+    }
+
+    public RowSet getDest(int addressId) {
+        return addressId >= 0 && addressId < byDest.length ? byDest[addressId] : null;
+    }
+
+    public RowSet getSourcePort(int port) {
+        return bySourcePort != null && port >= 0 && port < PORTS ? bySourcePort[port] : null;
+    }
+
+    public RowSet getDestPort(int port) {
+        return byDestPort != null && port >= 0 && port < PORTS ? byDestPort[port] : null;
+    }
+
+    // Rows captured in the seconds from..to (epoch seconds, inclusive)
+    public Collection<RowSet> getSeconds(long fromSecond, long toSecond) {
+        return bySecond.subMap(fromSecond, true, toSecond, true).values();
+    }
+
+    public long getMemoryUsage() {
+        long bytes = 0;
+        for (RowSet set : byProtocol) {
+            bytes += set.getMemoryUsage();
+        }
+        bytes += memoryUsage(bySource) + memoryUsage(byDest) + memoryUsage(bySourcePort) + memoryUsage(byDestPort);
+        for (RowSet set : bySecond.values()) {
+            bytes += set.getMemoryUsage();
+        }
+        return bytes;
+    }
+
+    private static long memoryUsage(RowSet[] sets) {
+        if (sets == null) {
+            return 0;
+        }
+        long bytes = sets.length * 4L;
+        for (RowSet set : sets) {
+            if (set != null) {
+                bytes += set.getMemoryUsage();
+            }
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        for (int i = 0; i < byProtocol.length; i++) {
+            byProtocol[i] = new RowSet();
+        }
+        bySource = new RowSet[0];
+        byDest = new RowSet[0];
+        bySourcePort = null;
+        byDestPort = null;
+        bySecond.clear();
+        lastSecond = Long.MIN_VALUE;
+        lastSecondRows = null;
+    }
+}
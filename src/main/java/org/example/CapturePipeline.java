@@ -0,0 +1,309 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Staged packet pipeline: capture thread -> per-shard ring buffers -> decode shards ->
+ * publish queue -> batched publisher. The capture thread hashes each frame's 5-tuple
+ * symmetrically (FrameHeaderParser.flowHash) to pick a shard, so both directions of a
+ * flow are decoded by the same thread in capture order and per-flow state needs no locks.
+ * The publisher hands at most maxRowsPerFrame summaries to the sink per tick, through the
+ * given executor (SwingUtilities::invokeLater for the GUI), and never has more than one
+ * frame in flight.
+ */
+public class CapturePipeline {
+
+    public enum BackpressurePolicy {
+        DROP_NEWEST,  // ring full: discard the packet just captured
+        DROP_OLDEST,  // ring full: discard the oldest queued packet to make room
+        BLOCK         // ring full: stall the capture thread, libpcap buffers (and counts) the overflow;
+                      // publish queue full: stall the decode shard, so nothing is dropped after the ring
+    }
+
+    // One decode thread with its own single-producer ring
+    private static class DecodeShard {
+        final PacketRingBuffer<CapturedPacket> ring;
+        final Thread thread;
+        volatile long enqueued;      // capture thread only
+        volatile long dropped;       // capture thread only
+        final AtomicLong decoded = new AtomicLong();
+
+        DecodeShard(int capacity, Runnable loop, int index) {
+            ring = new PacketRingBuffer<>(capacity);
+            thread = new Thread(loop, "pipeline-decode-" + index);
+            thread.setDaemon(true);
+        }
+    }
+
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final DecodeShard[] shards;
+    private final int[] linkTypes;  // per interface id
+    private final ConcurrentLinkedQueue<PacketSummary> publishQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger publishQueueDepth = new AtomicInteger();
+    private final int publishQueueCapacity;
+    private final int maxRowsPerFrame;
+    private final BackpressurePolicy policy;
+    private final PacketDecoder decoder;
+    private final Consumer<List<PacketSummary>> sink;
+    private final Executor sinkExecutor;
+    private final ScheduledExecutorService publisher;
+    private final AtomicBoolean frameInFlight = new AtomicBoolean();
+    private volatile boolean running = true;
+    private volatile boolean aborted;  // stop decoding and publishing, drop whatever is queued
+
+    private volatile long captured;           // capture thread only
+    private final AtomicLong droppedAtDecode = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    public CapturePipeline(CaptureConfig config, int linkType,
+                           PacketDecoder decoder,
+                           Consumer<List<PacketSummary>> sink,
+                           Executor sinkExecutor) {
+        this(config, new int[] {linkType}, decoder, sink, sinkExecutor);
+    }
+
+    // Packets from several interfaces, each with its own link type, indexed by CapturedPacket.interfaceId
+    public CapturePipeline(CaptureConfig config, int[] linkTypes,
+                           PacketDecoder decoder,
+                           Consumer<List<PacketSummary>> sink,
+                           Executor sinkExecutor) {
+        this.linkTypes = linkTypes.clone();
+        this.publishQueueCapacity = config.getPublishQueueCapacity();
+        this.maxRowsPerFrame = config.getMaxRowsPerFrame();
+        this.policy = config.getBackpressurePolicy();
+        this.decoder = decoder;
+        this.sink = sink;
+        this.sinkExecutor = sinkExecutor;
+
+        // The ring capacity is shared out between the shards
+        int workers = config.getDecodeWorkers();
+        int shardCapacity = Math.max(1024, config.getRingCapacity() / workers);
+        shards = new DecodeShard[workers];
+        for (int i = 0; i < workers; i++) {
+            int index = i;
+            shards[i] = new DecodeShard(shardCapacity, () -> decodeLoop(index), i);
+        }
+        for (DecodeShard shard : shards) {
+            shard.thread.start();
+        }
+
+        publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pipeline-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleAtFixedRate(this::publishFrame,
+            config.getUiRefreshMillis(), config.getUiRefreshMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Called by the capture thread only
+    public boolean publish(CapturedPacket packet) {
+        captured++;
+        DecodeShard shard = shards.length == 1 ? shards[0]
+            : shards[Math.floorMod(FrameHeaderParser.flowHash(packet.rawData, packet.rawData.length,
+                linkTypes[packet.interfaceId]), shards.length)];
+        shard.enqueued++;
+        PacketRingBuffer<CapturedPacket> ring = shard.ring;
+        if (ring.offer(packet)) {
+            return true;
+        }
+        switch (policy) {
+            case DROP_OLDEST:
+                while (!ring.offer(packet)) {
+                    if (ring.poll() != null) {
+                        shard.dropped++;
+                    }
+                }
+                return true;
+            case BLOCK:
+                while (!ring.offer(packet)) {
+                    if (!running) {
+                        shard.dropped++;
+                        return false;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS / 10);
+                }
+                return true;
+            case DROP_NEWEST:
+            default:
+                shard.dropped++;
+                return false;
+        }
+    }
+
+    private void decodeLoop(int index) {
+        DecodeShard shard = shards[index];
+        PacketRingBuffer<CapturedPacket> ring = shard.ring;
+        while (!aborted && (running || !ring.isEmpty())) {
+            CapturedPacket packet = ring.poll();
+            if (packet == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            PacketSummary summary;
+            try {
+                summary = decoder.decode(packet, index);
+            } catch (RuntimeException e) {
+                droppedAtDecode.incrementAndGet();
+                continue;
+            }
+            shard.decoded.incrementAndGet();
+            if (summary == null) {
+                continue;
+            }
+            if (!reservePublishSlot()) {
+                droppedAtDecode.incrementAndGet();
+                continue;
+            }
+            publishQueue.offer(summary);
+        }
+    }
+
+    // Claims room in the publish queue; under BLOCK waits for the publisher instead of giving up
+    private boolean reservePublishSlot() {
+        while (true) {
+            int depth = publishQueueDepth.get();
+            if (depth < publishQueueCapacity) {
+                if (publishQueueDepth.compareAndSet(depth, depth + 1)) {
+                    return true;
+                }
+            } else if (policy == BackpressurePolicy.BLOCK && !aborted) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            } else {
+                return false;
+            }
+        }
+    }
+
+    private void publishFrame() {
+        // Checked before the queue: a shard that has exited has queued its last rows already
+        boolean finished = !running && decodeWorkersDone();
+        if (aborted) {
+            if (finished) {
+                publisher.shutdown();
+            }
+            return;
+        }
+        if (publishQueue.isEmpty()) {
+            if (finished) {
+                publisher.shutdown();
+            }
+            return;
+        }
+        // Let the EDT catch up before handing it another frame
+        if (!frameInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        List<PacketSummary> batch = new ArrayList<>(Math.min(maxRowsPerFrame, publishQueueDepth.get()));
+        PacketSummary summary;
+        while (batch.size() < maxRowsPerFrame && (summary = publishQueue.poll()) != null) {
+            batch.add(summary);
+        }
+        publishQueueDepth.addAndGet(-batch.size());
+        // Shards run independently, keep rows in capture order within a frame
+        batch.sort(Comparator.comparingLong(s -> s.sequence));
+
+        try {
+            sinkExecutor.execute(() -> {
+                try {
+                    if (!aborted) {  // checked on the sink's thread, so nothing arrives after abort()
+                        sink.accept(batch);
+                        published.addAndGet(batch.size());
+                        frames.incrementAndGet();
+                    }
+                } finally {
+                    frameInFlight.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // A rejected frame is dropped and counted; rethrowing would cancel the publisher
+            // for good and leave shards blocked on a full publish queue
+            frameInFlight.set(false);
+            droppedAtDecode.addAndGet(batch.size());
+        }
+    }
+
+    private boolean decodeWorkersDone() {
+        for (DecodeShard shard : shards) {
+            if (shard.thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    // Stops accepting packets; queued packets are still decoded and published
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops at once, discarding every packet and row not yet handed to the sink, and waits
+     * until the decode shards have exited. Unlike awaitTermination it does not need the
+     * sink executor to run anything, so it may be called from the sink's thread.
+     */
+    public boolean abort(long timeout, TimeUnit unit) throws InterruptedException {
+        aborted = true;
+        running = false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (DecodeShard shard : shards) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.timedJoin(shard.thread, remaining);
+            }
+        }
+        return decodeWorkersDone();
+    }
+
+    /**
+     * After stop(): waits until the decode shards are idle and the last frame has been
+     * handed to the sink executor. With a direct executor the sink has then seen every row.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return publisher.awaitTermination(timeout, unit);
+    }
+
+    public PipelineStats getStats() {
+        int shardCount = shards.length;
+        int ringDepth = 0;
+        long droppedAtCapture = 0;
+        long decoded = 0;
+        long[] shardPackets = new long[shardCount];
+        long[] shardDrops = new long[shardCount];
+        int[] shardDepths = new int[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            DecodeShard shard = shards[i];
+            shardPackets[i] = shard.enqueued;
+            shardDrops[i] = shard.dropped;
+            shardDepths[i] = shard.ring.size();
+            ringDepth += shardDepths[i];
+            droppedAtCapture += shardDrops[i];
+            decoded += shard.decoded.get();
+        }
+        return new PipelineStats(ringDepth, publishQueueDepth.get(), captured, droppedAtCapture,
+            decoded, droppedAtDecode.get(), published.get(), frames.get(),
+            shardPackets, shardDrops, shardDepths);
+    }
+}
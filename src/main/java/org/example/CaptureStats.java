@@ -0,0 +1,117 @@
+package org.example;
+
+import org.pcap4j.core.PcapStat;
+
+// Immutable snapshot of the capture engine counters for one interface (or all of them, see sum), taken after every batch
+public class CaptureStats {
+
+    public static final CaptureStats EMPTY = new CaptureStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long batches;
+    private final int lastBatchSize;
+    private final long packetsDelivered;
+    private final long packetsReceived;        // seen by the kernel filter (pcap ps_recv)
+    private final long droppedByKernel;        // no room in the libpcap buffer (pcap ps_drop)
+    private final long droppedByInterface;     // dropped by the NIC / driver (pcap ps_ifdrop)
+    private final long lastBatchKernelDrops;
+    private final long lastBatchInterfaceDrops;
+    private final long droppedAtMerge;         // no room in the interface's queue to the merge
+
+    CaptureStats(long batches, int lastBatchSize, long packetsDelivered, long packetsReceived,
+                 long droppedByKernel, long droppedByInterface,
+                 long lastBatchKernelDrops, long lastBatchInterfaceDrops, long droppedAtMerge) {
+        this.batches = batches;
+        this.lastBatchSize = lastBatchSize;
+        this.packetsDelivered = packetsDelivered;
+        this.packetsReceived = packetsReceived;
+        this.droppedByKernel = droppedByKernel;
+        this.droppedByInterface = droppedByInterface;
+        this.lastBatchKernelDrops = lastBatchKernelDrops;
+        this.lastBatchInterfaceDrops = lastBatchInterfaceDrops;
+        this.droppedAtMerge = droppedAtMerge;
+    }
+
+    // Builds the next snapshot from the previous one and the cumulative libpcap and merge counters
+    CaptureStats next(int batchSize, PcapStat stat, long mergeDrops) {
+        long dropped = stat != null ? stat.getNumPacketsDropped() : droppedByKernel;
+        long ifDropped = stat != null ? stat.getNumPacketsDroppedByIf() : droppedByInterface;
+        long received = stat != null ? stat.getNumPacketsReceived() : packetsReceived;
+        return new CaptureStats(batches + 1, batchSize, packetsDelivered + batchSize, received,
+            dropped, ifDropped, dropped - droppedByKernel, ifDropped - droppedByInterface, mergeDrops);
+    }
+
+    // Totals over several interfaces; the last batch is the sum of each one's last batch
+    static CaptureStats sum(CaptureStats[] stats) {
+        if (stats.length == 1) {
+            return stats[0];
+        }
+        long batches = 0;
+        int lastBatchSize = 0;
+        long delivered = 0;
+        long received = 0;
+        long kernelDrops = 0;
+        long interfaceDrops = 0;
+        long lastKernelDrops = 0;
+        long lastInterfaceDrops = 0;
+        long mergeDrops = 0;
+        for (CaptureStats stat : stats) {
+            batches += stat.batches;
+            lastBatchSize += stat.lastBatchSize;
+            delivered += stat.packetsDelivered;
+            received += stat.packetsReceived;
+            kernelDrops += stat.droppedByKernel;
+            interfaceDrops += stat.droppedByInterface;
+            lastKernelDrops += stat.lastBatchKernelDrops;
+            lastInterfaceDrops += stat.lastBatchInterfaceDrops;
+            mergeDrops += stat.droppedAtMerge;
+        }
+        return new CaptureStats(batches, lastBatchSize, delivered, received, kernelDrops, interfaceDrops,
+            lastKernelDrops, lastInterfaceDrops, mergeDrops);
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public long getPacketsDelivered() {
+        return packetsDelivered;
+    }
+
+    public long getPacketsReceived() {
+        return packetsReceived;
+    }
+
+    public long getDroppedByKernel() {
+        return droppedByKernel;
+    }
+
+    public long getDroppedByInterface() {
+        return droppedByInterface;
+    }
+
+    public long getLastBatchKernelDrops() {
+        return lastBatchKernelDrops;
+    }
+
+    public long getLastBatchInterfaceDrops() {
+        return lastBatchInterfaceDrops;
+    }
+
+    public long getDroppedAtMerge() {
+        return droppedAtMerge;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0.0 : (double) packetsDelivered / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Received: %d | Delivered: %d | Kernel drops: %d | Interface drops: %d | Merge drops: %d | Avg batch: %.1f",
+            packetsReceived, packetsDelivered, droppedByKernel, droppedByInterface, droppedAtMerge, getAverageBatchSize());
+    }
+}
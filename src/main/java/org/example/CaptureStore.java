@@ -0,0 +1,217 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Columnar store of captured packet summaries. Each column is a list of fixed-size
+ * primitive chunks, so appending never copies existing rows and a packet costs about
+ * 39 bytes instead of a fully decoded pcap4j object graph. Addresses are ids from an
+ * AddressDictionary and only become text when a cell is painted. The raw bytes live in a
+ * FrameSource and are located through the frame offset column. Every row is also added
+ * to the CaptureIndex the display filter runs on. Rows are appended and read on the EDT.
+ */
+public class CaptureStore {
+
+    public static final int PROTO_UNKNOWN = 0;
+    public static final int PROTO_IP = 1;
+    public static final int PROTO_TCP = 2;
+    public static final int PROTO_UDP = 3;
+    public static final int PROTO_ICMP = 4;
+    public static final int PROTO_ICMPV6 = 5;
+    private static final String[] PROTOCOL_NAMES = {"Unknown", "IP", "TCP", "UDP", "ICMP", "ICMPv6"};
+    public static final int PROTOCOL_COUNT = PROTOCOL_NAMES.length;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final AddressDictionary addresses;
+    private long[][] timestamps = new long[0][];   // microseconds since the epoch
+    private int[][] lengths = new int[0][];
+    private int[][] sourceIds = new int[0][];      // AddressDictionary ids
+    private int[][] destIds = new int[0][];
+    private byte[][] protocols = new byte[0][];
+    private int[][] capturedLengths = new int[0][];
+    private long[][] frameOffsets = new long[0][];  // location of the raw frame in the FrameSource
+    private char[][] sourcePorts = new char[0][];   // 0 = no port
+    private char[][] destPorts = new char[0][];
+    private byte[][] tcpFlags = new byte[0][];
+    private byte[][] interfaces = new byte[0][];   // CaptureEngine interface id
+    private final CaptureIndex index = new CaptureIndex();
+    private int size;
+
+    public CaptureStore(AddressDictionary addresses) {
+        this.addresses = addresses;
+    }
+
+    public static int protocolId(String protocol) {
+        switch (protocol) {
+            case "IP": return PROTO_IP;
+            case "TCP": return PROTO_TCP;
+            case "UDP": return PROTO_UDP;
+            case "ICMP": return PROTO_ICMP;
+            case "ICMPv6": return PROTO_ICMPV6;
+            default: return PROTO_UNKNOWN;
+        }
+    }
+
+    public static String protocolName(int protocolId) {
+        return protocolId >= 0 && protocolId < PROTOCOL_NAMES.length ? PROTOCOL_NAMES[protocolId] : "Unknown";
+    }
+
+    // Returns the index of the new row; ports are -1 (or 0) when the packet has none
+    public int append(long timestampMicros, int length, int capturedLength, int sourceId, int destId,
+                      int protocolId, int sourcePort, int destPort, int flags, long frameOffset, int interfaceId) {
+        int index = size;
+        int chunk = index >>> CHUNK_BITS;
+        if (chunk == timestamps.length) {
+            addChunk();
+        }
+        int slot = index & CHUNK_MASK;
+        timestamps[chunk][slot] = timestampMicros;
+        lengths[chunk][slot] = length;
+        sourceIds[chunk][slot] = sourceId;
+        destIds[chunk][slot] = destId;
+        protocols[chunk][slot] = (byte) protocolId;
+        capturedLengths[chunk][slot] = capturedLength;
+        frameOffsets[chunk][slot] = frameOffset;
+        sourcePorts[chunk][slot] = (char) Math.max(sourcePort, 0);
+        destPorts[chunk][slot] = (char) Math.max(destPort, 0);
+        tcpFlags[chunk][slot] = (byte) flags;
+        interfaces[chunk][slot] = (byte) interfaceId;
+        this.index.add(index, timestampMicros, sourceId, destId, protocolId, Math.max(sourcePort, 0), Math.max(destPort, 0));
+        size = index + 1;
+        return index;
+    }
+
+    private void addChunk() {
+        int chunks = timestamps.length + 1;
+        timestamps = Arrays.copyOf(timestamps, chunks);
+        lengths = Arrays.copyOf(lengths, chunks);
+        sourceIds = Arrays.copyOf(sourceIds, chunks);
+        destIds = Arrays.copyOf(destIds, chunks);
+        protocols = Arrays.copyOf(protocols, chunks);
+        capturedLengths = Arrays.copyOf(capturedLengths, chunks);
+        frameOffsets = Arrays.copyOf(frameOffsets, chunks);
+        sourcePorts = Arrays.copyOf(sourcePorts, chunks);
+        destPorts = Arrays.copyOf(destPorts, chunks);
+        tcpFlags = Arrays.copyOf(tcpFlags, chunks);
+        interfaces = Arrays.copyOf(interfaces, chunks);
+
+        int last = chunks - 1;
+        timestamps[last] = new long[CHUNK_SIZE];
+        lengths[last] = new int[CHUNK_SIZE];
+        sourceIds[last] = new int[CHUNK_SIZE];
+        destIds[last] = new int[CHUNK_SIZE];
+        protocols[last] = new byte[CHUNK_SIZE];
+        capturedLengths[last] = new int[CHUNK_SIZE];
+        frameOffsets[last] = new long[CHUNK_SIZE];
+        sourcePorts[last] = new char[CHUNK_SIZE];
+        destPorts[last] = new char[CHUNK_SIZE];
+        tcpFlags[last] = new byte[CHUNK_SIZE];
+        interfaces[last] = new byte[CHUNK_SIZE];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getLength(int index) {
+        return lengths[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getSourceId(int index) {
+        return sourceIds[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getDestId(int index) {
+        return destIds[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public long getSourceHigh(int index) {
+        return addresses.getHigh(getSourceId(index));
+    }
+
+    public long getSourceLow(int index) {
+        return addresses.getLow(getSourceId(index));
+    }
+
+    public long getDestHigh(int index) {
+        return addresses.getHigh(getDestId(index));
+    }
+
+    public long getDestLow(int index) {
+        return addresses.getLow(getDestId(index));
+    }
+
+    public AddressDictionary getAddresses() {
+        return addresses;
+    }
+
+    public int getProtocol(int index) {
+        return protocols[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getCapturedLength(int index) {
+        return capturedLengths[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public long getFrameOffset(int index) {
+        return frameOffsets[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    // 0 when the packet has no port
+    public int getSourcePort(int index) {
+        return sourcePorts[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getDestPort(int index) {
+        return destPorts[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    public int getTcpFlags(int index) {
+        return tcpFlags[index >>> CHUNK_BITS][index & CHUNK_MASK] & 0xFF;
+    }
+
+    public int getInterface(int index) {
+        return interfaces[index >>> CHUNK_BITS][index & CHUNK_MASK] & 0xFF;
+    }
+
+    public CaptureIndex getIndex() {
+        return index;
+    }
+
+    // Unknown addresses have id 0 and format as "Unknown"
+    public String getSourceAddress(int index) {
+        return addresses.format(getSourceId(index));
+    }
+
+    public String getDestAddress(int index) {
+        return addresses.format(getDestId(index));
+    }
+
+    public long getMemoryUsage() {
+        long perChunk = CHUNK_SIZE * (8L + 4 + 4 + 4 + 4 + 1 + 8 + 2 + 2 + 1 + 1);
+        return timestamps.length * perChunk + addresses.getMemoryUsage() + index.getMemoryUsage();
+    }
+
+    public void clear() {
+        timestamps = new long[0][];
+        lengths = new int[0][];
+        sourceIds = new int[0][];
+        destIds = new int[0][];
+        protocols = new byte[0][];
+        capturedLengths = new int[0][];
+        frameOffsets = new long[0][];
+        sourcePorts = new char[0][];
+        destPorts = new char[0][];
+        tcpFlags = new byte[0][];
+        interfaces = new byte[0][];
+        index.clear();
+        size = 0;
+    }
+}
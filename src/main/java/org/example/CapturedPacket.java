@@ -0,0 +1,28 @@
+package org.example;
+
+import org.pcap4j.packet.Packet;
+
+// A frame as handed from the capture thread to the decode stage
+public class CapturedPacket {
+    long sequence;                // assigned by the single thread feeding the pipeline
+    final byte[] rawData;
+    final Packet packet;          // only set when pcap4j already decoded the frame (eager mode)
+    final long timestampMicros;
+    final int originalLength;
+    final long frameOffset;       // location in an existing FrameSource (offline file), -1 for live frames
+    int interfaceId;              // index of the capturing interface, 0 with a single one
+
+    CapturedPacket(long sequence, byte[] rawData, Packet packet, long timestampMicros, int originalLength) {
+        this(sequence, rawData, packet, timestampMicros, originalLength, -1);
+    }
+
+    CapturedPacket(long sequence, byte[] rawData, Packet packet, long timestampMicros, int originalLength,
+                   long frameOffset) {
+        this.sequence = sequence;
+        this.rawData = rawData;
+        this.packet = packet;
+        this.timestampMicros = timestampMicros;
+        this.originalLength = originalLength;
+        this.frameOffset = frameOffset;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed pool of CHUNK_SIZE byte chunks in one direct ByteBuffer, for the out-of-order
+ * segments TcpReassembler holds back. The memory is allocated once, outside the Java
+ * heap, and never grows: when every chunk is in use allocate() returns -1 and the caller
+ * has to give some back. Chunks are numbered; each carries the sequence number and
+ * length of the bytes in it and a link to the next chunk, so buffered segments form
+ * lists without any objects. Free chunks are kept on a stack. Not thread-safe; every
+ * reassembler has its own pool.
+ */
+public class ChunkPool {
+
+    public static final int CHUNK_SIZE = 2048;  // a full-size Ethernet segment fits one chunk
+
+    private final ByteBuffer memory;
+    private final int chunkCount;
+    private final long[] sequences;
+    private final int[] lengths;
+    private final int[] next;       // list link, -1 at the end
+    private final int[] free;       // stack of free chunk numbers
+    private int freeCount;
+
+    public ChunkPool(long capacityBytes) {
+        chunkCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE / CHUNK_SIZE, capacityBytes / CHUNK_SIZE));
+        memory = ByteBuffer.allocateDirect(chunkCount * CHUNK_SIZE);
+        sequences = new long[chunkCount];
+        lengths = new int[chunkCount];
+        next = new int[chunkCount];
+        free = new int[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            free[i] = chunkCount - 1 - i;
+        }
+        freeCount = chunkCount;
+    }
+
+    // Returns a chunk number, or -1 when the pool is used up
+    public int allocate() {
+        if (freeCount == 0) {
+            return -1;
+        }
+        int chunk = free[--freeCount];
+        next[chunk] = -1;
+        lengths[chunk] = 0;
+        return chunk;
+    }
+
+    public void release(int chunk) {
+        free[freeCount++] = chunk;
+    }
+
+    // Releases a whole list
+    public void releaseAll(int head) {
+        while (head >= 0) {
+            int following = next[head];
+            release(head);
+            head = following;
+        }
+    }
+
+    // Up to CHUNK_SIZE bytes of a segment that starts at the given sequence number
+    public void write(int chunk, long sequence, byte[] data, int offset, int length) {
+        memory.position(chunk * CHUNK_SIZE);
+        memory.put(data, offset, length);
+        sequences[chunk] = sequence;
+        lengths[chunk] = length;
+    }
+
+    // Copies length bytes, starting skip bytes into the chunk, to data
+    public void read(int chunk, int skip, byte[] data, int offset, int length) {
+        memory.position(chunk * CHUNK_SIZE + skip);
+        memory.get(data, offset, length);
+    }
+
+    public long getSequence(int chunk) {
+        return sequences[chunk];
+    }
+
+    public int getLength(int chunk) {
+        return lengths[chunk];
+    }
+
+    public int getNext(int chunk) {
+        return next[chunk];
+    }
+
+    public void setNext(int chunk, int following) {
+        next[chunk] = following;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    public long getCapacityBytes() {
+        return (long) chunkCount * CHUNK_SIZE;
+    }
+
+    public long getUsedBytes() {
+        return (long) (chunkCount - freeCount) * CHUNK_SIZE;
+    }
+}
@@ -0,0 +1,75 @@
+package org.example;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Conversations view: the busiest flows from the FlowTracker, refreshed by the window
+public class ConversationTableModel extends AbstractTableModel {
+
+    public static final int MAX_ROWS = 5000;
+
+    private static final String[] COLUMN_NAMES = {"Protocol", "Address A", "Port A", "Address B", "Port B",
+        "Packets A->B", "Packets B->A", "Bytes A->B", "Bytes B->A", "Duration (s)", "State"};
+
+    private final FlowTracker tracker;
+    private List<FlowRecord> rows = new ArrayList<>();
+
+    public ConversationTableModel(FlowTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    // Takes a fresh snapshot; must be called on the EDT
+    public void refresh() {
+        rows = tracker.topConversations(MAX_ROWS);
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 2:
+            case 4: return Integer.class;
+            case 5:
+            case 6:
+            case 7:
+            case 8: return Long.class;
+            case 9: return Double.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        FlowRecord flow = rows.get(row);
+        switch (column) {
+            case 0: return flow.getProtocolName();
+            case 1: return flow.getAddressA();
+            case 2: return flow.aPort;
+            case 3: return flow.getAddressB();
+            case 4: return flow.bPort;
+            case 5: return flow.packetsAB;
+            case 6: return flow.packetsBA;
+            case 7: return flow.bytesAB;
+            case 8: return flow.bytesBA;
+            case 9: return Math.round(flow.getDurationSeconds() * 1000) / 1000.0;
+            case 10: return flow.getState();
+            default: return null;
+        }
+    }
+}
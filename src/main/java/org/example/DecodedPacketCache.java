@@ -0,0 +1,48 @@
+package org.example;
+
+import org.pcap4j.packet.Packet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LRUs of fully decoded packets and of their rendered details by row index, so scrolling back and forth does not re-decode
+public class DecodedPacketCache {
+
+    private final Map<Integer, Packet> packets;
+    private final Map<Integer, String> details;
+
+    public DecodedPacketCache(int capacity) {
+        this.packets = lru(capacity);
+        this.details = lru(capacity);
+    }
+
+    private static <V> Map<Integer, V> lru(int capacity) {
+        return new LinkedHashMap<Integer, V>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized Packet get(int index) {
+        return packets.get(index);
+    }
+
+    public synchronized void put(int index, Packet packet) {
+        packets.put(index, packet);
+    }
+
+    public synchronized String getDetails(int index) {
+        return details.get(index);
+    }
+
+    public synchronized void putDetails(int index, String text) {
+        details.put(index, text);
+    }
+
+    public synchronized void clear() {
+        packets.clear();
+        details.clear();
+    }
+}
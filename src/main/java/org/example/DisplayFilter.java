@@ -0,0 +1,950 @@
+package org.example;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongPredicate;
+
+/**
+ * Display filter over the captured packets, in a small Wireshark-like language:
+ *
+ *   ip.addr == 10.0.0.1, ip.src == 10.0.0.0/8, ip.dst != fe80::1
+ *   port == 443, tcp.port == 80, udp.dstport == 53, tcp.srcport > 1024
+ *   tcp, udp, icmp, icmpv6, ip, proto == udp
+ *   len > 1000, frame.len <= 64
+ *   tcp.flags.syn, tcp.flags == 0x12, tcp.flags & 0x04
+ *   frame.time >= "12:30:00", frame.time < "2026-01-31 08:00:00", frame.time_relative <= 10.5
+ *
+ * combined with and/&&, or/||, not/! and parentheses. a != b means not (a == b).
+ * evaluate() answers a whole capture from the CaptureIndex bitmaps (address, port,
+ * protocol and time terms) and scans the columns only for lengths, flags and port
+ * ranges; matches() tests a single row as it is appended. compileFrames() turns the
+ * filter into a FrameFilter for raw frames, for filtering before anything is stored.
+ */
+public final class DisplayFilter {
+
+    private final String expression;
+    private final Node root;
+
+    private DisplayFilter(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    // Throws IllegalArgumentException with the position of the problem
+    public static DisplayFilter compile(String expression) {
+        Parser parser = new Parser(expression);
+        Node root = parser.parseOr();
+        if (parser.peek() != null) {
+            throw parser.error("Unexpected '" + parser.peek() + "'");
+        }
+        return new DisplayFilter(expression, root);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    // Bitmap over rows 0 .. store.size() - 1, bit set for every matching row
+    public long[] evaluate(CaptureStore store) {
+        return root.evaluate(store, store.size());
+    }
+
+    public boolean matches(CaptureStore store, int row) {
+        return root.matches(store, row);
+    }
+
+    // A new FrameFilter for frames of the given pcap link type; each capture thread needs its own
+    public FrameFilter compileFrames(int linkType) {
+        return new FrameFilter(this, linkType, root.compile());
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private enum Op {
+        EQ, NE, LT, LE, GT, GE;
+
+        boolean test(long value, long bound) {
+            switch (this) {
+                case EQ: return value == bound;
+                case NE: return value != bound;
+                case LT: return value < bound;
+                case LE: return value <= bound;
+                case GT: return value > bound;
+                default: return value >= bound;
+            }
+        }
+
+        // test() with the bound folded in, one lambda per operator
+        LongPredicate bind(long bound) {
+            switch (this) {
+                case EQ: return value -> value == bound;
+                case NE: return value -> value != bound;
+                case LT: return value -> value < bound;
+                case LE: return value -> value <= bound;
+                case GT: return value -> value > bound;
+                default: return value -> value >= bound;
+            }
+        }
+    }
+
+    private abstract static class Node {
+        abstract long[] evaluate(CaptureStore store, int rows);
+
+        abstract boolean matches(CaptureStore store, int row);
+
+        abstract FrameFilter.Predicate compile();
+    }
+
+    private static long[] newBitmap(int rows) {
+        return new long[(rows + 63) >>> 6];
+    }
+
+    private static long[] invert(long[] words, int rows) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = ~words[i];
+        }
+        if ((rows & 63) != 0) {
+            words[words.length - 1] &= (1L << rows) - 1;  // no rows past the end
+        }
+        return words;
+    }
+
+    private static final class And extends Node {
+        final Node left;
+        final Node right;
+
+        And(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = left.evaluate(store, rows);
+            long[] other = right.evaluate(store, rows);
+            for (int i = 0; i < words.length; i++) {
+                words[i] &= other[i];
+            }
+            return words;
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            return left.matches(store, row) && right.matches(store, row);
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            FrameFilter.Predicate first = left.compile();
+            FrameFilter.Predicate second = right.compile();
+            return frame -> first.test(frame) && second.test(frame);
+        }
+    }
+
+    private static final class Or extends Node {
+        final Node left;
+        final Node right;
+
+        Or(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = left.evaluate(store, rows);
+            long[] other = right.evaluate(store, rows);
+            for (int i = 0; i < words.length; i++) {
+                words[i] |= other[i];
+            }
+            return words;
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            return left.matches(store, row) || right.matches(store, row);
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            FrameFilter.Predicate first = left.compile();
+            FrameFilter.Predicate second = right.compile();
+            return frame -> first.test(frame) || second.test(frame);
+        }
+    }
+
+    private static final class Not extends Node {
+        final Node operand;
+
+        Not(Node operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            return invert(operand.evaluate(store, rows), rows);
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            return !operand.matches(store, row);
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            FrameFilter.Predicate inner = operand.compile();
+            return frame -> !inner.test(frame);
+        }
+    }
+
+    // proto == ..., and the bare protocol names
+    private static final class ProtocolTerm extends Node {
+        final int[] protocolIds;
+
+        ProtocolTerm(int... protocolIds) {
+            this.protocolIds = protocolIds;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = newBitmap(rows);
+            for (int id : protocolIds) {
+                store.getIndex().getProtocol(id).orInto(words);
+            }
+            return words;
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            int protocol = store.getProtocol(row);
+            for (int id : protocolIds) {
+                if (protocol == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            int mask = 0;
+            for (int id : protocolIds) {
+                mask |= 1 << id;
+            }
+            int protocols = mask;
+            return frame -> (protocols & (1 << frame.protocolId)) != 0;
+        }
+    }
+
+    // ip.addr / ip.src / ip.dst against an address or a prefix
+    private static final class AddressTerm extends Node {
+        final long high;
+        final long low;
+        final int prefixBits;  // of the 128-bit (IPv4-mapped) address
+        final boolean source;
+        final boolean dest;
+
+        AddressTerm(long high, long low, int prefixBits, boolean source, boolean dest) {
+            this.high = high;
+            this.low = low;
+            this.prefixBits = prefixBits;
+            this.source = source;
+            this.dest = dest;
+        }
+
+        boolean covers(long otherHigh, long otherLow) {
+            if (prefixBits <= 64) {
+                long mask = prefixBits == 0 ? 0 : -1L << (64 - prefixBits);
+                return ((otherHigh ^ high) & mask) == 0;
+            }
+            long mask = prefixBits == 128 ? -1L : -1L << (128 - prefixBits);
+            return otherHigh == high && ((otherLow ^ low) & mask) == 0;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = newBitmap(rows);
+            AddressDictionary addresses = store.getAddresses();
+            if (prefixBits == 128) {
+                int id = addresses.find(high, low);
+                if (id > AddressDictionary.UNKNOWN) {
+                    orAddress(store.getIndex(), id, words);
+                }
+            } else {
+                // A prefix takes the rows of every known address inside it
+                for (int id = 1; id < addresses.size(); id++) {
+                    if (covers(addresses.getHigh(id), addresses.getLow(id))) {
+                        orAddress(store.getIndex(), id, words);
+                    }
+                }
+            }
+            return words;
+        }
+
+        private void orAddress(CaptureIndex index, int id, long[] words) {
+            RowSet rows = source ? index.getSource(id) : null;
+            if (rows != null) {
+                rows.orInto(words);
+            }
+            rows = dest ? index.getDest(id) : null;
+            if (rows != null) {
+                rows.orInto(words);
+            }
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            return source && store.getSourceId(row) != AddressDictionary.UNKNOWN
+                    && covers(store.getSourceHigh(row), store.getSourceLow(row))
+                || dest && store.getDestId(row) != AddressDictionary.UNKNOWN
+                    && covers(store.getDestHigh(row), store.getDestLow(row));
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            if (prefixBits >= 96 && high == 0 && (low >>> 32) == 0xFFFF) {
+                // An IPv4 address or prefix: one masked int compare per direction, IPv4 frames only
+                int address = (int) low;
+                int mask = prefixBits == 96 ? 0 : -1 << (128 - prefixBits);
+                int firstOffset = source ? 12 : 16;
+                int secondOffset = dest ? 16 : 12;
+                return frame -> frame.version == 4
+                    && (((FrameHeaderParser.readInt(frame.data, frame.network + firstOffset) ^ address) & mask) == 0
+                        || ((FrameHeaderParser.readInt(frame.data, frame.network + secondOffset) ^ address) & mask) == 0);
+            }
+            return frame -> frame.version != 0
+                && (source && covers(frame.addressHigh(true), frame.addressLow(true))
+                    || dest && covers(frame.addressHigh(false), frame.addressLow(false)));
+        }
+    }
+
+    // port / *.srcport / *.dstport; equality from the index, ranges by scanning the port columns
+    private static final class PortTerm extends Node {
+        final Op op;
+        final int port;
+        final boolean source;
+        final boolean dest;
+
+        PortTerm(Op op, int port, boolean source, boolean dest) {
+            this.op = op;
+            this.port = port;
+            this.source = source;
+            this.dest = dest;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = newBitmap(rows);
+            if (op == Op.EQ) {
+                RowSet set = source ? store.getIndex().getSourcePort(port) : null;
+                if (set != null) {
+                    set.orInto(words);
+                }
+                set = dest ? store.getIndex().getDestPort(port) : null;
+                if (set != null) {
+                    set.orInto(words);
+                }
+                return words;
+            }
+            for (int row = 0; row < rows; row++) {
+                if (matches(store, row)) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+            return words;
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            int sourcePort = store.getSourcePort(row);
+            int destPort = store.getDestPort(row);
+            return source && sourcePort > 0 && op.test(sourcePort, port)
+                || dest && destPort > 0 && op.test(destPort, port);
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            if (op == Op.EQ) {
+                if (port == 0) {
+                    return frame -> false;  // 0 is "no port"
+                }
+                int firstOffset = source ? 0 : 2;
+                int secondOffset = dest ? 2 : 0;
+                return frame -> frame.ports >= 0
+                    && (FrameHeaderParser.readShort(frame.data, frame.ports + firstOffset) == port
+                        || FrameHeaderParser.readShort(frame.data, frame.ports + secondOffset) == port);
+            }
+            LongPredicate test = op.bind(port);
+            return frame -> {
+                int sourcePort = frame.sourcePort();
+                int destPort = frame.destPort();
+                return source && sourcePort > 0 && test.test(sourcePort)
+                    || dest && destPort > 0 && test.test(destPort);
+            };
+        }
+    }
+
+    // len / frame.len, by scanning the length column
+    private static final class LengthTerm extends Node {
+        final Op op;
+        final long length;
+
+        LengthTerm(Op op, long length) {
+            this.op = op;
+            this.length = length;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = newBitmap(rows);
+            for (int row = 0; row < rows; row++) {
+                if (op.test(store.getLength(row), length)) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+            return words;
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            return op.test(store.getLength(row), length);
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            LongPredicate test = op.bind(length);
+            return frame -> test.test(frame.wireLength);
+        }
+    }
+
+    // tcp.flags, compared after masking; op null = any of the mask bits set
+    private static final class FlagsTerm extends Node {
+        final int mask;
+        final Op op;
+        final long value;
+
+        FlagsTerm(int mask, Op op, long value) {
+            this.mask = mask;
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = newBitmap(rows);
+            for (int row = 0; row < rows; row++) {
+                if (matches(store, row)) {
+                    words[row >>> 6] |= 1L << row;
+                }
+            }
+            return words;
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            if (store.getProtocol(row) != CaptureStore.PROTO_TCP) {
+                return false;
+            }
+            int flags = store.getTcpFlags(row) & mask;
+            return op == null ? flags != 0 : op.test(flags, value);
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            if (op == null) {
+                return frame -> frame.protocolId == CaptureStore.PROTO_TCP && (frame.tcpFlags() & mask) != 0;
+            }
+            LongPredicate test = op.bind(value);
+            return frame -> frame.protocolId == CaptureStore.PROTO_TCP && test.test(frame.tcpFlags() & mask);
+        }
+    }
+
+    /**
+     * frame.time and frame.time_relative. The bound is resolved against the capture
+     * (a time of day is taken on the first packet's date, a relative time from the first
+     * packet); the index gives the rows of every second in range, only the rows of the
+     * boundary seconds are compared one by one.
+     */
+    private static final class TimeTerm extends Node {
+        final Op op;
+        final LocalDateTime dateTime;  // one of these three
+        final LocalTime timeOfDay;
+        final long relativeMicros;
+        final long widthMicros;        // == matches [bound, bound + width)
+
+        TimeTerm(Op op, LocalDateTime dateTime, LocalTime timeOfDay, long relativeMicros, long widthMicros) {
+            this.op = op;
+            this.dateTime = dateTime;
+            this.timeOfDay = timeOfDay;
+            this.relativeMicros = relativeMicros;
+            this.widthMicros = widthMicros;
+        }
+
+        // first is the timestamp of the capture's first packet
+        long bound(long first) {
+            if (dateTime != null) {
+                return toMicros(dateTime);
+            } else if (timeOfDay != null) {
+                LocalDate date = Instant.ofEpochSecond(Math.floorDiv(first, 1_000_000L))
+                    .atZone(ZoneId.systemDefault()).toLocalDate();
+                return toMicros(date.atTime(timeOfDay));
+            }
+            return first + relativeMicros;
+        }
+
+        private static long toMicros(LocalDateTime dateTime) {
+            Instant instant = dateTime.atZone(ZoneId.systemDefault()).toInstant();
+            return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000;
+        }
+
+        boolean test(long timestamp, long bound) {
+            return op == Op.EQ ? timestamp >= bound && timestamp < bound + widthMicros : op.test(timestamp, bound);
+        }
+
+        @Override
+        long[] evaluate(CaptureStore store, int rows) {
+            long[] words = newBitmap(rows);
+            long bound = bound(firstTimestamp(store));
+            long from;
+            long to;  // inclusive, in microseconds
+            switch (op) {
+                case EQ: from = bound; to = bound + widthMicros - 1; break;
+                case LT: from = Long.MIN_VALUE; to = bound - 1; break;
+                case LE: from = Long.MIN_VALUE; to = bound; break;
+                case GT: from = bound + 1; to = Long.MAX_VALUE; break;
+                default: from = bound; to = Long.MAX_VALUE; break;
+            }
+            if (from > to) {
+                return words;
+            }
+            long fromSecond = Math.floorDiv(from, 1_000_000L);
+            long toSecond = Math.floorDiv(to, 1_000_000L);
+            for (RowSet second : store.getIndex().getSeconds(fromSecond, toSecond)) {
+                second.orInto(words);
+            }
+            // The boundary seconds may be partly outside the range; when both bounds fall in
+            // the same second, either one makes it partial
+            boolean fromPartial = from != Long.MIN_VALUE && from != fromSecond * 1_000_000L;
+            boolean toPartial = to != Long.MAX_VALUE && to != toSecond * 1_000_000L + 999_999;
+            if (fromPartial || (toPartial && toSecond == fromSecond)) {
+                clearOutside(store, fromSecond, from, to, words, rows);
+            }
+            if (toPartial && toSecond != fromSecond) {
+                clearOutside(store, toSecond, from, to, words, rows);
+            }
+            return words;
+        }
+
+        private static void clearOutside(CaptureStore store, long second, long from, long to, long[] words, int rows) {
+            for (RowSet set : store.getIndex().getSeconds(second, second)) {
+                set.forEach(row -> {
+                    long timestamp = store.getTimestamp(row);
+                    if (row < rows && (timestamp < from || timestamp > to)) {
+                        words[row >>> 6] &= ~(1L << row);
+                    }
+                });
+            }
+        }
+
+        @Override
+        boolean matches(CaptureStore store, int row) {
+            return test(store.getTimestamp(row), bound(firstTimestamp(store)));
+        }
+
+        private static long firstTimestamp(CaptureStore store) {
+            return store.size() > 0 ? store.getTimestamp(0) : 0;
+        }
+
+        @Override
+        FrameFilter.Predicate compile() {
+            if (dateTime != null) {
+                long bound = toMicros(dateTime);
+                return frame -> test(frame.timestamp, bound);
+            }
+            return new FrameTime();
+        }
+
+        // Relative to the first frame, so the bound is only known once the filter has seen it
+        private final class FrameTime implements FrameFilter.Predicate {
+            private long bound;
+            private boolean resolved;
+
+            @Override
+            public boolean test(FrameFilter frame) {
+                if (!resolved) {
+                    bound = bound(frame.first);
+                    resolved = true;
+                }
+                return TimeTerm.this.test(frame.timestamp, bound);
+            }
+        }
+    }
+
+    private static final class Parser {
+        private final String text;
+        private final List<String> tokens = new ArrayList<>();
+        private final List<Integer> positions = new ArrayList<>();
+        private int next;
+
+        Parser(String text) {
+            this.text = text;
+            tokenize();
+        }
+
+        private void tokenize() {
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                if (c == '"') {
+                    int end = text.indexOf('"', i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated string at " + (start + 1));
+                    }
+                    add(text.substring(i, end + 1), start);
+                    i = end + 1;
+                } else if (text.startsWith("==", i) || text.startsWith("!=", i) || text.startsWith("<=", i)
+                        || text.startsWith(">=", i) || text.startsWith("&&", i) || text.startsWith("||", i)) {
+                    add(text.substring(i, i + 2), start);
+                    i += 2;
+                } else if ("()!<>&".indexOf(c) >= 0) {
+                    add(String.valueOf(c), start);
+                    i++;
+                } else if (c == '=' || c == '|') {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' at " + (start + 1) + ", use " + c + c);
+                } else {
+                    while (i < text.length() && !Character.isWhitespace(text.charAt(i)) && "()!=<>&|\"".indexOf(text.charAt(i)) < 0) {
+                        i++;
+                    }
+                    add(text.substring(start, i), start);
+                }
+            }
+        }
+
+        private void add(String token, int position) {
+            tokens.add(token);
+            positions.add(position);
+        }
+
+        String peek() {
+            return next < tokens.size() ? tokens.get(next) : null;
+        }
+
+        private boolean accept(String... alternatives) {
+            String token = peek();
+            for (String alternative : alternatives) {
+                if (alternative.equalsIgnoreCase(token)) {
+                    next++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String take(String what) {
+            String token = peek();
+            if (token == null) {
+                throw error("Expected " + what + " at the end");
+            }
+            next++;
+            return token;
+        }
+
+        IllegalArgumentException error(String message) {
+            int position = next < positions.size() ? positions.get(next) + 1 : text.length() + 1;
+            return new IllegalArgumentException(message + " (at " + position + ")");
+        }
+
+        Node parseOr() {
+            Node node = parseAnd();
+            while (accept("or", "||")) {
+                node = new Or(node, parseAnd());
+            }
+            return node;
+        }
+
+        private Node parseAnd() {
+            Node node = parseNot();
+            while (accept("and", "&&")) {
+                node = new And(node, parseNot());
+            }
+            return node;
+        }
+
+        private Node parseNot() {
+            if (accept("not", "!")) {
+                return new Not(parseNot());
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() {
+            if (accept("(")) {
+                Node node = parseOr();
+                if (!accept(")")) {
+                    throw error("Expected ')'");
+                }
+                return node;
+            }
+            int fieldToken = next;
+            String field = take("a field").toLowerCase(Locale.ROOT);
+            if (field.equals("tcp.flags") && accept("&")) {
+                int mask = (int) number(take("a mask"));
+                Op op = operator();
+                return op == null ? new FlagsTerm(mask, null, 0) : new FlagsTerm(mask, op, number(take("a value")));
+            }
+            Op op = operator();
+            if (op == null) {
+                return bare(field, fieldToken);
+            }
+            String value = take("a value");
+            // a != b is not (a == b): "ip.addr != x" then hides every packet to or from x
+            Node node = comparison(field, fieldToken, op == Op.NE ? Op.EQ : op, value);
+            return op == Op.NE ? new Not(node) : node;
+        }
+
+        private Op operator() {
+            String token = peek();
+            if (token == null) {
+                return null;
+            }
+            Op op;
+            switch (token.toLowerCase(Locale.ROOT)) {
+                case "==": case "eq": op = Op.EQ; break;
+                case "!=": case "ne": op = Op.NE; break;
+                case "<": case "lt": op = Op.LT; break;
+                case "<=": case "le": op = Op.LE; break;
+                case ">": case "gt": op = Op.GT; break;
+                case ">=": case "ge": op = Op.GE; break;
+                default: return null;
+            }
+            next++;
+            return op;
+        }
+
+        private Node bare(String field, int fieldToken) {
+            Node protocol = protocol(field);
+            if (protocol != null) {
+                return protocol;
+            }
+            int flag = tcpFlag(field);
+            if (flag != 0) {
+                return new FlagsTerm(flag, null, 0);
+            }
+            next = fieldToken;
+            throw error("Unknown field or protocol '" + field + "'");
+        }
+
+        private Node comparison(String field, int fieldToken, Op op, String value) {
+            switch (field) {
+                case "ip.addr":
+                case "ip.src":
+                case "ip.dst":
+                    requireEquality(op, field);
+                    return address(value, !field.equals("ip.dst"), !field.equals("ip.src"));
+                case "port":
+                    return new PortTerm(op, port(value), true, true);
+                case "tcp.port":
+                case "udp.port":
+                case "tcp.srcport":
+                case "udp.srcport":
+                case "tcp.dstport":
+                case "udp.dstport": {
+                    int protocolId = field.startsWith("tcp") ? CaptureStore.PROTO_TCP : CaptureStore.PROTO_UDP;
+                    boolean source = !field.endsWith("dstport");
+                    boolean dest = !field.endsWith("srcport");
+                    return new And(new ProtocolTerm(protocolId), new PortTerm(op, port(value), source, dest));
+                }
+                case "proto":
+                case "ip.proto": {
+                    requireEquality(op, field);
+                    Node protocol = protocol(unquote(value).toLowerCase(Locale.ROOT));
+                    if (protocol == null) {
+                        next--;
+                        throw error("Unknown protocol '" + value + "'");
+                    }
+                    return protocol;
+                }
+                case "len":
+                case "frame.len":
+                    return new LengthTerm(op, number(value));
+                case "tcp.flags":
+                    return new FlagsTerm(0xFF, op, number(value));
+                case "frame.time":
+                    return absoluteTime(op, value);
+                case "frame.time_relative":
+                    return relativeTime(op, value);
+                default: {
+                    int flag = tcpFlag(field);
+                    if (flag != 0) {
+                        long bit = number(value);
+                        if (bit != 0 && bit != 1) {
+                            next--;
+                            throw error(field + " is 0 or 1");
+                        }
+                        return new FlagsTerm(flag, op, bit == 1 ? flag : 0);
+                    }
+                    next = fieldToken;
+                    throw error("Unknown field '" + field + "'");
+                }
+            }
+        }
+
+        private void requireEquality(Op op, String field) {
+            if (op != Op.EQ) {
+                next -= 2;
+                throw error(field + " only supports == and !=");
+            }
+        }
+
+        private static Node protocol(String name) {
+            switch (name) {
+                case "tcp": return new ProtocolTerm(CaptureStore.PROTO_TCP);
+                case "udp": return new ProtocolTerm(CaptureStore.PROTO_UDP);
+                case "icmp": return new ProtocolTerm(CaptureStore.PROTO_ICMP);
+                case "icmpv6": return new ProtocolTerm(CaptureStore.PROTO_ICMPV6);
+                case "ip": return new ProtocolTerm(CaptureStore.PROTO_IP, CaptureStore.PROTO_TCP,
+                    CaptureStore.PROTO_UDP, CaptureStore.PROTO_ICMP, CaptureStore.PROTO_ICMPV6);
+                default: return null;
+            }
+        }
+
+        private static int tcpFlag(String field) {
+            switch (field) {
+                case "tcp.flags.fin": return 0x01;
+                case "tcp.flags.syn": return 0x02;
+                case "tcp.flags.rst":
+                case "tcp.flags.reset": return 0x04;
+                case "tcp.flags.psh":
+                case "tcp.flags.push": return 0x08;
+                case "tcp.flags.ack": return 0x10;
+                case "tcp.flags.urg": return 0x20;
+                case "tcp.flags.ece": return 0x40;
+                case "tcp.flags.cwr": return 0x80;
+                default: return 0;
+            }
+        }
+
+        private Node address(String value, boolean source, boolean dest) {
+            String literal = unquote(value);
+            int slash = literal.indexOf('/');
+            String host = slash >= 0 ? literal.substring(0, slash) : literal;
+            // Literals only: anything else would be a DNS lookup on the EDT
+            if (!host.matches("[0-9.]+|[0-9A-Fa-f:.]*:[0-9A-Fa-f:.]*")) {
+                next--;
+                throw error("Not an IP address '" + value + "'");
+            }
+            InetAddress address;
+            try {
+                address = InetAddress.getByName(host);
+            } catch (UnknownHostException e) {
+                next--;
+                throw error("Not an IP address '" + value + "'");
+            }
+            int bits = address.getAddress().length * 8;
+            int prefix = bits;
+            if (slash >= 0) {
+                try {
+                    prefix = Integer.parseInt(literal.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    prefix = -1;
+                }
+                if (prefix < 0 || prefix > bits) {
+                    next--;
+                    throw error("Bad prefix length in '" + value + "'");
+                }
+            }
+            // IPv4 is stored IPv4-mapped, behind a 96-bit prefix
+            return new AddressTerm(IpAddresses.high(address), IpAddresses.low(address),
+                bits == 32 ? prefix + 96 : prefix, source, dest);
+        }
+
+        private int port(String value) {
+            long port = number(value);
+            if (port < 0 || port > 65535) {
+                next--;
+                throw error("Not a port '" + value + "'");
+            }
+            return (int) port;
+        }
+
+        private long number(String value) {
+            String literal = unquote(value);
+            try {
+                if (literal.startsWith("0x") || literal.startsWith("0X")) {
+                    return Long.parseLong(literal.substring(2), 16);
+                }
+                return Long.parseLong(literal);
+            } catch (NumberFormatException e) {
+                next--;
+                throw error("Not a number '" + value + "'");
+            }
+        }
+
+        private Node absoluteTime(Op op, String value) {
+            String literal = unquote(value).trim().replace('T', ' ');
+            try {
+                if (literal.indexOf(' ') > 0) {
+                    LocalDateTime dateTime = LocalDateTime.parse(literal.replace(' ', 'T'));
+                    return new TimeTerm(op, dateTime, null, 0, precision(literal));
+                }
+                return new TimeTerm(op, null, LocalTime.parse(literal), 0, precision(literal));
+            } catch (DateTimeParseException e) {
+                next--;
+                throw error("Not a time '" + value + "', use \"HH:mm:ss\" or \"yyyy-MM-dd HH:mm:ss\"");
+            }
+        }
+
+        // == on a time matches everything within the precision it was written with
+        private static long precision(String literal) {
+            int dot = literal.lastIndexOf('.');
+            if (dot > literal.lastIndexOf(':')) {
+                return width(literal.length() - dot - 1);
+            }
+            return literal.indexOf(':') == literal.lastIndexOf(':') ? 60_000_000L : 1_000_000L;  // HH:mm or HH:mm:ss
+        }
+
+        // Microseconds covered by the last of the given number of decimals of a second
+        private static long width(int decimals) {
+            long width = 1_000_000L;
+            for (int i = 0; i < decimals && width > 1; i++) {
+                width /= 10;
+            }
+            return width;
+        }
+
+        private Node relativeTime(Op op, String value) {
+            String literal = unquote(value);
+            try {
+                double seconds = Double.parseDouble(literal);
+                int dot = literal.indexOf('.');
+                return new TimeTerm(op, null, null, Math.round(seconds * 1e6),
+                    width(dot < 0 ? 0 : literal.length() - dot - 1));
+            } catch (NumberFormatException e) {
+                next--;
+                throw error("Not a number of seconds '" + value + "'");
+            }
+        }
+
+        private static String unquote(String value) {
+            return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1) : value;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+/**
+ * Where a Dissector writes its layer: a heading, then one field per line. Fields are
+ * assembled from the parts below, straight from the frame bytes, so dissecting allocates
+ * nothing; PacketDetailsRenderer appends them to its char buffer.
+ */
+public interface DissectionOutput {
+
+    // "Name:" on a line of its own
+    void layer(String name);
+
+    // Starts an indented "   label: " line; end it with end()
+    DissectionOutput field(String label);
+
+    DissectionOutput text(String text);
+
+    DissectionOutput decimal(long value);
+
+    // Lower-case digits without a prefix, zero-padded to minDigits
+    DissectionOutput hex(long value, int minDigits);
+
+    // Printable ASCII as is, anything else as '.'
+    DissectionOutput ascii(byte[] data, int offset, int length);
+
+    DissectionOutput mac(byte[] data, int offset);
+
+    DissectionOutput ipv4(byte[] data, int offset);
+
+    // RFC 5952 text form: lower case, longest run of zero groups as "::"
+    DissectionOutput ipv6(byte[] data, int offset);
+
+    void end();
+}
@@ -0,0 +1,24 @@
+package org.example;
+
+/**
+ * Decodes one protocol layer of a frame for the packet details pane, reading the fields
+ * straight from the frame bytes. Dissectors are found with ServiceLoader: list the class
+ * in META-INF/services/org.example.Dissector (it needs a public no-argument constructor)
+ * and register() puts it in the DissectorRegistry tables it answers for, by link type,
+ * ethertype, IP protocol or TCP/UDP port. The built-in ones are in Dissectors.
+ *
+ * dissect() writes its fields to out and returns the layer that follows, made with
+ * DissectorRegistry.etherType/ipProtocol/tcpPorts/udpPorts, or END when nothing does.
+ * Dissectors are shared and must not keep per-frame state.
+ */
+public interface Dissector {
+
+    long END = -1;
+
+    String getName();
+
+    void register(DissectorRegistry registry);
+
+    // length is the number of captured bytes in frame; offset is where this layer starts
+    long dissect(byte[] frame, int offset, int length, DissectionOutput out);
+}
@@ -0,0 +1,168 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Tables of Dissectors by link type, ethertype, IP protocol and TCP/UDP port, filled from
+ * the ServiceLoader once and read-only afterwards. Each layer's dissector is found with
+ * one array lookup on the key the previous layer returned; a TCP or UDP payload goes to
+ * the dissector of the lower port first (usually the server), then of the other.
+ *
+ * The layer a dissector returns is packed into a long, as FrameHeaderParser packs its
+ * results: the table in the top byte, the key (an ethertype, an IP protocol, or the two
+ * ports) in the next 32 bits and the offset of the layer in the low 24.
+ */
+public final class DissectorRegistry {
+
+    private static final int ETHERTYPE = 1;
+    private static final int IP_PROTOCOL = 2;
+    private static final int TCP_PORT = 3;
+    private static final int UDP_PORT = 4;
+    private static final int MAX_LINK_TYPE = 512;
+    private static final int MAX_OFFSET = (1 << 24) - 1;
+    private static final int MAX_LAYERS = 16;  // tunnels in tunnels end somewhere
+
+    // Names of the IP protocols without a dissector
+    private static final String[] DEFAULT_PROTOCOL_NAMES = new String[256];
+
+    static {
+        DEFAULT_PROTOCOL_NAMES[1] = "ICMP";
+        DEFAULT_PROTOCOL_NAMES[2] = "IGMP";
+        DEFAULT_PROTOCOL_NAMES[6] = "TCP";
+        DEFAULT_PROTOCOL_NAMES[17] = "UDP";
+        DEFAULT_PROTOCOL_NAMES[47] = "GRE";
+        DEFAULT_PROTOCOL_NAMES[50] = "ESP";
+        DEFAULT_PROTOCOL_NAMES[51] = "AH";
+        DEFAULT_PROTOCOL_NAMES[58] = "ICMPv6";
+        DEFAULT_PROTOCOL_NAMES[89] = "OSPF";
+        DEFAULT_PROTOCOL_NAMES[132] = "SCTP";
+    }
+
+    private final Dissector[] linkTypes = new Dissector[MAX_LINK_TYPE];
+    private final Dissector[] etherTypes = new Dissector[1 << 16];
+    private final Dissector[] ipProtocols = new Dissector[256];
+    private final Dissector[] tcpPorts = new Dissector[1 << 16];
+    private final Dissector[] udpPorts = new Dissector[1 << 16];
+    private final String[] protocolNames = DEFAULT_PROTOCOL_NAMES.clone();
+    private final List<Dissector> dissectors = new ArrayList<>();
+
+    private static final class Holder {
+        static final DissectorRegistry DEFAULT = load();
+    }
+
+    // The dissectors on the class path, loaded on first use
+    public static DissectorRegistry getDefault() {
+        return Holder.DEFAULT;
+    }
+
+    private static DissectorRegistry load() {
+        DissectorRegistry registry = new DissectorRegistry();
+        for (Dissector dissector : ServiceLoader.load(Dissector.class, DissectorRegistry.class.getClassLoader())) {
+            registry.add(dissector);
+        }
+        return registry;
+    }
+
+    public void add(Dissector dissector) {
+        dissectors.add(dissector);
+        dissector.register(this);
+    }
+
+    // A later registration for the same key replaces the earlier one
+    public void addLinkType(int linkType, Dissector dissector) {
+        linkTypes[linkType] = dissector;
+    }
+
+    public void addEtherType(int etherType, Dissector dissector) {
+        etherTypes[etherType] = dissector;
+    }
+
+    public void addIpProtocol(int protocol, Dissector dissector) {
+        ipProtocols[protocol] = dissector;
+        protocolNames[protocol] = dissector.getName();
+    }
+
+    public void addTcpPort(int port, Dissector dissector) {
+        tcpPorts[port] = dissector;
+    }
+
+    public void addUdpPort(int port, Dissector dissector) {
+        udpPorts[port] = dissector;
+    }
+
+    public List<Dissector> getDissectors() {
+        return Collections.unmodifiableList(dissectors);
+    }
+
+    public String ipProtocolName(int protocol) {
+        String name = protocol >= 0 && protocol < 256 ? protocolNames[protocol] : null;
+        return name != null ? name : "IP(" + protocol + ")";
+    }
+
+    public static long etherType(int etherType, int offset) {
+        return next(ETHERTYPE, etherType, offset);
+    }
+
+    public static long ipProtocol(int protocol, int offset) {
+        return next(IP_PROTOCOL, protocol, offset);
+    }
+
+    public static long tcpPorts(int sourcePort, int destPort, int offset) {
+        return next(TCP_PORT, sourcePort << 16 | destPort, offset);
+    }
+
+    public static long udpPorts(int sourcePort, int destPort, int offset) {
+        return next(UDP_PORT, sourcePort << 16 | destPort, offset);
+    }
+
+    private static long next(int table, int key, int offset) {
+        return offset > MAX_OFFSET ? Dissector.END : (long) table << 56 | (key & 0xFFFFFFFFL) << 24 | offset;
+    }
+
+    /**
+     * Writes every layer of a frame to out, starting with the dissector of its link type.
+     * Bytes no dissector claims are summed up as a "Data" line.
+     */
+    public void dissect(byte[] frame, int length, int linkType, DissectionOutput out) {
+        length = Math.min(length, frame.length);
+        Dissector dissector = linkType >= 0 && linkType < MAX_LINK_TYPE ? linkTypes[linkType] : null;
+        long next = dissector != null ? dissector.dissect(frame, 0, length, out) : etherType(-1, 0);
+        for (int layer = 0; next != Dissector.END && layer < MAX_LAYERS; layer++) {
+            int offset = (int) (next & MAX_OFFSET);
+            if (offset >= length) {
+                return;
+            }
+            dissector = lookup((int) (next >>> 56), (int) (next >>> 24));
+            if (dissector == null) {
+                out.field("Data").decimal(length - offset).text(" bytes").end();
+                return;
+            }
+            next = dissector.dissect(frame, offset, length, out);
+        }
+    }
+
+    private Dissector lookup(int table, int key) {
+        switch (table) {
+            case ETHERTYPE:
+                return key >= 0 && key < etherTypes.length ? etherTypes[key] : null;
+            case IP_PROTOCOL:
+                return ipProtocols[key & 0xFF];
+            case TCP_PORT:
+                return byPort(tcpPorts, key);
+            case UDP_PORT:
+                return byPort(udpPorts, key);
+            default:
+                return null;
+        }
+    }
+
+    private static Dissector byPort(Dissector[] table, int ports) {
+        int source = ports >>> 16;
+        int dest = ports & 0xFFFF;
+        Dissector lower = table[Math.min(source, dest)];
+        return lower != null ? lower : table[Math.max(source, dest)];
+    }
+}
@@ -0,0 +1,717 @@
+package org.example;
+
+import static org.example.FrameHeaderParser.readInt;
+import static org.example.FrameHeaderParser.readShort;
+
+/**
+ * The dissectors that ship with the analyzer, listed in META-INF/services like any other:
+ * the link layers the capture side understands, VLAN and MPLS tags, IPv4/IPv6, GRE,
+ * ICMP, TCP and UDP, and DNS and the TLS ClientHello on top. Every one bounds-checks
+ * against the captured length and stops at a truncated header rather than guessing.
+ */
+public final class Dissectors {
+
+    public static final int ETHERTYPE_MPLS = 0x8847;
+    public static final int ETHERTYPE_MPLS_MULTICAST = 0x8848;
+    public static final int ETHERTYPE_VLAN_9100 = 0x9100;
+    public static final int ETHERTYPE_TRANSPARENT_BRIDGING = 0x6558;  // Ethernet inside GRE
+    public static final int IPPROTO_GRE = 47;
+
+    private Dissectors() {
+    }
+
+    private static long truncated(DissectionOutput out) {
+        out.field("Truncated").text("header continues past the captured bytes").end();
+        return Dissector.END;
+    }
+
+    public static final class Ethernet implements Dissector {
+        @Override
+        public String getName() {
+            return "Ethernet II";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addLinkType(FrameHeaderParser.LINKTYPE_ETHERNET, this);
+            registry.addEtherType(ETHERTYPE_TRANSPARENT_BRIDGING, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Ethernet II");
+            if (offset + 14 > length) {
+                return truncated(out);
+            }
+            int type = readShort(frame, offset + 12);
+            out.field("Source MAC").mac(frame, offset + 6).end();
+            out.field("Destination MAC").mac(frame, offset).end();
+            out.field("Type").text("0x").hex(type, 4).end();
+            return DissectorRegistry.etherType(type, offset + 14);
+        }
+    }
+
+    public static final class LinuxCooked implements Dissector {
+        @Override
+        public String getName() {
+            return "Linux cooked capture";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addLinkType(FrameHeaderParser.LINKTYPE_LINUX_SLL, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Linux cooked capture");
+            if (offset + 16 > length) {
+                return truncated(out);
+            }
+            int type = readShort(frame, offset + 14);
+            out.field("Packet Type").decimal(readShort(frame, offset)).end();
+            out.field("Protocol").text("0x").hex(type, 4).end();
+            return DissectorRegistry.etherType(type, offset + 16);
+        }
+    }
+
+    // BSD loopback: the address family, in host (NULL) or network (LOOP) byte order
+    public static final class Loopback implements Dissector {
+        @Override
+        public String getName() {
+            return "Loopback";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addLinkType(FrameHeaderParser.LINKTYPE_NULL, this);
+            registry.addLinkType(FrameHeaderParser.LINKTYPE_LOOP, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Loopback");
+            if (offset + 4 > length) {
+                return truncated(out);
+            }
+            int network = readInt(frame, offset);
+            int family = network == 2 || network >= 24 && network <= 30 ? network : Integer.reverseBytes(network);
+            out.field("Family").decimal(family).end();
+            return DissectorRegistry.etherType(family == 2 ? FrameHeaderParser.ETHERTYPE_IPV4 : FrameHeaderParser.ETHERTYPE_IPV6,
+                offset + 4);
+        }
+    }
+
+    // No link header: the IP version says what follows
+    public static final class RawIp implements Dissector {
+        @Override
+        public String getName() {
+            return "Raw IP";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addLinkType(FrameHeaderParser.LINKTYPE_RAW, this);
+            registry.addLinkType(FrameHeaderParser.DLT_RAW, this);
+            registry.addLinkType(FrameHeaderParser.DLT_RAW_OPENBSD, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            if (offset >= length) {
+                return END;
+            }
+            return DissectorRegistry.etherType((frame[offset] & 0xF0) == 0x40
+                ? FrameHeaderParser.ETHERTYPE_IPV4 : FrameHeaderParser.ETHERTYPE_IPV6, offset);
+        }
+    }
+
+    public static final class Vlan implements Dissector {
+        @Override
+        public String getName() {
+            return "802.1Q Virtual LAN";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addEtherType(FrameHeaderParser.ETHERTYPE_VLAN, this);
+            registry.addEtherType(FrameHeaderParser.ETHERTYPE_QINQ, this);
+            registry.addEtherType(ETHERTYPE_VLAN_9100, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("802.1Q Virtual LAN");
+            if (offset + 4 > length) {
+                return truncated(out);
+            }
+            int tag = readShort(frame, offset);
+            int type = readShort(frame, offset + 2);
+            out.field("Priority").decimal(tag >>> 13).end();
+            out.field("Drop Eligible").decimal((tag >>> 12) & 1).end();
+            out.field("ID").decimal(tag & 0xFFF).end();
+            out.field("Type").text("0x").hex(type, 4).end();
+            return DissectorRegistry.etherType(type, offset + 4);
+        }
+    }
+
+    // The label stack; after the bottom entry the first nibble tells IPv4 from IPv6
+    public static final class Mpls implements Dissector {
+        @Override
+        public String getName() {
+            return "MultiProtocol Label Switching";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addEtherType(ETHERTYPE_MPLS, this);
+            registry.addEtherType(ETHERTYPE_MPLS_MULTICAST, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("MultiProtocol Label Switching");
+            int position = offset;
+            while (true) {
+                if (position + 4 > length) {
+                    return truncated(out);
+                }
+                int entry = readInt(frame, position);
+                position += 4;
+                boolean bottom = (entry & 0x100) != 0;
+                out.field("Label").decimal(entry >>> 12).text(", Traffic Class: ").decimal((entry >>> 9) & 7)
+                    .text(", Bottom of Stack: ").decimal(bottom ? 1 : 0).text(", TTL: ").decimal(entry & 0xFF).end();
+                if (bottom) {
+                    break;
+                }
+            }
+            if (position >= length) {
+                return END;
+            }
+            int version = frame[position] & 0xF0;
+            if (version == 0x40) {
+                return DissectorRegistry.etherType(FrameHeaderParser.ETHERTYPE_IPV4, position);
+            }
+            return version == 0x60 ? DissectorRegistry.etherType(FrameHeaderParser.ETHERTYPE_IPV6, position)
+                : DissectorRegistry.etherType(-1, position);
+        }
+    }
+
+    public static final class IpV4 implements Dissector {
+        private DissectorRegistry registry;
+
+        @Override
+        public String getName() {
+            return "Internet Protocol Version 4";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            this.registry = registry;
+            registry.addEtherType(FrameHeaderParser.ETHERTYPE_IPV4, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Internet Protocol Version 4");
+            if (offset + 20 > length) {
+                return truncated(out);
+            }
+            int headerLength = (frame[offset] & 0x0F) * 4;
+            int fragment = readShort(frame, offset + 6);
+            int protocol = frame[offset + 9] & 0xFF;
+            out.field("0100 .... = Version").decimal(4).end();
+            out.text("   .... ").decimal(headerLength / 4).text(" = Header Length: ").decimal(headerLength).text(" bytes").end();
+            out.field("Differentiated Services Field").text("0x").hex(frame[offset + 1] & 0xFF, 2).end();
+            out.field("Total Length").decimal(readShort(frame, offset + 2)).end();
+            int identification = readShort(frame, offset + 4);
+            out.field("Identification").text("0x").hex(identification, 4).text(" (").decimal(identification).text(")").end();
+            out.field("Flags").text("0x").hex(fragment >>> 13, 1).end();
+            out.field("Fragment Offset").decimal(fragment & 0x1FFF).end();
+            out.field("Time to Live").decimal(frame[offset + 8] & 0xFF).end();
+            out.field("Protocol").text(registry.ipProtocolName(protocol)).text(" (").decimal(protocol).text(")").end();
+            out.field("Header Checksum").text("0x").hex(readShort(frame, offset + 10), 4).end();
+            out.field("Source Address").ipv4(frame, offset + 12).end();
+            out.field("Destination Address").ipv4(frame, offset + 16).end();
+            if (headerLength < 20 || (fragment & 0x1FFF) != 0) {
+                return END;  // a later fragment carries no transport header
+            }
+            return DissectorRegistry.ipProtocol(protocol, offset + headerLength);
+        }
+    }
+
+    public static final class IpV6 implements Dissector {
+        private DissectorRegistry registry;
+
+        @Override
+        public String getName() {
+            return "Internet Protocol Version 6";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            this.registry = registry;
+            registry.addEtherType(FrameHeaderParser.ETHERTYPE_IPV6, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Internet Protocol Version 6");
+            if (offset + 40 > length) {
+                return truncated(out);
+            }
+            int first = readInt(frame, offset);
+            int nextHeader = frame[offset + 6] & 0xFF;
+            out.field("0110 .... = Version").decimal(6).end();
+            out.field("Traffic Class").text("0x").hex((first >>> 20) & 0xFF, 2).end();
+            out.field("Flow Label").text("0x").hex(first & 0xFFFFF, 5).end();
+            out.field("Payload Length").decimal(readShort(frame, offset + 4)).end();
+            out.field("Next Header").text(registry.ipProtocolName(nextHeader)).text(" (").decimal(nextHeader).text(")").end();
+            out.field("Hop Limit").decimal(frame[offset + 7] & 0xFF).end();
+            out.field("Source Address").ipv6(frame, offset + 8).end();
+            out.field("Destination Address").ipv6(frame, offset + 24).end();
+            long upperLayer = FrameHeaderParser.skipIpV6Extensions(frame, offset, length);
+            int position = (int) upperLayer & ~FrameHeaderParser.LATER_FRAGMENT;
+            if (((int) upperLayer & FrameHeaderParser.LATER_FRAGMENT) != 0) {
+                return END;
+            }
+            return DissectorRegistry.ipProtocol((int) (upperLayer >>> 32), position);
+        }
+    }
+
+    // Version 0 GRE (RFC 2784/2890): optional checksum, key and sequence number, then the payload's ethertype
+    public static final class Gre implements Dissector {
+        @Override
+        public String getName() {
+            return "GRE";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addIpProtocol(IPPROTO_GRE, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Generic Routing Encapsulation");
+            if (offset + 4 > length) {
+                return truncated(out);
+            }
+            int flags = readShort(frame, offset);
+            int type = readShort(frame, offset + 2);
+            out.field("Flags").text("0x").hex(flags & 0xFFF8, 4).end();
+            out.field("Version").decimal(flags & 7).end();
+            out.field("Protocol Type").text("0x").hex(type, 4).end();
+            if ((flags & 7) != 0) {
+                return END;  // version 1 is PPTP's enhanced GRE
+            }
+            int headerLength = 4 + ((flags & 0x8000) != 0 ? 4 : 0) + ((flags & 0x2000) != 0 ? 4 : 0)
+                + ((flags & 0x1000) != 0 ? 4 : 0);
+            if (offset + headerLength > length) {
+                return truncated(out);
+            }
+            if ((flags & 0x2000) != 0) {
+                int key = offset + 4 + ((flags & 0x8000) != 0 ? 4 : 0);
+                out.field("Key").text("0x").hex(readInt(frame, key) & 0xFFFFFFFFL, 8).end();
+            }
+            return DissectorRegistry.etherType(type, offset + headerLength);
+        }
+    }
+
+    public static final class Icmp implements Dissector {
+        @Override
+        public String getName() {
+            return "ICMP";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addIpProtocol(FrameHeaderParser.IPPROTO_ICMP, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Internet Control Message Protocol");
+            return typeAndCode(frame, offset, length, out);
+        }
+    }
+
+    public static final class IcmpV6 implements Dissector {
+        @Override
+        public String getName() {
+            return "ICMPv6";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addIpProtocol(FrameHeaderParser.IPPROTO_ICMPV6, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Internet Control Message Protocol v6");
+            return typeAndCode(frame, offset, length, out);
+        }
+    }
+
+    private static long typeAndCode(byte[] frame, int offset, int length, DissectionOutput out) {
+        if (offset + 4 > length) {
+            return truncated(out);
+        }
+        out.field("Type").decimal(frame[offset] & 0xFF).end();
+        out.field("Code").decimal(frame[offset + 1] & 0xFF).end();
+        out.field("Checksum").text("0x").hex(readShort(frame, offset + 2), 4).end();
+        return Dissector.END;
+    }
+
+    public static final class Tcp implements Dissector {
+        @Override
+        public String getName() {
+            return "TCP";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addIpProtocol(FrameHeaderParser.IPPROTO_TCP, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("Transmission Control Protocol");
+            if (offset + 20 > length) {
+                return truncated(out);
+            }
+            int sourcePort = readShort(frame, offset);
+            int destPort = readShort(frame, offset + 2);
+            int headerLength = ((frame[offset + 12] & 0xF0) >>> 4) * 4;
+            int flags = frame[offset + 13] & 0xFF;
+            out.field("Source Port").decimal(sourcePort).end();
+            out.field("Destination Port").decimal(destPort).end();
+            out.field("Sequence Number").decimal(readInt(frame, offset + 4) & 0xFFFFFFFFL).end();
+            out.field("Acknowledgment Number").decimal(readInt(frame, offset + 8) & 0xFFFFFFFFL).end();
+            out.field("Header Length").decimal(headerLength).text(" bytes").end();
+            out.field("Flags")
+                .text((flags & 0x20) != 0 ? "URG " : "")
+                .text((flags & 0x10) != 0 ? "ACK " : "")
+                .text((flags & 0x08) != 0 ? "PSH " : "")
+                .text((flags & 0x04) != 0 ? "RST " : "")
+                .text((flags & 0x02) != 0 ? "SYN " : "")
+                .text((flags & 0x01) != 0 ? "FIN " : "").end();
+            out.field("Window Size").decimal(readShort(frame, offset + 14)).end();
+            out.field("Checksum").text("0x").hex(readShort(frame, offset + 16), 4).end();
+            if (headerLength < 20) {
+                return END;
+            }
+            return DissectorRegistry.tcpPorts(sourcePort, destPort, offset + headerLength);
+        }
+    }
+
+    public static final class Udp implements Dissector {
+        @Override
+        public String getName() {
+            return "UDP";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addIpProtocol(FrameHeaderParser.IPPROTO_UDP, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            out.layer("User Datagram Protocol");
+            if (offset + 8 > length) {
+                return truncated(out);
+            }
+            int sourcePort = readShort(frame, offset);
+            int destPort = readShort(frame, offset + 2);
+            out.field("Source Port").decimal(sourcePort).end();
+            out.field("Destination Port").decimal(destPort).end();
+            out.field("Length").decimal(readShort(frame, offset + 4)).end();
+            out.field("Checksum").text("0x").hex(readShort(frame, offset + 6), 4).end();
+            return DissectorRegistry.udpPorts(sourcePort, destPort, offset + 8);
+        }
+    }
+
+    /**
+     * DNS and mDNS over UDP: the header, the questions and the answers with their
+     * addresses or target names. Names are followed through compression pointers and
+     * written label by label.
+     */
+    public static final class Dns implements Dissector {
+        private static final int MAX_RECORDS = 32;
+        private static final int MAX_POINTERS = 16;
+
+        @Override
+        public String getName() {
+            return "DNS";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addUdpPort(53, this);
+            registry.addUdpPort(5353, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            if (offset + 12 > length) {
+                out.layer("Domain Name System");
+                return truncated(out);
+            }
+            int flags = readShort(frame, offset + 2);
+            boolean response = (flags & 0x8000) != 0;
+            out.layer(response ? "Domain Name System (response)" : "Domain Name System (query)");
+            int questions = readShort(frame, offset + 4);
+            int answers = readShort(frame, offset + 6);
+            out.field("Transaction ID").text("0x").hex(readShort(frame, offset), 4).end();
+            out.field("Flags").text("0x").hex(flags, 4).text(" (opcode ").decimal((flags >>> 11) & 0xF)
+                .text(", rcode ").decimal(flags & 0xF).text(")").end();
+            out.field("Questions").decimal(questions).end();
+            out.field("Answer RRs").decimal(answers).end();
+            out.field("Authority RRs").decimal(readShort(frame, offset + 8)).end();
+            out.field("Additional RRs").decimal(readShort(frame, offset + 10)).end();
+
+            int position = offset + 12;
+            for (int i = 0; i < Math.min(questions, MAX_RECORDS); i++) {
+                out.field("Query");
+                position = name(frame, offset, position, length, out);
+                if (position < 0 || position + 4 > length) {
+                    out.end();
+                    return truncated(out);
+                }
+                out.text(" type ").text(typeName(readShort(frame, position))).end();
+                position += 4;
+            }
+            for (int i = 0; i < Math.min(answers, MAX_RECORDS); i++) {
+                out.field("Answer");
+                position = name(frame, offset, position, length, out);
+                if (position < 0 || position + 10 > length) {
+                    out.end();
+                    return truncated(out);
+                }
+                int type = readShort(frame, position);
+                long ttl = readInt(frame, position + 4) & 0xFFFFFFFFL;
+                int dataLength = readShort(frame, position + 8);
+                int data = position + 10;
+                if (data + dataLength > length) {
+                    out.end();
+                    return truncated(out);
+                }
+                out.text(" type ").text(typeName(type)).text(", TTL ").decimal(ttl).text(", ");
+                if (type == 1 && dataLength == 4) {
+                    out.ipv4(frame, data);
+                } else if (type == 28 && dataLength == 16) {
+                    out.ipv6(frame, data);
+                } else if (type == 5 || type == 2 || type == 12) {  // CNAME, NS, PTR
+                    name(frame, offset, data, length, out);
+                } else {
+                    out.decimal(dataLength).text(" bytes");
+                }
+                out.end();
+                position = data + dataLength;
+            }
+            return END;
+        }
+
+        // Writes the name at position and returns the offset right after it, -1 if it is malformed
+        private static int name(byte[] frame, int message, int position, int length, DissectionOutput out) {
+            int end = -1;
+            int pointers = 0;
+            boolean first = true;
+            while (position < length) {
+                int labelLength = frame[position] & 0xFF;
+                if (labelLength == 0) {
+                    if (first) {
+                        out.text("<Root>");
+                    }
+                    return end >= 0 ? end : position + 1;
+                }
+                if ((labelLength & 0xC0) == 0xC0) {
+                    if (position + 2 > length || ++pointers > MAX_POINTERS) {
+                        return -1;
+                    }
+                    if (end < 0) {
+                        end = position + 2;
+                    }
+                    position = message + (readShort(frame, position) & 0x3FFF);
+                    continue;
+                }
+                if ((labelLength & 0xC0) != 0 || position + 1 + labelLength > length) {
+                    return -1;
+                }
+                if (!first) {
+                    out.text(".");
+                }
+                out.ascii(frame, position + 1, labelLength);
+                first = false;
+                position += 1 + labelLength;
+            }
+            return -1;
+        }
+
+        private static String typeName(int type) {
+            switch (type) {
+                case 1: return "A";
+                case 2: return "NS";
+                case 5: return "CNAME";
+                case 6: return "SOA";
+                case 12: return "PTR";
+                case 15: return "MX";
+                case 16: return "TXT";
+                case 28: return "AAAA";
+                case 33: return "SRV";
+                case 65: return "HTTPS";
+                case 255: return "ANY";
+                default: return "TYPE" + type;
+            }
+        }
+    }
+
+    /**
+     * The TLS record header, and for a ClientHello the offered version, cipher suite
+     * count, server name (SNI), ALPN protocols and supported versions. Only what is in
+     * this segment is shown: a ClientHello spread over several segments stops at the end
+     * of the first.
+     */
+    public static final class TlsClientHello implements Dissector {
+        private static final int HANDSHAKE = 22;
+        private static final int CLIENT_HELLO = 1;
+        private static final int EXTENSION_SERVER_NAME = 0;
+        private static final int EXTENSION_ALPN = 16;
+        private static final int EXTENSION_SUPPORTED_VERSIONS = 43;
+
+        @Override
+        public String getName() {
+            return "TLS";
+        }
+
+        @Override
+        public void register(DissectorRegistry registry) {
+            registry.addTcpPort(443, this);
+            registry.addTcpPort(8443, this);
+        }
+
+        @Override
+        public long dissect(byte[] frame, int offset, int length, DissectionOutput out) {
+            if (offset + 5 > length || (frame[offset] & 0xFF) < 20 || (frame[offset] & 0xFF) > 24
+                    || frame[offset + 1] != 3) {
+                return DissectorRegistry.etherType(-1, offset);  // not a record start: plain data
+            }
+            out.layer("Transport Layer Security");
+            int contentType = frame[offset] & 0xFF;
+            out.field("Record").text(contentName(contentType)).text(", version 0x").hex(readShort(frame, offset + 1), 4)
+                .text(", length ").decimal(readShort(frame, offset + 3)).end();
+            int position = offset + 5;
+            if (contentType != HANDSHAKE || position + 4 > length || frame[position] != CLIENT_HELLO) {
+                return END;
+            }
+            out.field("Handshake").text("Client Hello").end();
+            position += 4;
+            if (position + 2 + 32 + 1 > length) {
+                return truncated(out);
+            }
+            out.field("Client Version").text("0x").hex(readShort(frame, position), 4).end();
+            position += 2 + 32;                                 // version, random
+            position += 1 + (frame[position] & 0xFF);            // session id
+            if (position + 2 > length) {
+                return truncated(out);
+            }
+            int suites = readShort(frame, position);
+            out.field("Cipher Suites").decimal(suites / 2).end();
+            position += 2 + suites;
+            if (position + 1 > length) {
+                return truncated(out);
+            }
+            position += 1 + (frame[position] & 0xFF);            // compression methods
+            if (position + 2 > length) {
+                return END;                                     // no extensions
+            }
+            int extensionsEnd = Math.min(length, position + 2 + readShort(frame, position));
+            position += 2;
+            while (position + 4 <= extensionsEnd) {
+                int type = readShort(frame, position);
+                int extensionLength = readShort(frame, position + 2);
+                int data = position + 4;
+                if (data + extensionLength > extensionsEnd) {
+                    return truncated(out);
+                }
+                if (type == EXTENSION_SERVER_NAME) {
+                    serverName(frame, data, data + extensionLength, out);
+                } else if (type == EXTENSION_ALPN) {
+                    alpn(frame, data, data + extensionLength, out);
+                } else if (type == EXTENSION_SUPPORTED_VERSIONS) {
+                    supportedVersions(frame, data, data + extensionLength, out);
+                }
+                position = data + extensionLength;
+            }
+            return END;
+        }
+
+        // server_name_list: 2 length bytes, then entries of type (0 = host name), 2 length bytes, name
+        private static void serverName(byte[] frame, int position, int end, DissectionOutput out) {
+            position += 2;
+            while (position + 3 <= end) {
+                int nameLength = readShort(frame, position + 1);
+                if (position + 3 + nameLength > end) {
+                    return;
+                }
+                if (frame[position] == 0) {
+                    out.field("Server Name").ascii(frame, position + 3, nameLength).end();
+                }
+                position += 3 + nameLength;
+            }
+        }
+
+        private static void alpn(byte[] frame, int position, int end, DissectionOutput out) {
+            out.field("ALPN");
+            position += 2;
+            boolean first = true;
+            while (position < end) {
+                int protocolLength = frame[position] & 0xFF;
+                if (position + 1 + protocolLength > end) {
+                    break;
+                }
+                if (!first) {
+                    out.text(", ");
+                }
+                out.ascii(frame, position + 1, protocolLength);
+                first = false;
+                position += 1 + protocolLength;
+            }
+            out.end();
+        }
+
+        private static void supportedVersions(byte[] frame, int position, int end, DissectionOutput out) {
+            out.field("Supported Versions");
+            if (position >= end) {
+                out.end();
+                return;
+            }
+            int listEnd = Math.min(end, position + 1 + (frame[position] & 0xFF));
+            boolean first = true;
+            for (position++; position + 2 <= listEnd; position += 2) {
+                int version = readShort(frame, position);
+                if ((version & 0x0F0F) == 0x0A0A) {
+                    continue;  // GREASE
+                }
+                if (!first) {
+                    out.text(", ");
+                }
+                out.text("0x").hex(version, 4);
+                first = false;
+            }
+            out.end();
+        }
+
+        private static String contentName(int contentType) {
+            switch (contentType) {
+                case 20: return "Change Cipher Spec";
+                case 21: return "Alert";
+                case 22: return "Handshake";
+                case 23: return "Application Data";
+                default: return "Heartbeat";
+            }
+        }
+    }
+}
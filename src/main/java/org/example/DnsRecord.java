@@ -0,0 +1,53 @@
+package org.example;
+
+// Copy of one DnsStatsTable entry (a query name or a server), taken for display
+public class DnsRecord {
+    final String label;
+    long queries;
+    long responses;
+    long timeouts;
+    long errors;
+    final LatencyHistogram latency;
+
+    DnsRecord(String label, long queries, long responses, long timeouts, long errors, LatencyHistogram latency) {
+        this.label = label;
+        this.queries = queries;
+        this.responses = responses;
+        this.timeouts = timeouts;
+        this.errors = errors;
+        this.latency = latency;
+    }
+
+    // The same name or server seen by another decode shard
+    void add(DnsRecord other) {
+        queries += other.queries;
+        responses += other.responses;
+        timeouts += other.timeouts;
+        errors += other.errors;
+        latency.add(other.latency);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getQueries() {
+        return queries;
+    }
+
+    public long getResponses() {
+        return responses;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
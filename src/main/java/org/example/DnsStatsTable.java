@@ -0,0 +1,199 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-size table of DNS counters and latency histograms keyed by two longs: a name
+ * hash or a packed server address. Open addressing with linear probing like FlowTable;
+ * when full, the entry with the fewest queries near the new key makes room, so names
+ * from a random-subdomain flood come and go while the busy ones stay. Histograms are
+ * allocated with the first response of an entry. Owned by one DnsTable, which does the
+ * locking.
+ */
+class DnsStatsTable {
+
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final int maxEntries;
+    private final int[] hashes;       // 0 marks an empty slot
+    private final long[] keyHigh;
+    private final long[] keyLow;
+    private final String[] labels;
+    private final long[] queries;
+    private final long[] responses;
+    private final long[] timeouts;
+    private final long[] errors;      // responses with an rcode other than NOERROR
+    private final LatencyHistogram[] latency;
+    private final int mask;
+    private int size;
+    private long evicted;
+
+    DnsStatsTable(int maxEntries) {
+        this.maxEntries = maxEntries;
+        int capacity = Integer.highestOneBit(Math.max(16, maxEntries + maxEntries / 3) - 1) << 1;
+        hashes = new int[capacity];
+        keyHigh = new long[capacity];
+        keyLow = new long[capacity];
+        labels = new String[capacity];
+        queries = new long[capacity];
+        responses = new long[capacity];
+        timeouts = new long[capacity];
+        errors = new long[capacity];
+        latency = new LatencyHistogram[capacity];
+        mask = capacity - 1;
+    }
+
+    // Returns the slot of the key, or -1
+    int find(long high, long low) {
+        int hash = hash(high, low);
+        for (int i = hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash && keyHigh[i] == high && keyLow[i] == low) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the slot of the key, adding it with the given label if it is new
+    int add(long high, long low, String label) {
+        int slot = find(high, low);
+        if (slot >= 0) {
+            return slot;
+        }
+        int hash = hash(high, low);
+        if (size >= maxEntries) {
+            evictNear(hash);
+        }
+        int i = hash & mask;
+        while (hashes[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        keyHigh[i] = high;
+        keyLow[i] = low;
+        labels[i] = label;
+        queries[i] = 0;
+        responses[i] = 0;
+        timeouts[i] = 0;
+        errors[i] = 0;
+        if (latency[i] != null) {
+            latency[i].clear();
+        }
+        size++;
+        return i;
+    }
+
+    void query(int slot) {
+        queries[slot]++;
+    }
+
+    void timeout(int slot) {
+        timeouts[slot]++;
+    }
+
+    void response(int slot, long latencyMicros, int rcode) {
+        responses[slot]++;
+        if (rcode != 0) {
+            errors[slot]++;
+        }
+        if (latency[slot] == null) {
+            latency[slot] = new LatencyHistogram();
+        }
+        latency[slot].record(latencyMicros);
+    }
+
+    private void evictNear(int hash) {
+        int victim = -1;
+        int i = hash & mask;
+        for (int scanned = 0; scanned <= mask && (victim < 0 || scanned < EVICTION_SAMPLE); scanned++) {
+            if (hashes[i] != 0 && (victim < 0 || queries[i] < queries[victim])) {
+                victim = i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (victim >= 0) {
+            remove(victim);
+            evicted++;
+        }
+    }
+
+    // Backward-shift deletion, see FlowTable
+    private void remove(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (hashes[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                hashes[hole] = hashes[next];
+                keyHigh[hole] = keyHigh[next];
+                keyLow[hole] = keyLow[next];
+                labels[hole] = labels[next];
+                queries[hole] = queries[next];
+                responses[hole] = responses[next];
+                timeouts[hole] = timeouts[next];
+                errors[hole] = errors[next];
+                LatencyHistogram histogram = latency[hole];  // swap, so both keep their arrays
+                latency[hole] = latency[next];
+                latency[next] = histogram;
+                hole = next;
+            }
+        }
+        hashes[hole] = 0;
+        labels[hole] = null;
+        size--;
+    }
+
+    // Copies of all entries, for merging across the shards
+    void snapshot(List<DnsRecord> out) {
+        for (int i = 0; i <= mask; i++) {
+            if (hashes[i] != 0) {
+                out.add(new DnsRecord(labels[i], queries[i], responses[i], timeouts[i], errors[i],
+                    latency[i] != null && responses[i] > 0 ? latency[i].copy() : new LatencyHistogram()));
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getEvicted() {
+        return evicted;
+    }
+
+    long getMemoryUsage() {
+        long histograms = 0;
+        for (LatencyHistogram histogram : latency) {
+            if (histogram != null) {
+                histograms += LatencyHistogram.MEMORY_BYTES;
+            }
+        }
+        return (mask + 1L) * (4 + 8 * 6 + 8 + 8) + histograms;
+    }
+
+    void clear() {
+        Arrays.fill(hashes, 0);
+        Arrays.fill(labels, null);
+        size = 0;
+        evicted = 0;
+    }
+
+    // Never 0, which marks empty slots
+    private static int hash(long high, long low) {
+        int hash = (int) mix(mix(high) + low);
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
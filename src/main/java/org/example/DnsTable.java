@@ -0,0 +1,405 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pairs DNS queries with their responses for one decode shard and keeps the latency
+ * statistics. Messages are read straight from the captured frame: the header, and the
+ * first question's name, which is hashed (lower-cased, through compression pointers)
+ * rather than turned into a String. Only a name seen for the first time is decoded, for
+ * the name table.
+ *
+ * A query waits in a fixed-size open-addressing table keyed by client address and port,
+ * server address and transaction id. Its response removes it and records the latency for
+ * the name, the server and overall; queries left unanswered for the timeout count as
+ * timeouts. Retransmissions keep the time of the first query, as resolvers measure it.
+ * When the table is full the oldest query near the new key is given up. Time is packet
+ * time, so offline files give the same numbers as live captures. The pipeline routes
+ * both directions of a flow to the same shard, so a query and its response always meet
+ * in the same table.
+ */
+public class DnsTable {
+
+    static final int DNS_PORT = 53;
+    static final int RCODES = 16;
+
+    private static final long SWEEP_INTERVAL_MICROS = 1_000_000L;
+    private static final int EVICTION_SAMPLE = 16;
+    private static final int MAX_POINTERS = 16;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final int maxPending;
+    private final long timeoutMicros;
+
+    // Outstanding queries; hashes[i] == 0 marks an empty slot
+    private final int[] hashes;
+    private final long[] clientHigh;
+    private final long[] clientLow;
+    private final long[] serverHigh;
+    private final long[] serverLow;
+    private final int[] ids;          // client port << 16 | transaction id
+    private final long[] nameHashes;
+    private final long[] sentMicros;
+    private final int mask;
+    private int pending;
+    private long nextSweepMicros;
+
+    private final DnsStatsTable names;
+    private final DnsStatsTable servers;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long[] rcodes = new long[RCODES];
+    private long queries;
+    private long responses;
+    private long retransmissions;
+    private long unmatched;           // responses to queries we did not see, or to another name
+    private long timeouts;
+    private long abandoned;           // pushed out of a full table
+
+    public DnsTable(int maxPending, int maxNames, int maxServers, long timeoutMillis) {
+        this.maxPending = maxPending;
+        this.timeoutMicros = timeoutMillis * 1000;
+        int capacity = Integer.highestOneBit(Math.max(16, maxPending + maxPending / 3) - 1) << 1;
+        hashes = new int[capacity];
+        clientHigh = new long[capacity];
+        clientLow = new long[capacity];
+        serverHigh = new long[capacity];
+        serverLow = new long[capacity];
+        ids = new int[capacity];
+        nameHashes = new long[capacity];
+        sentMicros = new long[capacity];
+        mask = capacity - 1;
+        names = new DnsStatsTable(maxNames);
+        servers = new DnsStatsTable(maxServers);
+    }
+
+    // Returns false for packets that are not a DNS message to or from port 53
+    public synchronized boolean update(PacketSummary packet) {
+        int offset = packet.payloadOffset;
+        if (offset < 0 || packet.sourcePort != DNS_PORT && packet.destPort != DNS_PORT) {
+            return false;
+        }
+        byte[] frame = packet.rawData;
+        int length = Math.min(frame.length, offset + packet.payloadLength);  // without Ethernet padding
+        if (packet.ipProtocol == FrameHeaderParser.IPPROTO_TCP) {
+            // Only messages that fit one segment: the length prefix must match the payload
+            if (offset + 2 > length || FrameHeaderParser.readShort(frame, offset) != length - offset - 2) {
+                return false;
+            }
+            offset += 2;
+        } else if (packet.ipProtocol != FrameHeaderParser.IPPROTO_UDP) {
+            return false;
+        }
+        if (offset + 12 > length || FrameHeaderParser.readShort(frame, offset + 4) == 0) {
+            return false;
+        }
+        int flags = FrameHeaderParser.readShort(frame, offset + 2);
+        if ((flags & 0x7800) != 0) {
+            return false;  // not a standard query (opcode 0)
+        }
+        long nameHash = nameHash(frame, offset, offset + 12, length);
+        if (nameHash == 0) {
+            return false;
+        }
+
+        long now = packet.timestampMicros;
+        if (now >= nextSweepMicros) {
+            expire(now);
+            nextSweepMicros = now + SWEEP_INTERVAL_MICROS;
+        }
+        int transactionId = FrameHeaderParser.readShort(frame, offset);
+        if ((flags & 0x8000) == 0) {
+            query(packet, frame, offset, nameHash, transactionId, now);
+        } else {
+            response(packet, nameHash, transactionId, flags & 0xF, now);
+        }
+        return true;
+    }
+
+    private void query(PacketSummary packet, byte[] frame, int message, long nameHash, int transactionId, long now) {
+        int id = packet.sourcePort << 16 | transactionId;
+        int hash = hash(packet.sourceHigh, packet.sourceLow, packet.destHigh, packet.destLow, id);
+        int slot = find(hash, packet.sourceHigh, packet.sourceLow, packet.destHigh, packet.destLow, id);
+        if (slot >= 0) {
+            retransmissions++;
+            return;
+        }
+        if (pending >= maxPending) {
+            abandonNear(hash);
+        }
+        slot = hash & mask;
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        clientHigh[slot] = packet.sourceHigh;
+        clientLow[slot] = packet.sourceLow;
+        serverHigh[slot] = packet.destHigh;
+        serverLow[slot] = packet.destLow;
+        ids[slot] = id;
+        nameHashes[slot] = nameHash;
+        sentMicros[slot] = now;
+        pending++;
+        queries++;
+
+        int name = names.find(nameHash, 0);
+        if (name < 0) {
+            name = names.add(nameHash, 0, nameText(frame, message, message + 12, frame.length));
+        }
+        names.query(name);
+        int server = servers.find(packet.destHigh, packet.destLow);
+        if (server < 0) {
+            server = servers.add(packet.destHigh, packet.destLow, IpAddresses.format(packet.destHigh, packet.destLow));
+        }
+        servers.query(server);
+    }
+
+    private void response(PacketSummary packet, long nameHash, int transactionId, int rcode, long now) {
+        rcodes[rcode]++;
+        int id = packet.destPort << 16 | transactionId;
+        int hash = hash(packet.destHigh, packet.destLow, packet.sourceHigh, packet.sourceLow, id);
+        int slot = find(hash, packet.destHigh, packet.destLow, packet.sourceHigh, packet.sourceLow, id);
+        if (slot < 0 || nameHashes[slot] != nameHash) {
+            unmatched++;
+            return;
+        }
+        long micros = Math.max(0, now - sentMicros[slot]);
+        remove(slot);
+        responses++;
+        latency.record(micros);
+        int name = names.find(nameHash, 0);
+        if (name >= 0) {
+            names.response(name, micros, rcode);
+        }
+        int server = servers.find(packet.sourceHigh, packet.sourceLow);
+        if (server >= 0) {
+            servers.response(server, micros, rcode);
+        }
+    }
+
+    private int find(int hash, long cHigh, long cLow, long sHigh, long sLow, int id) {
+        for (int i = hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash && ids[i] == id && clientLow[i] == cLow && clientHigh[i] == cHigh
+                    && serverLow[i] == sLow && serverHigh[i] == sHigh) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The oldest query among the slots around the new key gives up its place
+    private void abandonNear(int hash) {
+        int victim = -1;
+        int i = hash & mask;
+        for (int scanned = 0; scanned <= mask && (victim < 0 || scanned < EVICTION_SAMPLE); scanned++) {
+            if (hashes[i] != 0 && (victim < 0 || sentMicros[i] < sentMicros[victim])) {
+                victim = i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (victim >= 0) {
+            remove(victim);
+            abandoned++;
+        }
+    }
+
+    private void expire(long now) {
+        int i = 0;
+        while (i <= mask) {
+            if (hashes[i] != 0 && now - sentMicros[i] > timeoutMicros) {
+                int name = names.find(nameHashes[i], 0);
+                if (name >= 0) {
+                    names.timeout(name);
+                }
+                int server = servers.find(serverHigh[i], serverLow[i]);
+                if (server >= 0) {
+                    servers.timeout(server);
+                }
+                remove(i);
+                timeouts++;
+                continue;  // a later entry may have shifted into this slot
+            }
+            i++;
+        }
+    }
+
+    // Backward-shift deletion, see FlowTable
+    private void remove(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (hashes[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                hashes[hole] = hashes[next];
+                clientHigh[hole] = clientHigh[next];
+                clientLow[hole] = clientLow[next];
+                serverHigh[hole] = serverHigh[next];
+                serverLow[hole] = serverLow[next];
+                ids[hole] = ids[next];
+                nameHashes[hole] = nameHashes[next];
+                sentMicros[hole] = sentMicros[next];
+                hole = next;
+            }
+        }
+        hashes[hole] = 0;
+        pending--;
+    }
+
+    /**
+     * FNV-1a over the lower-cased labels of the name at position, each preceded by its
+     * length; 0 if the name is malformed or runs past the captured bytes. Resolvers that
+     * randomize the case of their queries (0x20 encoding) still match their responses.
+     */
+    static long nameHash(byte[] frame, int message, int position, int length) {
+        long hash = FNV_OFFSET;
+        int pointers = 0;
+        while (position < length) {
+            int labelLength = frame[position] & 0xFF;
+            if (labelLength == 0) {
+                return hash == 0 ? 1 : hash;
+            }
+            if ((labelLength & 0xC0) == 0xC0) {
+                if (position + 2 > length || ++pointers > MAX_POINTERS) {
+                    return 0;
+                }
+                position = message + (FrameHeaderParser.readShort(frame, position) & 0x3FFF);
+                continue;
+            }
+            if ((labelLength & 0xC0) != 0 || position + 1 + labelLength > length) {
+                return 0;
+            }
+            hash = (hash ^ labelLength) * FNV_PRIME;
+            for (int i = position + 1; i <= position + labelLength; i++) {
+                hash = (hash ^ lowerCase(frame[i])) * FNV_PRIME;
+            }
+            position += 1 + labelLength;
+        }
+        return 0;
+    }
+
+    // The dotted, lower-cased name at position; only called for a name not yet in the table
+    static String nameText(byte[] frame, int message, int position, int length) {
+        StringBuilder name = new StringBuilder();
+        int pointers = 0;
+        while (position < length) {
+            int labelLength = frame[position] & 0xFF;
+            if (labelLength == 0) {
+                break;
+            }
+            if ((labelLength & 0xC0) == 0xC0) {
+                if (position + 2 > length || ++pointers > MAX_POINTERS) {
+                    break;
+                }
+                position = message + (FrameHeaderParser.readShort(frame, position) & 0x3FFF);
+                continue;
+            }
+            if (position + 1 + labelLength > length) {
+                break;
+            }
+            if (name.length() > 0) {
+                name.append('.');
+            }
+            for (int i = position + 1; i <= position + labelLength; i++) {
+                int c = lowerCase(frame[i]);
+                name.append(c > 0x20 && c < 0x7F ? (char) c : '?');
+            }
+            position += 1 + labelLength;
+        }
+        return name.length() > 0 ? name.toString() : ".";
+    }
+
+    private static int lowerCase(byte b) {
+        int c = b & 0xFF;
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    // Never 0, which marks empty slots
+    private static int hash(long cHigh, long cLow, long sHigh, long sLow, int id) {
+        int hash = (int) mix(mix(cHigh ^ mix(cLow)) + mix(sHigh ^ mix(sLow)) + id);
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    synchronized void snapshotNames(List<DnsRecord> out) {
+        names.snapshot(out);
+    }
+
+    synchronized void snapshotServers(List<DnsRecord> out) {
+        servers.snapshot(out);
+    }
+
+    synchronized void addLatency(LatencyHistogram out) {
+        out.add(latency);
+    }
+
+    synchronized void addRcodes(long[] out) {
+        for (int i = 0; i < RCODES; i++) {
+            out[i] += rcodes[i];
+        }
+    }
+
+    public synchronized long getQueries() {
+        return queries;
+    }
+
+    public synchronized long getResponses() {
+        return responses;
+    }
+
+    public synchronized long getRetransmissions() {
+        return retransmissions;
+    }
+
+    public synchronized long getUnmatched() {
+        return unmatched;
+    }
+
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+
+    public synchronized long getAbandoned() {
+        return abandoned;
+    }
+
+    public synchronized int getPending() {
+        return pending;
+    }
+
+    public synchronized long getEvictedNames() {
+        return names.getEvicted();
+    }
+
+    public synchronized long getMemoryUsage() {
+        return (mask + 1L) * (4 + 8 * 4 + 4 + 8 + 8) + names.getMemoryUsage() + servers.getMemoryUsage()
+            + LatencyHistogram.MEMORY_BYTES;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(hashes, 0);
+        pending = 0;
+        nextSweepMicros = 0;
+        names.clear();
+        servers.clear();
+        latency.clear();
+        Arrays.fill(rcodes, 0);
+        queries = 0;
+        responses = 0;
+        retransmissions = 0;
+        unmatched = 0;
+        timeouts = 0;
+        abandoned = 0;
+    }
+}
@@ -0,0 +1,202 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DNS query/response matching across the decode shards, one DnsTable each, the same way
+ * FlowTracker keeps conversations. Snapshots merge the per-shard name and server tables
+ * by label; nothing is kept of the individual packets.
+ */
+public class DnsTracker {
+
+    private static final String[] RCODE_NAMES = {
+        "NOERROR", "FORMERR", "SERVFAIL", "NXDOMAIN", "NOTIMP", "REFUSED", "YXDOMAIN", "YXRRSET",
+        "NXRRSET", "NOTAUTH", "NOTZONE", "DSOTYPENI", "RCODE12", "RCODE13", "RCODE14", "RCODE15"
+    };
+
+    private volatile DnsTable[] tables = new DnsTable[0];
+    private int maxPending;
+    private int maxNames;
+    private int maxServers;
+    private int timeoutMillis;
+
+    // Keeps the current tables when the shard layout and limits are unchanged
+    public synchronized void configure(CaptureConfig config) {
+        int shards = config.getDecodeWorkers();
+        if (tables.length == shards && maxPending == config.getMaxDnsQueries()
+                && maxNames == config.getMaxDnsNames() && maxServers == config.getMaxDnsServers()
+                && timeoutMillis == config.getDnsTimeoutMillis()) {
+            return;
+        }
+        maxPending = config.getMaxDnsQueries();
+        maxNames = config.getMaxDnsNames();
+        maxServers = config.getMaxDnsServers();
+        timeoutMillis = config.getDnsTimeoutMillis();
+        DnsTable[] newTables = new DnsTable[shards];
+        for (int i = 0; i < shards; i++) {
+            newTables[i] = new DnsTable(perShard(maxPending, shards), perShard(maxNames, shards),
+                perShard(maxServers, shards), timeoutMillis);
+        }
+        tables = newTables;
+    }
+
+    private static int perShard(int limit, int shards) {
+        return Math.max(1, (limit + shards - 1) / shards);
+    }
+
+    // Called by the decode shard that owns the packet's flow
+    public void update(PacketSummary packet, int shard) {
+        DnsTable[] current = tables;
+        if (current.length > 0) {
+            current[shard % current.length].update(packet);
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        LatencyHistogram latency = new LatencyHistogram();
+        for (DnsTable table : tables) {
+            table.addLatency(latency);
+        }
+        return latency;
+    }
+
+    // Responses by rcode, 0 = NOERROR
+    public long[] getRcodeCounts() {
+        long[] counts = new long[DnsTable.RCODES];
+        for (DnsTable table : tables) {
+            table.addRcodes(counts);
+        }
+        return counts;
+    }
+
+    public static String rcodeName(int rcode) {
+        return RCODE_NAMES[rcode & 0xF];
+    }
+
+    // The limit names with the highest 99th percentile latency, slowest first
+    public List<DnsRecord> slowestNames(int limit) {
+        List<DnsRecord> names = merge(false);
+        names.removeIf(name -> name.responses == 0);
+        names.sort(Comparator.comparingLong((DnsRecord name) -> name.latency.getValueAtPercentile(99))
+            .thenComparingLong(DnsRecord::getResponses).reversed());
+        return names.size() > limit ? new ArrayList<>(names.subList(0, limit)) : names;
+    }
+
+    // The limit servers that were sent the most queries, busiest first
+    public List<DnsRecord> topServers(int limit) {
+        List<DnsRecord> servers = merge(true);
+        servers.sort(Comparator.comparingLong(DnsRecord::getQueries).reversed());
+        return servers.size() > limit ? new ArrayList<>(servers.subList(0, limit)) : servers;
+    }
+
+    private List<DnsRecord> merge(boolean servers) {
+        List<DnsRecord> records = new ArrayList<>();
+        for (DnsTable table : tables) {
+            if (servers) {
+                table.snapshotServers(records);
+            } else {
+                table.snapshotNames(records);
+            }
+        }
+        Map<String, DnsRecord> merged = new HashMap<>();
+        for (DnsRecord record : records) {
+            merged.merge(record.label, record, (a, b) -> {
+                a.add(b);
+                return a;
+            });
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    public long getQueries() {
+        long queries = 0;
+        for (DnsTable table : tables) {
+            queries += table.getQueries();
+        }
+        return queries;
+    }
+
+    public void clear() {
+        for (DnsTable table : tables) {
+            table.clear();
+        }
+    }
+
+    /**
+     * The totals, latency percentiles and rcode counts, then the busiest servers and the
+     * slowest names, limit of each; as printed by the headless summary and the DNS window.
+     */
+    public String report(int limit) {
+        StringBuilder report = new StringBuilder(toString()).append('\n');
+        report.append("Latency:    ").append(getLatency()).append('\n');
+        long[] rcodes = getRcodeCounts();
+        StringBuilder codes = new StringBuilder();
+        for (int i = 0; i < rcodes.length; i++) {
+            if (rcodes[i] > 0) {
+                codes.append(codes.length() > 0 ? " | " : "").append(String.format("%s %,d", rcodeName(i), rcodes[i]));
+            }
+        }
+        report.append("Rcodes:     ").append(codes.length() > 0 ? codes : "none").append('\n');
+        if (limit <= 0) {
+            return report.toString();
+        }
+        List<DnsRecord> servers = topServers(limit);
+        if (!servers.isEmpty()) {
+            report.append(String.format("%nServers by queries:%n%-39s %10s %10s %8s %8s %10s %10s %10s%n",
+                "Server", "Queries", "Answered", "Timeouts", "Errors", "p50", "p99", "Max"));
+            for (DnsRecord server : servers) {
+                appendRecord(report, server, 39);
+            }
+        }
+        List<DnsRecord> names = slowestNames(limit);
+        if (!names.isEmpty()) {
+            report.append(String.format("%nSlowest names (p99):%n%-50s %10s %10s %8s %8s %10s %10s %10s%n",
+                "Name", "Queries", "Answered", "Timeouts", "Errors", "p50", "p99", "Max"));
+            for (DnsRecord name : names) {
+                appendRecord(report, name, 50);
+            }
+        }
+        return report.toString();
+    }
+
+    private static void appendRecord(StringBuilder report, DnsRecord record, int width) {
+        LatencyHistogram latency = record.latency;
+        String label = record.label.length() > width ? "..." + record.label.substring(record.label.length() - width + 3)
+            : record.label;
+        report.append(String.format("%-" + width + "s %,10d %,10d %,8d %,8d %10s %10s %10s%n", label,
+            record.queries, record.responses, record.timeouts, record.errors,
+            LatencyHistogram.format(latency.getValueAtPercentile(50)),
+            LatencyHistogram.format(latency.getValueAtPercentile(99)), LatencyHistogram.format(latency.getMax())));
+    }
+
+    @Override
+    public String toString() {
+        long queries = 0;
+        long responses = 0;
+        long retransmissions = 0;
+        long unmatched = 0;
+        long timeouts = 0;
+        long abandoned = 0;
+        long pending = 0;
+        long evicted = 0;
+        long memory = 0;
+        for (DnsTable table : tables) {
+            queries += table.getQueries();
+            responses += table.getResponses();
+            retransmissions += table.getRetransmissions();
+            unmatched += table.getUnmatched();
+            timeouts += table.getTimeouts();
+            abandoned += table.getAbandoned();
+            pending += table.getPending();
+            evicted += table.getEvictedNames();
+            memory += table.getMemoryUsage();
+        }
+        return String.format("DNS: %d queries | %d answered | %d retransmitted | %d timed out | %d pending"
+                + " | %d unmatched responses | %d abandoned | %d names evicted | %d KB",
+            queries, responses, retransmissions, timeouts, pending, unmatched, abandoned, evicted, memory / 1024);
+    }
+}
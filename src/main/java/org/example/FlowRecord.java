@@ -0,0 +1,95 @@
+package org.example;
+
+// Copy of one FlowTable entry, taken for display
+public class FlowRecord {
+    final int protocol;        // IP protocol number
+    final long aHigh;
+    final long aLow;
+    final int aPort;
+    final long bHigh;
+    final long bLow;
+    final int bPort;
+    final long packetsAB;
+    final long packetsBA;
+    final long bytesAB;
+    final long bytesBA;
+    final long firstSeenMicros;
+    final long lastSeenMicros;
+    final int flagsAB;
+    final int flagsBA;
+
+    FlowRecord(int protocol, long aHigh, long aLow, int aPort, long bHigh, long bLow, int bPort,
+               long packetsAB, long packetsBA, long bytesAB, long bytesBA,
+               long firstSeenMicros, long lastSeenMicros, int flagsAB, int flagsBA) {
+        this.protocol = protocol;
+        this.aHigh = aHigh;
+        this.aLow = aLow;
+        this.aPort = aPort;
+        this.bHigh = bHigh;
+        this.bLow = bLow;
+        this.bPort = bPort;
+        this.packetsAB = packetsAB;
+        this.packetsBA = packetsBA;
+        this.bytesAB = bytesAB;
+        this.bytesBA = bytesBA;
+        this.firstSeenMicros = firstSeenMicros;
+        this.lastSeenMicros = lastSeenMicros;
+        this.flagsAB = flagsAB;
+        this.flagsBA = flagsBA;
+    }
+
+    public long getPackets() {
+        return packetsAB + packetsBA;
+    }
+
+    public long getBytes() {
+        return bytesAB + bytesBA;
+    }
+
+    public double getDurationSeconds() {
+        return (lastSeenMicros - firstSeenMicros) / 1_000_000.0;
+    }
+
+    public String getProtocolName() {
+        return protocolName(protocol);
+    }
+
+    public static String protocolName(int protocol) {
+        switch (protocol) {
+            case FrameHeaderParser.IPPROTO_TCP: return "TCP";
+            case FrameHeaderParser.IPPROTO_UDP: return "UDP";
+            case FrameHeaderParser.IPPROTO_ICMP: return "ICMP";
+            case FrameHeaderParser.IPPROTO_ICMPV6: return "ICMPv6";
+            default: return "IP/" + protocol;
+        }
+    }
+
+    // TCP connection state as far as the flags seen so far tell
+    public String getState() {
+        if (protocol != FrameHeaderParser.IPPROTO_TCP) {
+            return "Active";
+        }
+        int both = flagsAB | flagsBA;
+        if ((both & FlowTable.TCP_RST) != 0) {
+            return "Reset";
+        }
+        if ((flagsAB & FlowTable.TCP_FIN) != 0 && (flagsBA & FlowTable.TCP_FIN) != 0) {
+            return "Closed";
+        }
+        if ((both & FlowTable.TCP_FIN) != 0) {
+            return "Closing";
+        }
+        if ((flagsAB & FlowTable.TCP_SYN) != 0 && (flagsBA & FlowTable.TCP_SYN) == 0) {
+            return "SYN sent";
+        }
+        return "Established";
+    }
+
+    public String getAddressA() {
+        return IpAddresses.format(aHigh, aLow);
+    }
+
+    public String getAddressB() {
+        return IpAddresses.format(bHigh, bLow);
+    }
+}
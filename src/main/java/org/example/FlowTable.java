@@ -0,0 +1,442 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bidirectional conversation table keyed by the 5-tuple. Open addressing with linear
+ * probing over parallel primitive arrays, so a flow costs about 120 bytes and no
+ * per-packet objects or boxed keys. Both directions of a conversation share one entry;
+ * endpoint A is whoever sent the first packet we saw (or the SYN's sender when the
+ * SYN+ACK came first).
+ *
+ * Flows expire after the idle timeout (a short fixed timeout once TCP closed), long-lived
+ * flows restart their record after the active timeout, and when the table is full the
+ * least recently seen flow near the new key is evicted. Time is packet time, so offline
+ * files age the same way as live captures.
+ *
+ * Each decode shard owns one table; the lock is only contended when the UI takes a
+ * snapshot.
+ */
+public class FlowTable {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EVICTION_SAMPLE = 16;
+    private static final long SWEEP_INTERVAL_MICROS = 1_000_000L;
+    private static final long CLOSED_TIMEOUT_MICROS = 10_000_000L;
+
+    static final int TCP_FIN = 0x01;
+    static final int TCP_SYN = 0x02;
+    static final int TCP_RST = 0x04;
+    static final int TCP_ACK = 0x10;
+
+    private final int maxFlows;
+    private final int maxCapacity;
+    private final long idleTimeoutMicros;
+    private final long activeTimeoutMicros;
+
+    // One slot per index; hashes[i] == 0 marks an empty slot
+    private int[] hashes;
+    private long[] aHigh;
+    private long[] aLow;
+    private long[] bHigh;
+    private long[] bLow;
+    private int[] ports;          // portA << 16 | portB
+    private byte[] protocols;
+    private long[] packetsAB;
+    private long[] packetsBA;
+    private long[] bytesAB;
+    private long[] bytesBA;
+    private long[] firstSeen;
+    private long[] lastSeen;
+    private byte[] flagsAB;       // TCP flags seen A -> B
+    private byte[] flagsBA;
+    private int mask;
+    private int size;
+    private long nextSweepMicros;
+
+    private long created;
+    private long expired;
+    private long restarted;
+    private long evicted;
+
+    public FlowTable(int maxFlows, int idleTimeoutSeconds, int activeTimeoutSeconds) {
+        this.maxFlows = maxFlows;
+        // Keep the load factor at or below 3/4 even when full
+        this.maxCapacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, maxFlows + maxFlows / 3) - 1) << 1;
+        this.idleTimeoutMicros = idleTimeoutSeconds * 1_000_000L;
+        this.activeTimeoutMicros = activeTimeoutSeconds * 1_000_000L;
+        allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        aHigh = new long[capacity];
+        aLow = new long[capacity];
+        bHigh = new long[capacity];
+        bLow = new long[capacity];
+        ports = new int[capacity];
+        protocols = new byte[capacity];
+        packetsAB = new long[capacity];
+        packetsBA = new long[capacity];
+        bytesAB = new long[capacity];
+        bytesBA = new long[capacity];
+        firstSeen = new long[capacity];
+        lastSeen = new long[capacity];
+        flagsAB = new byte[capacity];
+        flagsBA = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    // Returns false for packets without IP addresses
+    public synchronized boolean update(PacketSummary packet) {
+        if (packet.sourceHigh == 0 && packet.sourceLow == 0) {
+            return false;
+        }
+        long now = packet.timestampMicros;
+        if (now >= nextSweepMicros) {
+            expire(now);
+            nextSweepMicros = now + SWEEP_INTERVAL_MICROS;
+        }
+
+        int sourcePort = Math.max(0, packet.sourcePort);
+        int destPort = Math.max(0, packet.destPort);
+        int protocol = packet.ipProtocol & 0xFF;
+        int flags = packet.tcpFlags;
+        int hash = hash(packet.sourceHigh, packet.sourceLow, sourcePort,
+            packet.destHigh, packet.destLow, destPort, protocol);
+
+        int slot = find(hash, packet.sourceHigh, packet.sourceLow, sourcePort,
+            packet.destHigh, packet.destLow, destPort, protocol);
+        if (slot < 0) {
+            slot = insert(hash);
+            // We missed the SYN: the SYN+ACK sender is the responder
+            boolean reversed = protocol == FrameHeaderParser.IPPROTO_TCP
+                && (flags & (TCP_SYN | TCP_ACK)) == (TCP_SYN | TCP_ACK);
+            if (reversed) {
+                setKey(slot, hash, packet.destHigh, packet.destLow, destPort,
+                    packet.sourceHigh, packet.sourceLow, sourcePort, protocol);
+            } else {
+                setKey(slot, hash, packet.sourceHigh, packet.sourceLow, sourcePort,
+                    packet.destHigh, packet.destLow, destPort, protocol);
+            }
+            firstSeen[slot] = now;
+        } else if (restartNeeded(slot, now, protocol, flags)) {
+            resetCounters(slot);
+            firstSeen[slot] = now;
+            restarted++;
+        }
+
+        boolean forward = aLow[slot] == packet.sourceLow && aHigh[slot] == packet.sourceHigh
+            && (ports[slot] >>> 16) == sourcePort;
+        if (forward) {
+            packetsAB[slot]++;
+            bytesAB[slot] += packet.length;
+            flagsAB[slot] |= (byte) flags;
+        } else {
+            packetsBA[slot]++;
+            bytesBA[slot] += packet.length;
+            flagsBA[slot] |= (byte) flags;
+        }
+        lastSeen[slot] = now;
+        return true;
+    }
+
+    // A fresh SYN on a closed TCP flow is port reuse; the active timeout splits long flows
+    private boolean restartNeeded(int slot, long now, int protocol, int flags) {
+        if (protocol == FrameHeaderParser.IPPROTO_TCP && (flags & (TCP_SYN | TCP_ACK)) == TCP_SYN
+                && isClosed(slot)) {
+            return true;
+        }
+        return activeTimeoutMicros > 0 && now - firstSeen[slot] >= activeTimeoutMicros;
+    }
+
+    private boolean isClosed(int slot) {
+        if ((protocols[slot] & 0xFF) != FrameHeaderParser.IPPROTO_TCP) {
+            return false;
+        }
+        int ab = flagsAB[slot];
+        int ba = flagsBA[slot];
+        return ((ab | ba) & TCP_RST) != 0 || ((ab & TCP_FIN) != 0 && (ba & TCP_FIN) != 0);
+    }
+
+    // Returns the slot of the flow in either direction, or -1
+    private int find(int hash, long srcHigh, long srcLow, int srcPort,
+                     long dstHigh, long dstLow, int dstPort, int protocol) {
+        int forwardPorts = srcPort << 16 | dstPort;
+        int reversePorts = dstPort << 16 | srcPort;
+        for (int i = hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] != hash || (protocols[i] & 0xFF) != protocol) {
+                continue;
+            }
+            if (ports[i] == forwardPorts && aLow[i] == srcLow && aHigh[i] == srcHigh
+                    && bLow[i] == dstLow && bHigh[i] == dstHigh) {
+                return i;
+            }
+            if (ports[i] == reversePorts && aLow[i] == dstLow && aHigh[i] == dstHigh
+                    && bLow[i] == srcLow && bHigh[i] == srcHigh) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Makes room if needed and returns an empty slot for the hash; expiry is left to the periodic sweep
+    private int insert(int hash) {
+        if (size >= maxFlows) {
+            evictNear(hash);
+        }
+        if (size + 1 > (mask + 1) - ((mask + 1) >>> 2) && mask + 1 < maxCapacity) {
+            resize((mask + 1) << 1);
+        }
+        int i = hash & mask;
+        while (hashes[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        size++;
+        created++;
+        return i;
+    }
+
+    private void setKey(int slot, int hash, long aH, long aL, int aPort,
+                        long bH, long bL, int bPort, int protocol) {
+        hashes[slot] = hash;
+        aHigh[slot] = aH;
+        aLow[slot] = aL;
+        bHigh[slot] = bH;
+        bLow[slot] = bL;
+        ports[slot] = aPort << 16 | bPort;
+        protocols[slot] = (byte) protocol;
+        resetCounters(slot);
+    }
+
+    private void resetCounters(int slot) {
+        packetsAB[slot] = 0;
+        packetsBA[slot] = 0;
+        bytesAB[slot] = 0;
+        bytesBA[slot] = 0;
+        flagsAB[slot] = 0;
+        flagsBA[slot] = 0;
+    }
+
+    // Approximate LRU: the least recently seen flow among the slots around the new key
+    private void evictNear(int hash) {
+        int victim = -1;
+        int i = hash & mask;
+        for (int scanned = 0; scanned <= mask && (victim < 0 || scanned < EVICTION_SAMPLE); scanned++) {
+            if (hashes[i] != 0 && (victim < 0 || lastSeen[i] < lastSeen[victim])) {
+                victim = i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (victim >= 0) {
+            remove(victim);
+            evicted++;
+        }
+    }
+
+    private void expire(long now) {
+        int i = 0;
+        while (i <= mask) {
+            if (hashes[i] != 0) {
+                long timeout = isClosed(i) ? Math.min(CLOSED_TIMEOUT_MICROS, idleTimeoutMicros) : idleTimeoutMicros;
+                if (now - lastSeen[i] > timeout) {
+                    remove(i);
+                    expired++;
+                    continue;  // a later entry may have shifted into this slot
+                }
+            }
+            i++;
+        }
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void remove(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (hashes[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                moveSlot(next, hole);
+                hole = next;
+            }
+        }
+        hashes[hole] = 0;
+        size--;
+    }
+
+    private void moveSlot(int from, int to) {
+        hashes[to] = hashes[from];
+        aHigh[to] = aHigh[from];
+        aLow[to] = aLow[from];
+        bHigh[to] = bHigh[from];
+        bLow[to] = bLow[from];
+        ports[to] = ports[from];
+        protocols[to] = protocols[from];
+        packetsAB[to] = packetsAB[from];
+        packetsBA[to] = packetsBA[from];
+        bytesAB[to] = bytesAB[from];
+        bytesBA[to] = bytesBA[from];
+        firstSeen[to] = firstSeen[from];
+        lastSeen[to] = lastSeen[from];
+        flagsAB[to] = flagsAB[from];
+        flagsBA[to] = flagsBA[from];
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        long[] oldAHigh = aHigh, oldALow = aLow, oldBHigh = bHigh, oldBLow = bLow;
+        int[] oldPorts = ports;
+        byte[] oldProtocols = protocols;
+        long[] oldPacketsAB = packetsAB, oldPacketsBA = packetsBA, oldBytesAB = bytesAB, oldBytesBA = bytesBA;
+        long[] oldFirstSeen = firstSeen, oldLastSeen = lastSeen;
+        byte[] oldFlagsAB = flagsAB, oldFlagsBA = flagsBA;
+        allocate(capacity);
+        for (int from = 0; from < oldHashes.length; from++) {
+            if (oldHashes[from] == 0) {
+                continue;
+            }
+            int to = oldHashes[from] & mask;
+            while (hashes[to] != 0) {
+                to = (to + 1) & mask;
+            }
+            hashes[to] = oldHashes[from];
+            aHigh[to] = oldAHigh[from];
+            aLow[to] = oldALow[from];
+            bHigh[to] = oldBHigh[from];
+            bLow[to] = oldBLow[from];
+            ports[to] = oldPorts[from];
+            protocols[to] = oldProtocols[from];
+            packetsAB[to] = oldPacketsAB[from];
+            packetsBA[to] = oldPacketsBA[from];
+            bytesAB[to] = oldBytesAB[from];
+            bytesBA[to] = oldBytesBA[from];
+            firstSeen[to] = oldFirstSeen[from];
+            lastSeen[to] = oldLastSeen[from];
+            flagsAB[to] = oldFlagsAB[from];
+            flagsBA[to] = oldFlagsBA[from];
+        }
+    }
+
+    /**
+     * Adds the {@code limit} flows with the most bytes to {@code out}. Selection uses a
+     * min-heap of slot numbers, so only the returned flows are materialized.
+     */
+    public synchronized void top(int limit, List<FlowRecord> out) {
+        if (limit <= 0 || size == 0) {
+            return;
+        }
+        int[] heap = new int[Math.min(limit, size)];
+        int heapSize = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (hashes[i] == 0) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++);
+            } else if (totalBytes(i) > totalBytes(heap[0])) {
+                heap[0] = i;
+                siftDown(heap, heapSize);
+            }
+        }
+        for (int h = 0; h < heapSize; h++) {
+            int i = heap[h];
+            out.add(new FlowRecord(protocols[i] & 0xFF, aHigh[i], aLow[i], ports[i] >>> 16,
+                bHigh[i], bLow[i], ports[i] & 0xFFFF, packetsAB[i], packetsBA[i], bytesAB[i], bytesBA[i],
+                firstSeen[i], lastSeen[i], flagsAB[i] & 0xFF, flagsBA[i] & 0xFF));
+        }
+    }
+
+    private long totalBytes(int slot) {
+        return bytesAB[slot] + bytesBA[slot];
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (totalBytes(heap[parent]) <= totalBytes(slot)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int slot = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && totalBytes(heap[child + 1]) < totalBytes(heap[child])) {
+                child++;
+            }
+            if (totalBytes(heap[child]) >= totalBytes(slot)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = slot;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getCreated() {
+        return created;
+    }
+
+    public synchronized long getExpired() {
+        return expired;
+    }
+
+    public synchronized long getRestarted() {
+        return restarted;
+    }
+
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    public synchronized long getMemoryUsage() {
+        return (mask + 1L) * (4 + 8 * 4 + 4 + 1 + 8 * 6 + 2);
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(hashes, 0);
+        size = 0;
+        nextSweepMicros = 0;
+        created = 0;
+        expired = 0;
+        restarted = 0;
+        evicted = 0;
+    }
+
+    // Symmetric in (source, destination); never 0, which marks empty slots
+    private static int hash(long srcHigh, long srcLow, int srcPort,
+                            long dstHigh, long dstLow, int dstPort, int protocol) {
+        long a = mix(srcHigh ^ mix(srcLow)) ^ srcPort;
+        long b = mix(dstHigh ^ mix(dstLow)) ^ dstPort;
+        int hash = (int) mix(mix(a) + mix(b) + protocol);
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Conversation tracking across the decode shards. Every shard updates its own FlowTable,
+ * which is safe because the pipeline routes both directions of a flow to the same shard;
+ * the UI merges the per-shard top lists.
+ */
+public class FlowTracker {
+
+    private volatile FlowTable[] tables = new FlowTable[0];
+    private int maxFlows;
+    private int idleTimeoutSeconds;
+    private int activeTimeoutSeconds;
+
+    // Keeps the current tables when the shard layout and limits are unchanged
+    public synchronized void configure(CaptureConfig config) {
+        int shards = config.getDecodeWorkers();
+        if (tables.length == shards && maxFlows == config.getMaxFlows()
+                && idleTimeoutSeconds == config.getFlowIdleTimeoutSeconds()
+                && activeTimeoutSeconds == config.getFlowActiveTimeoutSeconds()) {
+            return;
+        }
+        maxFlows = config.getMaxFlows();
+        idleTimeoutSeconds = config.getFlowIdleTimeoutSeconds();
+        activeTimeoutSeconds = config.getFlowActiveTimeoutSeconds();
+        int perShard = Math.max(1, (maxFlows + shards - 1) / shards);
+        FlowTable[] newTables = new FlowTable[shards];
+        for (int i = 0; i < shards; i++) {
+            newTables[i] = new FlowTable(perShard, idleTimeoutSeconds, activeTimeoutSeconds);
+        }
+        tables = newTables;
+    }
+
+    // Called by the decode shard that owns the packet's flow
+    public void update(PacketSummary packet, int shard) {
+        FlowTable[] current = tables;
+        if (current.length > 0) {
+            // A pipeline that is still draining after a reconfigure may have more shards
+            current[shard % current.length].update(packet);
+        }
+    }
+
+    // The limit flows with the most bytes, largest first
+    public List<FlowRecord> topConversations(int limit) {
+        List<FlowRecord> flows = new ArrayList<>();
+        for (FlowTable table : tables) {
+            table.top(limit, flows);
+        }
+        flows.sort(Comparator.comparingLong(FlowRecord::getBytes).reversed());
+        return flows.size() > limit ? new ArrayList<>(flows.subList(0, limit)) : flows;
+    }
+
+    public int getActiveFlows() {
+        int active = 0;
+        for (FlowTable table : tables) {
+            active += table.size();
+        }
+        return active;
+    }
+
+    public void clear() {
+        for (FlowTable table : tables) {
+            table.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        long active = 0;
+        long created = 0;
+        long expired = 0;
+        long restarted = 0;
+        long evicted = 0;
+        long memory = 0;
+        for (FlowTable table : tables) {
+            active += table.size();
+            created += table.getCreated();
+            expired += table.getExpired();
+            restarted += table.getRestarted();
+            evicted += table.getEvicted();
+            memory += table.getMemoryUsage();
+        }
+        return String.format("Flows: %d active | %d created | %d expired | %d restarted | %d evicted | %d KB",
+            active, created, expired, restarted, evicted, memory / 1024);
+    }
+}
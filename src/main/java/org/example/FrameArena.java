@@ -0,0 +1,113 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only store for raw frame bytes outside the Java heap. Frames are packed into
+ * 64 MB chunks memory-mapped from a temporary file, so the OS pages cold frames out
+ * instead of the GC scanning them; if no temp file can be created, direct buffers are
+ * used instead. A frame is addressed by a long (chunk index in the upper 32 bits,
+ * position in the lower 32) and never spans two chunks.
+ *
+ * One thread appends; frames that were already appended can be read from any thread.
+ */
+public class FrameArena implements Closeable, FrameSource {
+
+    private static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private int chunkCount;
+    private int position = CHUNK_SIZE;  // forces the first append to map a chunk
+    private long bytesStored;
+
+    public FrameArena() {
+        FileChannel fileChannel = null;
+        try {
+            Path file = Files.createTempFile("packet-analyzer-frames", ".bin");
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            System.out.println("Frame arena falling back to direct memory: " + e.getMessage());
+        }
+        this.channel = fileChannel;
+    }
+
+    public long append(byte[] frame) {
+        return append(frame, 0, frame.length);
+    }
+
+    public long append(byte[] frame, int offset, int length) {
+        if (length > CHUNK_SIZE) {
+            throw new IllegalArgumentException("Frame larger than an arena chunk: " + length);
+        }
+        if (position + length > CHUNK_SIZE) {
+            nextChunk();
+        }
+        ByteBuffer chunk = chunks[chunkCount - 1].duplicate();
+        chunk.position(position);
+        chunk.put(frame, offset, length);
+        long address = ((long) (chunkCount - 1) << 32) | position;
+        position += length;
+        bytesStored += length;
+        return address;
+    }
+
+    private void nextChunk() {
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(4, chunks.length * 2));
+        }
+        if (chunks[chunkCount] == null) {
+            chunks[chunkCount] = mapChunk(chunkCount);
+        }
+        chunkCount++;
+        position = 0;
+    }
+
+    private ByteBuffer mapChunk(int index) {
+        if (channel != null) {
+            try {
+                return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * CHUNK_SIZE, CHUNK_SIZE);
+            } catch (IOException e) {
+                System.out.println("Could not map arena chunk, using direct memory: " + e.getMessage());
+            }
+        }
+        return ByteBuffer.allocateDirect(CHUNK_SIZE);
+    }
+
+    @Override
+    public byte[] readFrame(long address, int length) {
+        byte[] frame = new byte[length];
+        ByteBuffer chunk = chunks[(int) (address >>> 32)].duplicate();
+        chunk.position((int) address);
+        chunk.get(frame);
+        return frame;
+    }
+
+    public long getBytesStored() {
+        return bytesStored;
+    }
+
+    // Forgets all frames; mapped chunks are kept and reused
+    public void clear() {
+        chunkCount = 0;
+        position = CHUNK_SIZE;
+        bytesStored = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunks = new ByteBuffer[0];
+        chunkCount = 0;
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.example;
+
+/**
+ * A DisplayFilter compiled for one link type, to run on raw frames as they are captured
+ * or replayed, before anything is decoded or stored. Compiling turns every term into a
+ * predicate with its constants bound (an IPv4 address becomes an int compared at the
+ * source/destination offset of the IP header, a port a short compared at the transport
+ * header, an operator a specialized comparison), so nothing is looked up or interpreted
+ * per frame. Per frame the filter only locates the IP and transport headers; the terms
+ * read their fields from the frame bytes at fixed offsets from there.
+ *
+ * Matches exactly what DisplayFilter.matches() would on the row the header parser makes
+ * of the frame. Not thread-safe: one instance per capture thread. Relative times and
+ * times of day are taken from the first frame tested.
+ */
+public final class FrameFilter {
+
+    // One compiled term
+    interface Predicate {
+        boolean test(FrameFilter frame);
+    }
+
+    private final DisplayFilter filter;
+    private final int linkType;
+    private final Predicate predicate;
+
+    // The frame being tested, with its headers located
+    byte[] data;
+    int length;         // captured bytes
+    int wireLength;
+    long timestamp;
+    long first;         // timestamp of the first frame tested
+    private boolean started;
+    int version;        // 4 or 6, 0 when the frame has no IP header
+    int network;        // offset of the IP header
+    int protocolId;     // CaptureStore.PROTO_*
+    int ports;          // offset of the TCP/UDP ports, -1 when the frame has none
+
+    FrameFilter(DisplayFilter filter, int linkType, Predicate predicate) {
+        this.filter = filter;
+        this.linkType = linkType;
+        this.predicate = predicate;
+    }
+
+    public boolean test(byte[] frame, int capturedLength, int wireLength, long timestampMicros) {
+        if (!started) {
+            first = timestampMicros;
+            started = true;
+        }
+        data = frame;
+        length = Math.min(capturedLength, frame.length);
+        this.wireLength = wireLength;
+        timestamp = timestampMicros;
+        locateHeaders();
+        return predicate.test(this);
+    }
+
+    // The same rules as FrameHeaderParser, keeping offsets instead of values
+    private void locateHeaders() {
+        version = 0;
+        protocolId = CaptureStore.PROTO_UNKNOWN;
+        ports = -1;
+        long located = FrameHeaderParser.locateNetworkHeader(data, length, linkType);
+        if (located < 0) {
+            return;
+        }
+        int etherType = (int) (located >>> 32);
+        int offset = (int) located;
+        int ipProtocol;
+        int transport;
+        boolean firstFragment;
+        if (etherType == FrameHeaderParser.ETHERTYPE_IPV4 && offset + 20 <= length && (data[offset] & 0xF0) == 0x40) {
+            version = 4;
+            ipProtocol = data[offset + 9] & 0xFF;
+            transport = offset + (data[offset] & 0x0F) * 4;
+            firstFragment = (FrameHeaderParser.readShort(data, offset + 6) & 0x1FFF) == 0;
+        } else if (etherType == FrameHeaderParser.ETHERTYPE_IPV6 && offset + 40 <= length && (data[offset] & 0xF0) == 0x60) {
+            version = 6;
+            long upperLayer = FrameHeaderParser.skipIpV6Extensions(data, offset, length);
+            ipProtocol = (int) (upperLayer >>> 32);
+            transport = (int) upperLayer & ~FrameHeaderParser.LATER_FRAGMENT;
+            firstFragment = ((int) upperLayer & FrameHeaderParser.LATER_FRAGMENT) == 0;
+        } else {
+            return;
+        }
+        network = offset;
+        switch (ipProtocol) {
+            case FrameHeaderParser.IPPROTO_TCP:
+                protocolId = CaptureStore.PROTO_TCP;
+                ports = firstFragment && transport + 14 <= length ? transport : -1;
+                break;
+            case FrameHeaderParser.IPPROTO_UDP:
+                protocolId = CaptureStore.PROTO_UDP;
+                ports = firstFragment && transport + 4 <= length ? transport : -1;
+                break;
+            case FrameHeaderParser.IPPROTO_ICMP:
+                protocolId = CaptureStore.PROTO_ICMP;
+                break;
+            case FrameHeaderParser.IPPROTO_ICMPV6:
+                protocolId = CaptureStore.PROTO_ICMPV6;
+                break;
+            default:
+                protocolId = CaptureStore.PROTO_IP;
+                break;
+        }
+    }
+
+    // Ports are 0 when the frame has none, as in the store
+    int sourcePort() {
+        return ports >= 0 ? FrameHeaderParser.readShort(data, ports) : 0;
+    }
+
+    int destPort() {
+        return ports >= 0 ? FrameHeaderParser.readShort(data, ports + 2) : 0;
+    }
+
+    // Only called for TCP, where ports is set whenever the flags were captured
+    int tcpFlags() {
+        return ports >= 0 ? data[ports + 13] & 0xFF : 0;
+    }
+
+    // The address as the AddressDictionary keeps it, IPv4 mapped into IPv6; only valid with an IP header
+    long addressHigh(boolean source) {
+        return version == 4 ? 0 : FrameHeaderParser.readLong(data, network + (source ? 8 : 24));
+    }
+
+    long addressLow(boolean source) {
+        if (version == 4) {
+            return 0x0000FFFF00000000L | (FrameHeaderParser.readInt(data, network + (source ? 12 : 16)) & 0xFFFFFFFFL);
+        }
+        return FrameHeaderParser.readLong(data, network + (source ? 16 : 32));
+    }
+
+    public DisplayFilter getFilter() {
+        return filter;
+    }
+
+    public int getLinkType() {
+        return linkType;
+    }
+
+    @Override
+    public String toString() {
+        return filter.getExpression();
+    }
+}
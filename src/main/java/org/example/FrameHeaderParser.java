@@ -0,0 +1,251 @@
+package org.example;
+
+/**
+ * Zero-allocation parser for the summary fields of a raw frame: link layer, IPv4/IPv6
+ * addresses, transport protocol, ports and TCP flags. Reads the bytes at fixed offsets
+ * and writes primitives into the given PacketSummary; the full pcap4j decode is left
+ * until somebody actually looks at the packet.
+ */
+public final class FrameHeaderParser {
+
+    // pcap link-layer header types (DataLinkType values)
+    public static final int LINKTYPE_NULL = 0;
+    public static final int LINKTYPE_ETHERNET = 1;
+    public static final int LINKTYPE_RAW = 101;
+    // Raw IP as a live handle reports it: DLT_RAW is 12 on Linux and most systems, 14 on OpenBSD
+    public static final int DLT_RAW = 12;
+    public static final int DLT_RAW_OPENBSD = 14;
+    public static final int LINKTYPE_LOOP = 108;
+    public static final int LINKTYPE_LINUX_SLL = 113;
+
+    public static final int ETHERTYPE_IPV4 = 0x0800;
+    public static final int ETHERTYPE_IPV6 = 0x86DD;
+    public static final int ETHERTYPE_VLAN = 0x8100;
+    public static final int ETHERTYPE_QINQ = 0x88A8;
+
+    public static final int IPPROTO_ICMP = 1;
+    public static final int IPPROTO_TCP = 6;
+    public static final int IPPROTO_UDP = 17;
+    public static final int IPPROTO_ICMPV6 = 58;
+
+    // Set in the offset returned by skipIpV6Extensions for a non-first fragment
+    static final int LATER_FRAGMENT = 1 << 30;
+
+    private FrameHeaderParser() {
+    }
+
+    // Returns false if no IP header was found; summary fields are left untouched in that case
+    public static boolean parse(byte[] frame, int length, int linkType, PacketSummary summary) {
+        long network = locateNetworkHeader(frame, length, linkType);
+        if (network < 0) {
+            return false;
+        }
+        int etherType = (int) (network >>> 32);
+        int offset = (int) network;
+        if (etherType == ETHERTYPE_IPV4) {
+            return parseIpV4(frame, offset, length, summary);
+        } else if (etherType == ETHERTYPE_IPV6) {
+            return parseIpV6(frame, offset, length, summary);
+        }
+        return false;
+    }
+
+    /**
+     * Direction-independent hash of the 5-tuple (addresses, ports, IP protocol), so both
+     * directions of a conversation map to the same value. Frames without an IP header hash
+     * to 0; non-first fragments carry no ports and hash by addresses and protocol only.
+     */
+    public static int flowHash(byte[] frame, int length, int linkType) {
+        long network = locateNetworkHeader(frame, length, linkType);
+        if (network < 0) {
+            return 0;
+        }
+        int etherType = (int) (network >>> 32);
+        int offset = (int) network;
+        long a;
+        long b;
+        int protocol;
+        int transport;
+        boolean firstFragment = true;
+        if (etherType == ETHERTYPE_IPV4 && offset + 20 <= length) {
+            a = readInt(frame, offset + 12) & 0xFFFFFFFFL;
+            b = readInt(frame, offset + 16) & 0xFFFFFFFFL;
+            protocol = frame[offset + 9] & 0xFF;
+            transport = offset + (frame[offset] & 0x0F) * 4;
+            firstFragment = (readShort(frame, offset + 6) & 0x1FFF) == 0;
+        } else if (etherType == ETHERTYPE_IPV6 && offset + 40 <= length) {
+            a = mix(readLong(frame, offset + 8)) ^ readLong(frame, offset + 16);
+            b = mix(readLong(frame, offset + 24)) ^ readLong(frame, offset + 32);
+            protocol = frame[offset + 6] & 0xFF;
+            transport = offset + 40;
+        } else {
+            return 0;
+        }
+        if (firstFragment && (protocol == IPPROTO_TCP || protocol == IPPROTO_UDP) && transport + 4 <= length) {
+            a = (a << 16) ^ readShort(frame, transport);
+            b = (b << 16) ^ readShort(frame, transport + 2);
+        }
+        // Addition is commutative: (a, b) and (b, a) give the same hash
+        return (int) mix(mix(a) + mix(b) + protocol);
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    // Returns (etherType << 32 | offset of the network header), or -1 for unsupported frames
+    static long locateNetworkHeader(byte[] frame, int length, int linkType) {
+        int offset;
+        int etherType;
+        switch (linkType) {
+            case LINKTYPE_ETHERNET:
+                if (length < 14) return -1;
+                etherType = readShort(frame, 12);
+                offset = 14;
+                while ((etherType == ETHERTYPE_VLAN || etherType == ETHERTYPE_QINQ) && offset + 4 <= length) {
+                    etherType = readShort(frame, offset + 2);
+                    offset += 4;
+                }
+                break;
+            case LINKTYPE_LINUX_SLL:
+                if (length < 16) return -1;
+                etherType = readShort(frame, 14);
+                offset = 16;
+                break;
+            case LINKTYPE_NULL:
+            case LINKTYPE_LOOP:
+                if (length < 4) return -1;
+                // Address family in host (NULL) or network (LOOP) byte order; 2 = IPv4, 24/28/30 = IPv6
+                int family = linkType == LINKTYPE_LOOP ? readInt(frame, 0) : Math.max(frame[0] & 0xFF, frame[3] & 0xFF);
+                etherType = family == 2 ? ETHERTYPE_IPV4 : ETHERTYPE_IPV6;
+                offset = 4;
+                break;
+            case LINKTYPE_RAW:
+            case DLT_RAW:
+            case DLT_RAW_OPENBSD:
+                if (length < 1) return -1;
+                etherType = (frame[0] & 0xF0) == 0x40 ? ETHERTYPE_IPV4 : ETHERTYPE_IPV6;
+                offset = 0;
+                break;
+            default:
+                return -1;
+        }
+        return ((long) etherType << 32) | offset;
+    }
+
+    private static boolean parseIpV4(byte[] frame, int offset, int length, PacketSummary summary) {
+        if (offset + 20 > length || (frame[offset] & 0xF0) != 0x40) {
+            return false;
+        }
+        int headerLength = (frame[offset] & 0x0F) * 4;
+        int protocol = frame[offset + 9] & 0xFF;
+        boolean firstFragment = (readShort(frame, offset + 6) & 0x1FFF) == 0;
+        summary.sourceHigh = 0;
+        summary.sourceLow = 0x0000FFFF00000000L | (readInt(frame, offset + 12) & 0xFFFFFFFFL);
+        summary.destHigh = 0;
+        summary.destLow = 0x0000FFFF00000000L | (readInt(frame, offset + 16) & 0xFFFFFFFFL);
+        summary.ipProtocol = protocol;
+        int totalLength = readShort(frame, offset + 2);
+        // 0 with TCP segmentation offload: the frame is all there is
+        int end = totalLength >= headerLength ? offset + totalLength : length;
+        parseTransport(frame, offset + headerLength, length, end, protocol, firstFragment, summary);
+        return true;
+    }
+
+    private static boolean parseIpV6(byte[] frame, int offset, int length, PacketSummary summary) {
+        if (offset + 40 > length || (frame[offset] & 0xF0) != 0x60) {
+            return false;
+        }
+        summary.sourceHigh = readLong(frame, offset + 8);
+        summary.sourceLow = readLong(frame, offset + 16);
+        summary.destHigh = readLong(frame, offset + 24);
+        summary.destLow = readLong(frame, offset + 32);
+
+        long upperLayer = skipIpV6Extensions(frame, offset, length);
+        int nextHeader = (int) (upperLayer >>> 32);
+        summary.ipProtocol = nextHeader;
+        int payloadLength = readShort(frame, offset + 4);
+        int end = payloadLength > 0 ? offset + 40 + payloadLength : length;
+        parseTransport(frame, (int) upperLayer & ~LATER_FRAGMENT, length, end, nextHeader,
+            ((int) upperLayer & LATER_FRAGMENT) == 0, summary);
+        return true;
+    }
+
+    /**
+     * Walks the hop-by-hop, routing, fragment and destination option headers after the
+     * IPv6 header at offset. Returns (upper-layer protocol << 32 | its offset), with
+     * LATER_FRAGMENT or'ed into the offset when this is not the first fragment.
+     */
+    static long skipIpV6Extensions(byte[] frame, int offset, int length) {
+        int nextHeader = frame[offset + 6] & 0xFF;
+        int position = offset + 40;
+        int fragment = 0;
+        while ((nextHeader == 0 || nextHeader == 43 || nextHeader == 44 || nextHeader == 60)
+                && position + 8 <= length) {
+            int headerLength;
+            if (nextHeader == 44) {
+                fragment = (readShort(frame, position + 2) & 0xFFF8) == 0 ? 0 : LATER_FRAGMENT;
+                headerLength = 8;
+            } else {
+                headerLength = ((frame[position + 1] & 0xFF) + 1) * 8;
+            }
+            nextHeader = frame[position] & 0xFF;
+            position += headerLength;
+        }
+        return ((long) nextHeader << 32) | position | fragment;
+    }
+
+    // end is where the IP packet ends on the wire, which may be past the captured length
+    private static void parseTransport(byte[] frame, int offset, int length, int end, int protocol,
+                                       boolean firstFragment, PacketSummary summary) {
+        switch (protocol) {
+            case IPPROTO_TCP:
+                summary.protocolId = CaptureStore.PROTO_TCP;
+                if (firstFragment && offset + 14 <= length) {
+                    summary.sourcePort = readShort(frame, offset);
+                    summary.destPort = readShort(frame, offset + 2);
+                    summary.tcpFlags = frame[offset + 13] & 0xFF;
+                    summary.tcpSequence = readInt(frame, offset + 4) & 0xFFFFFFFFL;
+                    summary.tcpAck = readInt(frame, offset + 8) & 0xFFFFFFFFL;
+                    summary.tcpWindow = offset + 16 <= length ? readShort(frame, offset + 14) : -1;
+                    summary.payloadOffset = offset + ((frame[offset + 12] & 0xF0) >>> 2);
+                    summary.payloadLength = Math.max(0, end - summary.payloadOffset);
+                }
+                break;
+            case IPPROTO_UDP:
+                summary.protocolId = CaptureStore.PROTO_UDP;
+                if (firstFragment && offset + 4 <= length) {
+                    summary.sourcePort = readShort(frame, offset);
+                    summary.destPort = readShort(frame, offset + 2);
+                    summary.payloadOffset = offset + 8;
+                    summary.payloadLength = Math.max(0, end - summary.payloadOffset);
+                }
+                break;
+            case IPPROTO_ICMP:
+                summary.protocolId = CaptureStore.PROTO_ICMP;
+                break;
+            case IPPROTO_ICMPV6:
+                summary.protocolId = CaptureStore.PROTO_ICMPV6;
+                break;
+            default:
+                summary.protocolId = CaptureStore.PROTO_IP;
+                break;
+        }
+    }
+
+    static int readShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+            | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    static long readLong(byte[] data, int offset) {
+        return ((long) readInt(data, offset) << 32) | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+    }
+}
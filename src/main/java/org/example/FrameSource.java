@@ -0,0 +1,6 @@
+package org.example;
+
+// Somewhere raw frames can be read back from by the location recorded in the CaptureStore
+public interface FrameSource {
+    byte[] readFrame(long location, int capturedLength);
+}
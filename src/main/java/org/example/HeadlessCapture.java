@@ -0,0 +1,290 @@
+package org.example;
+
+import org.pcap4j.core.PcapNetworkInterface;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Live capture or pcap replay without the Swing UI, to run as a service and to measure
+ * the engine on its own. Built on CaptureEngine and NetworkInterfaceInfo only, nothing
+ * here loads AWT. Decoded rows are counted on the publisher thread and dropped, so memory
+ * stays flat however long it runs; conversations are kept by the engine's FlowTracker and
+ * DNS latency by its DnsTracker and TCP health by its TcpMetricsTracker.
+ */
+public class HeadlessCapture implements Consumer<List<PacketSummary>> {
+
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final CaptureConfig config;
+    private List<String> interfaceNames = Collections.emptyList();
+    private Path readFile;
+    private String filterExpression;
+    private DisplayFilter displayFilter;
+    private long packetLimit;
+    private int durationSeconds;
+    private boolean writeOutput;
+    private Path flowsFile;
+    private int topConversations = 10;
+    private int statsIntervalSeconds;
+    private final PrintStream out;
+
+    // Updated by the publisher thread only, one frame at a time
+    private volatile long packets;
+    private volatile long bytes;
+    private final long[] protocolPackets = new long[256];
+
+    public HeadlessCapture(CaptureConfig config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+    }
+
+    // Several interfaces are captured at once and merged in timestamp order
+    public void setInterfaceNames(List<String> interfaceNames) {
+        this.interfaceNames = interfaceNames;
+    }
+
+    public void setReadFile(Path readFile) {
+        this.readFile = readFile;
+    }
+
+    public void setFilterExpression(String filterExpression) {
+        this.filterExpression = filterExpression;
+    }
+
+    // Only the matching packets are counted, tracked and written
+    public void setDisplayFilter(DisplayFilter displayFilter) {
+        this.displayFilter = displayFilter;
+    }
+
+    public void setPacketLimit(long packetLimit) {
+        this.packetLimit = packetLimit;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    // Writes the captured (or, for a replay, the matching) packets to config.getOutputFile()
+    public void setWriteOutput(boolean writeOutput) {
+        this.writeOutput = writeOutput;
+    }
+
+    public void setFlowsFile(Path flowsFile) {
+        this.flowsFile = flowsFile;
+    }
+
+    public void setTopConversations(int topConversations) {
+        this.topConversations = topConversations;
+    }
+
+    public void setStatsIntervalSeconds(int statsIntervalSeconds) {
+        this.statsIntervalSeconds = statsIntervalSeconds;
+    }
+
+    @Override
+    public void accept(List<PacketSummary> rows) {
+        long rowBytes = 0;
+        for (PacketSummary summary : rows) {
+            rowBytes += summary.length;
+            protocolPackets[summary.protocolId & 0xFF]++;
+        }
+        bytes += rowBytes;
+        packets += rows.size();
+    }
+
+    // Runs until the limit, the duration, the end of the file or Ctrl-C, then prints the summary
+    public void run() throws Exception {
+        CaptureConfig engineConfig = config.copy();
+        if (!writeOutput) {
+            engineConfig.setOutputFile(null);
+        }
+        CaptureEngine engine = new CaptureEngine(this, Runnable::run);
+        engine.setCaptureConfig(engineConfig);
+        engine.setPacketLimit(packetLimit);
+        engine.setFrameFilter(displayFilter);
+
+        PcapFileReader reader = null;
+        String source;
+        long started = System.nanoTime();
+        if (readFile != null) {
+            reader = new PcapFileReader(readFile);
+            source = readFile.toString();
+            engine.replayFile(reader, filterExpression, writeOutput);
+        } else {
+            // Pcap names or the descriptions shown in the GUI, all from one enumeration
+            NetworkInterfaceInfo registry = new NetworkInterfaceInfo();
+            List<PcapNetworkInterface> devices = new ArrayList<>();
+            for (String interfaceName : interfaceNames) {
+                PcapNetworkInterface device = registry.getDevice(interfaceName);
+                if (device == null) {
+                    throw new IllegalArgumentException("No such interface: " + interfaceName + " (see --list)");
+                }
+                devices.add(device);
+            }
+            engine.startCapturing(devices, filterExpression);
+            source = String.join(", ", engine.getInterfaceNames());
+        }
+
+        CountDownLatch stopRequested = new CountDownLatch(1);
+        CountDownLatch reported = new CountDownLatch(1);
+        Thread shutdownHook = new Thread(() -> {
+            stopRequested.countDown();
+            try {
+                reported.await(DRAIN_TIMEOUT_SECONDS + 5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "headless-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            long deadline = durationSeconds > 0 ? started + TimeUnit.SECONDS.toNanos(durationSeconds) : Long.MAX_VALUE;
+            long tickNanos = TimeUnit.SECONDS.toNanos(statsIntervalSeconds > 0 ? statsIntervalSeconds : 1);
+            long nextTick = started + tickNanos;
+            while (stopRequested.getCount() > 0) {
+                long now = System.nanoTime();
+                if (now >= deadline) {
+                    break;
+                }
+                if (engine.awaitSource(Math.min(deadline, nextTick) - now, TimeUnit.NANOSECONDS)) {
+                    break;
+                }
+                if (System.nanoTime() >= nextTick) {
+                    if (statsIntervalSeconds > 0) {
+                        printProgress(engine, System.nanoTime() - started);
+                    }
+                    nextTick += tickNanos;
+                }
+            }
+
+            engine.stopCapturing();
+            if (!engine.awaitDrained(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Pipeline did not drain within " + DRAIN_TIMEOUT_SECONDS + " s, counts are partial");
+            }
+            engine.getTcpReassembly().closeAll();
+            long elapsed = System.nanoTime() - started;
+
+            printSummary(engine, source, reader != null, elapsed);
+            if (flowsFile != null) {
+                int written = writeFlows(engine.getFlowTracker(), flowsFile);
+                out.printf("Wrote %d conversations to %s%n", written, flowsFile);
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+            reported.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // Already shutting down because of Ctrl-C
+            }
+        }
+    }
+
+    private void printProgress(CaptureEngine engine, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        PipelineStats pipeline = engine.getPipelineStats();
+        System.err.printf("%8.1f s  %,d packets  %,.0f pkt/s  %.1f Mbit/s  drops: kernel %d, pipeline %d, writer %d  flows %d%n",
+            seconds, packets, packets / seconds, bytes * 8 / seconds / 1e6,
+            engine.getCaptureStats().getDroppedByKernel(),
+            pipeline.getDroppedAtCapture() + pipeline.getDroppedAtDecode(),
+            engine.getWriterStats().getDropped(), engine.getFlowTracker().getActiveFlows());
+    }
+
+    private void printSummary(CaptureEngine engine, String source, boolean replay, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("Source:     %s (%s)%s%s%n", source, replay ? "file" : "live",
+            filterExpression != null ? ", filter \"" + filterExpression + "\"" : "",
+            displayFilter != null ? ", display filter \"" + displayFilter + "\"" : "");
+        out.printf("Elapsed:    %.3f s%n", seconds);
+        out.printf("Packets:    %,d (%,.0f pkt/s)%n", packets, packets / seconds);
+        out.printf("Bytes:      %,d (%.1f Mbit/s)%n", bytes, bytes * 8 / seconds / 1e6);
+        StringBuilder protocols = new StringBuilder();
+        for (int id = 0; id < protocolPackets.length; id++) {
+            if (protocolPackets[id] > 0) {
+                if (protocols.length() > 0) {
+                    protocols.append(" | ");
+                }
+                protocols.append(String.format("%s %,d (%.1f%%)", CaptureStore.protocolName(id),
+                    protocolPackets[id], 100.0 * protocolPackets[id] / packets));
+            }
+        }
+        out.println("Protocols:  " + protocols);
+        if (!replay) {
+            out.println("Capture:    " + engine.getCaptureStats());
+            String[] interfaces = engine.getInterfaceNames();
+            if (interfaces.length > 1) {
+                for (int i = 0; i < interfaces.length; i++) {
+                    out.printf("  %-8s  %s%n", interfaces[i], engine.getCaptureStats(i));
+                }
+                out.printf("Merge:      %,d packets out of order (reorder window %d ms)%n",
+                    engine.getLatePackets(), config.getReorderWindowMillis());
+            }
+        }
+        out.println("Pipeline:   " + engine.getPipelineStats());
+        if (writeOutput) {
+            out.println("Writer:     " + engine.getWriterStats());
+        }
+        out.println(engine.getFlowTracker());
+        if (engine.getTcpReassembly().isEnabled()) {
+            out.println(engine.getTcpReassembly());
+        }
+        DnsTracker dns = engine.getDnsTracker();
+        if (dns.getQueries() > 0) {
+            out.print(dns.report(topConversations));
+        }
+        TcpMetricsTracker tcp = engine.getTcpMetrics();
+        if (tcp.getConnections() > 0) {
+            out.print(tcp.report(topConversations));
+        }
+
+        if (topConversations > 0) {
+            List<FlowRecord> top = engine.getFlowTracker().topConversations(topConversations);
+            if (!top.isEmpty()) {
+                out.printf("%nTop conversations by bytes:%n");
+                out.printf("%-7s %-41s %-41s %10s %14s %10s  %s%n",
+                    "Proto", "Address A", "Address B", "Packets", "Bytes", "Duration", "State");
+                for (FlowRecord flow : top) {
+                    out.printf("%-7s %-41s %-41s %,10d %,14d %9.1fs  %s%n", flow.getProtocolName(),
+                        endpoint(flow.getAddressA(), flow.aPort), endpoint(flow.getAddressB(), flow.bPort),
+                        flow.getPackets(), flow.getBytes(), flow.getDurationSeconds(), flow.getState());
+                }
+            }
+        }
+    }
+
+    private static String endpoint(String address, int port) {
+        if (port == 0) {
+            return address;
+        }
+        return address.indexOf(':') >= 0 ? "[" + address + "]:" + port : address + ":" + port;
+    }
+
+    // Every tracked conversation as CSV, largest first
+    private static int writeFlows(FlowTracker flowTracker, Path file) throws IOException {
+        List<FlowRecord> flows = flowTracker.topConversations(flowTracker.getActiveFlows());
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("protocol,address_a,port_a,address_b,port_b,packets_ab,packets_ba,bytes_ab,bytes_ba,first_seen_us,last_seen_us,state");
+            writer.newLine();
+            for (FlowRecord flow : flows) {
+                writer.write(flow.getProtocolName() + ',' + flow.getAddressA() + ',' + flow.aPort + ','
+                    + flow.getAddressB() + ',' + flow.bPort + ',' + flow.packetsAB + ',' + flow.packetsBA + ','
+                    + flow.bytesAB + ',' + flow.bytesBA + ',' + flow.firstSeenMicros + ',' + flow.lastSeenMicros + ','
+                    + flow.getState());
+                writer.newLine();
+            }
+        }
+        return flows.size();
+    }
+}
@@ -0,0 +1,242 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Space-Saving top-k summary (Metwally, Agrawal, El Abbadi) over int ids: at most
+ * capacity ids are monitored, in a min-heap by count. An id that is not monitored takes
+ * the place of the smallest one and inherits its count as its error. Every reported
+ * count overestimates the true one by at most its error; on a single stream the error
+ * never exceeds total / capacity, so any id with more than that share of the packets is
+ * always in the summary. Memory is fixed however many distinct ids (scan, DDoS) go through it.
+ * Summaries merge (addAll), which is how per-second intervals become sliding windows.
+ */
+public class HeavyHitters {
+
+    private final int capacity;
+    // Min-heap by count
+    private final int[] ids;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+    private long total;
+    // id + 1 -> heap position, open addressing with backward-shift deletion
+    private final int[] indexKeys;
+    private final int[] indexPositions;
+    private final int indexMask;
+
+    public HeavyHitters(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        ids = new int[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        int indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        indexKeys = new int[indexSize];
+        indexPositions = new int[indexSize];
+        indexMask = indexSize - 1;
+    }
+
+    public void add(int id) {
+        add(id, 1, 0);
+    }
+
+    // Adds count occurrences of id whose true count may be up to error lower (from a merged summary)
+    public void add(int id, long count, long error) {
+        total += count;
+        int slot = find(id);
+        if (slot >= 0) {
+            int position = indexPositions[slot];
+            counts[position] += count;
+            errors[position] += error;
+            siftDown(position);
+        } else if (size < capacity) {
+            int position = size++;
+            ids[position] = id;
+            counts[position] = count;
+            errors[position] = error;
+            insert(id, position);
+            siftUp(position);
+        } else {
+            // Replace the smallest: whatever it counted could have been this id
+            long minimum = counts[0];
+            remove(ids[0]);
+            ids[0] = id;
+            counts[0] = minimum + count;
+            errors[0] = minimum + error;
+            insert(id, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Merges another summary into this one, keeping the guarantee that counts only
+     * overestimate: ids monitored here but not there may have had up to the other's
+     * smallest count there, so that much is added to both their count and their error.
+     */
+    public void addAll(HeavyHitters other) {
+        long missing = other.getMaxError();
+        if (missing > 0) {
+            for (int i = 0; i < size; i++) {
+                if (other.find(ids[i]) < 0) {
+                    counts[i] += missing;
+                    errors[i] += missing;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+        long monitored = 0;
+        for (int i = 0; i < other.size; i++) {
+            add(other.ids[i], other.counts[i], other.errors[i]);
+            monitored += other.counts[i];
+        }
+        // Packets of ids the other summary no longer monitors still count towards the total
+        total += other.total - monitored;
+    }
+
+    // Estimated count, 0 when the id is not monitored (its true count is then at most getMaxError())
+    public long get(int id) {
+        int slot = find(id);
+        return slot >= 0 ? counts[indexPositions[slot]] : 0;
+    }
+
+    public long getError(int id) {
+        int slot = find(id);
+        return slot >= 0 ? errors[indexPositions[slot]] : 0;
+    }
+
+    // Upper bound on any error, and on the count of an id that is not monitored
+    public long getMaxError() {
+        return size < capacity ? 0 : counts[0];
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Ids of the n largest counts, largest first
+    public int[] top(int n) {
+        int[] best = new int[Math.min(n, size)];   // heap positions, by count descending
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            int position = found < best.length ? found++ : best.length;
+            while (position > 0 && counts[i] > counts[best[position - 1]]) {
+                if (position < best.length) {
+                    best[position] = best[position - 1];
+                }
+                position--;
+            }
+            if (position < best.length) {
+                best[position] = i;
+            }
+        }
+        for (int i = 0; i < found; i++) {
+            best[i] = ids[best[i]];
+        }
+        return best;
+    }
+
+    public void clear() {
+        Arrays.fill(indexKeys, 0);
+        size = 0;
+        total = 0;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[position] <= counts[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        long count = counts[a];
+        long error = errors[a];
+        ids[a] = ids[b];
+        counts[a] = counts[b];
+        errors[a] = errors[b];
+        ids[b] = id;
+        counts[b] = count;
+        errors[b] = error;
+        indexPositions[find(ids[a])] = a;
+        indexPositions[find(ids[b])] = b;
+    }
+
+    private static int hash(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private int find(int id) {
+        int key = id + 1;
+        for (int i = hash(key) & indexMask; indexKeys[i] != 0; i = (i + 1) & indexMask) {
+            if (indexKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int id, int position) {
+        int key = id + 1;
+        int i = hash(key) & indexMask;
+        while (indexKeys[i] != 0) {
+            i = (i + 1) & indexMask;
+        }
+        indexKeys[i] = key;
+        indexPositions[i] = position;
+    }
+
+    private void remove(int id) {
+        int hole = find(id);
+        int next = hole;
+        while (true) {
+            next = (next + 1) & indexMask;
+            if (indexKeys[next] == 0) {
+                break;
+            }
+            int home = hash(indexKeys[next]) & indexMask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                indexKeys[hole] = indexKeys[next];
+                indexPositions[hole] = indexPositions[next];
+                hole = next;
+            }
+        }
+        indexKeys[hole] = 0;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+import org.pcap4j.core.PcapNetworkInterface;
+
+// A change NetworkInterfaceInfo noticed between two enumerations of the capture interfaces
+public class InterfaceEvent {
+
+    public enum Type {
+        ADDED,
+        REMOVED,
+        LINK_UP,            // up and running (carrier present)
+        LINK_DOWN,
+        ADDRESSES_CHANGED
+    }
+
+    private final Type type;
+    private final String name;
+    private final String label;
+    private final PcapNetworkInterface device;
+
+    InterfaceEvent(Type type, String name, String label, PcapNetworkInterface device) {
+        this.type = type;
+        this.name = name;
+        this.label = label;
+        this.device = device;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    // The pcap name, e.g. eth0
+    public String getName() {
+        return name;
+    }
+
+    // As listed by NetworkInterfaceInfo.getNetworkInterfaces
+    public String getLabel() {
+        return label;
+    }
+
+    // The device after the change; the last one seen for REMOVED
+    public PcapNetworkInterface getDevice() {
+        return device;
+    }
+
+    @Override
+    public String toString() {
+        return label.equals(name) ? type + " " + name : type + " " + name + " (" + label + ")";
+    }
+}
@@ -0,0 +1,848 @@
+package org.example;
+
+import org.pcap4j.core.NotOpenException;
+import org.pcap4j.core.*;
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class
+InterfaceWindow extends JFrame implements ActionListener {
+    private static final int DNS_REPORT_ROWS = 25;  // servers and slowest names in the DNS window
+    private static final int FOLLOW_MAX_CHARS = 1 << 20;  // of a followed stream shown, the rest is counted
+    private JComboBox<String> networkList; // Dropdown for network interfaces
+    private JTextArea textInterfaceInfo;  // Area to display interface details
+    private NetworkInterfaceInfo backEnd;
+    private PacketCapturing packetCapturing;// Backend instance
+    private JTable packetList;
+    private JTable conversationList;
+    private JTextArea hexdataInfo;
+    private JTextArea packetInformation;
+    private JLabel hexLabel;
+    private int hexIndex = -1;  // store row shown in the hex pane
+    private int hexPage;
+    private JTextArea interfaceInfo;  // Add this field
+    private JTextField filterTextField;  // Add this field
+    private JTextField displayFilterField;
+    private JLabel displayFilterStatus;
+    private JPanel panel;  // Add this field
+
+    public InterfaceWindow() {
+        super("Network Packet Analyzer");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(1300, 800);  // Adjusted height
+        setLocationRelativeTo(null);
+
+        panel = new JPanel();
+        panel.setLayout(null);
+        
+        // Network Interface Selection
+        JLabel networkLabel = new JLabel("Select Network:");
+        networkLabel.setBounds(10, 20, 100, 20);
+        panel.add(networkLabel);
+
+        networkList = new JComboBox<>();
+        networkList.setBounds(110, 20, 250, 20);
+        panel.add(networkList);
+
+        // Protocol Filter
+        JLabel protocolFilterLabel = new JLabel("Protocol Filter:");
+        protocolFilterLabel.setBounds(370, 20, 100, 20);
+        panel.add(protocolFilterLabel);
+
+        JComboBox<String> protocolList = new JComboBox<>();
+        protocolList.addItem("All");
+        protocolList.addItem("TCP");
+        protocolList.addItem("UDP");
+        protocolList.setBounds(470, 20, 100, 20);
+        // Shortcuts for the display filter below
+        protocolList.addActionListener(e -> {
+            String selectedProtocol = (String) protocolList.getSelectedItem();
+            displayFilterField.setText("All".equals(selectedProtocol) ? "" : selectedProtocol.toLowerCase());
+            applyDisplayFilter();
+        });
+        panel.add(protocolList);
+
+        // BPF Filter
+        JLabel bpfFilterLabel = new JLabel("BPF Filter:");
+        bpfFilterLabel.setBounds(580, 20, 70, 20);
+        panel.add(bpfFilterLabel);
+
+        filterTextField = new JTextField();
+        filterTextField.setBounds(650, 20, 150, 20);
+        filterTextField.setToolTipText("Enter BPF filter (e.g., 'tcp port 80' or 'host 192.168.1.1')");
+        panel.add(filterTextField);
+
+        // Help button
+        JButton helpButton = new JButton("?");
+        helpButton.setBounds(805, 20, 45, 20);
+        helpButton.addActionListener(e -> showFilterHelp());
+        panel.add(helpButton);
+
+        // Capture button
+        JButton capture = new JButton("Capture");
+        capture.setBounds(860, 20, 100, 20);
+        capture.setBackground(Color.BLUE);
+        capture.setForeground(Color.WHITE);
+        capture.addActionListener(e -> {
+            try {
+                String filterExpression = filterTextField.getText().trim();
+                PcapNetworkInterface device = backEnd.getDevice(networkList.getSelectedItem().toString());
+                if (device != null) {
+                    packetCapturing.startCapturing(device, packetList, filterExpression);
+                }
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this,
+                    "Error starting capture: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        panel.add(capture);
+
+        // Stop button
+        JButton stop = new JButton("Stop");
+        stop.setBounds(970, 20, 100, 20);
+        stop.setBackground(Color.RED);
+        stop.setForeground(Color.WHITE);
+        stop.addActionListener(e -> packetCapturing.stopCapturing());
+        panel.add(stop);
+
+        // Save button
+        JButton save = new JButton("Save");
+        save.setBounds(1080, 20, 100, 20);
+        save.setBackground(Color.GREEN);
+        save.setForeground(Color.WHITE);
+        save.addActionListener(e -> {
+            try {
+                if (!packetCapturing.isCapturing()) {
+                    JOptionPane.showMessageDialog(this,
+                        "Please start capturing packets first",
+                        "No Capture Active",
+                        JOptionPane.WARNING_MESSAGE);
+                    return;
+                }
+                
+                java.nio.file.Path savedFile = packetCapturing.saveCapture();
+                JOptionPane.showMessageDialog(this, 
+                    "Packets saved to " + savedFile + " file", 
+                    "Save Successful", 
+                    JOptionPane.INFORMATION_MESSAGE);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this,
+                    "Error saving packets: " + ex.getMessage(),
+                    "Save Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        });
+        panel.add(save);
+
+        // Add Graph Visualization button
+        JButton graphButton = new JButton("Show Traffic Graph");
+        graphButton.setBounds(1190, 20, 150, 20);
+        graphButton.setBackground(new Color(147, 112, 219)); // Purple color
+        graphButton.setForeground(Color.WHITE);
+        graphButton.addActionListener(e -> packetCapturing.showGraphVisualization());
+        panel.add(graphButton);
+
+        // Display filter: hides rows without discarding them, re-filters the whole capture
+        JLabel displayFilterLabel = new JLabel("Display Filter:");
+        displayFilterLabel.setBounds(10, 50, 100, 20);
+        panel.add(displayFilterLabel);
+
+        displayFilterField = new JTextField();
+        displayFilterField.setBounds(110, 50, 690, 20);
+        displayFilterField.setToolTipText("e.g. 'ip.addr == 10.0.0.1 and tcp.port == 443', 'udp and len > 500', 'tcp.flags.syn'");
+        displayFilterField.addActionListener(e -> applyDisplayFilter());
+        panel.add(displayFilterField);
+
+        JButton applyFilter = new JButton("Apply");
+        applyFilter.setBounds(805, 50, 75, 20);
+        applyFilter.addActionListener(e -> applyDisplayFilter());
+        panel.add(applyFilter);
+
+        JButton clearFilter = new JButton("Clear");
+        clearFilter.setBounds(885, 50, 75, 20);
+        clearFilter.addActionListener(e -> {
+            displayFilterField.setText("");
+            applyDisplayFilter();
+        });
+        panel.add(clearFilter);
+
+        JButton displayFilterHelp = new JButton("?");
+        displayFilterHelp.setBounds(965, 50, 45, 20);
+        displayFilterHelp.addActionListener(e -> showDisplayFilterHelp());
+        panel.add(displayFilterHelp);
+
+        displayFilterStatus = new JLabel();
+        displayFilterStatus.setBounds(1020, 50, 250, 20);
+        panel.add(displayFilterStatus);
+
+        // Packet List Table (the model is supplied by PacketCapturing below)
+        packetList = new JTable();
+        JScrollPane scrollPane = new JScrollPane(packetList);
+
+        // Conversations, refreshed once a second while the tab is showing
+        conversationList = new JTable();
+        conversationList.setAutoCreateRowSorter(true);
+        JScrollPane conversationScroll = new JScrollPane(conversationList);
+        JTabbedPane listTabs = new JTabbedPane();
+        listTabs.addTab("Packets", scrollPane);
+        listTabs.addTab("Conversations", conversationScroll);
+        listTabs.setBounds(10, 80, 1260, 370);  // Adjusted width
+        panel.add(listTabs);
+        Timer conversationTimer = new Timer(1000, e -> {
+            if (listTabs.getSelectedComponent() == conversationScroll) {
+                packetCapturing.getConversationModel().refresh();
+            }
+        });
+        listTabs.addChangeListener(e -> {
+            if (listTabs.getSelectedComponent() == conversationScroll) {
+                packetCapturing.getConversationModel().refresh();
+            }
+        });
+        conversationTimer.start();
+
+        // All information panels will start at the same y-coordinate
+        int infoStartY = 460;
+        int infoPanelHeight = 250;
+
+        // Interface Information (Left)
+        JLabel interfaceLabel = new JLabel("Interface Information:");
+        interfaceLabel.setBounds(10, infoStartY, 150, 20);
+        panel.add(interfaceLabel);
+
+        interfaceInfo = new JTextArea();
+        interfaceInfo.setEditable(false);
+        JScrollPane interfaceScroll = new JScrollPane(interfaceInfo);
+        interfaceScroll.setBounds(10, infoStartY + 20, 400, infoPanelHeight);
+        panel.add(interfaceScroll);
+
+        // Packet Information (Middle)
+        JLabel packetInfoLabel = new JLabel("Packet Information:");
+        packetInfoLabel.setBounds(420, infoStartY, 150, 20);
+        panel.add(packetInfoLabel);
+
+        packetInformation = new JTextArea();
+        packetInformation.setEditable(false);
+        JScrollPane packetScroll = new JScrollPane(packetInformation);
+        packetScroll.setBounds(420, infoStartY + 20, 430, infoPanelHeight);
+        panel.add(packetScroll);
+
+        // Hex Data (Right)
+        hexLabel = new JLabel("Hex Data:");
+        hexLabel.setBounds(860, infoStartY, 250, 20);
+        panel.add(hexLabel);
+
+        // Frames larger than a page are shown a page at a time
+        JButton previousPage = new JButton("<");
+        previousPage.setBounds(1180, infoStartY, 45, 20);
+        previousPage.addActionListener(e -> showHexPage(hexPage - 1));
+        panel.add(previousPage);
+        JButton nextPage = new JButton(">");
+        nextPage.setBounds(1225, infoStartY, 45, 20);
+        nextPage.addActionListener(e -> showHexPage(hexPage + 1));
+        panel.add(nextPage);
+
+        hexdataInfo = new JTextArea();
+        hexdataInfo.setEditable(false);
+        JScrollPane hexScroll = new JScrollPane(hexdataInfo);
+        hexScroll.setBounds(860, infoStartY + 20, 410, infoPanelHeight);
+        panel.add(hexScroll);
+
+        // Table Selection Listener
+        packetList.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting()) {
+                int selectedRow = packetList.getSelectedRow();
+                if (selectedRow >= 0) {
+                    hexIndex = packetCapturing.getTableModel().toStoreIndex(selectedRow);
+                    packetInformation.setText(packetCapturing.getPacketDetails(hexIndex));
+                    packetInformation.setCaretPosition(0);
+                    showHexPage(0);
+                }
+            }
+        });
+
+        // Network List Selection Listener
+        networkList.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String selectedInterface = (String) networkList.getSelectedItem();
+                try {
+                    PcapNetworkInterface device = backEnd.getDevice(selectedInterface);
+                    if (device != null) {
+                        StringBuilder info = new StringBuilder();
+                        
+                        // MAC Address
+                        if (!device.getLinkLayerAddresses().isEmpty()) {
+                            info.append(String.format("Interface MacAddress --> %s\n", 
+                                device.getLinkLayerAddresses().get(0)));
+                        }
+
+                        // IP Addresses and Network Information
+                        for (PcapAddress addr : device.getAddresses()) {
+                            if (addr.getAddress() != null) {
+                                // IP Address
+                                info.append(String.format("Interface Address --> %s\n", 
+                                    addr.getAddress().getHostAddress()));
+                                
+                                // Subnet Mask
+                                if (addr.getNetmask() != null) {
+                                    info.append(String.format("Interface Subnet --> %s\n", 
+                                        addr.getNetmask().getHostAddress()));
+                                }
+                                
+                                // Broadcast Address
+                                if (addr.getBroadcastAddress() != null) {
+                                    info.append(String.format("Interface Broadcast --> %s\n", 
+                                        addr.getBroadcastAddress().getHostAddress()));
+                                }
+                            }
+                        }
+
+                        // Additional Interface Information
+                        info.append(String.format("Interface Description: %s\n", device.getDescription()));
+                        info.append(String.format("Interface Type: %s\n", 
+                            device.getLinkLayerAddresses().isEmpty() ? "Unknown" : "Ethernet"));
+                        info.append(String.format("Loopback: %s\n", device.isLoopBack() ? "Yes" : "No"));
+                        info.append(String.format("Up and Running: %s\n", device.isRunning() ? "Yes" : "No"));
+
+                        interfaceInfo.setText(info.toString());
+                    }
+                } catch (Exception ex) {
+                    interfaceInfo.setText("Error getting interface information: " + ex.getMessage());
+                }
+            }
+        });
+
+        // Menu bar
+        JMenuBar menuBar = new JMenuBar();
+        JMenu fileMenu = new JMenu("File");
+        JMenuItem openFile = new JMenuItem("Open pcap...");
+        openFile.addActionListener(e -> openCaptureFile());
+        fileMenu.add(openFile);
+        menuBar.add(fileMenu);
+
+        JMenu captureMenu = new JMenu("Capture");
+        JMenuItem engineSettings = new JMenuItem("Engine Settings...");
+        engineSettings.addActionListener(e -> showCaptureSettings());
+        captureMenu.add(engineSettings);
+        JMenuItem captureSeveral = new JMenuItem("Capture on Several Interfaces...");
+        captureSeveral.addActionListener(e -> captureOnSeveralInterfaces());
+        captureMenu.add(captureSeveral);
+        JMenuItem refreshInterfaces = new JMenuItem("Refresh Interfaces");
+        refreshInterfaces.addActionListener(e -> backEnd.refreshAsync());
+        captureMenu.add(refreshInterfaces);
+        JMenuItem engineStats = new JMenuItem("Engine Statistics");
+        engineStats.addActionListener(e -> JOptionPane.showMessageDialog(this,
+            packetCapturing.getCaptureStats() + "\n" + packetCapturing.getPipelineStats()
+                + "\n" + packetCapturing.getWriterStats() + "\n" + packetCapturing.getFlowTracker()
+                + "\n" + packetCapturing.getTcpReassembly(),
+            "Capture Engine Statistics",
+            JOptionPane.INFORMATION_MESSAGE));
+        captureMenu.add(engineStats);
+        JMenuItem interfaceStats = new JMenuItem("Interface Statistics");
+        interfaceStats.addActionListener(e -> showInterfaceStats());
+        captureMenu.add(interfaceStats);
+        JMenuItem shardLoad = new JMenuItem("Decode Shard Load");
+        shardLoad.addActionListener(e -> showShardLoad());
+        captureMenu.add(shardLoad);
+        JMenuItem dnsLatency = new JMenuItem("DNS Latency");
+        dnsLatency.addActionListener(e -> showDnsLatency());
+        captureMenu.add(dnsLatency);
+        JMenuItem followStream = new JMenuItem("Follow TCP Stream");
+        followStream.addActionListener(e -> showTcpStream());
+        captureMenu.add(followStream);
+        menuBar.add(captureMenu);
+        setJMenuBar(menuBar);
+
+        add(panel);
+        setVisible(true);
+
+        // Instantiate Backend
+        backEnd = new NetworkInterfaceInfo();
+        packetCapturing = new PacketCapturing(backEnd);
+        packetList.setModel(packetCapturing.getTableModel());
+        conversationList.setModel(packetCapturing.getConversationModel());
+
+        // Populate Network List from Backend
+        populateNetworkList();
+
+        // Keep the list current: the backend enumerates again in the background and reports changes
+        backEnd.addInterfaceListener(event -> SwingUtilities.invokeLater(() -> interfaceChanged(event)));
+        backEnd.startAutoRefresh(NetworkInterfaceInfo.DEFAULT_REFRESH_MILLIS);
+    }
+
+    private void populateNetworkList() {
+        try {
+            // Use Backend to fetch network interfaces
+            List<String> interfaces = backEnd.getNetworkInterfaces();
+            for (String iface : interfaces) {
+                networkList.addItem(iface); // Add each interface to the dropdown
+            }
+        } catch (SocketException | PcapNativeException ex) {
+            JOptionPane.showMessageDialog(this, "Error fetching network interfaces: " + ex.getMessage());
+        }
+    }
+
+    // Rebuilds the dropdown, keeping the selection; selecting again also redraws the interface details
+    private void interfaceChanged(InterfaceEvent event) {
+        Object selected = networkList.getSelectedItem();
+        networkList.removeAllItems();
+        populateNetworkList();
+        if (selected != null) {
+            networkList.setSelectedItem(selected);
+        }
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == networkList) {
+            String selectedNetwork = (String) networkList.getSelectedItem();
+            try {
+                backEnd.setSelectedInterface(selectedNetwork);
+                String details = backEnd.getInterfaceDetails(selectedNetwork);
+                textInterfaceInfo.setText(details);
+            } catch (SocketException | PcapNativeException ex) {
+                JOptionPane.showMessageDialog(this, "Error fetching interface details: " + ex.getMessage());
+            }
+        }
+    }
+
+    // One page of the selected frame's bytes
+    private void showHexPage(int page) {
+        int pages = packetCapturing.getHexPageCount(hexIndex);
+        if (pages == 0 || page < 0 || page >= pages) {
+            return;
+        }
+        hexPage = page;
+        hexdataInfo.setText(packetCapturing.getHexPage(hexIndex, page));
+        hexdataInfo.setCaretPosition(0);
+        hexLabel.setText(pages == 1 ? "Hex Data:" : String.format("Hex Data: page %d of %d", page + 1, pages));
+    }
+
+    private void openCaptureFile() {
+        JFileChooser chooser = new JFileChooser(".");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("pcap files", "pcap", "cap"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            PcapFileReader reader = packetCapturing.openCaptureFile(chooser.getSelectedFile().toPath());
+            setTitle("Network Packet Analyzer - " + reader.getPath().getFileName());
+            interfaceInfo.setText(String.format("Offline file: %s\nPackets: %d\nLink type: %d\nSnapshot length: %d\nIndex: %s\n",
+                reader.getPath(), reader.getPacketCount(), reader.getLinkType(), reader.getSnapshotLength(),
+                reader.isIndexLoaded() ? "loaded from disk" : "built"));
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this,
+                "Error opening capture file: " + ex.getMessage(),
+                "Open Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Captures on every selected interface at once, merged into one time-ordered capture
+    private void captureOnSeveralInterfaces() {
+        DefaultListModel<String> names = new DefaultListModel<>();
+        for (int i = 0; i < networkList.getItemCount(); i++) {
+            names.addElement(networkList.getItemAt(i));
+        }
+        JList<String> choices = new JList<>(names);
+        choices.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        choices.setVisibleRowCount(10);
+        int result = JOptionPane.showConfirmDialog(this, new JScrollPane(choices),
+            "Capture on Several Interfaces", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION || choices.getSelectedValuesList().isEmpty()) {
+            return;
+        }
+        try {
+            List<PcapNetworkInterface> devices = new ArrayList<>();
+            for (String name : choices.getSelectedValuesList()) {
+                PcapNetworkInterface device = backEnd.getDevice(name);
+                if (device == null) {
+                    throw new PcapNativeException("No such interface: " + name);
+                }
+                devices.add(device);
+            }
+            packetCapturing.startCapturing(devices, packetList, filterTextField.getText().trim());
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this,
+                "Error starting capture: " + ex.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Received and dropped packets per interface of the current or last capture
+    private void showInterfaceStats() {
+        String[] columns = {"Interface", "Received", "Delivered", "Kernel drops", "Interface drops", "Merge drops"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable statsTable = new JTable(model);
+        JLabel lateLabel = new JLabel();
+        Runnable refresh = () -> {
+            String[] interfaces = packetCapturing.getInterfaceNames();
+            model.setRowCount(0);
+            for (int i = 0; i < interfaces.length; i++) {
+                CaptureStats stats = packetCapturing.getCaptureStats(i);
+                model.addRow(new Object[]{interfaces[i], stats.getPacketsReceived(), stats.getPacketsDelivered(),
+                    stats.getDroppedByKernel(), stats.getDroppedByInterface(), stats.getDroppedAtMerge()});
+            }
+            lateLabel.setText(String.format("Merged out of order (later than the reorder window): %,d",
+                packetCapturing.getLatePackets()));
+        };
+        refresh.run();
+        Timer timer = new Timer(1000, e -> refresh.run());
+        timer.start();
+
+        JDialog dialog = new JDialog(this, "Interface Statistics", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(statsTable), BorderLayout.CENTER);
+        dialog.add(lateLabel, BorderLayout.SOUTH);
+        dialog.setSize(620, 220);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                timer.stop();
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    // Packets per decode shard; a shard far above its fair share points at one dominant flow
+    private void showShardLoad() {
+        String[] columns = {"Shard", "Packets", "Share", "Queued", "Dropped"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable shardTable = new JTable(model);
+        JLabel skewLabel = new JLabel();
+        Runnable refresh = () -> {
+            PipelineStats stats = packetCapturing.getPipelineStats();
+            long total = 0;
+            for (int i = 0; i < stats.getShardCount(); i++) {
+                total += stats.getShardPackets(i);
+            }
+            model.setRowCount(0);
+            for (int i = 0; i < stats.getShardCount(); i++) {
+                long packets = stats.getShardPackets(i);
+                model.addRow(new Object[]{i, packets,
+                    String.format("%.1f%%", total == 0 ? 0.0 : packets * 100.0 / total),
+                    stats.getShardDepth(i), stats.getShardDrops(i)});
+            }
+            skewLabel.setText(String.format("Busiest shard: %.2fx its fair share", stats.getShardSkew()));
+        };
+        refresh.run();
+        Timer timer = new Timer(1000, e -> refresh.run());
+        timer.start();
+
+        JDialog dialog = new JDialog(this, "Decode Shard Load", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(shardTable), BorderLayout.CENTER);
+        dialog.add(skewLabel, BorderLayout.SOUTH);
+        dialog.setSize(420, 260);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                timer.stop();
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    // Query/response latency of the DNS traffic seen so far, live or from the opened file
+    private void showDnsLatency() {
+        JTextArea reportArea = new JTextArea();
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        Runnable refresh = () -> reportArea.setText(packetCapturing.getDnsTracker().report(DNS_REPORT_ROWS));
+        refresh.run();
+        Timer timer = new Timer(1000, e -> refresh.run());
+        timer.start();
+
+        JDialog dialog = new JDialog(this, "DNS Latency", false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(reportArea), BorderLayout.CENTER);
+        dialog.setSize(980, 560);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                timer.stop();
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * The payload of the selected packet's TCP connection, client in red and server in
+     * blue, with non-printable bytes as dots. Reassembled from the stored frames when
+     * opened; past FOLLOW_MAX_CHARS only the byte counts go on.
+     */
+    private void showTcpStream() {
+        JTextPane streamPane = new JTextPane();
+        streamPane.setEditable(false);
+        streamPane.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        javax.swing.text.StyledDocument document = streamPane.getStyledDocument();
+        javax.swing.text.SimpleAttributeSet clientStyle = new javax.swing.text.SimpleAttributeSet();
+        javax.swing.text.StyleConstants.setForeground(clientStyle, new Color(160, 0, 0));
+        javax.swing.text.SimpleAttributeSet serverStyle = new javax.swing.text.SimpleAttributeSet();
+        javax.swing.text.StyleConstants.setForeground(serverStyle, new Color(0, 0, 160));
+        javax.swing.text.SimpleAttributeSet noteStyle = new javax.swing.text.SimpleAttributeSet();
+        javax.swing.text.StyleConstants.setItalic(noteStyle, true);
+        TcpStream[] followed = new TcpStream[1];
+        long[] hidden = new long[1];
+
+        boolean found = packetCapturing.followTcpStream(hexIndex, new TcpStreamListener() {
+            @Override
+            public void streamOpened(TcpStream stream) {
+                followed[0] = stream;
+            }
+
+            @Override
+            public void data(TcpStream stream, boolean fromClient, byte[] data, int offset, int length) {
+                int shown = Math.max(0, Math.min(length, FOLLOW_MAX_CHARS - document.getLength()));
+                char[] text = new char[shown];
+                for (int i = 0; i < shown; i++) {
+                    int b = data[offset + i] & 0xFF;
+                    text[i] = b == '\n' || b == '\t' || (b >= 0x20 && b < 0x7F) ? (char) b : '.';
+                }
+                append(document, new String(text), fromClient ? clientStyle : serverStyle);
+                hidden[0] += length - shown;
+            }
+
+            @Override
+            public void gap(TcpStream stream, boolean fromClient, long missing) {
+                if (document.getLength() < FOLLOW_MAX_CHARS) {
+                    append(document, "\n[" + missing + " bytes missing]\n", noteStyle);
+                }
+            }
+        });
+        if (!found || followed[0] == null) {
+            JOptionPane.showMessageDialog(this, "Select a TCP packet to follow its stream.",
+                "Follow TCP Stream", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        TcpStream stream = followed[0];
+        JLabel summary = new JLabel(String.format(" %s | client %,d bytes | server %,d bytes | %,d missing%s",
+            stream, stream.getClientBytes(), stream.getServerBytes(), stream.getMissingBytes(),
+            hidden[0] > 0 ? String.format(" | %,d not shown", hidden[0]) : ""));
+        streamPane.setCaretPosition(0);
+
+        JDialog dialog = new JDialog(this, "Follow TCP Stream: " + stream, false);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(new JScrollPane(streamPane), BorderLayout.CENTER);
+        dialog.add(summary, BorderLayout.SOUTH);
+        dialog.setSize(900, 600);
+        dialog.setLocationRelativeTo(this);
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.setVisible(true);
+    }
+
+    private static void append(javax.swing.text.StyledDocument document, String text,
+                               javax.swing.text.AttributeSet style) {
+        try {
+            document.insertString(document.getLength(), text, style);
+        } catch (javax.swing.text.BadLocationException e) {
+            throw new IllegalStateException(e);  // always inserted at the end
+        }
+    }
+
+    private void showCaptureSettings() {
+        CaptureConfig config = packetCapturing.getCaptureConfig();
+
+        JComboBox<CaptureConfig.CaptureMode> modeCombo = new JComboBox<>(CaptureConfig.CaptureMode.values());
+        modeCombo.setSelectedItem(config.getMode());
+        JSpinner batchSpinner = new JSpinner(new SpinnerNumberModel(Math.max(1, config.getBatchSize()), 1, 65536, 64));
+        JSpinner timeoutSpinner = new JSpinner(new SpinnerNumberModel(config.getReadTimeoutMillis(), 0, 10000, 10));
+        JSpinner bufferSpinner = new JSpinner(new SpinnerNumberModel(config.getBufferSize() / (1024 * 1024), 0, 2047, 1));
+        JCheckBox immediateBox = new JCheckBox("Immediate mode", config.isImmediateMode());
+        JSpinner ringSpinner = new JSpinner(new SpinnerNumberModel(config.getRingCapacity(), 1024, 1 << 22, 1024));
+        JSpinner workersSpinner = new JSpinner(new SpinnerNumberModel(config.getDecodeWorkers(), 1, 64, 1));
+        JComboBox<CapturePipeline.BackpressurePolicy> policyCombo = new JComboBox<>(CapturePipeline.BackpressurePolicy.values());
+        policyCombo.setSelectedItem(config.getBackpressurePolicy());
+        JSpinner refreshSpinner = new JSpinner(new SpinnerNumberModel(config.getUiRefreshMillis(), 16, 2000, 10));
+        JSpinner rowsSpinner = new JSpinner(new SpinnerNumberModel(config.getMaxRowsPerFrame(), 1, 1000000, 500));
+        JCheckBox lazyBox = new JCheckBox("Lazy decoding (parse on selection)", config.isLazyDecoding());
+        JTextField outputField = new JTextField(config.getOutputFile());
+        JSpinner rotateSizeSpinner = new JSpinner(new SpinnerNumberModel((int) (config.getRotateBytes() / (1024 * 1024)), 0, 1 << 20, 100));
+        JSpinner rotateTimeSpinner = new JSpinner(new SpinnerNumberModel(config.getRotateSeconds(), 0, 86400, 60));
+        JSpinner rotateFilesSpinner = new JSpinner(new SpinnerNumberModel(config.getRotateFiles(), 1, 10000, 1));
+        JSpinner maxFlowsSpinner = new JSpinner(new SpinnerNumberModel(config.getMaxFlows(), 1024, 1 << 26, 65536));
+        JSpinner flowIdleSpinner = new JSpinner(new SpinnerNumberModel(config.getFlowIdleTimeoutSeconds(), 1, 86400, 30));
+        JSpinner flowActiveSpinner = new JSpinner(new SpinnerNumberModel(config.getFlowActiveTimeoutSeconds(), 0, 604800, 300));
+        JSpinner reorderSpinner = new JSpinner(new SpinnerNumberModel(config.getReorderWindowMillis(), 0, 60000, 10));
+        JCheckBox reassemblyBox = new JCheckBox("Reassemble TCP streams", config.isTcpReassembly());
+        JSpinner reassemblySpinner = new JSpinner(new SpinnerNumberModel(
+            (int) (config.getReassemblyMemoryBytes() / (1024 * 1024)), 1, 1 << 16, 16));
+
+        JPanel settingsPanel = new JPanel(new GridLayout(0, 2, 5, 5));
+        settingsPanel.add(new JLabel("Capture mode:"));
+        settingsPanel.add(modeCombo);
+        settingsPanel.add(new JLabel("Batch size (packets):"));
+        settingsPanel.add(batchSpinner);
+        settingsPanel.add(new JLabel("Read timeout (ms):"));
+        settingsPanel.add(timeoutSpinner);
+        settingsPanel.add(new JLabel("Buffer size (MB, 0 = default):"));
+        settingsPanel.add(bufferSpinner);
+        settingsPanel.add(new JLabel(""));
+        settingsPanel.add(immediateBox);
+        settingsPanel.add(new JLabel("Ring buffer (packets):"));
+        settingsPanel.add(ringSpinner);
+        settingsPanel.add(new JLabel("Decode shards (threads):"));
+        settingsPanel.add(workersSpinner);
+        settingsPanel.add(new JLabel("When ring is full:"));
+        settingsPanel.add(policyCombo);
+        settingsPanel.add(new JLabel("UI refresh (ms):"));
+        settingsPanel.add(refreshSpinner);
+        settingsPanel.add(new JLabel("Max rows per frame:"));
+        settingsPanel.add(rowsSpinner);
+        settingsPanel.add(new JLabel(""));
+        settingsPanel.add(lazyBox);
+        settingsPanel.add(new JLabel("Output file:"));
+        settingsPanel.add(outputField);
+        settingsPanel.add(new JLabel("Rotate after (MB, 0 = never):"));
+        settingsPanel.add(rotateSizeSpinner);
+        settingsPanel.add(new JLabel("Rotate after (s, 0 = never):"));
+        settingsPanel.add(rotateTimeSpinner);
+        settingsPanel.add(new JLabel("Files in rotation ring:"));
+        settingsPanel.add(rotateFilesSpinner);
+        settingsPanel.add(new JLabel("Max tracked conversations:"));
+        settingsPanel.add(maxFlowsSpinner);
+        settingsPanel.add(new JLabel("Conversation idle timeout (s):"));
+        settingsPanel.add(flowIdleSpinner);
+        settingsPanel.add(new JLabel("Conversation active timeout (s, 0 = never):"));
+        settingsPanel.add(flowActiveSpinner);
+        settingsPanel.add(new JLabel("Multi-interface reorder window (ms):"));
+        settingsPanel.add(reorderSpinner);
+        settingsPanel.add(new JLabel(""));
+        settingsPanel.add(reassemblyBox);
+        settingsPanel.add(new JLabel("Reassembly buffer (MB):"));
+        settingsPanel.add(reassemblySpinner);
+
+        int result = JOptionPane.showConfirmDialog(this, settingsPanel,
+            "Capture Engine Settings", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result == JOptionPane.OK_OPTION) {
+            config.setMode((CaptureConfig.CaptureMode) modeCombo.getSelectedItem());
+            config.setBatchSize((Integer) batchSpinner.getValue());
+            config.setReadTimeoutMillis((Integer) timeoutSpinner.getValue());
+            config.setBufferSize((Integer) bufferSpinner.getValue() * 1024 * 1024);
+            config.setImmediateMode(immediateBox.isSelected());
+            config.setRingCapacity((Integer) ringSpinner.getValue());
+            config.setDecodeWorkers((Integer) workersSpinner.getValue());
+            config.setBackpressurePolicy((CapturePipeline.BackpressurePolicy) policyCombo.getSelectedItem());
+            config.setUiRefreshMillis((Integer) refreshSpinner.getValue());
+            config.setMaxRowsPerFrame((Integer) rowsSpinner.getValue());
+            config.setLazyDecoding(lazyBox.isSelected());
+            config.setOutputFile(outputField.getText().trim().isEmpty()
+                ? CaptureConfig.DEFAULT_OUTPUT_FILE : outputField.getText().trim());
+            config.setRotateBytes((Integer) rotateSizeSpinner.getValue() * 1024L * 1024L);
+            config.setRotateSeconds((Integer) rotateTimeSpinner.getValue());
+            config.setRotateFiles((Integer) rotateFilesSpinner.getValue());
+            config.setMaxFlows((Integer) maxFlowsSpinner.getValue());
+            config.setFlowIdleTimeoutSeconds((Integer) flowIdleSpinner.getValue());
+            config.setFlowActiveTimeoutSeconds((Integer) flowActiveSpinner.getValue());
+            config.setReorderWindowMillis((Integer) reorderSpinner.getValue());
+            config.setTcpReassembly(reassemblyBox.isSelected());
+            config.setReassemblyMemoryBytes((Integer) reassemblySpinner.getValue() * 1024L * 1024L);
+        }
+    }
+
+    private void applyDisplayFilter() {
+        String expression = displayFilterField.getText().trim();
+        try {
+            long started = System.nanoTime();
+            int shown = packetCapturing.setDisplayFilter(expression);
+            displayFilterField.setBackground(expression.isEmpty() ? Color.WHITE : new Color(204, 255, 204));
+            displayFilterStatus.setText(expression.isEmpty() ? "" : String.format("%,d of %,d packets (%.1f ms)",
+                shown, packetCapturing.getCaptureStore().size(), (System.nanoTime() - started) / 1e6));
+        } catch (IllegalArgumentException ex) {
+            displayFilterField.setBackground(new Color(255, 204, 204));
+            displayFilterStatus.setText(ex.getMessage());
+        }
+    }
+
+    private void showDisplayFilterHelp() {
+        String helpText =
+            "Display Filter Examples:\n\n" +
+            "- ip.addr == 192.168.1.1        (to or from a host)\n" +
+            "- ip.src == 10.0.0.0/8          (from a subnet)\n" +
+            "- ip.dst != 8.8.8.8             (not to a host)\n" +
+            "- tcp.port == 443               (HTTPS)\n" +
+            "- udp.dstport == 53             (DNS queries)\n" +
+            "- port > 1024                   (any high port)\n" +
+            "- tcp, udp, icmp, icmpv6, ip    (protocols)\n" +
+            "- len > 1000                    (large frames)\n" +
+            "- tcp.flags.syn and not tcp.flags.ack   (connection attempts)\n" +
+            "- tcp.flags & 0x04              (resets)\n" +
+            "- frame.time >= \"12:30:00\"      (time of day)\n" +
+            "- frame.time_relative <= 10     (first 10 seconds)\n\n" +
+            "Operators: == != < <= > >=, and/&&, or/||, not/!\n" +
+            "Filters the packets already captured; nothing is discarded";
+
+        JTextArea textArea = new JTextArea(helpText);
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(480, 320));
+
+        JOptionPane.showMessageDialog(this,
+            scrollPane,
+            "Display Filter Syntax Help",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    private void showFilterHelp() {
+        String helpText = 
+            "BPF Filter Examples:\n\n" +
+            "- tcp port 80                 (HTTP traffic)\n" +
+            "- host 192.168.1.1           (Traffic to/from specific host)\n" +
+            "- src host 192.168.1.1       (Traffic from specific host)\n" +
+            "- dst port 443               (HTTPS destination traffic)\n" +
+            "- tcp or udp                 (TCP or UDP traffic)\n" +
+            "- ip proto \\icmp             (ICMP traffic)\n" +
+            "- net 192.168.0.0/24         (Traffic in subnet)\n" +
+            "- port 53                    (DNS traffic)\n" +
+            "- tcp[tcpflags] & tcp-syn != 0   (TCP SYN packets)\n\n" +
+            "Operators: and, or, not\n" +
+            "You can combine filters using parentheses";
+
+        JTextArea textArea = new JTextArea(helpText);
+        textArea.setEditable(false);
+        textArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(400, 300));
+
+        JOptionPane.showMessageDialog(this,
+            scrollPane,
+            "BPF Filter Syntax Help",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    public static void main(String[] args) {
+        new InterfaceWindow();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package org.example;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+// Packs IP addresses into two longs (IPv4 as an IPv4-mapped IPv6 address) and formats them back
+public final class IpAddresses {
+
+    private static final long IPV4_MAPPED_PREFIX = 0x0000FFFF00000000L;
+
+    private IpAddresses() {
+    }
+
+    public static long high(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return bytes.length == 4 ? 0L : readLong(bytes, 0);
+    }
+
+    public static long low(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            return IPV4_MAPPED_PREFIX | (readInt(bytes, 0) & 0xFFFFFFFFL);
+        }
+        return readLong(bytes, 8);
+    }
+
+    public static boolean isIpV4(long high, long low) {
+        return high == 0 && (low & 0xFFFFFFFF00000000L) == IPV4_MAPPED_PREFIX;
+    }
+
+    public static String format(long high, long low) {
+        if (isIpV4(high, low)) {
+            int v4 = (int) low;
+            return ((v4 >>> 24) & 0xFF) + "." + ((v4 >>> 16) & 0xFF) + "." + ((v4 >>> 8) & 0xFF) + "." + (v4 & 0xFF);
+        }
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - 8 * i));
+            bytes[8 + i] = (byte) (low >>> (56 - 8 * i));
+        }
+        try {
+            return Inet6Address.getByAddress(bytes).getHostAddress();
+        } catch (UnknownHostException e) {
+            return "Unknown";  // Cannot happen for a 16 byte array
+        }
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+            | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of latencies in microseconds, laid out like HdrHistogram: values
+ * below 2^SUB_BUCKET_BITS get a bucket each, every power of two above that is split into
+ * 2^SUB_BUCKET_BITS equal buckets, so any value is recorded within about 3% of its size.
+ * The counts live in one fixed array up to MAX_MICROS (longer values land in the last
+ * bucket, the exact maximum is kept aside), so a histogram costs about 5.5 KB however
+ * many values it records. Not thread-safe.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    public static final long MAX_MICROS = (1L << 26) - 1;  // about 67 s
+    private static final int BUCKETS = index(MAX_MICROS) + 1;
+    static final long MEMORY_BYTES = BUCKETS * 8L + 56;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long micros) {
+        micros = Math.max(0, micros);
+        counts[index(Math.min(micros, MAX_MICROS))]++;
+        total++;
+        sum += micros;
+        min = Math.min(min, micros);
+        max = Math.max(max, micros);
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public long getMin() {
+        return total == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    // The highest value in the bucket holding the given percentile, as HdrHistogram reports it
+    public long getValueAtPercentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this);
+        return copy;
+    }
+
+    // value = mantissa << exponent with the mantissa in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return exponent * SUB_BUCKETS + (int) (value >>> exponent);
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS - 1;
+        long mantissa = index - exponent * SUB_BUCKETS;
+        return ((mantissa + 1) << exponent) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%s p90=%s p99=%s max=%s", total, format(getValueAtPercentile(50)),
+            format(getValueAtPercentile(90)), format(getValueAtPercentile(99)), format(max));
+    }
+
+    // 850 us, 12.3 ms, 1.20 s
+    public static String format(long micros) {
+        if (micros < 1000) {
+            return micros + " us";
+        }
+        return micros < 1_000_000 ? String.format("%.1f ms", micros / 1e3) : String.format("%.2f s", micros / 1e6);
+    }
+}
@@ -1,7 +1,231 @@
 package org.example;
 
+import org.pcap4j.core.PcapAddress;
+import org.pcap4j.core.PcapNetworkInterface;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line entry point for headless capture and analysis (see HeadlessCapture). The
+ * Swing UI is started by InterfaceWindow.main; nothing reachable from here touches AWT.
+ */
 public class Main {
+
+    private static final String USAGE = String.join("\n",
+        "Usage: Main (-i <interface> | -r <file.pcap> | --list) [options]",
+        "",
+        "  -l, --list               list capture interfaces and exit",
+        "  -i, --interface <name>   capture live from an interface (pcap name or description);",
+        "                           repeat to capture on several at once, merged by timestamp",
+        "  -r, --read <file>        replay a pcap file",
+        "  -f, --filter <bpf>       BPF filter, e.g. \"tcp port 443\"",
+        "  -Y, --display-filter <e> display filter, e.g. \"ip.src == 10.0.0.0/8 and tcp.flags.syn\"",
+        "  -c, --count <n>          stop after n packets",
+        "  -d, --duration <s>       stop after s seconds",
+        "  -w, --write <file>       write the packets to a pcap file (pcapng with several -i)",
+        "      --rotate-mb <n>      rotate the output file every n MB",
+        "      --rotate-files <n>   number of rotated files to keep",
+        "      --flows <file.csv>   write all tracked conversations as CSV",
+        "      --top <n>            conversations, DNS and TCP servers and DNS names in the summary",
+        "                           (default 10, 0 = none)",
+        "      --stats <s>          print progress to stderr every s seconds",
+        "      --shards <n>         decode shards (threads)",
+        "      --snaplen <bytes>    snapshot length",
+        "      --buffer-mb <n>      libpcap kernel buffer size",
+        "      --mode <m>           dispatch, loop or single",
+        "      --batch <n>          packets per loop/dispatch call",
+        "      --immediate          libpcap immediate mode",
+        "      --eager              decode with pcap4j instead of the header parser",
+        "      --max-flows <n>      conversations tracked at once",
+        "      --dns-timeout-ms <n> when an unanswered DNS query counts as timed out",
+        "      --dns-names <n>      query names with their own latency histogram",
+        "      --tcp-servers <n>    server:port entries with TCP handshake and RTT histograms",
+        "      --reassemble         reassemble TCP streams (statistics in the summary)",
+        "      --reassembly-mb <n>  off-heap buffer for out-of-order TCP segments",
+        "      --reorder-ms <n>     how long to wait for the other interfaces when merging",
+        "  -h, --help               show this help");
+
     public static void main(String[] args) {
-        System.out.println("Hello world!");
+        System.setProperty("java.awt.headless", "true");
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (UnsatisfiedLinkError e) {
+            System.err.println("libpcap could not be loaded, it is needed for live capture and BPF filters");
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("Capture failed: " + e);
+            System.exit(1);
+        }
+    }
+
+    private static void run(String[] args) throws Exception {
+        CaptureConfig config = new CaptureConfig();
+        // No UI to pace: publish in large frames as fast as the decoders produce them
+        config.setUiRefreshMillis(5);
+        config.setMaxRowsPerFrame(config.getPublishQueueCapacity());
+        HeadlessCapture capture = new HeadlessCapture(config, System.out);
+        List<String> interfaceNames = new ArrayList<>();
+        String readFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    System.out.println(USAGE);
+                    return;
+                case "-l":
+                case "--list":
+                    listInterfaces();
+                    return;
+                case "-i":
+                case "--interface":
+                    interfaceNames.add(value(args, ++i, arg));
+                    break;
+                case "-r":
+                case "--read":
+                    readFile = value(args, ++i, arg);
+                    break;
+                case "-f":
+                case "--filter":
+                    capture.setFilterExpression(value(args, ++i, arg));
+                    break;
+                case "-Y":
+                case "--display-filter":
+                    capture.setDisplayFilter(DisplayFilter.compile(value(args, ++i, arg)));
+                    break;
+                case "-c":
+                case "--count":
+                    capture.setPacketLimit(number(args, ++i, arg));
+                    break;
+                case "-d":
+                case "--duration":
+                    capture.setDurationSeconds((int) number(args, ++i, arg));
+                    break;
+                case "-w":
+                case "--write":
+                    config.setOutputFile(value(args, ++i, arg));
+                    capture.setWriteOutput(true);
+                    break;
+                case "--rotate-mb":
+                    config.setRotateBytes(number(args, ++i, arg) * 1024 * 1024);
+                    break;
+                case "--rotate-files":
+                    config.setRotateFiles((int) number(args, ++i, arg));
+                    break;
+                case "--flows":
+                    capture.setFlowsFile(Path.of(value(args, ++i, arg)));
+                    break;
+                case "--top":
+                    capture.setTopConversations((int) number(args, ++i, arg));
+                    break;
+                case "--stats":
+                    capture.setStatsIntervalSeconds((int) number(args, ++i, arg));
+                    break;
+                case "--shards":
+                    config.setDecodeWorkers((int) number(args, ++i, arg));
+                    break;
+                case "--snaplen":
+                    config.setSnapshotLength((int) number(args, ++i, arg));
+                    break;
+                case "--buffer-mb":
+                    config.setBufferSize((int) number(args, ++i, arg) * 1024 * 1024);
+                    break;
+                case "--mode":
+                    config.setMode(mode(value(args, ++i, arg)));
+                    break;
+                case "--batch":
+                    config.setBatchSize((int) number(args, ++i, arg));
+                    break;
+                case "--immediate":
+                    config.setImmediateMode(true);
+                    break;
+                case "--eager":
+                    config.setLazyDecoding(false);
+                    break;
+                case "--max-flows":
+                    config.setMaxFlows((int) number(args, ++i, arg));
+                    break;
+                case "--dns-timeout-ms":
+                    config.setDnsTimeoutMillis((int) number(args, ++i, arg));
+                    break;
+                case "--dns-names":
+                    config.setMaxDnsNames((int) number(args, ++i, arg));
+                    break;
+                case "--tcp-servers":
+                    config.setMaxTcpServers((int) number(args, ++i, arg));
+                    break;
+                case "--reassemble":
+                    config.setTcpReassembly(true);
+                    break;
+                case "--reassembly-mb":
+                    config.setReassemblyMemoryBytes(number(args, ++i, arg) * 1024 * 1024);
+                    break;
+                case "--reorder-ms":
+                    config.setReorderWindowMillis((int) number(args, ++i, arg));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        if (interfaceNames.isEmpty() == (readFile == null)) {
+            throw new IllegalArgumentException("Give either -i <interface> or -r <file.pcap>");
+        }
+        capture.setInterfaceNames(interfaceNames);
+        if (readFile != null) {
+            capture.setReadFile(Path.of(readFile));
+        }
+        capture.run();
+    }
+
+    private static void listInterfaces() throws Exception {
+        List<PcapNetworkInterface> devices = new NetworkInterfaceInfo().getDevices();
+        for (PcapNetworkInterface device : devices) {
+            StringBuilder line = new StringBuilder(device.getName());
+            if (device.getDescription() != null) {
+                line.append(" (").append(device.getDescription()).append(')');
+            }
+            line.append(device.isUp() ? " up" : " down");
+            if (device.isLoopBack()) {
+                line.append(", loopback");
+            }
+            for (PcapAddress address : device.getAddresses()) {
+                if (address.getAddress() != null) {
+                    line.append(' ').append(address.getAddress().getHostAddress());
+                }
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static long number(String[] args, int index, String option) {
+        String value = value(args, index, option);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number for " + option + ": " + value);
+        }
+    }
+
+    private static CaptureConfig.CaptureMode mode(String value) {
+        try {
+            return CaptureConfig.CaptureMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown capture mode: " + value);
+        }
     }
-}
\ No newline at end of file
+}
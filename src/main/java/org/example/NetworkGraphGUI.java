@@ -0,0 +1,645 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.List;
+import java.util.function.IntFunction;
+
+public class NetworkGraphGUI extends JFrame {
+    private static final String[] TIME_RANGES = {"10 sec", "30 sec", "1 min", "2 min", "5 min",
+        "15 min", "1 hour", "6 hours", "1 day", "1 week"};
+    private static final TrafficSeries.Resolution[] RANGE_RESOLUTIONS = {
+        TrafficSeries.Resolution.SECOND, TrafficSeries.Resolution.SECOND, TrafficSeries.Resolution.SECOND,
+        TrafficSeries.Resolution.SECOND, TrafficSeries.Resolution.SECOND, TrafficSeries.Resolution.TEN_SECONDS,
+        TrafficSeries.Resolution.TEN_SECONDS, TrafficSeries.Resolution.MINUTE, TrafficSeries.Resolution.MINUTE,
+        TrafficSeries.Resolution.HOUR};
+    private static final int[] RANGE_POINTS = {10, 30, 60, 120, 300, 90, 360, 360, 1440, 168};
+    private static final int DETAIL_SECONDS = 300;  // seconds whose top sources/destinations stay available for the tooltip
+    private static final int WINDOW_HEAVY_HITTERS = 64;  // ids monitored in a top talkers window
+    private final TrafficSeries series = new TrafficSeries();
+    private final TrafficInterval[] details = new TrafficInterval[DETAIL_SECONDS];
+    private final long[] detailSeconds = new long[DETAIL_SECONDS];
+    private final TrafficRecorder recorder;
+    private TrafficSeries.Resolution resolution = TrafficSeries.Resolution.SECOND;
+    private int MAX_POINTS = 30;  // Default to 30 seconds
+    private final javax.swing.Timer updateTimer;
+    private final JPanel graphPanel;
+    private final JLabel statsLabel;
+    private static final int UPDATE_INTERVAL = 1000;
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final int PADDING = 60;
+    private static final int HIT_RADIUS = 10;  // px around a point that show its tooltip
+    private Point mousePosition = null;
+    // The chart as last rendered, rebuilt only when the data or the size changes; the
+    // tooltip is drawn over it. Points are in x order for the hover hit test.
+    private BufferedImage chartImage;
+    private boolean chartDirty = true;
+    private long chartFirstBucket;
+    private double[] pointRates = new double[0];
+    private int[] pointX = new int[0];
+    private int[] pointY = new int[0];
+    private String[][] tooltipLines = new String[0][];  // per point, built on first hover
+    private int hoverIndex = -1;
+    private Rectangle hoverBounds;
+    private final Color LOW_TRAFFIC = new Color(46, 204, 113);     // Green
+    private final Color MEDIUM_TRAFFIC = new Color(241, 196, 15);  // Yellow
+    private final Color HIGH_TRAFFIC = new Color(231, 76, 60);     // Red
+    private final int TRAFFIC_THRESHOLD_MEDIUM = 100;  // packets/sec
+    private final int TRAFFIC_THRESHOLD_HIGH = 500;    // packets/sec
+    private PacketCapturing packetCapturing;  // Reference to PacketCapturing
+    private JButton captureButton;  // Add this field
+    private boolean isPaused = false;  // Add this field
+    private long pausedSecond = -1;    // last second shown while paused
+    private final TopTalkersPanel topTalkersPanel;
+    private final TcpHealthPanel tcpHealthPanel = new TcpHealthPanel();
+
+    public NetworkGraphGUI(PacketCapturing packetCapturing) {
+        super("Network Traffic Flow Analysis");
+        this.packetCapturing = packetCapturing;
+        this.recorder = packetCapturing.getTrafficRecorder();
+        
+        setSize(1340, 700);
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+
+        // The chart comes from a cached image; hovering only repaints the tooltip's area
+        graphPanel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                paintChart((Graphics2D) g, getWidth(), getHeight());
+            }
+        };
+        graphPanel.setBackground(Color.WHITE);
+        
+        // Add mouse listeners for tooltips
+        MouseAdapter hover = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                mousePosition = e.getPoint();
+                updateHover();
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                mousePosition = null;
+                updateHover();
+            }
+        };
+        graphPanel.addMouseMotionListener(hover);
+        graphPanel.addMouseListener(hover);
+        
+        // Create control panel
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
+        
+        // Time range selector
+        // Every range reads its points straight out of the matching rollup
+        JComboBox<String> timeRangeCombo = new JComboBox<>(TIME_RANGES);
+        timeRangeCombo.setSelectedIndex(1);
+        timeRangeCombo.addActionListener(e -> {
+            int selected = timeRangeCombo.getSelectedIndex();
+            resolution = RANGE_RESOLUTIONS[selected];
+            MAX_POINTS = RANGE_POINTS[selected];
+            updateStats(0);
+            invalidateChart();
+        });
+        
+        // Toggle Capture button
+        captureButton = new JButton("Pause Capture");
+        captureButton.setBackground(Color.RED);
+        captureButton.setForeground(Color.WHITE);
+        captureButton.addActionListener(e -> toggleCapture());
+
+        controlPanel.add(new JLabel("Time Range: "));
+        controlPanel.add(timeRangeCombo);
+        controlPanel.add(Box.createHorizontalStrut(20));
+        controlPanel.add(captureButton);
+
+        // Create statistics panel
+        JPanel statsPanel = new JPanel(new BorderLayout());
+        statsLabel = new JLabel("Total Packets: 0 | Current Rate: 0 packets/sec | Average Rate: 0 packets/sec");
+        statsLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        statsPanel.add(statsLabel, BorderLayout.WEST);
+
+        // Top talkers over a sliding window of the per-second details
+        topTalkersPanel = new TopTalkersPanel(packetCapturing.getAddressDictionary());
+        topTalkersPanel.getWindowCombo().addActionListener(e -> updateTopTalkers());
+
+        // Layout
+        setLayout(new BorderLayout());
+        add(controlPanel, BorderLayout.NORTH);
+        // TCP health per server beside the graph, refreshed only while its tab is showing
+        JTabbedPane views = new JTabbedPane();
+        views.addTab("Traffic", graphPanel);
+        views.addTab("TCP Health", tcpHealthPanel);
+        views.addChangeListener(e -> updateTcpHealth());
+        add(views, BorderLayout.CENTER);
+        add(topTalkersPanel, BorderLayout.EAST);
+        add(statsPanel, BorderLayout.SOUTH);
+
+        // Initialize timer
+        updateTimer = new javax.swing.Timer(UPDATE_INTERVAL, e -> updateGraph());
+        updateTimer.start();
+    }
+
+    private void paintChart(Graphics2D g2, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (chartDirty || chartImage == null || chartImage.getWidth() != width || chartImage.getHeight() != height) {
+            renderChart(width, height);
+        }
+        g2.drawImage(chartImage, 0, 0, null);
+        if (hoverBounds != null) {
+            drawTooltip(g2);
+        }
+    }
+
+    // Marks the chart as out of date and repaints it; must be called on the EDT
+    private void invalidateChart() {
+        chartDirty = true;
+        graphPanel.repaint();
+    }
+
+    private void renderChart(int width, int height) {
+        if (chartImage == null || chartImage.getWidth() != width || chartImage.getHeight() != height) {
+            GraphicsConfiguration configuration = graphPanel.getGraphicsConfiguration();
+            chartImage = configuration != null
+                ? configuration.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g2 = chartImage.createGraphics();
+        try {
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, width, height);
+            drawGraph(g2, width, height);
+        } finally {
+            g2.dispose();
+        }
+        chartDirty = false;
+
+        // The points moved: the mouse may now be over another one, painted along with the chart
+        hoverIndex = mousePosition != null ? hitTest(mousePosition) : -1;
+        hoverBounds = hoverIndex >= 0 ? tooltipBounds(hoverIndex) : null;
+    }
+
+    private void drawGraph(Graphics2D g2, int width, int height) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int padding = PADDING;
+        
+        // Draw title
+        g2.setFont(TITLE_FONT);
+        g2.setColor(Color.BLACK);
+        g2.drawString("Network Traffic Flow Analysis", width/2 - 100, 25);
+
+        // Draw axes
+        g2.setColor(Color.BLACK);
+        g2.drawLine(padding, height - padding, width - padding, height - padding); // X-axis
+        g2.drawLine(padding, height - padding, padding, padding); // Y-axis
+
+        // Draw axis labels
+        g2.setFont(LABEL_FONT);
+        g2.drawString("Time", width/2 - 20, height - 10);
+        g2.rotate(-Math.PI/2);
+        g2.drawString("Packets per Second", -height/2 + 50, 20);
+        g2.rotate(Math.PI/2);
+
+        long endSecond = isPaused ? pausedSecond : series.getLatestSecond();
+        if (endSecond < 0) {
+            setPoints(0, new double[0], new int[0], new int[0]);
+            return;
+        }
+
+        // The buckets in view, starting no earlier than the recorded history
+        long endBucket = resolution.bucketOf(endSecond);
+        long firstBucket = Math.max(endBucket - MAX_POINTS + 1, resolution.bucketOf(series.getFirstSecond()));
+        int points = (int) (endBucket - firstBucket + 1);
+        double[] rates = new double[points];
+        double maxRate = TRAFFIC_THRESHOLD_MEDIUM; // Ensure scale shows at least medium traffic threshold
+        for (int i = 0; i < points; i++) {
+            long bucket = firstBucket + i;
+            rates[i] = (double) series.getPackets(resolution, bucket) / series.getCoveredSeconds(resolution, bucket);
+            maxRate = Math.max(maxRate, rates[i]);
+        }
+        int maxCount = (int) Math.ceil(maxRate);
+
+        // Draw grid lines and labels
+        g2.setColor(Color.LIGHT_GRAY);
+        int gridLines = 10;
+        for (int i = 0; i <= gridLines; i++) {
+            int y = height - padding - (i * (height - 2 * padding) / gridLines);
+            g2.drawLine(padding, y, width - padding, y);
+            g2.setColor(Color.BLACK);
+            g2.drawString(String.valueOf(i * maxCount / gridLines), padding - 40, y + 5);
+            g2.setColor(Color.LIGHT_GRAY);
+        }
+
+        // Draw time labels, about 70 px apart to prevent overcrowding
+        g2.setColor(Color.BLACK);
+        double xStep = (width - 2 * padding) / (double) Math.max(1, points - 1);
+        int labelEvery = Math.max(1, (int) Math.ceil(70 / xStep));
+        for (int i = 0; i < points; i += labelEvery) {
+            int x = (int) (padding + i * xStep);
+            g2.drawString(timeLabel(firstBucket + i), x - 25, height - padding + 20);
+        }
+
+        // Point positions, kept for the hover hit test
+        int[] xs = new int[points];
+        int[] ys = new int[points];
+        for (int i = 0; i < points; i++) {
+            xs[i] = (int) (padding + i * xStep);
+            ys[i] = (int) (height - padding - (rates[i] * (height - 2 * padding) / maxCount));
+        }
+        setPoints(firstBucket, rates, xs, ys);
+
+        // Draw the traffic thresholds
+        drawTrafficThresholds(g2, width, height, padding, maxCount);
+
+        // Draw the line graph with color gradients
+        drawTrafficLine(g2, height, padding, maxCount, rates, xStep);
+
+        // Draw legend
+        drawLegend(g2, width);
+    }
+
+    private void setPoints(long firstBucket, double[] rates, int[] xs, int[] ys) {
+        chartFirstBucket = firstBucket;
+        pointRates = rates;
+        pointX = xs;
+        pointY = ys;
+        tooltipLines = new String[rates.length][];
+    }
+
+    private void drawTrafficThresholds(Graphics2D g2, int width, int height, int padding, int maxCount) {
+        // Draw threshold lines
+        float[] dash = {5f};
+        g2.setStroke(new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, dash, 0.0f));
+        
+        // Medium traffic threshold
+        int y = height - padding - (TRAFFIC_THRESHOLD_MEDIUM * (height - 2 * padding) / maxCount);
+        g2.setColor(MEDIUM_TRAFFIC);
+        g2.drawLine(padding, y, width - padding, y);
+        
+        // High traffic threshold
+        y = height - padding - (TRAFFIC_THRESHOLD_HIGH * (height - 2 * padding) / maxCount);
+        g2.setColor(HIGH_TRAFFIC);
+        g2.drawLine(padding, y, width - padding, y);
+        
+        g2.setStroke(new BasicStroke(1f)); // Reset stroke
+    }
+
+    private void drawTrafficLine(Graphics2D g2, int height, int padding, int maxCount, double[] rates, double xStep) {
+        Path2D.Float path = new Path2D.Float();
+        boolean first = true;
+        boolean drawPoints = xStep >= 4;  // a day of minutes is a line, not a row of dots
+
+        for (int i = 0; i < rates.length; i++) {
+            float x = (float) (padding + i * xStep);
+            float y = (float) (height - padding - (rates[i] * (height - 2 * padding) / maxCount));
+            
+            if (first) {
+                path.moveTo(x, y);
+                first = false;
+            } else {
+                path.lineTo(x, y);
+            }
+
+            // Draw points with color based on traffic level
+            if (drawPoints) {
+                g2.setColor(trafficColor(rates[i]));
+                g2.fillOval((int) x - 4, (int) y - 4, 8, 8);
+            }
+        }
+
+        // Draw lines with gradient color
+        g2.setColor(Color.DARK_GRAY);
+        g2.setStroke(new BasicStroke(2f));
+        g2.draw(path);
+        g2.setStroke(new BasicStroke(1f));
+    }
+
+    private Color trafficColor(double rate) {
+        if (rate >= TRAFFIC_THRESHOLD_HIGH) {
+            return HIGH_TRAFFIC;
+        } else if (rate >= TRAFFIC_THRESHOLD_MEDIUM) {
+            return MEDIUM_TRAFFIC;
+        }
+        return LOW_TRAFFIC;
+    }
+
+    private String timeLabel(long bucket) {
+        String pattern;
+        switch (resolution) {
+            case SECOND:
+            case TEN_SECONDS:
+                pattern = "HH:mm:ss";
+                break;
+            case MINUTE:
+                pattern = "HH:mm";
+                break;
+            default:
+                pattern = "MMM d HH:mm";
+        }
+        return DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault())
+            .format(Instant.ofEpochSecond(bucket * resolution.getSeconds()));
+    }
+
+    private void drawLegend(Graphics2D g2, int width) {
+        int legendX = width - 150;
+        int legendY = 50;
+        int boxSize = 15;
+        
+        g2.setFont(LABEL_FONT);
+        
+        // Low traffic
+        g2.setColor(LOW_TRAFFIC);
+        g2.fillRect(legendX, legendY, boxSize, boxSize);
+        g2.setColor(Color.BLACK);
+        g2.drawString("Low Traffic", legendX + boxSize + 5, legendY + 12);
+        
+        // Medium traffic
+        g2.setColor(MEDIUM_TRAFFIC);
+        g2.fillRect(legendX, legendY + 20, boxSize, boxSize);
+        g2.setColor(Color.BLACK);
+        g2.drawString("Medium Traffic", legendX + boxSize + 5, legendY + 32);
+        
+        // High traffic
+        g2.setColor(HIGH_TRAFFIC);
+        g2.fillRect(legendX, legendY + 40, boxSize, boxSize);
+        g2.setColor(Color.BLACK);
+        g2.drawString("High Traffic", legendX + boxSize + 5, legendY + 52);
+    }
+
+    // Shows the tooltip of the point under the mouse, repainting only the old and new tooltip areas
+    private void updateHover() {
+        int index = mousePosition != null ? hitTest(mousePosition) : -1;
+        if (index == hoverIndex) {
+            return;
+        }
+        if (hoverBounds != null) {
+            graphPanel.repaint(hoverBounds);
+        }
+        hoverIndex = index;
+        hoverBounds = index >= 0 ? tooltipBounds(index) : null;
+        if (hoverBounds != null) {
+            graphPanel.repaint(hoverBounds);
+        }
+    }
+
+    // The nearest point within HIT_RADIUS, or -1; binary search for the first point in x range
+    private int hitTest(Point mouse) {
+        int low = 0;
+        int high = pointX.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (pointX[middle] < mouse.x - HIT_RADIUS) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int nearest = -1;
+        double nearestDistance = HIT_RADIUS;
+        for (int i = low; i < pointX.length && pointX[i] <= mouse.x + HIT_RADIUS; i++) {
+            double distance = mouse.distance(pointX[i], pointY[i]);
+            if (distance < nearestDistance) {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    private Rectangle tooltipBounds(int index) {
+        String[] lines = tooltipLines(index);
+        FontMetrics fm = graphPanel.getFontMetrics(LABEL_FONT);
+        int tooltipWidth = 0;
+        for (String line : lines) {
+            tooltipWidth = Math.max(tooltipWidth, fm.stringWidth(line));
+        }
+        tooltipWidth += 20;
+        int tooltipHeight = fm.getHeight() * lines.length + 10;
+
+        // Adjust position to keep tooltip visible
+        int tooltipX = Math.max(0, Math.min(pointX[index] + 10, graphPanel.getWidth() - tooltipWidth - 10));
+        int tooltipY = Math.max(0, Math.min(pointY[index] - 20, graphPanel.getHeight() - tooltipHeight - 10));
+        return new Rectangle(tooltipX, tooltipY, tooltipWidth + 1, tooltipHeight + 1);  // + 1 for the outline
+    }
+
+    private void drawTooltip(Graphics2D g2) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setFont(LABEL_FONT);
+        int x = hoverBounds.x;
+        int y = hoverBounds.y;
+        int tooltipWidth = hoverBounds.width - 1;
+        int tooltipHeight = hoverBounds.height - 1;
+
+        // Draw tooltip box with rounded corners
+        g2.setColor(new Color(255, 255, 220, 230));  // Slightly transparent background
+        g2.fillRoundRect(x, y, tooltipWidth, tooltipHeight, 10, 10);
+        g2.setColor(Color.GRAY);
+        g2.drawRoundRect(x, y, tooltipWidth, tooltipHeight, 10, 10);
+
+        // Draw tooltip text
+        g2.setColor(Color.BLACK);
+        FontMetrics fm = g2.getFontMetrics();
+        int textY = y + fm.getAscent() + 5;
+        for (String line : tooltipLines(hoverIndex)) {
+            g2.drawString(line, x + 10, textY);
+            textY += fm.getHeight();
+        }
+    }
+
+    // Formatted once per point and chart, then reused for every hover
+    private String[] tooltipLines(int index) {
+        if (tooltipLines[index] == null) {
+            tooltipLines[index] = buildTooltip(chartFirstBucket + index, pointRates[index]).split("\n");
+        }
+        return tooltipLines[index];
+    }
+
+    private String buildTooltip(long bucket, double rate) {
+        long packets = series.getPackets(resolution, bucket);
+        int seconds = series.getCoveredSeconds(resolution, bucket);
+
+        // Create detailed tooltip text
+        StringBuilder tooltip = new StringBuilder();
+        tooltip.append(String.format("Time: %s%s%n", timeLabel(bucket),
+            resolution.getSeconds() > 1 ? " (" + resolution.getSeconds() + " s)" : ""));
+        tooltip.append(String.format("Total Packets: %d (%.1f/sec)%n", packets, rate));
+        tooltip.append(String.format("Throughput: %.2f Mbit/s%n%n",
+            series.getBytes(resolution, bucket) * 8.0 / seconds / 1e6));
+
+        // Protocol distribution
+        tooltip.append(String.format("Protocols:%n"));
+        for (int protocolId : topProtocols(bucket, 3)) {  // Show top 3 protocols
+            tooltip.append(String.format("  %s: %d%n", CaptureStore.protocolName(protocolId),
+                series.getProtocolPackets(resolution, bucket, protocolId)));
+        }
+
+        // Sources and destinations are only kept per second, for the last few minutes
+        TrafficInterval info = null;
+        if (resolution == TrafficSeries.Resolution.SECOND) {
+            int slot = (int) (bucket % DETAIL_SECONDS);
+            info = detailSeconds[slot] == bucket ? details[slot] : null;
+        }
+        if (info != null) {
+            // Addresses are only turned into text here, for the few shown
+            AddressDictionary addresses = packetCapturing.getAddressDictionary();
+            appendTop(tooltip, "Top Sources", info.sources, addresses::format, 2);
+            appendTop(tooltip, "Top Destinations", info.destinations, addresses::format, 2);
+            appendTop(tooltip, "Top Services", info.services, TrafficInterval::serviceName, 2);
+        }
+        return tooltip.toString();
+    }
+
+    // Counts from a HeavyHitters summary are estimates, shown with how much they may be over
+    private static void appendTop(StringBuilder tooltip, String heading, HeavyHitters summary,
+                                  IntFunction<String> names, int limit) {
+        tooltip.append(String.format("%n%s:%n", heading));
+        for (int id : summary.top(limit)) {
+            long error = summary.getError(id);
+            tooltip.append(String.format("  %s: %d%s%n", names.apply(id), summary.get(id),
+                error > 0 ? " (±" + error + ")" : ""));
+        }
+    }
+
+    // Protocol ids with the most packets in the bucket, most first
+    private int[] topProtocols(long bucket, int limit) {
+        int[] ids = new int[CaptureStore.PROTOCOL_COUNT];
+        int count = 0;
+        for (int id = 0; id < ids.length; id++) {
+            if (series.getProtocolPackets(resolution, bucket, id) > 0) {
+                ids[count++] = id;
+            }
+        }
+        for (int i = 1; i < count; i++) {
+            int id = ids[i];
+            long packets = series.getProtocolPackets(resolution, bucket, id);
+            int j = i - 1;
+            while (j >= 0 && series.getProtocolPackets(resolution, bucket, ids[j]) < packets) {
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            ids[j + 1] = id;
+        }
+        return Arrays.copyOf(ids, Math.min(count, limit));
+    }
+
+    private void toggleCapture() {
+        if (!isPaused) {
+            // Pausing capture; the handle stays open and the graph stays on the last second seen
+            packetCapturing.pauseCapturing();
+            captureButton.setText("Resume Capture");
+            captureButton.setBackground(new Color(46, 204, 113)); // Green
+            isPaused = true;
+            pausedSecond = series.getLatestSecond();
+
+        } else {
+            // Resuming capture; the paused time shows as a gap
+            packetCapturing.resumeCapturing();
+            captureButton.setText("Pause Capture");
+            captureButton.setBackground(Color.RED);
+            isPaused = false;
+            pausedSecond = -1;
+        }
+    }
+
+    private void updateGraph() {
+        if (!isPaused) {
+            // Close the current second; a late timer tick must not fold two seconds into one
+            long second = Math.max(System.currentTimeMillis() / 1000, series.getLatestSecond() + 1);
+            TrafficInterval interval = recorder.drain();
+            series.add(second, interval.count, interval.bytes, interval.protocolPackets);
+            int slot = (int) (second % DETAIL_SECONDS);
+            details[slot] = interval;
+            detailSeconds[slot] = second;
+
+            updateStats(interval.count);
+            updateTopTalkers();
+
+            // Only a new point rebuilds the chart
+            invalidateChart();
+        }
+        updateTcpHealth();
+    }
+
+    private void updateTcpHealth() {
+        if (tcpHealthPanel.isShowing()) {
+            tcpHealthPanel.update(packetCapturing.getTcpMetrics());
+        }
+    }
+
+    // Merges the per-second summaries of the selected window, ending at the second in view
+    private void updateTopTalkers() {
+        long endSecond = isPaused ? pausedSecond : series.getLatestSecond();
+        TrafficInterval window = new TrafficInterval(WINDOW_HEAVY_HITTERS);
+        int seconds = 0;
+        if (endSecond >= 0) {
+            for (long second = endSecond - topTalkersPanel.getWindowSeconds() + 1; second <= endSecond; second++) {
+                int slot = (int) (second % DETAIL_SECONDS);
+                if (second >= 0 && detailSeconds[slot] == second && details[slot] != null) {
+                    window.addAll(details[slot]);
+                    seconds++;
+                }
+            }
+        }
+        topTalkersPanel.update(window, seconds);
+    }
+
+    private void updateStats(int currentRate) {
+        // Average rate over the range in view, from the rollup that backs it
+        long endSecond = isPaused ? pausedSecond : series.getLatestSecond();
+        double avgRate = 0.0;
+        double avgBits = 0.0;
+        if (endSecond >= 0) {
+            long endBucket = resolution.bucketOf(endSecond);
+            long firstBucket = Math.max(endBucket - MAX_POINTS + 1, resolution.bucketOf(series.getFirstSecond()));
+            long packets = 0;
+            long bytes = 0;
+            long seconds = 0;
+            for (long bucket = firstBucket; bucket <= endBucket; bucket++) {
+                packets += series.getPackets(resolution, bucket);
+                bytes += series.getBytes(resolution, bucket);
+                seconds += series.getCoveredSeconds(resolution, bucket);
+            }
+            avgRate = (double) packets / seconds;
+            avgBits = bytes * 8.0 / seconds;
+        }
+
+        CaptureStats captureStats = packetCapturing.getCaptureStats();
+        statsLabel.setText(String.format("Total Packets: %d | Current Rate: %d packets/sec | Average Rate: %.2f packets/sec, %.2f Mbit/s | Kernel drops: %d | Interface drops: %d",
+            series.getTotalPackets(), currentRate, avgRate, avgBits / 1e6,
+            captureStats.getDroppedByKernel(), captureStats.getDroppedByInterface()));
+    }
+
+    public void clearGraph() {
+        series.clear();
+        Arrays.fill(details, null);
+        recorder.drain();
+        isPaused = false;
+        pausedSecond = -1;
+        captureButton.setText("Pause Capture");
+        captureButton.setBackground(Color.RED);
+        statsLabel.setText("Total Packets: 0 | Current Rate: 0 packets/sec | Average Rate: 0 packets/sec");
+        updateTopTalkers();
+        updateTcpHealth();
+        invalidateChart();
+    }
+
+    @Override
+    public void dispose() {
+        if (updateTimer != null) {
+            updateTimer.stop();
+        }
+        super.dispose();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,309 @@
+package org.example;
+
+import org.pcap4j.core.PcapNativeException;
+import org.pcap4j.core.PcapNetworkInterface;
+import org.pcap4j.core.Pcaps;
+import org.pcap4j.core.PcapAddress;
+
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.pcap4j.util.LinkLayerAddress;
+import org.pcap4j.util.MacAddress;
+import org.pcap4j.util.NifSelector;
+
+/**
+ * Registry of the capture interfaces. libpcap is asked for the device list once, on the
+ * first lookup, and the result is kept as an immutable snapshot indexed by pcap name and
+ * by description, so looking a device up (on every selection, every capture start) is a
+ * map lookup instead of a native scan. refresh() enumerates again, now or in the
+ * background on a schedule, swaps the snapshot and reports what changed to the listeners
+ * as InterfaceEvents: devices added or removed, the link going up or down, addresses.
+ *
+ * Descriptions are not unique (several "Intel(R) Ethernet" adapters) and often missing
+ * on Linux, so an interface is listed by its description only when that names it alone,
+ * by its pcap name otherwise; getDevice accepts either.
+ */
+public class NetworkInterfaceInfo {
+
+    public static final long DEFAULT_REFRESH_MILLIS = 5000;
+
+    private String selectedInterface;
+    private List<InetAddress> interfaceAddresses;
+    private volatile Registry registry;  // null until the first lookup
+    private final List<Consumer<InterfaceEvent>> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService refresher;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    // One enumeration, never modified once published
+    private static final class Registry {
+        final List<PcapNetworkInterface> devices;
+        final Map<String, PcapNetworkInterface> byName = new HashMap<>();
+        final Map<String, PcapNetworkInterface> byDescription = new HashMap<>();  // unique descriptions only
+        final Map<String, String> labels = new HashMap<>();                       // by name
+        final List<String> upLabels = new ArrayList<>();
+
+        Registry(List<PcapNetworkInterface> devices) {
+            this.devices = Collections.unmodifiableList(new ArrayList<>(devices));
+            Map<String, Integer> descriptions = new HashMap<>();
+            for (PcapNetworkInterface device : devices) {
+                byName.put(device.getName(), device);
+                if (device.getDescription() != null) {
+                    descriptions.merge(device.getDescription(), 1, Integer::sum);
+                }
+            }
+            for (PcapNetworkInterface device : devices) {
+                String description = device.getDescription();
+                boolean unique = description != null && descriptions.get(description) == 1 && !byName.containsKey(description);
+                if (unique) {
+                    byDescription.put(description, device);
+                }
+                String label = unique ? description : device.getName();
+                labels.put(device.getName(), label);
+                if (device.isUp()) {
+                    upLabels.add(label);
+                }
+            }
+        }
+
+        PcapNetworkInterface find(String nameOrLabel) {
+            PcapNetworkInterface device = byName.get(nameOrLabel);
+            return device != null ? device : byDescription.get(nameOrLabel);
+        }
+    }
+
+    public NetworkInterfaceInfo() {
+        interfaceAddresses = new ArrayList<>();
+    }
+
+    private Registry registry() throws PcapNativeException {
+        Registry current = registry;
+        if (current == null) {
+            synchronized (this) {
+                current = registry;
+                if (current == null) {
+                    current = new Registry(Pcaps.findAllDevs());
+                    registry = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Enumerates the interfaces again and reports the differences to the listeners, on
+     * the calling thread. Returns the events, empty when nothing changed.
+     */
+    public List<InterfaceEvent> refresh() throws PcapNativeException {
+        List<InterfaceEvent> events;
+        synchronized (this) {
+            Registry previous = registry;
+            Registry current = new Registry(Pcaps.findAllDevs());
+            registry = current;
+            events = previous != null ? changes(previous, current) : Collections.emptyList();
+        }
+        for (InterfaceEvent event : events) {
+            for (Consumer<InterfaceEvent> listener : listeners) {
+                listener.accept(event);
+            }
+        }
+        return events;
+    }
+
+    private static List<InterfaceEvent> changes(Registry previous, Registry current) {
+        List<InterfaceEvent> events = new ArrayList<>();
+        for (PcapNetworkInterface device : current.devices) {
+            String name = device.getName();
+            String label = current.labels.get(name);
+            PcapNetworkInterface before = previous.byName.get(name);
+            if (before == null) {
+                events.add(new InterfaceEvent(InterfaceEvent.Type.ADDED, name, label, device));
+                continue;
+            }
+            if (isLinkUp(before) != isLinkUp(device)) {
+                events.add(new InterfaceEvent(isLinkUp(device) ? InterfaceEvent.Type.LINK_UP : InterfaceEvent.Type.LINK_DOWN,
+                    name, label, device));
+            }
+            if (!addresses(before).equals(addresses(device))) {
+                events.add(new InterfaceEvent(InterfaceEvent.Type.ADDRESSES_CHANGED, name, label, device));
+            }
+        }
+        for (PcapNetworkInterface device : previous.devices) {
+            if (!current.byName.containsKey(device.getName())) {
+                events.add(new InterfaceEvent(InterfaceEvent.Type.REMOVED, device.getName(),
+                    previous.labels.get(device.getName()), device));
+            }
+        }
+        return events;
+    }
+
+    private static boolean isLinkUp(PcapNetworkInterface device) {
+        return device.isUp() && device.isRunning();
+    }
+
+    private static Set<InetAddress> addresses(PcapNetworkInterface device) {
+        Set<InetAddress> addresses = new HashSet<>();
+        for (PcapAddress address : device.getAddresses()) {
+            if (address.getAddress() != null) {
+                addresses.add(address.getAddress());
+            }
+        }
+        return addresses;
+    }
+
+    // Refreshes on the background thread and returns at once; failures are logged and the old list kept
+    public synchronized void refreshAsync() {
+        refresher().execute(this::refreshQuietly);
+    }
+
+    // Refreshes in the background every periodMillis until stopAutoRefresh
+    public synchronized void startAutoRefresh(long periodMillis) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = refresher().scheduleWithFixedDelay(this::refreshQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopAutoRefresh() {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+    }
+
+    private ScheduledExecutorService refresher() {
+        if (refresher == null) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "interface-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return refresher;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (PcapNativeException | RuntimeException e) {
+            System.err.println("Could not enumerate the network interfaces: " + e.getMessage());
+        }
+    }
+
+    // Called on the thread that refreshed: the background thread, or the caller of refresh()
+    public void addInterfaceListener(Consumer<InterfaceEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeInterfaceListener(Consumer<InterfaceEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    // Every interface libpcap reported at the last enumeration, up or not
+    public List<PcapNetworkInterface> getDevices() throws PcapNativeException {
+        return registry().devices;
+    }
+
+    // Method to fetch all active network interfaces, by description where that is unique, else by name
+    public List<String> getNetworkInterfaces() throws SocketException, PcapNativeException {
+        return Collections.unmodifiableList(registry().upLabels);
+    }
+
+    // Method to fetch detailed information about a specific interface
+    public String getInterfaceDetails(String interfaceName) throws SocketException, PcapNativeException {
+        PcapNetworkInterface iface = getDevice(interfaceName);
+        if (iface == null) {
+            return "Interface not found.";
+        }
+
+        StringBuilder details = new StringBuilder();
+        details.append("Interface Name: ").append(iface.getName()).append("\n");
+        details.append("Description: ").append(iface.getDescription()).append("\n\n");
+        
+        details.append("IPv4 Addresses:\n");
+        details.append("---------------\n");
+        for (PcapAddress addr : iface.getAddresses()) {
+            if (addr.getAddress().getHostAddress().contains(":")) continue; // Skip IPv6
+            details.append("Address: ").append(addr.getAddress().getHostAddress()).append("\n");
+            details.append("Netmask: ").append(addr.getNetmask().getHostAddress()).append("\n");
+            if (addr.getBroadcastAddress() != null) {
+                details.append("Broadcast: ").append(addr.getBroadcastAddress().getHostAddress()).append("\n");
+            }
+            details.append("\n");
+        }
+
+        details.append("IPv6 Addresses:\n");
+        details.append("---------------\n");
+        for (PcapAddress addr : iface.getAddresses()) {
+            if (!addr.getAddress().getHostAddress().contains(":")) continue; // Skip IPv4
+            details.append("Address: ").append(addr.getAddress().getHostAddress()).append("\n");
+            details.append("Netmask: ").append(addr.getNetmask().getHostAddress()).append("\n");
+            if (addr.getBroadcastAddress() != null) {
+                details.append("Broadcast: ").append(addr.getBroadcastAddress().getHostAddress()).append("\n");
+            }
+            details.append("\n");
+        }
+
+        details.append("MAC Address: ");
+        ArrayList<LinkLayerAddress> macAddresses = iface.getLinkLayerAddresses();
+        if (!macAddresses.isEmpty()) {
+            details.append(macAddresses.get(0).toString());
+        }
+
+        return details.toString();
+    }
+
+    // By pcap name or by a description that names a single interface; null when there is none
+    public PcapNetworkInterface getDevice(String name) throws PcapNativeException {
+        return name != null ? registry().find(name) : null;
+    }
+
+    // How getNetworkInterfaces lists the device
+    public String getLabel(PcapNetworkInterface device) throws PcapNativeException {
+        String label = registry().labels.get(device.getName());
+        return label != null ? label : device.getName();
+    }
+
+    public void setSelectedInterface(String interfaceName) {
+        this.selectedInterface = interfaceName;
+    }
+
+    public String getSelectedInterface() {
+        return selectedInterface;
+    }
+
+    // Add this method to get interface addresses
+    public List<InetAddress> getInterfaceAddresses() {
+        List<InetAddress> addresses = new ArrayList<>();
+        try {
+            PcapNetworkInterface device = getDevice(selectedInterface);
+            if (device != null) {
+                for (PcapAddress addr : device.getAddresses()) {
+                    if (addr.getAddress() != null) {
+                        addresses.add(addr.getAddress());
+                    }
+                }
+            }
+        } catch (PcapNativeException e) {
+            e.printStackTrace();
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,382 @@
+package org.example;
+
+import org.pcap4j.core.*;
+import org.pcap4j.packet.*;
+import org.pcap4j.packet.namednumber.DataLinkType;
+import org.pcap4j.packet.factory.PacketFactories;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PacketCapturing {
+
+    private static final int DECODED_CACHE_SIZE = 512;
+    private static final long SAVE_TIMEOUT_MILLIS = 5000;
+    private static final long DISCARD_TIMEOUT_MILLIS = 5000;
+    private static final long FOLLOW_BUFFER_BYTES = 4L * 1024 * 1024;  // out-of-order data of the followed stream
+
+    private NetworkGraphGUI graphGUI;
+    private final AddressDictionary addresses = new AddressDictionary();
+    private final CaptureStore captureStore = new CaptureStore(addresses);
+    private final PacketTableModel tableModel = new PacketTableModel(captureStore);
+    private final FrameArena frameArena = new FrameArena();
+    private final DecodedPacketCache decodedPackets = new DecodedPacketCache(DECODED_CACHE_SIZE);
+    private final PacketDetailsRenderer renderer = new PacketDetailsRenderer();
+    private final TrafficRecorder trafficRecorder = new TrafficRecorder();
+    private final CaptureEngine engine = new CaptureEngine(this::publishRows, SwingUtilities::invokeLater,
+        addresses, trafficRecorder);
+    private final FlowTracker flowTracker = engine.getFlowTracker();
+    private final DnsTracker dnsTracker = engine.getDnsTracker();
+    private final TcpMetricsTracker tcpMetrics = engine.getTcpMetrics();
+    private final TcpReassembly tcpReassembly = engine.getTcpReassembly();
+    private final ConversationTableModel conversationModel = new ConversationTableModel(flowTracker);
+    private volatile FrameSource frameSource = frameArena;
+    private PcapFileReader offlineReader;
+    private NetworkInterfaceInfo networkInfo;
+    private JTable currentPacketList;
+
+    public PacketCapturing(NetworkInterfaceInfo networkInfo) {
+        this.networkInfo = networkInfo;
+        this.graphGUI = new NetworkGraphGUI(this);
+    }
+
+    public void startCapturing(PcapNetworkInterface device, JTable packetList, String filterExpression) throws PcapNativeException, NotOpenException, IOException {
+        startCapturing(Collections.singletonList(device), packetList, filterExpression);
+    }
+
+    // Several interfaces are merged into one time-ordered capture, the table shows where each packet came from
+    public void startCapturing(List<PcapNetworkInterface> devices, JTable packetList, String filterExpression) throws PcapNativeException, NotOpenException, IOException {
+        currentPacketList = packetList;
+        useFrameArena();
+        engine.startCapturing(devices, filterExpression);
+        tableModel.setInterfaceNames(engine.getInterfaceNames());
+    }
+
+    // Live frames go to the arena; rows loaded from an offline file point into that file and are dropped
+    private void useFrameArena() {
+        if (frameSource != frameArena) {
+            clearCapture();
+            frameSource = frameArena;
+            closeOfflineReader();
+        }
+    }
+
+    private void closeOfflineReader() {
+        if (offlineReader != null) {
+            try {
+                offlineReader.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            offlineReader = null;
+        }
+    }
+
+    /**
+     * Opens a pcap file and feeds its packets through the same decode/publish pipeline
+     * as a live capture. Frames stay in the memory-mapped file; the store only records
+     * their offsets. Must be called on the EDT.
+     */
+    public PcapFileReader openCaptureFile(Path file) throws IOException {
+        PcapFileReader reader = new PcapFileReader(file);
+        if (engine.isCapturing()) {
+            engine.stopCapturing();
+        }
+        clearCapture();
+        closeOfflineReader();
+        offlineReader = reader;
+        frameSource = reader;
+        tableModel.setInterfaceNames(new String[0]);
+        try {
+            engine.replayFile(reader, null, false);
+        } catch (PcapNativeException e) {
+            throw new IOException(e);  // only the BPF compile can fail, and there is no filter here
+        }
+        return reader;
+    }
+
+    // Forgets all captured rows; must be called on the EDT
+    private void clearCapture() {
+        // The previous capture's decode shards write to the dictionary and trackers cleared here
+        try {
+            if (!engine.discardPipeline(DISCARD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Decode threads still running after " + DISCARD_TIMEOUT_MILLIS + " ms, clearing anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        captureStore.clear();
+        addresses.clear();
+        frameArena.clear();
+        decodedPackets.clear();
+        flowTracker.clear();
+        dnsTracker.clear();
+        tcpMetrics.clear();
+        tcpReassembly.clear();
+        tableModel.cleared();
+        conversationModel.refresh();
+        graphGUI.clearGraph();
+    }
+
+    // Runs on the EDT, once per UI frame
+    private void publishRows(List<PacketSummary> rows) {
+        for (PacketSummary summary : rows) {
+            try {
+                // Interned and recorded for the graph by the decode shard
+                summary.sourceId = addressId(summary.sourceId, summary.sourceHigh, summary.sourceLow);
+                summary.destId = addressId(summary.destId, summary.destHigh, summary.destLow);
+
+                // Every packet is kept; the display filter only decides what the table shows
+                long frameOffset = summary.frameOffset >= 0 ? summary.frameOffset : frameArena.append(summary.rawData);
+                int index = captureStore.append(summary.timestampMicros, summary.length, summary.rawData.length,
+                    summary.sourceId, summary.destId, summary.protocolId, summary.sourcePort, summary.destPort,
+                    summary.tcpFlags, frameOffset, summary.interfaceId);
+                if (summary.packet != null) {
+                    decodedPackets.put(index, summary.packet);
+                }
+            } catch (Exception e) {
+                System.out.println("Error processing packet: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        tableModel.rowsAppended();
+    }
+
+    // A row decoded before clearCapture() arrives with an id from the cleared dictionary
+    private int addressId(int id, long high, long low) {
+        return id < addresses.size() && addresses.getHigh(id) == high && addresses.getLow(id) == low
+            ? id : addresses.intern(high, low);
+    }
+
+    public PacketTableModel getTableModel() {
+        return tableModel;
+    }
+
+    public ConversationTableModel getConversationModel() {
+        return conversationModel;
+    }
+
+    public FlowTracker getFlowTracker() {
+        return flowTracker;
+    }
+
+    public DnsTracker getDnsTracker() {
+        return dnsTracker;
+    }
+
+    public TcpMetricsTracker getTcpMetrics() {
+        return tcpMetrics;
+    }
+
+    public TcpReassembly getTcpReassembly() {
+        return tcpReassembly;
+    }
+
+    /**
+     * Reassembles the TCP connection of a stored row from the stored frames and hands its
+     * bytes to the listener, client and server in the order they were sent. The rows come
+     * from the port indexes, so only the connection's own frames are read, and a private
+     * reassembler with a small buffer puts them in order: nothing of the stream is held
+     * beyond what the listener keeps. Returns false if the row is not TCP. EDT only.
+     */
+    public boolean followTcpStream(int index, TcpStreamListener listener) {
+        if (index < 0 || index >= captureStore.size() || captureStore.getProtocol(index) != CaptureStore.PROTO_TCP) {
+            return false;
+        }
+        long sourceHigh = captureStore.getSourceHigh(index);
+        long sourceLow = captureStore.getSourceLow(index);
+        long destHigh = captureStore.getDestHigh(index);
+        long destLow = captureStore.getDestLow(index);
+        int sourcePort = captureStore.getSourcePort(index);
+        int destPort = captureStore.getDestPort(index);
+        long[] rows = new long[(captureStore.size() + 63) / 64];
+        int port = portRows(sourcePort) <= portRows(destPort) ? sourcePort : destPort;
+        CaptureIndex captureIndex = captureStore.getIndex();
+        for (RowSet rowSet : new RowSet[] {captureIndex.getSourcePort(port), captureIndex.getDestPort(port)}) {
+            if (rowSet != null) {
+                rowSet.orInto(rows);
+            }
+        }
+
+        // One stream that never times out: a long pause in the capture is not the end of it
+        TcpReassembler reassembler = new TcpReassembler(1, new ChunkPool(FOLLOW_BUFFER_BYTES),
+            Integer.MAX_VALUE, listener, new AtomicLong());
+        for (int word = 0; word < rows.length; word++) {
+            for (long bits = rows[word]; bits != 0; bits &= bits - 1) {
+                int row = word * 64 + Long.numberOfTrailingZeros(bits);
+                if (row >= captureStore.size() || captureStore.getProtocol(row) != CaptureStore.PROTO_TCP) {
+                    continue;
+                }
+                boolean forward = captureStore.getSourcePort(row) == sourcePort && captureStore.getDestPort(row) == destPort
+                    && captureStore.getSourceLow(row) == sourceLow && captureStore.getSourceHigh(row) == sourceHigh
+                    && captureStore.getDestLow(row) == destLow && captureStore.getDestHigh(row) == destHigh;
+                boolean reverse = captureStore.getSourcePort(row) == destPort && captureStore.getDestPort(row) == sourcePort
+                    && captureStore.getSourceLow(row) == destLow && captureStore.getSourceHigh(row) == destHigh
+                    && captureStore.getDestLow(row) == sourceLow && captureStore.getDestHigh(row) == sourceHigh;
+                if (!forward && !reverse) {
+                    continue;
+                }
+                int length = captureStore.getCapturedLength(row);
+                byte[] frame = frameSource.readFrame(captureStore.getFrameOffset(row), length);
+                PacketSummary summary = new PacketSummary(row, captureStore.getTimestamp(row),
+                    captureStore.getLength(row), frame, null);
+                if (FrameHeaderParser.parse(frame, Math.min(length, frame.length),
+                        engine.getLinkType(captureStore.getInterface(row)).value(), summary)) {
+                    reassembler.update(summary);
+                }
+            }
+        }
+        reassembler.closeAll(TcpStream.CloseReason.END);
+        return true;
+    }
+
+    private int portRows(int port) {
+        CaptureIndex captureIndex = captureStore.getIndex();
+        RowSet source = captureIndex.getSourcePort(port);
+        RowSet dest = captureIndex.getDestPort(port);
+        return (source != null ? source.size() : 0) + (dest != null ? dest.size() : 0);
+    }
+
+    public AddressDictionary getAddressDictionary() {
+        return addresses;
+    }
+
+    // Filled by the decode shards, drained by the graph's timer
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
+    }
+
+    public CaptureStore getCaptureStore() {
+        return captureStore;
+    }
+
+    // Only the raw bytes are kept: decode the selected packet on demand
+    public Packet getPacket(int index) {
+        if (index < 0 || index >= captureStore.size()) {
+            return null;
+        }
+        Packet packet = decodedPackets.get(index);
+        if (packet == null) {
+            byte[] raw = frameSource.readFrame(captureStore.getFrameOffset(index), captureStore.getCapturedLength(index));
+            packet = PacketFactories.getFactory(Packet.class, DataLinkType.class)
+                .newInstance(raw, 0, raw.length, engine.getLinkType(captureStore.getInterface(index)));
+            decodedPackets.put(index, packet);
+        }
+        return packet;
+    }
+
+    public void stopCapturing() {
+        engine.stopCapturing();
+    }
+
+    // Keeps the handle, filter and capture file; resumeCapturing continues instantly
+    public void pauseCapturing() {
+        engine.pauseCapturing();
+    }
+
+    public void resumeCapturing() {
+        try {
+            engine.resumeCapturing();
+        } catch (Exception e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(null,
+                "Error resuming capture: " + e.getMessage(),
+                "Resume Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Filters the packet table with a DisplayFilter expression (blank shows everything),
+     * over the whole capture so far and every packet after. Returns the number of rows
+     * shown; throws IllegalArgumentException for an invalid expression. Must be called
+     * on the EDT.
+     */
+    public int setDisplayFilter(String expression) {
+        DisplayFilter filter = expression == null || expression.isBlank() ? null : DisplayFilter.compile(expression);
+        return tableModel.setFilter(filter);
+    }
+
+    // Returns the file the packets were flushed to
+    public Path saveCapture() throws IOException {
+        return engine.flushCapture(SAVE_TIMEOUT_MILLIS);
+    }
+
+    public WriterStats getWriterStats() {
+        return engine.getWriterStats();
+    }
+
+    public CaptureConfig getCaptureConfig() {
+        return engine.getCaptureConfig();
+    }
+
+    // Takes effect on the next start/resume
+    public void setCaptureConfig(CaptureConfig captureConfig) {
+        engine.setCaptureConfig(captureConfig);
+    }
+
+    public CaptureStats getCaptureStats() {
+        return engine.getCaptureStats();
+    }
+
+    public CaptureStats getCaptureStats(int interfaceId) {
+        return engine.getCaptureStats(interfaceId);
+    }
+
+    // Of the current or last live capture, by interface id
+    public String[] getInterfaceNames() {
+        return engine.getInterfaceNames();
+    }
+
+    public long getLatePackets() {
+        return engine.getLatePackets();
+    }
+
+    public PipelineStats getPipelineStats() {
+        return engine.getPipelineStats();
+    }
+
+    public boolean isCapturing() {
+        return engine.isCapturing();
+    }
+
+    // The details pane of a stored row, dissected from the raw frame once and cached; EDT only
+    public String getPacketDetails(int index) {
+        if (index < 0 || index >= captureStore.size()) {
+            return "";
+        }
+        String details = decodedPackets.getDetails(index);
+        if (details == null) {
+            int length = captureStore.getCapturedLength(index);
+            byte[] frame = frameSource.readFrame(captureStore.getFrameOffset(index), length);
+            details = renderer.details(frame, length, captureStore.getLength(index),
+                engine.getLinkType(captureStore.getInterface(index)).value());
+            decodedPackets.putDetails(index, details);
+        }
+        return details;
+    }
+
+    // Pages of PacketDetailsRenderer.HEX_PAGE_BYTES, so a 64 KB frame is not rendered in one go
+    public int getHexPageCount(int index) {
+        return index >= 0 && index < captureStore.size()
+            ? PacketDetailsRenderer.hexPageCount(captureStore.getCapturedLength(index)) : 0;
+    }
+
+    public String getHexPage(int index, int page) {
+        if (index < 0 || index >= captureStore.size()) {
+            return "";
+        }
+        int length = captureStore.getCapturedLength(index);
+        byte[] frame = frameSource.readFrame(captureStore.getFrameOffset(index), length);
+        return renderer.hexPage(frame, Math.min(length, frame.length), page);
+    }
+
+    public void showGraphVisualization() {
+        graphGUI.setVisible(true);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package org.example;
+
+// Decode stage of the CapturePipeline. Every packet of a flow reaches the same shard, so
+// per-flow state kept per shard needs no locking.
+public interface PacketDecoder {
+    PacketSummary decode(CapturedPacket packet, int shard);
+}
@@ -0,0 +1,223 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Renders the packet details and hex panes into one reusable char buffer, with hex and
+ * decimal digits from lookup tables instead of String.format: the only allocation per
+ * render is the String handed to the text area. The details come from the dissectors of
+ * the DissectorRegistry, writing straight from the frame bytes through this class's
+ * DissectionOutput methods. Large frames are rendered a page of HEX_PAGE_BYTES at a time.
+ * Not thread-safe; PacketCapturing keeps one for the EDT.
+ */
+public final class PacketDetailsRenderer implements DissectionOutput {
+
+    public static final int HEX_PAGE_BYTES = 4096;
+
+    private static final char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_PAIRS = new char[512];  // two upper-case hex digits per byte value
+
+    static {
+        char[] upper = "0123456789ABCDEF".toCharArray();
+        for (int i = 0; i < 256; i++) {
+            UPPER_PAIRS[i * 2] = upper[i >>> 4];
+            UPPER_PAIRS[i * 2 + 1] = upper[i & 0xF];
+        }
+    }
+
+    private final DissectorRegistry registry;
+    private char[] buffer = new char[4096];
+    private int length;
+
+    public PacketDetailsRenderer() {
+        this(DissectorRegistry.getDefault());
+    }
+
+    public PacketDetailsRenderer(DissectorRegistry registry) {
+        this.registry = registry;
+    }
+
+    // capturedLength bytes of frame were captured of wireLength on the wire
+    public String details(byte[] frame, int capturedLength, int wireLength, int linkType) {
+        length = 0;
+        if (frame == null) {
+            return "";
+        }
+        capturedLength = Math.min(capturedLength, frame.length);
+        append("Frame: ").decimal(wireLength).append(" bytes on wire, ").decimal(capturedLength).append(" bytes captured\n");
+        registry.dissect(frame, capturedLength, linkType, this);
+        return new String(buffer, 0, length);
+    }
+
+    public static int hexPageCount(int frameLength) {
+        return Math.max(1, (frameLength + HEX_PAGE_BYTES - 1) / HEX_PAGE_BYTES);
+    }
+
+    // Upper-case byte pairs, a space every 2 bytes and a line every 16, for one page of the frame
+    public String hexPage(byte[] frame, int frameLength, int page) {
+        int from = Math.min(page * HEX_PAGE_BYTES, frameLength);
+        int to = Math.min(from + HEX_PAGE_BYTES, frameLength);
+        length = 0;
+        ensure((to - from) * 3 + 1);  // 2 digits a byte, a space per 2 bytes, a newline per 16
+        char[] out = buffer;
+        int position = 0;
+        for (int i = from; i < to; i++) {
+            int pair = (frame[i] & 0xFF) * 2;
+            out[position++] = UPPER_PAIRS[pair];
+            out[position++] = UPPER_PAIRS[pair + 1];
+            if ((i & 1) == 1) {
+                out[position++] = ' ';
+            }
+            if ((i & 15) == 15) {
+                out[position++] = '\n';
+            }
+        }
+        return new String(out, 0, position);
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private PacketDetailsRenderer append(String text) {
+        int count = text.length();
+        ensure(count);
+        text.getChars(0, count, buffer, length);
+        length += count;
+        return this;
+    }
+
+    private void append(char c) {
+        ensure(1);
+        buffer[length++] = c;
+    }
+
+    @Override
+    public void layer(String name) {
+        append(name).append(":\n");
+    }
+
+    @Override
+    public DissectionOutput field(String label) {
+        return append("   ").append(label).append(": ");
+    }
+
+    @Override
+    public DissectionOutput text(String text) {
+        return append(text);
+    }
+
+    @Override
+    public PacketDetailsRenderer decimal(long value) {
+        ensure(20);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int end = length + digits(value);
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+        return this;
+    }
+
+    private static int digits(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    // Lower-case, zero-padded to at least minDigits, as %0Nx would
+    @Override
+    public PacketDetailsRenderer hex(long value, int minDigits) {
+        int count = Math.max(minDigits, (64 - Long.numberOfLeadingZeros(value) + 3) / 4);
+        ensure(count);
+        for (int i = length + count - 1; i >= length; i--) {
+            buffer[i] = LOWER_DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        length += count;
+        return this;
+    }
+
+    @Override
+    public DissectionOutput ascii(byte[] data, int offset, int count) {
+        ensure(count);
+        for (int i = offset; i < offset + count; i++) {
+            int c = data[i] & 0xFF;
+            buffer[length++] = c >= 0x20 && c < 0x7F ? (char) c : '.';
+        }
+        return this;
+    }
+
+    @Override
+    public DissectionOutput mac(byte[] data, int offset) {
+        ensure(17);
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                buffer[length++] = ':';
+            }
+            int b = data[offset + i] & 0xFF;
+            buffer[length++] = LOWER_DIGITS[b >>> 4];
+            buffer[length++] = LOWER_DIGITS[b & 0xF];
+        }
+        return this;
+    }
+
+    @Override
+    public DissectionOutput ipv4(byte[] data, int offset) {
+        for (int i = 0; i < 4; i++) {
+            if (i > 0) {
+                append('.');
+            }
+            decimal(data[offset + i] & 0xFF);
+        }
+        return this;
+    }
+
+    @Override
+    public DissectionOutput ipv6(byte[] data, int offset) {
+        // The longest run of two or more zero groups, the first one on a tie
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < 8; ) {
+            int run = 0;
+            while (i + run < 8 && FrameHeaderParser.readShort(data, offset + (i + run) * 2) == 0) {
+                run++;
+            }
+            if (run > bestLength) {
+                bestStart = i;
+                bestLength = run;
+            }
+            i += Math.max(run, 1);
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i == bestStart) {
+                append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (i > 0 && i != bestStart + bestLength) {
+                append(':');
+            }
+            int group = FrameHeaderParser.readShort(data, offset + i * 2);
+            hex(group, 1);
+        }
+        return this;
+    }
+
+    @Override
+    public void end() {
+        append('\n');
+    }
+}
@@ -0,0 +1,145 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * K-way merge of the frames of several capture threads into one stream in timestamp
+ * order. Every interface has its own single-producer ring; the merge thread keeps the
+ * head of each and hands on the oldest once every interface still capturing has one
+ * queued, which keeps the output ordered as long as the interfaces deliver within the
+ * reorder window of each other. An interface that has produced nothing for the window
+ * is not waited for, so a quiet interface holds the others back for at most the window
+ * after its last packet (or until one of their rings is half full); a packet older than
+ * one already handed on is passed through anyway and counted as late. The merge thread is the only
+ * producer for whatever the output feeds.
+ */
+public class PacketMerger {
+
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final PacketRingBuffer<CapturedPacket>[] sources;
+    private final AtomicIntegerArray finished;
+    private final long windowNanos;
+    private final Consumer<CapturedPacket> output;
+    private final Runnable onDone;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Merge thread only
+    private volatile long merged;
+    private volatile long late;
+
+    @SuppressWarnings("unchecked")
+    public PacketMerger(int sourceCount, int capacity, long windowMillis,
+                        Consumer<CapturedPacket> output, Runnable onDone) {
+        sources = (PacketRingBuffer<CapturedPacket>[]) new PacketRingBuffer<?>[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            sources[i] = new PacketRingBuffer<>(capacity);
+        }
+        finished = new AtomicIntegerArray(sourceCount);
+        windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.output = output;
+        this.onDone = onDone;
+        thread = new Thread(this::mergeLoop, "capture-merge");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    // Called by the source's capture thread only. Returns false when its ring is full.
+    public boolean offer(int source, CapturedPacket packet) {
+        return sources[source].offer(packet);
+    }
+
+    // The source's capture thread has offered its last packet
+    public void finish(int source) {
+        finished.set(source, 1);
+    }
+
+    // Stops merging right away; whatever is still queued is discarded
+    public void stop() {
+        running = false;
+    }
+
+    private void mergeLoop() {
+        int count = sources.length;
+        CapturedPacket[] heads = new CapturedPacket[count];
+        long[] lastHeard = new long[count];  // when each source last had a packet for us
+        Arrays.fill(lastHeard, System.nanoTime());
+        long lastTimestamp = Long.MIN_VALUE;
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                int oldest = -1;
+                boolean complete = true;   // every interface still capturing and not quiet has a head
+                boolean drained = true;    // every interface finished and empty
+                boolean pressure = false;  // a ring is filling up while we wait
+                for (int i = 0; i < count; i++) {
+                    if (heads[i] == null) {
+                        // Read before polling: once finished, the last packet is already in the ring
+                        boolean done = finished.get(i) != 0;
+                        heads[i] = sources[i].poll();
+                        if (heads[i] == null) {
+                            if (!done) {
+                                complete &= now - lastHeard[i] >= windowNanos;
+                                drained = false;
+                            }
+                            continue;
+                        }
+                        lastHeard[i] = now;
+                    }
+                    drained = false;
+                    pressure |= sources[i].size() >= sources[i].capacity() / 2;
+                    if (oldest < 0 || heads[i].timestampMicros < heads[oldest].timestampMicros) {
+                        oldest = i;
+                    }
+                }
+                if (drained) {
+                    break;
+                }
+                if (oldest < 0 || !complete && !pressure) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                CapturedPacket packet = heads[oldest];
+                heads[oldest] = null;
+                if (packet.timestampMicros < lastTimestamp) {
+                    late++;
+                } else {
+                    lastTimestamp = packet.timestampMicros;
+                }
+                merged++;
+                output.accept(packet);
+            }
+        } finally {
+            onDone.run();
+        }
+    }
+
+    public int getSourceCount() {
+        return sources.length;
+    }
+
+    public long getMerged() {
+        return merged;
+    }
+
+    // Packets handed on after a newer one, because they came later than the reorder window
+    public long getLate() {
+        return late;
+    }
+
+    public int getQueued() {
+        int queued = 0;
+        for (PacketRingBuffer<CapturedPacket> source : sources) {
+            queued += source.size();
+        }
+        return queued;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer with a single producer (the capture thread) and any
+ * number of consumers. Every slot carries a sequence number: the producer may fill a
+ * slot once its sequence equals the write position, a consumer may take it once the
+ * sequence is one past the read position. No locks and no allocation per element.
+ */
+public class PacketRingBuffer<E> {
+
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();  // next slot to read, shared by consumers
+    private final AtomicLong tail = new AtomicLong();  // next slot to write, owned by the producer
+
+    public PacketRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;  // round up to a power of two
+        buffer = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    // Producer only. Returns false when the ring is full.
+    public boolean offer(E element) {
+        long position = tail.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position) {
+            return false;
+        }
+        buffer[index] = element;
+        sequences.lazySet(index, position + 1);
+        tail.lazySet(position + 1);
+        return true;
+    }
+
+    // Safe from any thread. Returns null when the ring is empty.
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.lazySet(index, position + buffer.length);
+                    return element;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+            // Another consumer took this slot first, retry with the new head
+        }
+    }
+
+    // Polls up to max elements into the consumer, returns how many were taken
+    public int drain(Consumer<? super E> consumer, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            consumer.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, buffer.length));
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+import org.pcap4j.packet.Packet;
+
+// Result of the decode stage: everything the table and the graph need for one packet
+public class PacketSummary {
+    final long sequence;
+    final long timestampMicros;
+    int interfaceId;           // see CapturedPacket
+    final int length;          // on the wire
+    final byte[] rawData;      // as captured, goes to the FrameArena
+    final Packet packet;       // eager mode only
+    long frameOffset = -1;     // already stored in the FrameSource (offline file)
+    String protocol = "Unknown";
+    int protocolId = CaptureStore.PROTO_UNKNOWN;
+    int ipProtocol = -1;
+    // Packed addresses for the CaptureStore, see IpAddresses; 0/0 when unknown
+    long sourceHigh;
+    long sourceLow;
+    long destHigh;
+    long destLow;
+    // AddressDictionary ids, assigned by the decode shard when the engine keeps a dictionary
+    int sourceId;
+    int destId;
+    int sourcePort = -1;
+    int destPort = -1;
+    int tcpFlags;
+    int payloadOffset = -1;    // of the TCP/UDP payload in rawData, first fragments only
+    int payloadLength;         // on the wire; rawData may end earlier when the snapshot length cut it
+    long tcpSequence;
+    long tcpAck;
+    int tcpWindow = -1;        // as sent, not scaled; -1 when not captured
+
+    PacketSummary(long sequence, long timestampMicros, int length, byte[] rawData, Packet packet) {
+        this.sequence = sequence;
+        this.timestampMicros = timestampMicros;
+        this.length = length;
+        this.rawData = rawData;
+        this.packet = packet;
+    }
+
+    boolean hasAddresses() {
+        return (sourceHigh != 0 || sourceLow != 0) && (destHigh != 0 || destLow != 0);
+    }
+}
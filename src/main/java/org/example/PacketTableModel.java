@@ -0,0 +1,137 @@
+package org.example;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Virtual table model over a CaptureStore: JTable only asks for the rows it paints. With
+ * a display filter the table shows a view, the store rows that match in order; setting a
+ * filter evaluates it once over the store's indexes, rows appended afterwards are tested
+ * one by one. Nothing is ever dropped from the store, so any filter can be changed back.
+ */
+public class PacketTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {"No.", "Length", "Source", "Destination", "Protocol", "Interface"};
+
+    private final CaptureStore store;
+    private int rowCount;  // rows announced to listeners so far
+    private DisplayFilter filter;
+    private int[] view = new int[0];  // store rows shown, while filtered
+    private int filteredUpTo;         // store rows already tested against the filter
+    private String[] interfaceNames = new String[0];
+
+    public PacketTableModel(CaptureStore store) {
+        this.store = store;
+    }
+
+    // Announces rows appended to the store since the last call, with a single event
+    public void rowsAppended() {
+        int newCount;
+        if (filter == null) {
+            newCount = store.size();
+        } else {
+            newCount = rowCount;
+            for (int row = filteredUpTo; row < store.size(); row++) {
+                if (filter.matches(store, row)) {
+                    if (newCount == view.length) {
+                        view = Arrays.copyOf(view, Math.max(16, newCount * 2));
+                    }
+                    view[newCount++] = row;
+                }
+            }
+            filteredUpTo = store.size();
+        }
+        if (newCount > rowCount) {
+            int first = rowCount;
+            rowCount = newCount;
+            fireTableRowsInserted(first, newCount - 1);
+        }
+    }
+
+    public void cleared() {
+        rowCount = 0;
+        filteredUpTo = 0;
+        fireTableDataChanged();
+        rowsAppended();
+    }
+
+    // Shows only the rows matching the filter (all rows for null); returns how many match
+    public int setFilter(DisplayFilter filter) {
+        this.filter = filter;
+        if (filter == null) {
+            view = new int[0];
+            rowCount = store.size();
+        } else {
+            int rows = store.size();
+            long[] matches = filter.evaluate(store);
+            int count = 0;
+            for (long word : matches) {
+                count += Long.bitCount(word);
+            }
+            view = new int[Math.max(16, count)];
+            int next = 0;
+            for (int i = 0; i < matches.length; i++) {
+                for (long word = matches[i]; word != 0; word &= word - 1) {
+                    view[next++] = i * 64 + Long.numberOfTrailingZeros(word);
+                }
+            }
+            rowCount = count;
+            filteredUpTo = rows;
+        }
+        fireTableDataChanged();
+        return rowCount;
+    }
+
+    // Names for the interface ids of the capture; rows of a replayed file show none
+    public void setInterfaceNames(String[] interfaceNames) {
+        this.interfaceNames = interfaceNames;
+        fireTableDataChanged();
+    }
+
+    public DisplayFilter getFilter() {
+        return filter;
+    }
+
+    // The CaptureStore row shown at a table row
+    public int toStoreIndex(int row) {
+        return filter == null ? row : view[row];
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column <= 1 ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int index = toStoreIndex(row);
+        switch (column) {
+            case 0: return index + 1;
+            case 1: return store.getLength(index);
+            case 2: return store.getSourceAddress(index);
+            case 3: return store.getDestAddress(index);
+            case 4: return CaptureStore.protocolName(store.getProtocol(index));
+            case 5: return interfaceName(store.getInterface(index));
+            default: return null;
+        }
+    }
+
+    private String interfaceName(int interfaceId) {
+        return interfaceId < interfaceNames.length ? interfaceNames[interfaceId] : "";
+    }
+}
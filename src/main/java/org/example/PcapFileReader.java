@@ -0,0 +1,236 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Random-access reader for classic libpcap files. The file is memory-mapped in 1 GB
+ * windows (overlapping by the largest possible record, so no record straddles two
+ * windows), and the start of every record header is kept in an offset index. The index
+ * is built in a single sequential pass and saved next to the capture as
+ * {@code <file>.idx}, so reopening the same file skips the scan entirely.
+ */
+public class PcapFileReader implements Closeable, FrameSource {
+
+    private static final int MAGIC_MICROS = 0xA1B2C3D4;
+    private static final int MAGIC_NANOS = 0xA1B23C4D;
+    private static final int GLOBAL_HEADER_LENGTH = 24;
+    private static final int RECORD_HEADER_LENGTH = 16;
+    private static final int MAX_RECORD_LENGTH = 256 * 1024;
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private static final long INDEX_MAGIC = 0x4E50412D49445831L;  // "NPA-IDX1"
+    private static final int INDEX_HEADER_LENGTH = 32;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final MappedByteBuffer[] windows;
+    private final ByteOrder byteOrder;
+    private final boolean nanosecondTimestamps;
+    private final int linkType;
+    private final int snapshotLength;
+    private long[] recordOffsets;
+    private int recordCount;
+    private boolean indexLoaded;
+
+    public PcapFileReader(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.fileSize = channel.size();
+            if (fileSize < GLOBAL_HEADER_LENGTH) {
+                throw new IOException("Not a pcap file (too short): " + path);
+            }
+            int windowCount = (int) ((fileSize + WINDOW_SIZE - 1) / WINDOW_SIZE);
+            windows = new MappedByteBuffer[windowCount];
+            for (int i = 0; i < windowCount; i++) {
+                long start = i * WINDOW_SIZE;
+                long length = Math.min(WINDOW_SIZE + MAX_RECORD_LENGTH, fileSize - start);
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+
+            ByteBuffer header = windows[0].duplicate().order(ByteOrder.BIG_ENDIAN);
+            int magic = header.getInt(0);
+            if (magic == MAGIC_MICROS || magic == MAGIC_NANOS) {
+                byteOrder = ByteOrder.BIG_ENDIAN;
+            } else if (Integer.reverseBytes(magic) == MAGIC_MICROS || Integer.reverseBytes(magic) == MAGIC_NANOS) {
+                byteOrder = ByteOrder.LITTLE_ENDIAN;
+                magic = Integer.reverseBytes(magic);
+            } else {
+                throw new IOException(String.format("Not a pcap file (magic 0x%08x): %s", magic, path));
+            }
+            nanosecondTimestamps = magic == MAGIC_NANOS;
+            header.order(byteOrder);
+            snapshotLength = header.getInt(16);
+            linkType = header.getInt(20) & 0x0FFFFFFF;  // upper bits carry the FCS length
+
+            if (!loadIndex()) {
+                buildIndex();
+                saveIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Path indexPath() {
+        return path.resolveSibling(path.getFileName() + ".idx");
+    }
+
+    // One sequential pass over the record headers
+    private void buildIndex() {
+        long[] offsets = new long[1024];
+        int count = 0;
+        long offset = GLOBAL_HEADER_LENGTH;
+        while (offset + RECORD_HEADER_LENGTH <= fileSize) {
+            int capturedLength = readInt(offset + 8);
+            if (capturedLength < 0 || capturedLength > MAX_RECORD_LENGTH
+                    || offset + RECORD_HEADER_LENGTH + capturedLength > fileSize) {
+                break;  // truncated or corrupt tail
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+            offset += RECORD_HEADER_LENGTH + capturedLength;
+        }
+        recordOffsets = offsets;
+        recordCount = count;
+    }
+
+    private boolean loadIndex() {
+        Path indexFile = indexPath();
+        if (!Files.isRegularFile(indexFile)) {
+            return false;
+        }
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_LENGTH);
+            index.read(header, 0);
+            header.flip();
+            if (header.remaining() < INDEX_HEADER_LENGTH || header.getLong() != INDEX_MAGIC
+                    || header.getLong() != fileSize
+                    || header.getLong() != Files.getLastModifiedTime(path).toMillis()) {
+                return false;  // stale or foreign index, rebuild
+            }
+            int count = (int) header.getLong();
+            if (index.size() != INDEX_HEADER_LENGTH + count * 8L) {
+                return false;
+            }
+            MappedByteBuffer body = index.map(FileChannel.MapMode.READ_ONLY, INDEX_HEADER_LENGTH, count * 8L);
+            long[] offsets = new long[Math.max(1, count)];
+            body.asLongBuffer().get(offsets, 0, count);
+            recordOffsets = offsets;
+            recordCount = count;
+            indexLoaded = true;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void saveIndex() {
+        Path indexFile = indexPath();
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putLong(INDEX_MAGIC);
+            buffer.putLong(fileSize);
+            buffer.putLong(Files.getLastModifiedTime(path).toMillis());
+            buffer.putLong(recordCount);
+            for (int i = 0; i < recordCount; i++) {
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        index.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.putLong(recordOffsets[i]);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                index.write(buffer);
+            }
+        } catch (IOException e) {
+            // Read-only directory and the like: the index simply gets rebuilt next time
+            System.err.println("Could not save pcap index " + indexFile + ": " + e.getMessage());
+        }
+    }
+
+    public int getPacketCount() {
+        return recordCount;
+    }
+
+    public int getLinkType() {
+        return linkType;
+    }
+
+    public int getSnapshotLength() {
+        return snapshotLength;
+    }
+
+    public boolean isIndexLoaded() {
+        return indexLoaded;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getRecordOffset(int packet) {
+        return recordOffsets[packet];
+    }
+
+    // Offset of the frame bytes of packet N, usable as a FrameSource location
+    public long getFrameOffset(int packet) {
+        return recordOffsets[packet] + RECORD_HEADER_LENGTH;
+    }
+
+    public long getTimestampMicros(int packet) {
+        long offset = recordOffsets[packet];
+        long seconds = readInt(offset) & 0xFFFFFFFFL;
+        long fraction = readInt(offset + 4) & 0xFFFFFFFFL;
+        return seconds * 1_000_000L + (nanosecondTimestamps ? fraction / 1000 : fraction);
+    }
+
+    public int getCapturedLength(int packet) {
+        return readInt(recordOffsets[packet] + 8);
+    }
+
+    public int getOriginalLength(int packet) {
+        return readInt(recordOffsets[packet] + 12);
+    }
+
+    public byte[] readPacket(int packet) {
+        return readFrame(getFrameOffset(packet), getCapturedLength(packet));
+    }
+
+    @Override
+    public byte[] readFrame(long location, int capturedLength) {
+        byte[] frame = new byte[capturedLength];
+        ByteBuffer window = windows[(int) (location / WINDOW_SIZE)].duplicate();
+        window.position((int) (location % WINDOW_SIZE));
+        window.get(frame);
+        return frame;
+    }
+
+    private int readInt(long offset) {
+        int value = windows[(int) (offset / WINDOW_SIZE)].getInt((int) (offset % WINDOW_SIZE));
+        return byteOrder == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,542 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Writes captured frames to pcap files on its own thread. The capture thread only
+ * offers the frame to a ring buffer; the writer packs records into a large direct
+ * buffer and hands it to a FileChannel in one call. When the ring is full the frame
+ * is counted as a writer drop instead of stalling capture.
+ *
+ * Files can rotate by size and/or age over a ring of N files (name_0.pcap ...
+ * name_{N-1}.pcap); without rotation everything goes to the configured file. Opened
+ * in append mode, an existing file with a matching header is continued rather than
+ * truncated, and a rotating ring continues in the file written last. A file that cannot
+ * be continued (another format, timestamp resolution or link type) is left alone and
+ * the writer refuses to open.
+ *
+ * Several interfaces, or an output file named *.pcapng, are written as pcapng instead:
+ * a section header, one Interface Description Block per interface (link type, snapshot
+ * length, name), an Enhanced Packet Block per frame tagged with its interface, and
+ * Interface Statistics Blocks with each interface's drop counters before a file is closed.
+ */
+public class PcapFileWriter implements Closeable {
+
+    private static final int MAGIC_MICROS = 0xA1B2C3D4;
+    private static final int GLOBAL_HEADER_LENGTH = 24;
+    private static final int RECORD_HEADER_LENGTH = 16;
+
+    private static final int PCAPNG_SECTION_HEADER = 0x0A0D0D0A;
+    private static final int PCAPNG_INTERFACE_DESCRIPTION = 1;
+    private static final int PCAPNG_INTERFACE_STATISTICS = 5;
+    private static final int PCAPNG_ENHANCED_PACKET = 6;
+    private static final int PCAPNG_BYTE_ORDER_MAGIC = 0x1A2B3C4D;
+    private static final int PCAPNG_SECTION_HEADER_LENGTH = 28;
+    private static final int PCAPNG_PACKET_OVERHEAD = 32;  // block header, interface, timestamp, lengths, trailer
+    private static final long IDLE_FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final Path baseFile;
+    private final int[] linkTypes;         // per interface id
+    private final String[] interfaceNames; // per interface id, may be null
+    private final boolean pcapng;
+    private final int snapshotLength;
+    private final long rotateBytes;
+    private final long rotateNanos;
+    private final int rotateFiles;
+    private final PacketRingBuffer<CapturedPacket> queue;
+    private final ByteBuffer buffer;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Writer thread state
+    private FileChannel channel;
+    private ByteOrder fileOrder = ByteOrder.nativeOrder();
+    private int fileIndex;
+    private long fileBytes;
+    private long headerBytes;  // of the current file, before the first record
+    private long fileOpenedNanos;
+    private long lastWriteNanos;
+    private long rateSampleNanos;
+    private long rateSampleBytes;
+    private IOException failure;
+
+    // Published counters
+    private volatile Path currentFile;
+    private volatile long enqueued;         // capture thread only
+    private volatile long dropped;          // capture thread only
+    private volatile long packetsWritten;
+    private volatile long packetsFlushed;   // packetsWritten as of the last forced flush
+    private volatile long bytesWritten;
+    private volatile long filesRotated;
+    private volatile double bytesPerSecond;
+    private volatile boolean flushRequested;
+    private volatile IntFunction<CaptureStats> statistics;
+
+    public PcapFileWriter(CaptureConfig config, int linkType, boolean append) throws IOException {
+        this(config, new int[] {linkType}, null, append);
+    }
+
+    // One link type (and name, for pcapng) per interface id the packets are tagged with
+    public PcapFileWriter(CaptureConfig config, int[] linkTypes, String[] interfaceNames, boolean append) throws IOException {
+        this.baseFile = Paths.get(config.getOutputFile());
+        this.linkTypes = linkTypes.clone();
+        this.interfaceNames = interfaceNames;
+        this.pcapng = linkTypes.length > 1 || baseFile.getFileName().toString().toLowerCase().endsWith(".pcapng");
+        this.snapshotLength = config.getSnapshotLength();
+        this.rotateBytes = config.getRotateBytes();
+        this.rotateNanos = TimeUnit.SECONDS.toNanos(config.getRotateSeconds());
+        this.rotateFiles = Math.max(1, config.getRotateFiles());
+        this.queue = new PacketRingBuffer<>(config.getWriterQueueCapacity());
+        this.buffer = ByteBuffer.allocateDirect(config.getWriterBufferSize());
+
+        if (append && isRotating()) {
+            fileIndex = newestRingFile();
+        }
+        openFile(append);
+        writerThread = new Thread(this::writeLoop, "pcap-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    private boolean isRotating() {
+        return rotateBytes > 0 || rotateNanos > 0;
+    }
+
+    private Path fileFor(int index) {
+        if (!isRotating()) {
+            return baseFile;
+        }
+        String name = baseFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : pcapng ? ".pcapng" : ".pcap";
+        return baseFile.resolveSibling(stem + "_" + index + extension);
+    }
+
+    // The ring file modified last, where the previous writer stopped; 0 if none exists yet
+    private int newestRingFile() throws IOException {
+        int newest = 0;
+        long newestNanos = Long.MIN_VALUE;
+        for (int i = 0; i < rotateFiles; i++) {
+            try {
+                long modified = Files.getLastModifiedTime(fileFor(i)).to(TimeUnit.NANOSECONDS);
+                if (modified > newestNanos) {
+                    newest = i;
+                    newestNanos = modified;
+                }
+            } catch (NoSuchFileException e) {
+                // not reached by the previous rotation
+            }
+        }
+        return newest;
+    }
+
+    private void openFile(boolean append) throws IOException {
+        Path file = fileFor(fileIndex);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (append && channel.size() > 0) {
+            if (!(pcapng ? hasMatchingSection(channel) : hasMatchingHeader(channel))) {
+                channel.close();
+                throw new IOException("Cannot append to " + file + ": not a " + (pcapng ? "pcapng file with the same interfaces"
+                    : "microsecond pcap file with link type " + linkTypes[0]) + "; choose another output file");
+            }
+            channel.position(channel.size());
+            fileBytes = channel.size();
+            headerBytes = 0;
+        } else {
+            channel.truncate(0);
+            fileOrder = ByteOrder.nativeOrder();
+            ByteBuffer header = pcapng ? sectionHeader() : globalHeader();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            fileBytes = header.limit();
+            headerBytes = fileBytes;
+        }
+        buffer.order(fileOrder);
+        fileOpenedNanos = System.nanoTime();
+        currentFile = file;
+    }
+
+    private ByteBuffer globalHeader() {
+        ByteBuffer header = ByteBuffer.allocate(GLOBAL_HEADER_LENGTH).order(fileOrder);
+        header.putInt(MAGIC_MICROS);
+        header.putShort((short) 2);
+        header.putShort((short) 4);
+        header.putInt(0);               // thiszone
+        header.putInt(0);               // sigfigs
+        header.putInt(snapshotLength);
+        header.putInt(linkTypes[0]);
+        header.flip();
+        return header;
+    }
+
+    // Section header plus one interface description per interface; timestamps keep the default microseconds
+    private ByteBuffer sectionHeader() {
+        int length = PCAPNG_SECTION_HEADER_LENGTH;
+        byte[][] names = new byte[linkTypes.length][];
+        for (int i = 0; i < linkTypes.length; i++) {
+            String name = interfaceNames != null && i < interfaceNames.length ? interfaceNames[i] : null;
+            names[i] = name != null ? name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            length += interfaceDescriptionLength(names[i].length);
+        }
+        ByteBuffer header = ByteBuffer.allocate(length).order(fileOrder);
+        header.putInt(PCAPNG_SECTION_HEADER);
+        header.putInt(PCAPNG_SECTION_HEADER_LENGTH);
+        header.putInt(PCAPNG_BYTE_ORDER_MAGIC);
+        header.putShort((short) 1);
+        header.putShort((short) 0);
+        header.putLong(-1);             // section length not known
+        header.putInt(PCAPNG_SECTION_HEADER_LENGTH);
+        for (int i = 0; i < linkTypes.length; i++) {
+            int blockLength = interfaceDescriptionLength(names[i].length);
+            header.putInt(PCAPNG_INTERFACE_DESCRIPTION);
+            header.putInt(blockLength);
+            header.putShort((short) linkTypes[i]);
+            header.putShort((short) 0);
+            header.putInt(snapshotLength);
+            if (names[i].length > 0) {
+                header.putShort((short) 2);  // if_name
+                header.putShort((short) names[i].length);
+                header.put(names[i]);
+                header.position(header.position() + padding(names[i].length));
+                header.putInt(0);            // opt_endofopt
+            }
+            header.putInt(blockLength);
+        }
+        header.flip();
+        return header;
+    }
+
+    private static int interfaceDescriptionLength(int nameLength) {
+        return 20 + (nameLength > 0 ? 4 + nameLength + padding(nameLength) + 4 : 0);
+    }
+
+    // Bytes to the next 32-bit boundary
+    private static int padding(int length) {
+        return -length & 3;
+    }
+
+    // Appending is only safe onto a microsecond pcap with the same link type
+    private boolean hasMatchingHeader(FileChannel file) throws IOException {
+        if (file.size() < GLOBAL_HEADER_LENGTH) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(GLOBAL_HEADER_LENGTH);
+        file.read(header, 0);
+        header.flip();
+        int magic = header.getInt(0);
+        if (magic == MAGIC_MICROS) {
+            fileOrder = ByteOrder.BIG_ENDIAN;
+        } else if (Integer.reverseBytes(magic) == MAGIC_MICROS) {
+            fileOrder = ByteOrder.LITTLE_ENDIAN;
+        } else {
+            return false;
+        }
+        header.order(fileOrder);
+        return header.getInt(20) == linkTypes[0];
+    }
+
+    // Appending onto pcapng needs the same interfaces, in the same order, right after the section header
+    private boolean hasMatchingSection(FileChannel file) throws IOException {
+        if (file.size() < PCAPNG_SECTION_HEADER_LENGTH) {
+            return false;
+        }
+        ByteBuffer block = ByteBuffer.allocate(16);
+        file.read(block, 0);
+        if (block.getInt(0) != PCAPNG_SECTION_HEADER) {
+            return false;
+        }
+        int magic = block.getInt(8);
+        if (magic == PCAPNG_BYTE_ORDER_MAGIC) {
+            fileOrder = ByteOrder.BIG_ENDIAN;
+        } else if (Integer.reverseBytes(magic) == PCAPNG_BYTE_ORDER_MAGIC) {
+            fileOrder = ByteOrder.LITTLE_ENDIAN;
+        } else {
+            return false;
+        }
+        block.order(fileOrder);
+        long position = block.getInt(4) & 0xFFFFFFFFL;
+        int interfaces = 0;
+        while (position + 16 <= file.size()) {
+            block.clear();
+            file.read(block, position);
+            if (block.getInt(0) != PCAPNG_INTERFACE_DESCRIPTION) {
+                break;
+            }
+            if (interfaces >= linkTypes.length || (block.getShort(8) & 0xFFFF) != linkTypes[interfaces]) {
+                return false;
+            }
+            interfaces++;
+            position += block.getInt(4) & 0xFFFFFFFFL;
+        }
+        return interfaces == linkTypes.length;
+    }
+
+    /**
+     * Counters written as an Interface Statistics Block per interface before a pcapng
+     * file is closed or rotated: received, delivered, and the kernel and interface drops.
+     * Called on the writer thread with the interface id.
+     */
+    public void setStatistics(IntFunction<CaptureStats> statistics) {
+        this.statistics = statistics;
+    }
+
+    public boolean isPcapng() {
+        return pcapng;
+    }
+
+    // Capture thread only
+    public boolean write(CapturedPacket packet) {
+        if (!running) {
+            return false;
+        }
+        enqueued++;
+        if (!queue.offer(packet)) {
+            dropped++;
+            return false;
+        }
+        return true;
+    }
+
+    // File replays must not lose packets: waits for room in the queue instead of dropping
+    public boolean writeBlocking(CapturedPacket packet) {
+        while (running && writerThread.isAlive()) {
+            if (queue.offer(packet)) {
+                enqueued++;
+                return true;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return false;
+    }
+
+    private void writeLoop() {
+        lastWriteNanos = System.nanoTime();
+        rateSampleNanos = lastWriteNanos;
+        while (running || !queue.isEmpty()) {
+            CapturedPacket packet = queue.poll();
+            long now = System.nanoTime();
+            try {
+                if (packet == null) {
+                    if (buffer.position() > 0 && (flushRequested || now - lastWriteNanos > IDLE_FLUSH_NANOS)) {
+                        flushBuffer(flushRequested);
+                    } else if (flushRequested) {
+                        channel.force(false);
+                        packetsFlushed = packetsWritten;
+                        flushRequested = false;
+                    }
+                    sampleRate(now);
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                sampleRate(now);
+                int recordLength = recordLength(packet);
+                if (needsRotation(recordLength, now)) {
+                    rotate();
+                }
+                if (buffer.remaining() < recordLength) {
+                    flushBuffer(false);
+                }
+                if (recordLength > buffer.capacity()) {
+                    writeOversized(packet, recordLength);
+                } else {
+                    appendRecord(buffer, packet);
+                }
+                packetsWritten++;
+            } catch (IOException e) {
+                failure = e;
+                System.err.println("Pcap writer stopped: " + e.getMessage());
+                running = false;
+                break;
+            }
+        }
+        try {
+            writeStatistics();
+            flushBuffer(true);
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private int recordLength(CapturedPacket packet) {
+        int length = packet.rawData.length;
+        return pcapng ? PCAPNG_PACKET_OVERHEAD + length + padding(length) : RECORD_HEADER_LENGTH + length;
+    }
+
+    // A record larger than the whole buffer goes to the channel from a buffer of its own
+    private void writeOversized(CapturedPacket packet, int recordLength) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(recordLength).order(fileOrder);
+        appendRecord(record, packet);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        bytesWritten += recordLength;
+        lastWriteNanos = System.nanoTime();
+    }
+
+    private void appendRecord(ByteBuffer buffer, CapturedPacket packet) {
+        int recordLength = recordLength(packet);
+        if (pcapng) {
+            buffer.putInt(PCAPNG_ENHANCED_PACKET);
+            buffer.putInt(recordLength);
+            buffer.putInt(packet.interfaceId);
+            buffer.putInt((int) (packet.timestampMicros >>> 32));
+            buffer.putInt((int) packet.timestampMicros);
+            buffer.putInt(packet.rawData.length);
+            buffer.putInt(packet.originalLength);
+            buffer.put(packet.rawData);
+            for (int i = padding(packet.rawData.length); i > 0; i--) {
+                buffer.put((byte) 0);
+            }
+            buffer.putInt(recordLength);
+        } else {
+            buffer.putInt((int) (packet.timestampMicros / 1_000_000L));
+            buffer.putInt((int) (packet.timestampMicros % 1_000_000L));
+            buffer.putInt(packet.rawData.length);
+            buffer.putInt(packet.originalLength);
+            buffer.put(packet.rawData);
+        }
+        fileBytes += recordLength;
+    }
+
+    // Interface Statistics Blocks with the counters so far; pcapng only
+    private void writeStatistics() throws IOException {
+        IntFunction<CaptureStats> source = statistics;
+        if (!pcapng || source == null) {
+            return;
+        }
+        long now = System.currentTimeMillis() * 1000;
+        int blockLength = 20 + 4 * 12 + 4 + 4;
+        for (int id = 0; id < linkTypes.length; id++) {
+            CaptureStats stats = source.apply(id);
+            if (stats == null) {
+                continue;
+            }
+            if (buffer.remaining() < blockLength) {
+                flushBuffer(false);
+            }
+            buffer.putInt(PCAPNG_INTERFACE_STATISTICS);
+            buffer.putInt(blockLength);
+            buffer.putInt(id);
+            buffer.putInt((int) (now >>> 32));
+            buffer.putInt((int) now);
+            putCounter(4, stats.getPacketsReceived());     // isb_ifrecv
+            putCounter(5, stats.getDroppedByInterface());  // isb_ifdrop
+            putCounter(7, stats.getDroppedByKernel());     // isb_osdrop
+            putCounter(8, stats.getPacketsDelivered());    // isb_usrdeliv
+            buffer.putInt(0);                              // opt_endofopt
+            buffer.putInt(blockLength);
+            fileBytes += blockLength;
+        }
+    }
+
+    private void putCounter(int option, long value) {
+        buffer.putShort((short) option);
+        buffer.putShort((short) 8);
+        buffer.putLong(value);
+    }
+
+    private boolean needsRotation(int recordLength, long now) {
+        if (rotateBytes > 0 && fileBytes + recordLength > rotateBytes && fileBytes > headerBytes) {
+            return true;
+        }
+        return rotateNanos > 0 && now - fileOpenedNanos >= rotateNanos;
+    }
+
+    private void rotate() throws IOException {
+        writeStatistics();
+        flushBuffer(false);
+        channel.close();
+        fileIndex = (fileIndex + 1) % rotateFiles;
+        openFile(false);
+        filesRotated++;
+    }
+
+    private void flushBuffer(boolean force) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        if (force) {
+            channel.force(false);
+            packetsFlushed = packetsWritten;
+            flushRequested = false;
+        }
+        bytesWritten += written;
+        lastWriteNanos = System.nanoTime();
+    }
+
+    private void sampleRate(long now) {
+        long elapsed = now - rateSampleNanos;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+            bytesPerSecond = (bytesWritten - rateSampleBytes) * 1e9 / elapsed;
+            rateSampleBytes = bytesWritten;
+            rateSampleNanos = now;
+        }
+    }
+
+    // Blocks until everything queued so far is on disk, or the timeout expires
+    public boolean flush(long timeoutMillis) throws IOException {
+        long target = enqueued - dropped;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        flushRequested = true;
+        while (packetsFlushed < target && writerThread.isAlive()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            if (!flushRequested) {
+                flushRequested = true;  // served before our packets reached the buffer, ask again
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return true;
+    }
+
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+
+    public WriterStats getStats() {
+        return new WriterStats(currentFile, queue.size(), enqueued, dropped, packetsWritten,
+            bytesWritten, bytesPerSecond, filesRotated);
+    }
+
+    // Drains the queue and closes the file
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+// Snapshot of the queue depths and per-stage counters of a CapturePipeline
+public class PipelineStats {
+
+    public static final PipelineStats EMPTY = new PipelineStats(0, 0, 0, 0, 0, 0, 0, 0,
+        new long[0], new long[0], new int[0]);
+
+    private final int ringDepth;
+    private final int publishQueueDepth;
+    private final long captured;
+    private final long droppedAtCapture;   // ring full (DROP_NEWEST / DROP_OLDEST)
+    private final long decoded;
+    private final long droppedAtDecode;    // decode errors, publish queue full or frame rejected by the sink executor
+    private final long published;
+    private final long frames;
+    // Per decode shard, to spot skew in the flow hash distribution
+    private final long[] shardPackets;
+    private final long[] shardDrops;
+    private final int[] shardDepths;
+
+    PipelineStats(int ringDepth, int publishQueueDepth, long captured, long droppedAtCapture,
+                  long decoded, long droppedAtDecode, long published, long frames,
+                  long[] shardPackets, long[] shardDrops, int[] shardDepths) {
+        this.ringDepth = ringDepth;
+        this.publishQueueDepth = publishQueueDepth;
+        this.captured = captured;
+        this.droppedAtCapture = droppedAtCapture;
+        this.decoded = decoded;
+        this.droppedAtDecode = droppedAtDecode;
+        this.published = published;
+        this.frames = frames;
+        this.shardPackets = shardPackets;
+        this.shardDrops = shardDrops;
+        this.shardDepths = shardDepths;
+    }
+
+    public int getRingDepth() {
+        return ringDepth;
+    }
+
+    public int getPublishQueueDepth() {
+        return publishQueueDepth;
+    }
+
+    public long getCaptured() {
+        return captured;
+    }
+
+    public long getDroppedAtCapture() {
+        return droppedAtCapture;
+    }
+
+    public long getDecoded() {
+        return decoded;
+    }
+
+    public long getDroppedAtDecode() {
+        return droppedAtDecode;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public int getShardCount() {
+        return shardPackets.length;
+    }
+
+    public long getShardPackets(int shard) {
+        return shardPackets[shard];
+    }
+
+    public long getShardDrops(int shard) {
+        return shardDrops[shard];
+    }
+
+    public int getShardDepth(int shard) {
+        return shardDepths[shard];
+    }
+
+    // Busiest shard relative to a perfectly even split; 1.0 means no skew
+    public double getShardSkew() {
+        long max = 0;
+        long total = 0;
+        for (long packets : shardPackets) {
+            max = Math.max(max, packets);
+            total += packets;
+        }
+        return total == 0 ? 1.0 : (double) max * shardPackets.length / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Ring depth: %d | Publish queue: %d | Captured: %d | Capture drops: %d | Decoded: %d | Decode drops: %d | Published: %d in %d frames | Shards: %d (skew %.2f)",
+            ringDepth, publishQueueDepth, captured, droppedAtCapture, decoded, droppedAtDecode, published, frames,
+            getShardCount(), getShardSkew());
+    }
+}
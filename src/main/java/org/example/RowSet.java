@@ -0,0 +1,150 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of CaptureStore row indexes, filled in increasing order as rows are
+ * appended. Rows are split into chunks of 65536 like the store's columns; a chunk holds
+ * its rows as a sorted char array while sparse (2 bytes a row) and switches to a
+ * 1024-word bitmap once that is smaller, as Roaring bitmaps do. Like Roaring, only chunks
+ * with rows get a container, found through a sorted key array, so a set first used late
+ * in a large capture costs nothing for the chunks before. Queries OR a set into a flat
+ * bitmap over all rows, which is what the display filter combines.
+ */
+public class RowSet {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int BITMAP_WORDS = CHUNK_SIZE / 64;
+    private static final int ARRAY_LIMIT = 4096;  // beyond this a bitmap takes less than the array
+
+    // Per container, in chunk order; capacity grows by doubling
+    private int[] keys = new int[1];             // chunk numbers, ascending
+    private char[][] arrays = new char[1][];     // sorted low bits, or null once dense
+    private int[] arraySizes = new int[1];
+    private long[][] bitmaps = new long[1][];    // bitmap once dense, or null
+    private int containers;
+    private int size;
+
+    // Rows must come in increasing order
+    public void add(int row) {
+        int chunk = row >>> CHUNK_BITS;
+        int last = containers - 1;
+        if (last < 0 || keys[last] != chunk) {
+            last = addContainer(chunk);
+        }
+        char low = (char) row;
+        long[] bitmap = bitmaps[last];
+        if (bitmap != null) {
+            bitmap[low >>> 6] |= 1L << low;
+        } else {
+            char[] array = arrays[last];
+            int count = arraySizes[last];
+            if (count == array.length) {
+                if (count == ARRAY_LIMIT) {
+                    toBitmap(last);
+                    bitmaps[last][low >>> 6] |= 1L << low;
+                    size++;
+                    return;
+                }
+                array = Arrays.copyOf(array, Math.min(count * 2, ARRAY_LIMIT));
+                arrays[last] = array;
+            }
+            array[count] = low;
+            arraySizes[last] = count + 1;
+        }
+        size++;
+    }
+
+    // Appends the container of a chunk after all others, which the row order guarantees
+    private int addContainer(int chunk) {
+        if (containers == keys.length) {
+            int capacity = containers * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            arrays = Arrays.copyOf(arrays, capacity);
+            arraySizes = Arrays.copyOf(arraySizes, capacity);
+            bitmaps = Arrays.copyOf(bitmaps, capacity);
+        }
+        int container = containers++;
+        keys[container] = chunk;
+        arrays[container] = new char[4];
+        return container;
+    }
+
+    private void toBitmap(int container) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        char[] array = arrays[container];
+        for (int i = 0; i < arraySizes[container]; i++) {
+            bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        bitmaps[container] = bitmap;
+        arrays[container] = null;
+        arraySizes[container] = 0;
+    }
+
+    public boolean contains(int row) {
+        int container = Arrays.binarySearch(keys, 0, containers, row >>> CHUNK_BITS);
+        if (container < 0) {
+            return false;
+        }
+        char low = (char) row;
+        if (bitmaps[container] != null) {
+            return (bitmaps[container][low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(arrays[container], 0, arraySizes[container], low) >= 0;
+    }
+
+    // Sets the bits of every row in the set; words covers all rows of the store
+    public void orInto(long[] words) {
+        for (int container = 0; container < containers; container++) {
+            int base = keys[container] * BITMAP_WORDS;
+            long[] bitmap = bitmaps[container];
+            if (bitmap != null) {
+                int end = Math.min(BITMAP_WORDS, words.length - base);
+                for (int i = 0; i < end; i++) {
+                    words[base + i] |= bitmap[i];
+                }
+            } else {
+                char[] array = arrays[container];
+                for (int i = 0; i < arraySizes[container]; i++) {
+                    int word = base + (array[i] >>> 6);
+                    if (word < words.length) {
+                        words[word] |= 1L << array[i];
+                    }
+                }
+            }
+        }
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int container = 0; container < containers; container++) {
+            int base = keys[container] << CHUNK_BITS;
+            long[] bitmap = bitmaps[container];
+            if (bitmap != null) {
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    for (long word = bitmap[i]; word != 0; word &= word - 1) {
+                        action.accept(base + i * 64 + Long.numberOfTrailingZeros(word));
+                    }
+                }
+            } else {
+                char[] array = arrays[container];
+                for (int i = 0; i < arraySizes[container]; i++) {
+                    action.accept(base + array[i]);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getMemoryUsage() {
+        long bytes = keys.length * (4L + 8 + 4 + 8);
+        for (int container = 0; container < containers; container++) {
+            bytes += bitmaps[container] != null ? BITMAP_WORDS * 8L : arrays[container].length * 2L;
+        }
+        return bytes;
+    }
+}
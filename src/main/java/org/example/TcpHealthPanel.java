@@ -0,0 +1,115 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TCP health per server:port, in a tab next to the traffic graph: connections, handshake
+ * and RTT percentiles, retransmission rate, duplicate ACKs, out-of-order segments and
+ * zero-window events, from the engine's TcpMetricsTracker. Latencies are kept as
+ * microseconds so the columns sort by value, and formatted by the renderer.
+ */
+public class TcpHealthPanel extends JPanel {
+
+    private static final int LATENCY_COLUMN = 5;  // first of the four latency columns
+
+    private static final class ServerModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Server", "Conns", "Refused", "Unanswered", "Segments",
+            "SYN p50", "SYN p99", "RTT p50", "RTT p99", "Retr %", "Dup ACKs", "Out of order", "Zero win"};
+        private List<TcpServerRecord> servers = new ArrayList<>();
+
+        void update(List<TcpServerRecord> servers) {
+            this.servers = servers;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return servers.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : column == 9 ? Double.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            TcpServerRecord server = servers.get(row);
+            switch (column) {
+                case 0: return server.getLabel();
+                case 1: return server.getConnections();
+                case 2: return server.getRefused();
+                case 3: return server.getUnanswered();
+                case 4: return server.getSegments();
+                case 5: return server.getHandshake().getValueAtPercentile(50);
+                case 6: return server.getHandshake().getValueAtPercentile(99);
+                case 7: return server.getRtt().getValueAtPercentile(50);
+                case 8: return server.getRtt().getValueAtPercentile(99);
+                case 9: return 100 * server.getRetransmissionRate();
+                case 10: return server.getDuplicateAcks();
+                case 11: return server.getOutOfOrder();
+                default: return server.getZeroWindows();
+            }
+        }
+    }
+
+    private final ServerModel model = new ServerModel();
+    private final JLabel summaryLabel = new JLabel(" ");
+
+    public TcpHealthPanel() {
+        super(new BorderLayout());
+        JTable table = new JTable(model);
+        table.setAutoCreateRowSorter(true);
+        DefaultTableCellRenderer latencyRenderer = new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(value instanceof Long && (Long) value > 0 ? LatencyHistogram.format((Long) value) : "");
+            }
+        };
+        latencyRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int column = LATENCY_COLUMN; column < LATENCY_COLUMN + 4; column++) {
+            table.getColumnModel().getColumn(column).setCellRenderer(latencyRenderer);
+        }
+        DefaultTableCellRenderer rateRenderer = new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(value instanceof Double ? String.format("%.2f", (Double) value) : "");
+            }
+        };
+        rateRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        table.getColumnModel().getColumn(9).setCellRenderer(rateRenderer);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        add(summaryLabel, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    // Called by the graph's refresh timer while the tab is showing
+    public void update(TcpMetricsTracker tracker) {
+        LatencyHistogram handshake = tracker.getHandshake();
+        LatencyHistogram rtt = tracker.getRtt();
+        summaryLabel.setText(String.format("<html>%,d connections | handshake p50 %s, p99 %s | RTT p50 %s, p99 %s"
+                + "<br>%s</html>", tracker.getConnections(),
+            LatencyHistogram.format(handshake.getValueAtPercentile(50)),
+            LatencyHistogram.format(handshake.getValueAtPercentile(99)),
+            LatencyHistogram.format(rtt.getValueAtPercentile(50)),
+            LatencyHistogram.format(rtt.getValueAtPercentile(99)), tracker));
+        model.update(tracker.servers());
+    }
+}
@@ -0,0 +1,457 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TCP health analysis for one decode shard: handshake time, RTT, retransmissions,
+ * duplicate ACKs, out-of-order segments and zero-window events, computed from the
+ * headers as packets are decoded and added up per server address and port. Nothing of
+ * the payload is read.
+ *
+ * Each connection holds a few numbers per direction in a fixed-size open-addressing
+ * table: the next expected sequence number, the last ACK and window, and one timed
+ * segment for the RTT. Handshake time runs from the client's first SYN to the server's
+ * SYN+ACK; RTT from a client data segment to the server's ACK covering it, skipping
+ * segments that were sent again (Karn's rule). Both are measured at the capture point,
+ * so a capture near the clients sees the whole network path to the server. A segment
+ * before the next expected sequence number is out of order if it arrives within
+ * OUT_OF_ORDER_MICROS of the newest one, a retransmission otherwise, as Wireshark
+ * tells them apart. When the table is full the connection that was quiet longest near
+ * the new key is given up; idle connections expire with the flow idle timeout. Time is
+ * packet time, so offline files give the same numbers as live captures.
+ */
+public class TcpMetricsTable {
+
+    static final long OUT_OF_ORDER_MICROS = 3000;
+
+    private static final long SWEEP_INTERVAL_MICROS = 1_000_000L;
+    private static final int EVICTION_SAMPLE = 16;
+    private static final int ESTABLISHED = 1;           // SYN+ACK seen
+    private static final int ZERO_WINDOW = 2;           // << side: the side's window is closed
+
+    private final int maxConnections;
+    private final long idleTimeoutMicros;
+
+    // Connections, client is side 0; hashes[i] == 0 marks an empty slot
+    private final int[] hashes;
+    private final long[] clientHigh;
+    private final long[] clientLow;
+    private final long[] serverHigh;
+    private final long[] serverLow;
+    private final int[] ports;          // client port << 16 | server port
+    private final long[] lastSeen;
+    private final long[] synMicros;     // of the client's first SYN, -1 if none or answered
+    private final int[] states;
+    private final long[] rttSequence;   // end of the timed client segment
+    private final long[] rttSent;       // -1 when no segment is timed
+    // Per side, at slot * 2 + side
+    private final long[] nextSequence;  // -1 until the side sent something
+    private final long[] lastAck;       // -1 until the side sent an ACK
+    private final int[] lastWindow;
+    private final long[] lastDataMicros;
+    private final int mask;
+    private int size;
+    private long nextSweepMicros;
+
+    private final TcpServerTable servers;
+    private final LatencyHistogram handshake = new LatencyHistogram();
+    private final LatencyHistogram rtt = new LatencyHistogram();
+    private long connections;
+    private long refused;
+    private long unanswered;
+    private long segments;
+    private long retransmissions;
+    private long outOfOrder;
+    private long duplicateAcks;
+    private long zeroWindows;
+    private long evicted;
+
+    public TcpMetricsTable(int maxConnections, int maxServers, int idleTimeoutSeconds) {
+        this.maxConnections = maxConnections;
+        this.idleTimeoutMicros = idleTimeoutSeconds * 1_000_000L;
+        int capacity = Integer.highestOneBit(Math.max(16, maxConnections + maxConnections / 3) - 1) << 1;
+        hashes = new int[capacity];
+        clientHigh = new long[capacity];
+        clientLow = new long[capacity];
+        serverHigh = new long[capacity];
+        serverLow = new long[capacity];
+        ports = new int[capacity];
+        lastSeen = new long[capacity];
+        synMicros = new long[capacity];
+        states = new int[capacity];
+        rttSequence = new long[capacity];
+        rttSent = new long[capacity];
+        nextSequence = new long[capacity * 2];
+        lastAck = new long[capacity * 2];
+        lastWindow = new int[capacity * 2];
+        lastDataMicros = new long[capacity * 2];
+        mask = capacity - 1;
+        servers = new TcpServerTable(maxServers);
+    }
+
+    // Returns false for packets that are not TCP segments with ports
+    public synchronized boolean update(PacketSummary packet) {
+        if (packet.ipProtocol != FrameHeaderParser.IPPROTO_TCP || packet.payloadOffset < 0 || !packet.hasAddresses()) {
+            return false;
+        }
+        long now = packet.timestampMicros;
+        if (now >= nextSweepMicros) {
+            expire(now);
+            nextSweepMicros = now + SWEEP_INTERVAL_MICROS;
+        }
+        int flags = packet.tcpFlags;
+        boolean syn = (flags & FlowTable.TCP_SYN) != 0;
+        boolean ack = (flags & FlowTable.TCP_ACK) != 0;
+        boolean rst = (flags & FlowTable.TCP_RST) != 0;
+        int forwardPorts = packet.sourcePort << 16 | packet.destPort;
+        int slot = find(hash(packet.sourceHigh, packet.sourceLow, packet.destHigh, packet.destLow, forwardPorts),
+            packet.sourceHigh, packet.sourceLow, packet.destHigh, packet.destLow, forwardPorts);
+        int side = 0;
+        if (slot < 0) {
+            int reversePorts = packet.destPort << 16 | packet.sourcePort;
+            slot = find(hash(packet.destHigh, packet.destLow, packet.sourceHigh, packet.sourceLow, reversePorts),
+                packet.destHigh, packet.destLow, packet.sourceHigh, packet.sourceLow, reversePorts);
+            side = 1;
+        }
+        if (slot < 0) {
+            if (rst) {
+                return true;  // nothing to reset
+            }
+            // The SYN sender is the client, the SYN+ACK sender the server; otherwise guess by port
+            side = syn && !ack || !syn && packet.sourcePort > packet.destPort ? 0 : 1;
+            slot = side == 0
+                ? open(packet.sourceHigh, packet.sourceLow, packet.destHigh, packet.destLow, forwardPorts)
+                : open(packet.destHigh, packet.destLow, packet.sourceHigh, packet.sourceLow,
+                    packet.destPort << 16 | packet.sourcePort);
+            if (syn && !ack) {
+                synMicros[slot] = now;
+            }
+        }
+        lastSeen[slot] = now;
+        int server = servers.find(serverHigh[slot], serverLow[slot], ports[slot] & 0xFFFF);
+
+        if (rst) {
+            if (side == 1 && synMicros[slot] >= 0) {
+                refused++;
+                if (server >= 0) {
+                    servers.refused(server);
+                }
+                synMicros[slot] = -1;
+            }
+            remove(slot);
+            return true;
+        }
+        if (syn) {
+            handshake(slot, side, server, ack, packet.tcpSequence, now);
+        } else {
+            data(slot, side, server, packet, now);
+        }
+        if (ack) {
+            acknowledge(slot, side, server, packet, now);
+        }
+        return true;
+    }
+
+    private void handshake(int slot, int side, int server, boolean ack, long sequence, long now) {
+        int index = slot * 2 + side;
+        long next = (sequence + 1) & 0xFFFFFFFFL;
+        if (nextSequence[index] == next) {
+            retransmission(server);  // SYN or SYN+ACK sent again
+        }
+        nextSequence[index] = next;
+        lastDataMicros[index] = now;
+        if (side == 1 && ack && (states[slot] & ESTABLISHED) == 0) {
+            states[slot] |= ESTABLISHED;
+            if (synMicros[slot] >= 0) {
+                long micros = Math.max(0, now - synMicros[slot]);
+                synMicros[slot] = -1;
+                handshake.record(micros);
+                if (server >= 0) {
+                    servers.handshake(server, micros);
+                }
+            }
+        }
+    }
+
+    private void data(int slot, int side, int server, PacketSummary packet, long now) {
+        int length = packet.payloadLength + ((packet.tcpFlags & FlowTable.TCP_FIN) != 0 ? 1 : 0);
+        if (length == 0) {
+            return;
+        }
+        int index = slot * 2 + side;
+        long sequence = packet.tcpSequence;
+        long end = (sequence + length) & 0xFFFFFFFFL;
+        segments++;
+        if (server >= 0) {
+            servers.segment(server);
+        }
+        long next = nextSequence[index];
+        if (next >= 0 && (int) (sequence - next) < 0) {
+            if (packet.payloadLength == 1 && length == 1 && (int) (end - next) == 0) {
+                return;  // keep-alive probe: the last byte again
+            }
+            if (now - lastDataMicros[index] < OUT_OF_ORDER_MICROS) {
+                outOfOrder++;
+                if (server >= 0) {
+                    servers.outOfOrder(server);
+                }
+            } else {
+                retransmission(server);
+                if (side == 0 && rttSent[slot] >= 0 && (int) (sequence - rttSequence[slot]) < 0) {
+                    rttSent[slot] = -1;  // Karn: the ACK could be for either copy
+                }
+            }
+            if ((int) (end - next) > 0) {
+                nextSequence[index] = end;
+            }
+            return;
+        }
+        nextSequence[index] = end;
+        lastDataMicros[index] = now;
+        if (side == 0 && rttSent[slot] < 0) {
+            rttSequence[slot] = end;
+            rttSent[slot] = now;
+        }
+    }
+
+    private void acknowledge(int slot, int side, int server, PacketSummary packet, long now) {
+        int index = slot * 2 + side;
+        long ackNumber = packet.tcpAck;
+        if (side == 1 && rttSent[slot] >= 0 && (int) (ackNumber - rttSequence[slot]) >= 0) {
+            long micros = Math.max(0, now - rttSent[slot]);
+            rttSent[slot] = -1;
+            rtt.record(micros);
+            if (server >= 0) {
+                servers.rtt(server, micros);
+            }
+        }
+        int window = packet.tcpWindow;
+        // A pure ACK repeating the last one, same window, while the other side has data in flight
+        long peerNext = nextSequence[slot * 2 + (1 - side)];
+        if (packet.payloadLength == 0 && (packet.tcpFlags & (FlowTable.TCP_SYN | FlowTable.TCP_FIN)) == 0
+                && ackNumber == lastAck[index] && window == lastWindow[index]
+                && peerNext >= 0 && ackNumber != peerNext) {
+            duplicateAcks++;
+            if (server >= 0) {
+                servers.duplicateAck(server);
+            }
+        }
+        lastAck[index] = ackNumber;
+        lastWindow[index] = window;
+        int closed = ZERO_WINDOW << side;
+        if (window == 0 && (states[slot] & closed) == 0) {
+            states[slot] |= closed;
+            zeroWindows++;
+            if (server >= 0) {
+                servers.zeroWindow(server);
+            }
+        } else if (window > 0) {
+            states[slot] &= ~closed;
+        }
+    }
+
+    private void retransmission(int server) {
+        retransmissions++;
+        if (server >= 0) {
+            servers.retransmission(server);
+        }
+    }
+
+    private int open(long cHigh, long cLow, long sHigh, long sLow, int connectionPorts) {
+        int hash = hash(cHigh, cLow, sHigh, sLow, connectionPorts);
+        if (size >= maxConnections) {
+            evictNear(hash);
+        }
+        int slot = hash & mask;
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        clientHigh[slot] = cHigh;
+        clientLow[slot] = cLow;
+        serverHigh[slot] = sHigh;
+        serverLow[slot] = sLow;
+        ports[slot] = connectionPorts;
+        synMicros[slot] = -1;
+        states[slot] = 0;
+        rttSent[slot] = -1;
+        for (int index = slot * 2; index <= slot * 2 + 1; index++) {
+            nextSequence[index] = -1;
+            lastAck[index] = -1;
+            lastWindow[index] = -1;
+        }
+        size++;
+        connections++;
+        servers.connection(servers.add(sHigh, sLow, connectionPorts & 0xFFFF));
+        return slot;
+    }
+
+    private int find(int hash, long cHigh, long cLow, long sHigh, long sLow, int connectionPorts) {
+        for (int i = hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash && ports[i] == connectionPorts && clientLow[i] == cLow && clientHigh[i] == cHigh
+                    && serverLow[i] == sLow && serverHigh[i] == sHigh) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The connection quiet longest among the slots around the new key gives up its place
+    private void evictNear(int hash) {
+        int victim = -1;
+        int i = hash & mask;
+        for (int scanned = 0; scanned <= mask && (victim < 0 || scanned < EVICTION_SAMPLE); scanned++) {
+            if (hashes[i] != 0 && (victim < 0 || lastSeen[i] < lastSeen[victim])) {
+                victim = i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (victim >= 0) {
+            remove(victim);
+            evicted++;
+        }
+    }
+
+    private void expire(long now) {
+        int i = 0;
+        while (i <= mask) {
+            if (hashes[i] != 0 && now - lastSeen[i] > idleTimeoutMicros) {
+                remove(i);
+                continue;  // a later entry may have shifted into this slot
+            }
+            i++;
+        }
+    }
+
+    // Backward-shift deletion, see FlowTable; a SYN still waiting for its answer counts as unanswered
+    private void remove(int slot) {
+        if (synMicros[slot] >= 0) {
+            unanswered++;
+            int server = servers.find(serverHigh[slot], serverLow[slot], ports[slot] & 0xFFFF);
+            if (server >= 0) {
+                servers.unanswered(server);
+            }
+        }
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (hashes[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                hashes[hole] = hashes[next];
+                clientHigh[hole] = clientHigh[next];
+                clientLow[hole] = clientLow[next];
+                serverHigh[hole] = serverHigh[next];
+                serverLow[hole] = serverLow[next];
+                ports[hole] = ports[next];
+                lastSeen[hole] = lastSeen[next];
+                synMicros[hole] = synMicros[next];
+                states[hole] = states[next];
+                rttSequence[hole] = rttSequence[next];
+                rttSent[hole] = rttSent[next];
+                for (int side = 0; side < 2; side++) {
+                    nextSequence[hole * 2 + side] = nextSequence[next * 2 + side];
+                    lastAck[hole * 2 + side] = lastAck[next * 2 + side];
+                    lastWindow[hole * 2 + side] = lastWindow[next * 2 + side];
+                    lastDataMicros[hole * 2 + side] = lastDataMicros[next * 2 + side];
+                }
+                hole = next;
+            }
+        }
+        hashes[hole] = 0;
+        size--;
+    }
+
+    // Never 0, which marks empty slots
+    private static int hash(long cHigh, long cLow, long sHigh, long sLow, int connectionPorts) {
+        int hash = (int) mix(mix(cHigh ^ mix(cLow)) + mix(sHigh ^ mix(sLow)) + connectionPorts);
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    synchronized void snapshotServers(List<TcpServerRecord> out) {
+        servers.snapshot(out);
+    }
+
+    synchronized void addHandshake(LatencyHistogram out) {
+        out.add(handshake);
+    }
+
+    synchronized void addRtt(LatencyHistogram out) {
+        out.add(rtt);
+    }
+
+    public synchronized long getConnections() {
+        return connections;
+    }
+
+    public synchronized long getRefused() {
+        return refused;
+    }
+
+    public synchronized long getUnanswered() {
+        return unanswered;
+    }
+
+    public synchronized long getSegments() {
+        return segments;
+    }
+
+    public synchronized long getRetransmissions() {
+        return retransmissions;
+    }
+
+    public synchronized long getOutOfOrder() {
+        return outOfOrder;
+    }
+
+    public synchronized long getDuplicateAcks() {
+        return duplicateAcks;
+    }
+
+    public synchronized long getZeroWindows() {
+        return zeroWindows;
+    }
+
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long getMemoryUsage() {
+        return (mask + 1L) * (4 + 8 * 4 + 4 + 8 * 2 + 4 + 8 * 2 + 2 * (8 * 3 + 4)) + servers.getMemoryUsage()
+            + 2 * LatencyHistogram.MEMORY_BYTES;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(hashes, 0);
+        size = 0;
+        nextSweepMicros = 0;
+        servers.clear();
+        handshake.clear();
+        rtt.clear();
+        connections = 0;
+        refused = 0;
+        unanswered = 0;
+        segments = 0;
+        retransmissions = 0;
+        outOfOrder = 0;
+        duplicateAcks = 0;
+        zeroWindows = 0;
+        evicted = 0;
+    }
+}
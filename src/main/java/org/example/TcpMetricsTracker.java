@@ -0,0 +1,165 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TCP health metrics across the decode shards, one TcpMetricsTable each, the same way
+ * DnsTracker keeps DNS latency. Snapshots merge the per-shard server tables by label.
+ */
+public class TcpMetricsTracker {
+
+    private volatile TcpMetricsTable[] tables = new TcpMetricsTable[0];
+    private int maxConnections;
+    private int maxServers;
+    private int idleTimeoutSeconds;
+
+    // Keeps the current tables when the shard layout and limits are unchanged
+    public synchronized void configure(CaptureConfig config) {
+        int shards = config.getDecodeWorkers();
+        if (tables.length == shards && maxConnections == config.getMaxTcpConnections()
+                && maxServers == config.getMaxTcpServers()
+                && idleTimeoutSeconds == config.getFlowIdleTimeoutSeconds()) {
+            return;
+        }
+        maxConnections = config.getMaxTcpConnections();
+        maxServers = config.getMaxTcpServers();
+        idleTimeoutSeconds = config.getFlowIdleTimeoutSeconds();
+        TcpMetricsTable[] newTables = new TcpMetricsTable[shards];
+        for (int i = 0; i < shards; i++) {
+            newTables[i] = new TcpMetricsTable(perShard(maxConnections, shards), perShard(maxServers, shards),
+                idleTimeoutSeconds);
+        }
+        tables = newTables;
+    }
+
+    private static int perShard(int limit, int shards) {
+        return Math.max(1, (limit + shards - 1) / shards);
+    }
+
+    // Called by the decode shard that owns the packet's flow
+    public void update(PacketSummary packet, int shard) {
+        TcpMetricsTable[] current = tables;
+        if (current.length > 0) {
+            current[shard % current.length].update(packet);
+        }
+    }
+
+    // SYN to SYN+ACK, all servers
+    public LatencyHistogram getHandshake() {
+        LatencyHistogram handshake = new LatencyHistogram();
+        for (TcpMetricsTable table : tables) {
+            table.addHandshake(handshake);
+        }
+        return handshake;
+    }
+
+    // Client data to the server's ACK, all servers
+    public LatencyHistogram getRtt() {
+        LatencyHistogram rtt = new LatencyHistogram();
+        for (TcpMetricsTable table : tables) {
+            table.addRtt(rtt);
+        }
+        return rtt;
+    }
+
+    // Every tracked server:port, merged across the shards, in no particular order
+    public List<TcpServerRecord> servers() {
+        List<TcpServerRecord> records = new ArrayList<>();
+        for (TcpMetricsTable table : tables) {
+            table.snapshotServers(records);
+        }
+        Map<String, TcpServerRecord> merged = new HashMap<>();
+        for (TcpServerRecord record : records) {
+            merged.merge(record.label, record, (a, b) -> {
+                a.add(b);
+                return a;
+            });
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    // The limit servers with the most connections, busiest first
+    public List<TcpServerRecord> topServers(int limit) {
+        List<TcpServerRecord> servers = servers();
+        servers.sort(Comparator.comparingLong(TcpServerRecord::getConnections)
+            .thenComparingLong(TcpServerRecord::getSegments).reversed());
+        return servers.size() > limit ? new ArrayList<>(servers.subList(0, limit)) : servers;
+    }
+
+    public long getConnections() {
+        long connections = 0;
+        for (TcpMetricsTable table : tables) {
+            connections += table.getConnections();
+        }
+        return connections;
+    }
+
+    public void clear() {
+        for (TcpMetricsTable table : tables) {
+            table.clear();
+        }
+    }
+
+    /**
+     * The totals and overall handshake and RTT percentiles, then the busiest limit
+     * servers; as printed by the headless summary.
+     */
+    public String report(int limit) {
+        StringBuilder report = new StringBuilder(toString()).append('\n');
+        report.append("Handshake:  ").append(getHandshake()).append('\n');
+        report.append("RTT:        ").append(getRtt()).append('\n');
+        if (limit <= 0) {
+            return report.toString();
+        }
+        List<TcpServerRecord> servers = topServers(limit);
+        if (!servers.isEmpty()) {
+            report.append(String.format("%nTCP servers by connections:%n%-45s %8s %10s %10s %10s %10s %7s %8s %8s %8s%n",
+                "Server", "Conns", "Segments", "SYN p50", "SYN p99", "RTT p99", "Retr %", "Dup ACK", "OOO", "Zero win"));
+            for (TcpServerRecord server : servers) {
+                report.append(String.format("%-45s %,8d %,10d %10s %10s %10s %6.2f%% %,8d %,8d %,8d%n",
+                    server.label, server.connections, server.segments,
+                    LatencyHistogram.format(server.handshake.getValueAtPercentile(50)),
+                    LatencyHistogram.format(server.handshake.getValueAtPercentile(99)),
+                    LatencyHistogram.format(server.rtt.getValueAtPercentile(99)),
+                    100 * server.getRetransmissionRate(), server.duplicateAcks, server.outOfOrder, server.zeroWindows));
+            }
+        }
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        long connections = 0;
+        long refused = 0;
+        long unanswered = 0;
+        long segments = 0;
+        long retransmissions = 0;
+        long outOfOrder = 0;
+        long duplicateAcks = 0;
+        long zeroWindows = 0;
+        long active = 0;
+        long evicted = 0;
+        long memory = 0;
+        for (TcpMetricsTable table : tables) {
+            connections += table.getConnections();
+            refused += table.getRefused();
+            unanswered += table.getUnanswered();
+            segments += table.getSegments();
+            retransmissions += table.getRetransmissions();
+            outOfOrder += table.getOutOfOrder();
+            duplicateAcks += table.getDuplicateAcks();
+            zeroWindows += table.getZeroWindows();
+            active += table.size();
+            evicted += table.getEvicted();
+            memory += table.getMemoryUsage();
+        }
+        return String.format("TCP: %d connections (%d active) | %d refused | %d unanswered | %d data segments"
+                + " | %d retransmitted | %d out of order | %d duplicate ACKs | %d zero windows | %d evicted | %d KB",
+            connections, active, refused, unanswered, segments, retransmissions, outOfOrder, duplicateAcks,
+            zeroWindows, evicted, memory / 1024);
+    }
+}
@@ -0,0 +1,550 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puts the TCP segments of one decode shard back in order and hands each stream's bytes
+ * to a TcpStreamListener as soon as they are contiguous. Segments that arrive in order
+ * are passed on straight from the frame; only out-of-order ones are copied, into chunks
+ * of an off-heap ChunkPool, until the bytes before them show up. Nothing else of a
+ * stream is kept, so memory does not depend on how long streams are.
+ *
+ * Per direction the reassembler keeps the sequence number of stream offset 0 and how
+ * many bytes were delivered; buffered chunks are a list sorted by stream offset, so
+ * sequence number wrap-around only matters where a segment is placed. Retransmitted
+ * bytes are dropped. A gap that is still open when a direction buffers more than
+ * MAX_BUFFERED_PER_DIRECTION, or when the stream ends, is skipped and reported as
+ * missing: those bytes were lost before the capture saw them.
+ *
+ * Streams live in a fixed table of maxStreams entries with a hash index, and on a list
+ * in order of their last packet: when the table or the chunk pool runs out, the stream
+ * that was quiet longest is flushed and evicted; streams idle past the timeout are
+ * closed. Time is packet time, as in FlowTable. Entries keep their number while they
+ * live, so the list links are plain int arrays.
+ */
+public class TcpReassembler {
+
+    public static final int MAX_BUFFERED_PER_DIRECTION = 1 << 20;
+
+    private static final long SWEEP_INTERVAL_MICROS = 1_000_000L;
+
+    private final int maxStreams;
+    private final ChunkPool pool;
+    private final long idleTimeoutMicros;
+    private final TcpStreamListener listener;
+    private final AtomicLong streamIds;
+    private final byte[] scratch = new byte[ChunkPool.CHUNK_SIZE];
+
+    // Hash index: entry number + 1, 0 marks an empty slot
+    private final int[] index;
+    private final int[] indexHashes;
+    private final int indexMask;
+
+    // Entries, by entry number; side 0 is the client
+    private final long[] aHigh;
+    private final long[] aLow;
+    private final long[] bHigh;
+    private final long[] bLow;
+    private final int[] ports;          // client port << 16 | server port
+    private final long[] lastSeen;
+    private final int[] older;          // activity list, oldest first
+    private final int[] newer;
+    private final TcpStream[] streams;
+    private final int[] freeEntries;
+    private int freeCount;
+    private int oldest = -1;
+    private int newest = -1;
+    private long nextSweepMicros;
+
+    // Per direction, at entry * 2 + side
+    private final long[] sequenceBase;  // sequence number of stream offset 0, -1 until known
+    private final long[] delivered;     // stream offset of the next byte to deliver
+    private final long[] finOffset;     // stream offset of the FIN, -1 if none seen
+    private final int[] buffered;       // head of the chunk list, -1 if empty
+    private final int[] bufferedBytes;
+
+    private long opened;
+    private long closed;
+    private long evicted;
+    private long deliveredBytes;
+    private long retransmittedBytes;
+    private long outOfOrderSegments;
+    private long missingBytes;
+    private long droppedSegments;       // out of order with no chunk left for them
+
+    public TcpReassembler(int maxStreams, ChunkPool pool, int idleTimeoutSeconds,
+                          TcpStreamListener listener, AtomicLong streamIds) {
+        this.maxStreams = maxStreams;
+        this.pool = pool;
+        this.idleTimeoutMicros = idleTimeoutSeconds * 1_000_000L;
+        this.listener = listener;
+        this.streamIds = streamIds;
+        int indexSize = Integer.highestOneBit(Math.max(16, maxStreams + maxStreams / 3) - 1) << 1;
+        index = new int[indexSize];
+        indexHashes = new int[indexSize];
+        indexMask = indexSize - 1;
+        aHigh = new long[maxStreams];
+        aLow = new long[maxStreams];
+        bHigh = new long[maxStreams];
+        bLow = new long[maxStreams];
+        ports = new int[maxStreams];
+        lastSeen = new long[maxStreams];
+        older = new int[maxStreams];
+        newer = new int[maxStreams];
+        streams = new TcpStream[maxStreams];
+        freeEntries = new int[maxStreams];
+        for (int i = 0; i < maxStreams; i++) {
+            freeEntries[i] = maxStreams - 1 - i;
+        }
+        freeCount = maxStreams;
+        sequenceBase = new long[maxStreams * 2];
+        delivered = new long[maxStreams * 2];
+        finOffset = new long[maxStreams * 2];
+        buffered = new int[maxStreams * 2];
+        bufferedBytes = new int[maxStreams * 2];
+    }
+
+    // Returns false for packets that are not TCP segments with ports
+    public synchronized boolean update(PacketSummary packet) {
+        if (packet.ipProtocol != FrameHeaderParser.IPPROTO_TCP || packet.payloadOffset < 0 || !packet.hasAddresses()) {
+            return false;
+        }
+        long now = packet.timestampMicros;
+        if (now >= nextSweepMicros) {
+            expire(now);
+            nextSweepMicros = now + SWEEP_INTERVAL_MICROS;
+        }
+        int flags = packet.tcpFlags;
+        int hash = hash(packet.sourceHigh, packet.sourceLow, packet.sourcePort,
+            packet.destHigh, packet.destLow, packet.destPort);
+        int entry = find(hash, packet);
+        if (entry < 0) {
+            if ((flags & FlowTable.TCP_RST) != 0) {
+                return true;  // nothing to reset
+            }
+            entry = open(hash, packet, now);
+        }
+        touch(entry, now);
+        TcpStream stream = streams[entry];
+        boolean fromClient = packet.sourcePort == stream.clientPort && packet.sourceLow == stream.clientLow
+            && packet.sourceHigh == stream.clientHigh;
+        int direction = entry * 2 + (fromClient ? 0 : 1);
+
+        long sequence = packet.tcpSequence;
+        if ((flags & FlowTable.TCP_SYN) != 0) {
+            if (sequenceBase[direction] < 0) {
+                sequenceBase[direction] = (sequence + 1) & 0xFFFFFFFFL;
+            }
+            return true;
+        }
+        if (sequenceBase[direction] < 0) {
+            sequenceBase[direction] = sequence;  // picked up after the handshake
+        }
+        int captured = Math.max(0, Math.min(packet.payloadLength, packet.rawData.length - packet.payloadOffset));
+        long start = streamOffset(direction, sequence);
+        if (packet.payloadLength > 0) {
+            segment(stream, direction, fromClient, start, packet.rawData, packet.payloadOffset,
+                captured, packet.payloadLength);
+        }
+        if ((flags & FlowTable.TCP_RST) != 0) {
+            close(entry, TcpStream.CloseReason.RESET);
+            return true;
+        }
+        if ((flags & FlowTable.TCP_FIN) != 0 && finOffset[direction] < 0) {
+            finOffset[direction] = start + packet.payloadLength;
+        }
+        if (finished(entry * 2) && finished(entry * 2 + 1)) {
+            close(entry, TcpStream.CloseReason.FIN);
+        }
+        return true;
+    }
+
+    // Where a sequence number falls in the direction's stream; wraps around with the 32-bit sequence space
+    private long streamOffset(int direction, long sequence) {
+        long next = (sequenceBase[direction] + delivered[direction]) & 0xFFFFFFFFL;
+        return delivered[direction] + (int) (sequence - next);
+    }
+
+    private boolean finished(int direction) {
+        return finOffset[direction] >= 0 && delivered[direction] >= finOffset[direction];
+    }
+
+    // A segment of wire bytes at stream offset start, of which the first captured are in data
+    private void segment(TcpStream stream, int direction, boolean fromClient, long start,
+                         byte[] data, int offset, int captured, int wire) {
+        long end = start + wire;
+        long next = delivered[direction];
+        if (end <= next) {
+            retransmittedBytes += wire;
+            return;
+        }
+        if (start > next) {
+            outOfOrderSegments++;
+            hold(stream, direction, fromClient, start, data, offset, captured);
+            return;
+        }
+        int skip = (int) (next - start);
+        retransmittedBytes += skip;
+        if (skip < captured) {
+            deliver(stream, fromClient, data, offset + skip, captured - skip);
+        }
+        long lost = wire - Math.max(skip, captured);
+        if (lost > 0) {
+            report(stream, fromClient, lost);  // cut by the snapshot length
+        }
+        delivered[direction] = end;
+        drain(stream, direction, fromClient);
+    }
+
+    // Copies an out-of-order segment into chunks, in stream offset order
+    private void hold(TcpStream stream, int direction, boolean fromClient, long start,
+                      byte[] data, int offset, int length) {
+        if (bufferedBytes[direction] + length > MAX_BUFFERED_PER_DIRECTION) {
+            skipGap(stream, direction, fromClient);
+            if (start <= delivered[direction]) {
+                segment(stream, direction, fromClient, start, data, offset, length, length);
+                return;
+            }
+        }
+        int entry = direction / 2;
+        for (int done = 0; done < length; ) {
+            int chunk = pool.allocate();
+            while (chunk < 0 && evictOldest(entry)) {
+                chunk = pool.allocate();
+            }
+            if (chunk < 0) {
+                droppedSegments++;  // the gap is reported when it is skipped
+                return;
+            }
+            int count = Math.min(ChunkPool.CHUNK_SIZE, length - done);
+            pool.write(chunk, start + done, data, offset + done, count);
+            insert(direction, chunk);
+            bufferedBytes[direction] += count;
+            done += count;
+        }
+    }
+
+    private void insert(int direction, int chunk) {
+        long position = pool.getSequence(chunk);
+        int previous = -1;
+        int current = buffered[direction];
+        while (current >= 0 && pool.getSequence(current) <= position) {
+            previous = current;
+            current = pool.getNext(current);
+        }
+        pool.setNext(chunk, current);
+        if (previous < 0) {
+            buffered[direction] = chunk;
+        } else {
+            pool.setNext(previous, chunk);
+        }
+    }
+
+    // Delivers the buffered chunks that have become contiguous
+    private void drain(TcpStream stream, int direction, boolean fromClient) {
+        int chunk = buffered[direction];
+        while (chunk >= 0 && pool.getSequence(chunk) <= delivered[direction]) {
+            long start = pool.getSequence(chunk);
+            int length = pool.getLength(chunk);
+            int skip = (int) Math.min(length, delivered[direction] - start);
+            if (skip < length) {
+                pool.read(chunk, skip, scratch, 0, length - skip);
+                deliver(stream, fromClient, scratch, 0, length - skip);
+                delivered[direction] = start + length;
+            }
+            retransmittedBytes += skip;
+            bufferedBytes[direction] -= length;
+            int following = pool.getNext(chunk);
+            pool.release(chunk);
+            chunk = following;
+        }
+        buffered[direction] = chunk;
+    }
+
+    // Gives up on the bytes before the first buffered chunk
+    private void skipGap(TcpStream stream, int direction, boolean fromClient) {
+        int chunk = buffered[direction];
+        if (chunk < 0) {
+            return;
+        }
+        report(stream, fromClient, pool.getSequence(chunk) - delivered[direction]);
+        delivered[direction] = pool.getSequence(chunk);
+        drain(stream, direction, fromClient);
+    }
+
+    private void deliver(TcpStream stream, boolean fromClient, byte[] data, int offset, int length) {
+        if (fromClient) {
+            stream.clientBytes += length;
+        } else {
+            stream.serverBytes += length;
+        }
+        deliveredBytes += length;
+        listener.data(stream, fromClient, data, offset, length);
+    }
+
+    private void report(TcpStream stream, boolean fromClient, long missing) {
+        stream.missingBytes += missing;
+        missingBytes += missing;
+        listener.gap(stream, fromClient, missing);
+    }
+
+    private int open(int hash, PacketSummary packet, long now) {
+        if (freeCount == 0) {
+            close(oldest, TcpStream.CloseReason.EVICTED);
+            evicted++;
+        }
+        int entry = freeEntries[--freeCount];
+        // The SYN sender is the client, the SYN+ACK sender the server; otherwise guess by port
+        int flags = packet.tcpFlags & (FlowTable.TCP_SYN | FlowTable.TCP_ACK);
+        boolean sourceIsClient = flags == FlowTable.TCP_SYN
+            || flags != (FlowTable.TCP_SYN | FlowTable.TCP_ACK) && packet.sourcePort > packet.destPort;
+        TcpStream stream = sourceIsClient
+            ? new TcpStream(streamIds.incrementAndGet(), packet.sourceHigh, packet.sourceLow, packet.sourcePort,
+                packet.destHigh, packet.destLow, packet.destPort, now)
+            : new TcpStream(streamIds.incrementAndGet(), packet.destHigh, packet.destLow, packet.destPort,
+                packet.sourceHigh, packet.sourceLow, packet.sourcePort, now);
+        streams[entry] = stream;
+        aHigh[entry] = stream.clientHigh;
+        aLow[entry] = stream.clientLow;
+        bHigh[entry] = stream.serverHigh;
+        bLow[entry] = stream.serverLow;
+        ports[entry] = stream.clientPort << 16 | stream.serverPort;
+        for (int direction = entry * 2; direction <= entry * 2 + 1; direction++) {
+            sequenceBase[direction] = -1;
+            delivered[direction] = 0;
+            finOffset[direction] = -1;
+            buffered[direction] = -1;
+            bufferedBytes[direction] = 0;
+        }
+        int slot = hash & indexMask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & indexMask;
+        }
+        index[slot] = entry + 1;
+        indexHashes[slot] = hash;
+        older[entry] = newest;
+        newer[entry] = -1;
+        if (newest >= 0) {
+            newer[newest] = entry;
+        } else {
+            oldest = entry;
+        }
+        newest = entry;
+        lastSeen[entry] = now;
+        opened++;
+        listener.streamOpened(stream);
+        return entry;
+    }
+
+    // Moves the entry to the new end of the activity list
+    private void touch(int entry, long now) {
+        lastSeen[entry] = Math.max(lastSeen[entry], now);
+        if (entry == newest) {
+            return;
+        }
+        unlink(entry);
+        older[entry] = newest;
+        newer[entry] = -1;
+        newer[newest] = entry;
+        newest = entry;
+    }
+
+    private void unlink(int entry) {
+        if (older[entry] >= 0) {
+            newer[older[entry]] = newer[entry];
+        } else {
+            oldest = newer[entry];
+        }
+        if (newer[entry] >= 0) {
+            older[newer[entry]] = older[entry];
+        } else {
+            newest = older[entry];
+        }
+    }
+
+    // Frees the buffer memory of the stream quiet longest, other than keep; false if there is none
+    private boolean evictOldest(int keep) {
+        for (int entry = oldest; entry >= 0; entry = newer[entry]) {
+            if (entry != keep && (buffered[entry * 2] >= 0 || buffered[entry * 2 + 1] >= 0)) {
+                close(entry, TcpStream.CloseReason.EVICTED);
+                evicted++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Flushes what is buffered, with the gaps in front of it, and forgets the stream
+    private void close(int entry, TcpStream.CloseReason reason) {
+        TcpStream stream = streams[entry];
+        while (buffered[entry * 2] >= 0) {
+            skipGap(stream, entry * 2, true);
+        }
+        while (buffered[entry * 2 + 1] >= 0) {
+            skipGap(stream, entry * 2 + 1, false);
+        }
+        removeFromIndex(entry);
+        unlink(entry);
+        streams[entry] = null;
+        freeEntries[freeCount++] = entry;
+        closed++;
+        listener.streamClosed(stream, reason);
+    }
+
+    private void expire(long now) {
+        while (oldest >= 0 && now - lastSeen[oldest] > idleTimeoutMicros) {
+            close(oldest, TcpStream.CloseReason.TIMEOUT);
+        }
+    }
+
+    // Closes every open stream, oldest first, e.g. at the end of a file
+    public synchronized void closeAll(TcpStream.CloseReason reason) {
+        while (oldest >= 0) {
+            close(oldest, reason);
+        }
+    }
+
+    private int find(int hash, PacketSummary packet) {
+        int forwardPorts = packet.sourcePort << 16 | packet.destPort;
+        int reversePorts = packet.destPort << 16 | packet.sourcePort;
+        for (int i = hash & indexMask; index[i] != 0; i = (i + 1) & indexMask) {
+            if (indexHashes[i] != hash) {
+                continue;
+            }
+            int entry = index[i] - 1;
+            if (ports[entry] == forwardPorts && aLow[entry] == packet.sourceLow && aHigh[entry] == packet.sourceHigh
+                    && bLow[entry] == packet.destLow && bHigh[entry] == packet.destHigh) {
+                return entry;
+            }
+            if (ports[entry] == reversePorts && aLow[entry] == packet.destLow && aHigh[entry] == packet.destHigh
+                    && bLow[entry] == packet.sourceLow && bHigh[entry] == packet.sourceHigh) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion, see FlowTable
+    private void removeFromIndex(int entry) {
+        int hole = -1;
+        for (int i = hashOf(entry) & indexMask; index[i] != 0; i = (i + 1) & indexMask) {
+            if (index[i] == entry + 1) {
+                hole = i;
+                break;
+            }
+        }
+        if (hole < 0) {
+            return;
+        }
+        int next = hole;
+        while (true) {
+            next = (next + 1) & indexMask;
+            if (index[next] == 0) {
+                break;
+            }
+            int home = indexHashes[next] & indexMask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                index[hole] = index[next];
+                indexHashes[hole] = indexHashes[next];
+                hole = next;
+            }
+        }
+        index[hole] = 0;
+    }
+
+    private int hashOf(int entry) {
+        return hash(aHigh[entry], aLow[entry], ports[entry] >>> 16, bHigh[entry], bLow[entry], ports[entry] & 0xFFFF);
+    }
+
+    // Symmetric in (source, destination); never 0
+    private static int hash(long srcHigh, long srcLow, int srcPort, long dstHigh, long dstLow, int dstPort) {
+        long a = mix(srcHigh ^ mix(srcLow)) ^ srcPort;
+        long b = mix(dstHigh ^ mix(dstLow)) ^ dstPort;
+        int hash = (int) mix(mix(a) + mix(b));
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    public synchronized int size() {
+        return maxStreams - freeCount;
+    }
+
+    public synchronized long getOpened() {
+        return opened;
+    }
+
+    public synchronized long getClosed() {
+        return closed;
+    }
+
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    public synchronized long getDeliveredBytes() {
+        return deliveredBytes;
+    }
+
+    public synchronized long getRetransmittedBytes() {
+        return retransmittedBytes;
+    }
+
+    public synchronized long getOutOfOrderSegments() {
+        return outOfOrderSegments;
+    }
+
+    public synchronized long getMissingBytes() {
+        return missingBytes;
+    }
+
+    public synchronized long getDroppedSegments() {
+        return droppedSegments;
+    }
+
+    public synchronized long getBufferedBytes() {
+        return pool.getUsedBytes();
+    }
+
+    public long getBufferCapacity() {
+        return pool.getCapacityBytes();
+    }
+
+    // Heap only; the chunks are off-heap
+    public long getMemoryUsage() {
+        return index.length * 8L + maxStreams * (8L * 4 + 4 + 8 + 8 + 8 + 4 + 2 * (8 * 3 + 4 + 4))
+            + pool.getChunkCount() * (8L + 4 + 4 + 4);
+    }
+
+    // Drops every stream without telling the listener, e.g. when the capture is cleared
+    public synchronized void clear() {
+        for (int entry = oldest; entry >= 0; entry = newer[entry]) {
+            pool.releaseAll(buffered[entry * 2]);
+            pool.releaseAll(buffered[entry * 2 + 1]);
+            streams[entry] = null;
+        }
+        Arrays.fill(index, 0);
+        for (int i = 0; i < maxStreams; i++) {
+            freeEntries[i] = maxStreams - 1 - i;
+        }
+        freeCount = maxStreams;
+        oldest = -1;
+        newest = -1;
+        nextSweepMicros = 0;
+        opened = 0;
+        closed = 0;
+        evicted = 0;
+        deliveredBytes = 0;
+        retransmittedBytes = 0;
+        outOfOrderSegments = 0;
+        missingBytes = 0;
+        droppedSegments = 0;
+    }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP stream reassembly across the decode shards, one TcpReassembler each, the same way
+ * FlowTracker keeps conversations: both directions of a stream reach the same shard, so
+ * no reassembler is shared. The configured memory cap is split evenly, every shard gets
+ * its own ChunkPool. Reassembled bytes go to the registered listeners; with reassembly
+ * switched off in the CaptureConfig there are no reassemblers and update does nothing.
+ */
+public class TcpReassembly implements TcpStreamListener {
+
+    private final List<TcpStreamListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong streamIds = new AtomicLong();
+    private volatile TcpReassembler[] reassemblers = new TcpReassembler[0];
+    private boolean enabled;
+    private int shards;
+    private long memoryBytes;
+    private int maxStreams;
+    private int idleTimeoutSeconds;
+
+    // Keeps the current reassemblers when the shard layout and limits are unchanged
+    public synchronized void configure(CaptureConfig config) {
+        if (enabled == config.isTcpReassembly() && shards == config.getDecodeWorkers()
+                && memoryBytes == config.getReassemblyMemoryBytes() && maxStreams == config.getMaxTcpStreams()
+                && idleTimeoutSeconds == config.getFlowIdleTimeoutSeconds()) {
+            return;
+        }
+        enabled = config.isTcpReassembly();
+        shards = config.getDecodeWorkers();
+        memoryBytes = config.getReassemblyMemoryBytes();
+        maxStreams = config.getMaxTcpStreams();
+        idleTimeoutSeconds = config.getFlowIdleTimeoutSeconds();
+        TcpReassembler[] newReassemblers = new TcpReassembler[enabled ? shards : 0];
+        for (int i = 0; i < newReassemblers.length; i++) {
+            newReassemblers[i] = new TcpReassembler(Math.max(1, (maxStreams + shards - 1) / shards),
+                new ChunkPool(memoryBytes / shards), idleTimeoutSeconds, this, streamIds);
+        }
+        reassemblers = newReassemblers;
+    }
+
+    public boolean isEnabled() {
+        return reassemblers.length > 0;
+    }
+
+    public void addListener(TcpStreamListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TcpStreamListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Called by the decode shard that owns the packet's flow
+    public void update(PacketSummary packet, int shard) {
+        TcpReassembler[] current = reassemblers;
+        if (current.length > 0) {
+            current[shard % current.length].update(packet);
+        }
+    }
+
+    // Flushes and closes every open stream, at the end of a file or capture
+    public void closeAll() {
+        for (TcpReassembler reassembler : reassemblers) {
+            reassembler.closeAll(TcpStream.CloseReason.END);
+        }
+    }
+
+    public void clear() {
+        for (TcpReassembler reassembler : reassemblers) {
+            reassembler.clear();
+        }
+    }
+
+    @Override
+    public void streamOpened(TcpStream stream) {
+        for (TcpStreamListener listener : listeners) {
+            listener.streamOpened(stream);
+        }
+    }
+
+    @Override
+    public void data(TcpStream stream, boolean fromClient, byte[] data, int offset, int length) {
+        for (TcpStreamListener listener : listeners) {
+            listener.data(stream, fromClient, data, offset, length);
+        }
+    }
+
+    @Override
+    public void gap(TcpStream stream, boolean fromClient, long missing) {
+        for (TcpStreamListener listener : listeners) {
+            listener.gap(stream, fromClient, missing);
+        }
+    }
+
+    @Override
+    public void streamClosed(TcpStream stream, TcpStream.CloseReason reason) {
+        for (TcpStreamListener listener : listeners) {
+            listener.streamClosed(stream, reason);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (reassemblers.length == 0) {
+            return "TCP reassembly: off";
+        }
+        long active = 0;
+        long opened = 0;
+        long delivered = 0;
+        long retransmitted = 0;
+        long outOfOrder = 0;
+        long missing = 0;
+        long evicted = 0;
+        long dropped = 0;
+        long buffered = 0;
+        long capacity = 0;
+        long memory = 0;
+        for (TcpReassembler reassembler : reassemblers) {
+            active += reassembler.size();
+            opened += reassembler.getOpened();
+            delivered += reassembler.getDeliveredBytes();
+            retransmitted += reassembler.getRetransmittedBytes();
+            outOfOrder += reassembler.getOutOfOrderSegments();
+            missing += reassembler.getMissingBytes();
+            evicted += reassembler.getEvicted();
+            dropped += reassembler.getDroppedSegments();
+            buffered += reassembler.getBufferedBytes();
+            capacity += reassembler.getBufferCapacity();
+            memory += reassembler.getMemoryUsage();
+        }
+        return String.format("TCP reassembly: %d streams (%d active) | %d KB delivered | %d KB retransmitted"
+                + " | %d out of order | %d KB missing | %d evicted | %d dropped | %d/%d KB buffered | %d KB heap",
+            opened, active, delivered / 1024, retransmitted / 1024, outOfOrder, missing / 1024, evicted, dropped,
+            buffered / 1024, capacity / 1024, memory / 1024);
+    }
+}
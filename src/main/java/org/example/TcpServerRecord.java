@@ -0,0 +1,95 @@
+package org.example;
+
+// Copy of one TcpServerTable entry, taken for display
+public class TcpServerRecord {
+    final String label;
+    long connections;
+    long refused;
+    long unanswered;
+    long segments;
+    long retransmissions;
+    long outOfOrder;
+    long duplicateAcks;
+    long zeroWindows;
+    final LatencyHistogram handshake;
+    final LatencyHistogram rtt;
+
+    TcpServerRecord(String label, long connections, long refused, long unanswered, long segments,
+                    long retransmissions, long outOfOrder, long duplicateAcks, long zeroWindows,
+                    LatencyHistogram handshake, LatencyHistogram rtt) {
+        this.label = label;
+        this.connections = connections;
+        this.refused = refused;
+        this.unanswered = unanswered;
+        this.segments = segments;
+        this.retransmissions = retransmissions;
+        this.outOfOrder = outOfOrder;
+        this.duplicateAcks = duplicateAcks;
+        this.zeroWindows = zeroWindows;
+        this.handshake = handshake;
+        this.rtt = rtt;
+    }
+
+    // The same server seen by another decode shard
+    void add(TcpServerRecord other) {
+        connections += other.connections;
+        refused += other.refused;
+        unanswered += other.unanswered;
+        segments += other.segments;
+        retransmissions += other.retransmissions;
+        outOfOrder += other.outOfOrder;
+        duplicateAcks += other.duplicateAcks;
+        zeroWindows += other.zeroWindows;
+        handshake.add(other.handshake);
+        rtt.add(other.rtt);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getConnections() {
+        return connections;
+    }
+
+    public long getRefused() {
+        return refused;
+    }
+
+    public long getUnanswered() {
+        return unanswered;
+    }
+
+    public long getSegments() {
+        return segments;
+    }
+
+    public long getRetransmissions() {
+        return retransmissions;
+    }
+
+    // Of the data segments, 0 when there were none
+    public double getRetransmissionRate() {
+        return segments == 0 ? 0 : (double) retransmissions / segments;
+    }
+
+    public long getOutOfOrder() {
+        return outOfOrder;
+    }
+
+    public long getDuplicateAcks() {
+        return duplicateAcks;
+    }
+
+    public long getZeroWindows() {
+        return zeroWindows;
+    }
+
+    public LatencyHistogram getHandshake() {
+        return handshake;
+    }
+
+    public LatencyHistogram getRtt() {
+        return rtt;
+    }
+}
@@ -0,0 +1,255 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-size table of TCP health counters and histograms per server address and port,
+ * laid out like DnsStatsTable: open addressing with linear probing, and when full the
+ * entry with the fewest segments near the new key makes room. The handshake and RTT
+ * histograms are allocated with an entry's first sample. Owned by one TcpMetricsTable,
+ * which does the locking.
+ */
+class TcpServerTable {
+
+    private static final int EVICTION_SAMPLE = 16;
+
+    private final int maxEntries;
+    private final int[] hashes;         // 0 marks an empty slot
+    private final long[] serverHigh;
+    private final long[] serverLow;
+    private final int[] ports;
+    private final String[] labels;
+    private final long[] connections;
+    private final long[] refused;       // reset instead of a SYN+ACK
+    private final long[] unanswered;    // no SYN+ACK before the connection expired
+    private final long[] segments;
+    private final long[] retransmissions;
+    private final long[] outOfOrder;
+    private final long[] duplicateAcks;
+    private final long[] zeroWindows;
+    private final LatencyHistogram[] handshake;
+    private final LatencyHistogram[] rtt;
+    private final int mask;
+    private int size;
+    private long evicted;
+
+    TcpServerTable(int maxEntries) {
+        this.maxEntries = maxEntries;
+        int capacity = Integer.highestOneBit(Math.max(16, maxEntries + maxEntries / 3) - 1) << 1;
+        hashes = new int[capacity];
+        serverHigh = new long[capacity];
+        serverLow = new long[capacity];
+        ports = new int[capacity];
+        labels = new String[capacity];
+        connections = new long[capacity];
+        refused = new long[capacity];
+        unanswered = new long[capacity];
+        segments = new long[capacity];
+        retransmissions = new long[capacity];
+        outOfOrder = new long[capacity];
+        duplicateAcks = new long[capacity];
+        zeroWindows = new long[capacity];
+        handshake = new LatencyHistogram[capacity];
+        rtt = new LatencyHistogram[capacity];
+        mask = capacity - 1;
+    }
+
+    // Returns the slot of the server, or -1
+    int find(long high, long low, int port) {
+        int hash = hash(high, low, port);
+        for (int i = hash & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash && ports[i] == port && serverLow[i] == low && serverHigh[i] == high) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the slot of the server, adding it if it is new
+    int add(long high, long low, int port) {
+        int slot = find(high, low, port);
+        if (slot >= 0) {
+            return slot;
+        }
+        int hash = hash(high, low, port);
+        if (size >= maxEntries) {
+            evictNear(hash);
+        }
+        int i = hash & mask;
+        while (hashes[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        serverHigh[i] = high;
+        serverLow[i] = low;
+        ports[i] = port;
+        String address = IpAddresses.format(high, low);
+        labels[i] = (address.indexOf(':') >= 0 ? "[" + address + "]" : address) + ":" + port;
+        connections[i] = 0;
+        refused[i] = 0;
+        unanswered[i] = 0;
+        segments[i] = 0;
+        retransmissions[i] = 0;
+        outOfOrder[i] = 0;
+        duplicateAcks[i] = 0;
+        zeroWindows[i] = 0;
+        if (handshake[i] != null) {
+            handshake[i].clear();
+        }
+        if (rtt[i] != null) {
+            rtt[i].clear();
+        }
+        size++;
+        return i;
+    }
+
+    void connection(int slot) {
+        connections[slot]++;
+    }
+
+    void refused(int slot) {
+        refused[slot]++;
+    }
+
+    void unanswered(int slot) {
+        unanswered[slot]++;
+    }
+
+    void segment(int slot) {
+        segments[slot]++;
+    }
+
+    void retransmission(int slot) {
+        retransmissions[slot]++;
+    }
+
+    void outOfOrder(int slot) {
+        outOfOrder[slot]++;
+    }
+
+    void duplicateAck(int slot) {
+        duplicateAcks[slot]++;
+    }
+
+    void zeroWindow(int slot) {
+        zeroWindows[slot]++;
+    }
+
+    void handshake(int slot, long micros) {
+        if (handshake[slot] == null) {
+            handshake[slot] = new LatencyHistogram();
+        }
+        handshake[slot].record(micros);
+    }
+
+    void rtt(int slot, long micros) {
+        if (rtt[slot] == null) {
+            rtt[slot] = new LatencyHistogram();
+        }
+        rtt[slot].record(micros);
+    }
+
+    private void evictNear(int hash) {
+        int victim = -1;
+        int i = hash & mask;
+        for (int scanned = 0; scanned <= mask && (victim < 0 || scanned < EVICTION_SAMPLE); scanned++) {
+            if (hashes[i] != 0 && (victim < 0 || segments[i] < segments[victim])) {
+                victim = i;
+            }
+            i = (i + 1) & mask;
+        }
+        if (victim >= 0) {
+            remove(victim);
+            evicted++;
+        }
+    }
+
+    // Backward-shift deletion, see FlowTable
+    private void remove(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (hashes[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                hashes[hole] = hashes[next];
+                serverHigh[hole] = serverHigh[next];
+                serverLow[hole] = serverLow[next];
+                ports[hole] = ports[next];
+                labels[hole] = labels[next];
+                connections[hole] = connections[next];
+                refused[hole] = refused[next];
+                unanswered[hole] = unanswered[next];
+                segments[hole] = segments[next];
+                retransmissions[hole] = retransmissions[next];
+                outOfOrder[hole] = outOfOrder[next];
+                duplicateAcks[hole] = duplicateAcks[next];
+                zeroWindows[hole] = zeroWindows[next];
+                LatencyHistogram histogram = handshake[hole];  // swap, so both keep their arrays
+                handshake[hole] = handshake[next];
+                handshake[next] = histogram;
+                histogram = rtt[hole];
+                rtt[hole] = rtt[next];
+                rtt[next] = histogram;
+                hole = next;
+            }
+        }
+        hashes[hole] = 0;
+        labels[hole] = null;
+        size--;
+    }
+
+    // Copies of all entries, for merging across the shards
+    void snapshot(List<TcpServerRecord> out) {
+        for (int i = 0; i <= mask; i++) {
+            if (hashes[i] != 0) {
+                out.add(new TcpServerRecord(labels[i], connections[i], refused[i], unanswered[i], segments[i],
+                    retransmissions[i], outOfOrder[i], duplicateAcks[i], zeroWindows[i],
+                    handshake[i] != null ? handshake[i].copy() : new LatencyHistogram(),
+                    rtt[i] != null ? rtt[i].copy() : new LatencyHistogram()));
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getEvicted() {
+        return evicted;
+    }
+
+    long getMemoryUsage() {
+        long histograms = 0;
+        for (int i = 0; i <= mask; i++) {
+            histograms += (handshake[i] != null ? LatencyHistogram.MEMORY_BYTES : 0)
+                + (rtt[i] != null ? LatencyHistogram.MEMORY_BYTES : 0);
+        }
+        return (mask + 1L) * (4 + 8 * 2 + 4 + 8 + 8 * 8 + 8 * 2) + histograms;
+    }
+
+    void clear() {
+        Arrays.fill(hashes, 0);
+        Arrays.fill(labels, null);
+        size = 0;
+        evicted = 0;
+    }
+
+    // Never 0, which marks empty slots
+    private static int hash(long high, long low, int port) {
+        int hash = (int) mix(mix(high) + low + port);
+        return hash == 0 ? 1 : hash;
+    }
+
+    // Stafford variant 13 of the MurmurHash3 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+/**
+ * One TCP connection as TcpReassembler hands it to its listeners. The client is whoever
+ * sent the SYN; when the capture started after the handshake, the side with the higher
+ * port. The byte and gap counters are updated by the reassembling thread; listeners see
+ * current values in their callbacks.
+ */
+public class TcpStream {
+
+    public enum CloseReason {
+        FIN,        // both directions finished
+        RESET,
+        TIMEOUT,    // idle longer than the flow idle timeout
+        EVICTED,    // made room for a new stream, or for buffer memory
+        END         // the capture or file ended with the stream still open
+    }
+
+    final long id;
+    final long clientHigh;
+    final long clientLow;
+    final int clientPort;
+    final long serverHigh;
+    final long serverLow;
+    final int serverPort;
+    final long firstSeenMicros;
+    long clientBytes;      // delivered in order, client to server
+    long serverBytes;
+    long missingBytes;     // skipped over in either direction, never captured
+
+    TcpStream(long id, long clientHigh, long clientLow, int clientPort,
+              long serverHigh, long serverLow, int serverPort, long firstSeenMicros) {
+        this.id = id;
+        this.clientHigh = clientHigh;
+        this.clientLow = clientLow;
+        this.clientPort = clientPort;
+        this.serverHigh = serverHigh;
+        this.serverLow = serverLow;
+        this.serverPort = serverPort;
+        this.firstSeenMicros = firstSeenMicros;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getClient() {
+        return IpAddresses.format(clientHigh, clientLow);
+    }
+
+    public int getClientPort() {
+        return clientPort;
+    }
+
+    public String getServer() {
+        return IpAddresses.format(serverHigh, serverLow);
+    }
+
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    public long getFirstSeenMicros() {
+        return firstSeenMicros;
+    }
+
+    public long getClientBytes() {
+        return clientBytes;
+    }
+
+    public long getServerBytes() {
+        return serverBytes;
+    }
+
+    public long getMissingBytes() {
+        return missingBytes;
+    }
+
+    @Override
+    public String toString() {
+        return endpoint(getClient(), clientPort) + " -> " + endpoint(getServer(), serverPort);
+    }
+
+    private static String endpoint(String address, int port) {
+        return address.indexOf(':') >= 0 ? "[" + address + "]:" + port : address + ":" + port;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * Receives the reassembled bytes of TCP streams, in order and incrementally, as
+ * TcpReassembler gets them. Called on the thread that feeds the reassembler (a decode
+ * shard for live captures, so possibly several at once for different streams). The data
+ * array is only valid during the call: copy what you keep.
+ */
+public interface TcpStreamListener {
+
+    default void streamOpened(TcpStream stream) {
+    }
+
+    void data(TcpStream stream, boolean fromClient, byte[] data, int offset, int length);
+
+    // missing bytes of the direction were never captured; the data continues after them
+    default void gap(TcpStream stream, boolean fromClient, long missing) {
+    }
+
+    default void streamClosed(TcpStream stream, TcpStream.CloseReason reason) {
+    }
+}
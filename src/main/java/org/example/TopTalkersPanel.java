@@ -0,0 +1,149 @@
+package org.example;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.function.IntFunction;
+
+/**
+ * Top sources, destinations, services and protocols over a sliding window of the last
+ * seconds, next to the traffic graph. The window is the merge of the per-second
+ * HeavyHitters summaries, so an entry's packet count can be over by at most the error
+ * shown beside it; protocol shares are exact.
+ */
+public class TopTalkersPanel extends JPanel {
+
+    private static final String[] WINDOWS = {"Last second", "Last 10 sec", "Last minute", "Last 5 min"};
+    private static final int[] WINDOW_SECONDS = {1, 10, 60, 300};
+    private static final int ROWS = 10;
+
+    // One table's rows: name, estimated packets and error, refilled on every refresh
+    private static final class TopModel extends AbstractTableModel {
+        private final String[] columns;
+        private final String[] names = new String[ROWS];
+        private final long[] packets = new long[ROWS];
+        private final long[] errors = new long[ROWS];
+        private int rows;
+        private long total;
+
+        TopModel(String nameColumn) {
+            columns = new String[] {nameColumn, "Packets", "Share", "± Error"};
+        }
+
+        void update(HeavyHitters summary, IntFunction<String> names) {
+            int[] top = summary.top(ROWS);
+            for (int i = 0; i < top.length; i++) {
+                this.names[i] = names.apply(top[i]);
+                packets[i] = summary.get(top[i]);
+                errors[i] = summary.getError(top[i]);
+            }
+            rows = top.length;
+            total = summary.getTotal();
+            fireTableDataChanged();
+        }
+
+        void update(long[] protocolPackets, long packetCount) {
+            int count = 0;
+            for (int id = 0; id < protocolPackets.length; id++) {
+                long value = protocolPackets[id];
+                if (value == 0) {
+                    continue;
+                }
+                int position = count < ROWS ? count++ : ROWS;
+                while (position > 0 && value > packets[position - 1]) {
+                    if (position < ROWS) {
+                        names[position] = names[position - 1];
+                        packets[position] = packets[position - 1];
+                    }
+                    position--;
+                }
+                if (position < ROWS) {
+                    names[position] = CaptureStore.protocolName(id);
+                    packets[position] = value;
+                    errors[position] = 0;
+                }
+            }
+            rows = count;
+            total = packetCount;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 || column == 2 ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case 0: return names[row];
+                case 1: return packets[row];
+                case 2: return total > 0 ? String.format("%.1f%%", 100.0 * packets[row] / total) : "";
+                default: return errors[row];
+            }
+        }
+    }
+
+    private final AddressDictionary addresses;
+    private final JComboBox<String> windowCombo = new JComboBox<>(WINDOWS);
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final TopModel sourcesModel = new TopModel("Source");
+    private final TopModel destinationsModel = new TopModel("Destination");
+    private final TopModel servicesModel = new TopModel("Service");
+    private final TopModel protocolsModel = new TopModel("Protocol");
+
+    public TopTalkersPanel(AddressDictionary addresses) {
+        super(new BorderLayout());
+        this.addresses = addresses;
+        setPreferredSize(new Dimension(340, 0));
+        setBorder(BorderFactory.createTitledBorder("Top Talkers"));
+
+        JPanel header = new JPanel(new BorderLayout(5, 5));
+        header.add(windowCombo, BorderLayout.NORTH);
+        header.add(summaryLabel, BorderLayout.SOUTH);
+        add(header, BorderLayout.NORTH);
+
+        JPanel tables = new JPanel(new GridLayout(4, 1, 0, 5));
+        tables.add(new JScrollPane(new JTable(sourcesModel)));
+        tables.add(new JScrollPane(new JTable(destinationsModel)));
+        tables.add(new JScrollPane(new JTable(servicesModel)));
+        tables.add(new JScrollPane(new JTable(protocolsModel)));
+        add(tables, BorderLayout.CENTER);
+    }
+
+    // Seconds the selected window covers
+    public int getWindowSeconds() {
+        return WINDOW_SECONDS[windowCombo.getSelectedIndex()];
+    }
+
+    public JComboBox<String> getWindowCombo() {
+        return windowCombo;
+    }
+
+    // Shows a window merged by the graph out of the given number of seconds; must be called on the EDT
+    public void update(TrafficInterval window, int seconds) {
+        // Addresses are only turned into text here, for the few shown
+        sourcesModel.update(window.sources, addresses::format);
+        destinationsModel.update(window.destinations, addresses::format);
+        servicesModel.update(window.services, TrafficInterval::serviceName);
+        protocolsModel.update(window.protocolPackets, window.count);
+        summaryLabel.setText(String.format("%,d packets, %.2f Mbit/s, unlisted hosts at most %,d each",
+            window.count, window.bytes * 8.0 / Math.max(1, seconds) / 1e6,
+            Math.max(window.sources.getMaxError(), window.destinations.getMaxError())));
+    }
+}
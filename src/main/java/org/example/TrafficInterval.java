@@ -0,0 +1,66 @@
+package org.example;
+
+/**
+ * Packet information for one graph second, keyed by protocol and AddressDictionary ids.
+ * Sources, destinations and services are HeavyHitters summaries, so a second costs the
+ * same few KB whether it saw ten hosts or a scan of a million.
+ */
+public class TrafficInterval {
+    static final int HEAVY_HITTERS = 32;  // ids monitored per second and per kind
+
+    int count;
+    long bytes;
+    final long[] protocolPackets = new long[CaptureStore.PROTOCOL_COUNT];
+    final HeavyHitters sources;
+    final HeavyHitters destinations;
+    final HeavyHitters services;
+
+    TrafficInterval() {
+        this(HEAVY_HITTERS);
+    }
+
+    // A larger capacity for windows merged out of many seconds
+    TrafficInterval(int heavyHitters) {
+        sources = new HeavyHitters(heavyHitters);
+        destinations = new HeavyHitters(heavyHitters);
+        services = new HeavyHitters(heavyHitters);
+    }
+
+    // service is a key from service(), or -1 for packets without an IP protocol
+    void record(int sourceId, int destId, int protocolId, int service, int length) {
+        count++;
+        bytes += length;
+        protocolPackets[protocolId]++;
+        sources.add(sourceId);
+        destinations.add(destId);
+        if (service >= 0) {
+            services.add(service);
+        }
+    }
+
+    void addAll(TrafficInterval other) {
+        count += other.count;
+        bytes += other.bytes;
+        for (int p = 0; p < protocolPackets.length; p++) {
+            protocolPackets[p] += other.protocolPackets[p];
+        }
+        sources.addAll(other.sources);
+        destinations.addAll(other.destinations);
+        services.addAll(other.services);
+    }
+
+    // IP protocol and the lower port (usually the server's), e.g. TCP/443; ports are -1 when absent
+    static int service(int ipProtocol, int sourcePort, int destPort) {
+        if (ipProtocol < 0) {
+            return -1;
+        }
+        int port = sourcePort < 0 ? destPort : destPort < 0 ? sourcePort : Math.min(sourcePort, destPort);
+        return ipProtocol << 16 | Math.max(port, 0);
+    }
+
+    static String serviceName(int service) {
+        int port = service & 0xFFFF;
+        String protocol = FlowRecord.protocolName(service >>> 16);
+        return port > 0 ? protocol + "/" + port : protocol;
+    }
+}
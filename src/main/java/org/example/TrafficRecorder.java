@@ -0,0 +1,82 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the traffic of the current graph second from any number of threads without
+ * locks. Every recording thread gets its own stripe holding a private TrafficInterval,
+ * so a record touches nothing another thread writes and no count is lost. The graph tick
+ * takes each stripe's interval, leaving the owner to start a fresh one, and merges them.
+ * A stripe's sequence is odd while its owner is recording, which lets the tick wait out
+ * a record still writing into the interval it just took (at most one packet's work).
+ */
+public class TrafficRecorder {
+
+    private static final class Stripe {
+        final Thread owner;
+        volatile TrafficInterval current;  // null after a drain until the owner records again
+        volatile long sequence;            // written by the owner only
+
+        Stripe(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    private final List<Stripe> stripes = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Stripe> localStripe = ThreadLocal.withInitial(this::register);
+
+    // Once per recording thread
+    private Stripe register() {
+        Stripe stripe = new Stripe(Thread.currentThread());  // in the owner's TLAB, away from other stripes
+        stripes.add(stripe);
+        return stripe;
+    }
+
+    // Addresses are AddressDictionary ids, the protocol a CaptureStore protocol id and the
+    // service a TrafficInterval.service key (-1 = none); safe from any thread
+    public void record(int sourceId, int destId, int protocolId, int service, int length) {
+        Stripe stripe = localStripe.get();
+        long sequence = stripe.sequence;
+        stripe.sequence = sequence + 1;
+        TrafficInterval interval = stripe.current;
+        if (interval == null) {
+            // Allocated by the owner, so the intervals of different threads do not share cache lines
+            interval = new TrafficInterval();
+            stripe.current = interval;
+        }
+        interval.record(sourceId, destId, protocolId, service, length);
+        stripe.sequence = sequence + 2;
+    }
+
+    /**
+     * Everything recorded since the previous drain, merged over all threads. Meant for a
+     * single caller, the graph tick; stripes of threads that have died are dropped here
+     * once their last interval is merged.
+     */
+    public TrafficInterval drain() {
+        TrafficInterval merged = new TrafficInterval();
+        for (Stripe stripe : stripes) {
+            boolean alive = stripe.owner.isAlive();  // checked first: a dead owner's last records are then visible
+            TrafficInterval interval = stripe.current;
+            if (interval != null) {
+                stripe.current = null;
+                long sequence = stripe.sequence;
+                if ((sequence & 1) != 0) {
+                    while (stripe.sequence == sequence) {
+                        Thread.onSpinWait();
+                    }
+                }
+                merged.addAll(interval);
+            }
+            if (!alive) {
+                stripes.remove(stripe);
+            }
+        }
+        return merged;
+    }
+
+    public int getStripeCount() {
+        return stripes.size();
+    }
+}
@@ -0,0 +1,170 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Traffic history at four resolutions, each a fixed ring of buckets holding packets,
+ * bytes and packets per protocol. Every closed second is added to the current bucket of
+ * all four rings, so the rollups are maintained as the data comes in and showing any
+ * range is a read out of one ring. A slot remembers which bucket it holds; slots left
+ * over from an earlier lap read as empty, so gaps (pauses, idle links) need no clearing.
+ * Memory is fixed at about 600 KB. Not thread-safe, the graph uses it from the EDT.
+ */
+public class TrafficSeries {
+
+    public enum Resolution {
+        SECOND(1, 3600),        // 1 hour
+        TEN_SECONDS(10, 2160),  // 6 hours
+        MINUTE(60, 1440),       // 1 day
+        HOUR(3600, 720);        // 30 days
+
+        final int seconds;
+        final int capacity;
+
+        Resolution(int seconds, int capacity) {
+            this.seconds = seconds;
+            this.capacity = capacity;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long bucketOf(long epochSecond) {
+            return epochSecond / seconds;
+        }
+    }
+
+    private static final int PROTOCOLS = CaptureStore.PROTOCOL_COUNT;
+
+    private static final class Ring {
+        final Resolution resolution;
+        final long[] buckets;          // bucket held by each slot, -1 = never written
+        final long[] packets;
+        final long[] bytes;
+        final long[] protocolPackets;  // PROTOCOLS entries per slot
+
+        Ring(Resolution resolution) {
+            this.resolution = resolution;
+            buckets = new long[resolution.capacity];
+            packets = new long[resolution.capacity];
+            bytes = new long[resolution.capacity];
+            protocolPackets = new long[resolution.capacity * PROTOCOLS];
+            Arrays.fill(buckets, -1);
+        }
+
+        void add(long epochSecond, long packetCount, long byteCount, long[] protocolCounts) {
+            long bucket = resolution.bucketOf(epochSecond);
+            int slot = (int) (bucket % resolution.capacity);
+            if (buckets[slot] != bucket) {
+                buckets[slot] = bucket;
+                packets[slot] = 0;
+                bytes[slot] = 0;
+                Arrays.fill(protocolPackets, slot * PROTOCOLS, slot * PROTOCOLS + PROTOCOLS, 0);
+            }
+            packets[slot] += packetCount;
+            bytes[slot] += byteCount;
+            for (int p = 0; p < PROTOCOLS; p++) {
+                protocolPackets[slot * PROTOCOLS + p] += protocolCounts[p];
+            }
+        }
+
+        // The slot holding the bucket, or -1 when it was never written or has been overwritten
+        int find(long bucket) {
+            if (bucket < 0) {
+                return -1;
+            }
+            int slot = (int) (bucket % resolution.capacity);
+            return buckets[slot] == bucket ? slot : -1;
+        }
+    }
+
+    private final Ring[] rings;
+    private long firstSecond = -1;
+    private long latestSecond = -1;
+    private long totalPackets;
+    private long totalBytes;
+
+    public TrafficSeries() {
+        Resolution[] resolutions = Resolution.values();
+        rings = new Ring[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) {
+            rings[i] = new Ring(resolutions[i]);
+        }
+    }
+
+    // Adds one second of traffic; protocolPackets is indexed by CaptureStore protocol id
+    public void add(long epochSecond, long packets, long bytes, long[] protocolPackets) {
+        for (Ring ring : rings) {
+            ring.add(epochSecond, packets, bytes, protocolPackets);
+        }
+        if (firstSecond < 0) {
+            firstSecond = epochSecond;
+        }
+        latestSecond = Math.max(latestSecond, epochSecond);
+        totalPackets += packets;
+        totalBytes += bytes;
+    }
+
+    public long getPackets(Resolution resolution, long bucket) {
+        Ring ring = rings[resolution.ordinal()];
+        int slot = ring.find(bucket);
+        return slot < 0 ? 0 : ring.packets[slot];
+    }
+
+    public long getBytes(Resolution resolution, long bucket) {
+        Ring ring = rings[resolution.ordinal()];
+        int slot = ring.find(bucket);
+        return slot < 0 ? 0 : ring.bytes[slot];
+    }
+
+    public long getProtocolPackets(Resolution resolution, long bucket, int protocolId) {
+        Ring ring = rings[resolution.ordinal()];
+        int slot = ring.find(bucket);
+        return slot < 0 ? 0 : ring.protocolPackets[slot * PROTOCOLS + protocolId];
+    }
+
+    /**
+     * Seconds of recorded time the bucket covers: the full bucket width, except for the
+     * first and the latest bucket which are still partly empty. Dividing by this gives
+     * a rate that does not dip at either edge of the graph.
+     */
+    public int getCoveredSeconds(Resolution resolution, long bucket) {
+        if (latestSecond < 0) {
+            return resolution.seconds;
+        }
+        long start = Math.max(bucket * resolution.seconds, firstSecond);
+        long end = Math.min(bucket * resolution.seconds + resolution.seconds - 1, latestSecond);
+        return end >= start ? (int) (end - start + 1) : resolution.seconds;
+    }
+
+    public long getFirstSecond() {
+        return firstSecond;
+    }
+
+    public long getLatestSecond() {
+        return latestSecond;
+    }
+
+    public long getTotalPackets() {
+        return totalPackets;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void clear() {
+        for (Ring ring : rings) {
+            Arrays.fill(ring.buckets, -1);
+        }
+        firstSecond = -1;
+        latestSecond = -1;
+        totalPackets = 0;
+        totalBytes = 0;
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import java.nio.file.Path;
+
+// Snapshot of the PcapFileWriter counters
+public class WriterStats {
+
+    public static final WriterStats EMPTY = new WriterStats(null, 0, 0, 0, 0, 0, 0.0, 0);
+
+    private final Path currentFile;
+    private final int backlog;
+    private final long enqueued;
+    private final long dropped;
+    private final long packetsWritten;
+    private final long bytesWritten;
+    private final double bytesPerSecond;
+    private final long filesRotated;
+
+    WriterStats(Path currentFile, int backlog, long enqueued, long dropped, long packetsWritten,
+                long bytesWritten, double bytesPerSecond, long filesRotated) {
+        this.currentFile = currentFile;
+        this.backlog = backlog;
+        this.enqueued = enqueued;
+        this.dropped = dropped;
+        this.packetsWritten = packetsWritten;
+        this.bytesWritten = bytesWritten;
+        this.bytesPerSecond = bytesPerSecond;
+        this.filesRotated = filesRotated;
+    }
+
+    public Path getCurrentFile() {
+        return currentFile;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getPacketsWritten() {
+        return packetsWritten;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getFilesRotated() {
+        return filesRotated;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Writing: %s | Backlog: %d | Written: %d packets, %d bytes (%.1f MB/s) | Writer drops: %d | Rotations: %d",
+            currentFile, backlog, packetsWritten, bytesWritten, bytesPerSecond / (1024 * 1024), dropped, filesRotated);
+    }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AddressDictionaryTest {
+
+    private static final int ADDRESSES = 50_000;
+    private static final int THREADS = 4;
+
+    // Shards interning overlapping addresses at once, through rehashes, must agree on every id
+    @Test
+    void concurrentInternGivesOneIdPerAddress() throws Exception {
+        AddressDictionary addresses = new AddressDictionary();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t * 7919;
+                results.add(executor.submit(() -> {
+                    int[] ids = new int[ADDRESSES];
+                    for (int n = 0; n < ADDRESSES; n++) {
+                        int i = (n + offset) % ADDRESSES;
+                        ids[i] = addresses.intern(0xFFFFL << 32, 0x0A000000L + i + 1);
+                    }
+                    return ids;
+                }));
+            }
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                int[] ids = result.get();
+                for (int i = 0; i < ADDRESSES; i++) {
+                    assertEquals(first[i], ids[i], "address " + i);
+                }
+            }
+            assertEquals(ADDRESSES + 1, addresses.size());
+            for (int i = 0; i < ADDRESSES; i++) {
+                assertEquals(0x0A000000L + i + 1, addresses.getLow(first[i]));
+                assertEquals(first[i], addresses.find(0xFFFFL << 32, 0x0A000000L + i + 1));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
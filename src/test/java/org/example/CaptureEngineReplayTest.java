@@ -0,0 +1,158 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureEngineReplayTest {
+
+    private static final int PACKETS = 50_000;
+
+    @TempDir
+    Path directory;
+
+    // A file holds many times the publish queue; every record must still reach the sink
+    @Test
+    void replayPublishesEveryRecord() throws Exception {
+        Path file = writeUdpCapture(directory.resolve("replay.pcap"), PACKETS);
+        AtomicLong rows = new AtomicLong();
+        CaptureEngine engine = new CaptureEngine(batch -> rows.addAndGet(batch.size()), Runnable::run);
+        CaptureConfig config = new CaptureConfig();
+        config.setDecodeWorkers(4);
+        config.setRingCapacity(4096);
+        config.setPublishQueueCapacity(1024);
+        config.setMaxRowsPerFrame(2000);
+        config.setUiRefreshMillis(5);
+        engine.setCaptureConfig(config);
+
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            engine.replayFile(reader, null, false);
+            assertTrue(engine.awaitSource(60, TimeUnit.SECONDS), "loader did not finish");
+            assertTrue(engine.awaitDrained(60, TimeUnit.SECONDS), "pipeline did not drain");
+        }
+
+        PipelineStats stats = engine.getPipelineStats();
+        assertEquals(0, stats.getDroppedAtCapture());
+        assertEquals(0, stats.getDroppedAtDecode());
+        assertEquals(PACKETS, stats.getPublished());
+        assertEquals(PACKETS, rows.get());
+    }
+
+    // A sink executor that rejects frames must not stall the pipeline: the rows are counted as dropped
+    @Test
+    void rejectedFramesAreDroppedNotStalled() throws Exception {
+        Path file = writeUdpCapture(directory.resolve("rejected.pcap"), PACKETS);
+        CaptureEngine engine = new CaptureEngine(batch -> { }, task -> {
+            throw new RejectedExecutionException("sink shut down");
+        });
+        CaptureConfig config = new CaptureConfig();
+        config.setDecodeWorkers(4);
+        config.setPublishQueueCapacity(1024);
+        config.setUiRefreshMillis(5);
+        engine.setCaptureConfig(config);
+
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            engine.replayFile(reader, null, false);
+            assertTrue(engine.awaitSource(60, TimeUnit.SECONDS), "loader did not finish");
+            assertTrue(engine.awaitDrained(60, TimeUnit.SECONDS), "pipeline did not drain");
+        }
+
+        PipelineStats stats = engine.getPipelineStats();
+        assertEquals(0, stats.getPublished());
+        assertEquals(PACKETS, stats.getDroppedAtDecode());
+    }
+
+    // Clearing for a new capture from the sink's thread: the frame waiting there must not be
+    // needed to stop the old pipeline, and must not deliver rows once it has run
+    @Test
+    void discardDoesNotWaitForTheSink() throws Exception {
+        Path file = writeUdpCapture(directory.resolve("discard.pcap"), PACKETS);
+        AtomicLong rows = new AtomicLong();
+        List<Runnable> pending = Collections.synchronizedList(new ArrayList<>());
+        CaptureEngine engine = new CaptureEngine(batch -> rows.addAndGet(batch.size()), pending::add);
+        CaptureConfig config = new CaptureConfig();
+        config.setDecodeWorkers(4);
+        config.setPublishQueueCapacity(1024);
+        config.setUiRefreshMillis(5);
+        engine.setCaptureConfig(config);
+
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            engine.replayFile(reader, null, false);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (pending.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, pending.size(), "one frame in flight");
+            assertTrue(engine.discardPipeline(10, TimeUnit.SECONDS), "decode shards did not exit");
+            assertTrue(engine.awaitSource(10, TimeUnit.SECONDS), "loader did not stop");
+            pending.remove(0).run();
+            assertTrue(engine.awaitDrained(10, TimeUnit.SECONDS), "publisher did not stop");
+        }
+        assertEquals(0, rows.get());
+        assertTrue(pending.isEmpty());
+    }
+
+    // The decode shards record every packet for the graph, whatever the EDT gets to
+    @Test
+    void replayRecordsTrafficOnTheShards() throws Exception {
+        Path file = writeUdpCapture(directory.resolve("traffic.pcap"), PACKETS);
+        AddressDictionary addresses = new AddressDictionary();
+        TrafficRecorder recorder = new TrafficRecorder();
+        CaptureEngine engine = new CaptureEngine(batch -> { }, Runnable::run, addresses, recorder);
+        CaptureConfig config = new CaptureConfig();
+        config.setDecodeWorkers(4);
+        engine.setCaptureConfig(config);
+
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            engine.replayFile(reader, null, false);
+            assertTrue(engine.awaitSource(60, TimeUnit.SECONDS), "loader did not finish");
+            assertTrue(engine.awaitDrained(60, TimeUnit.SECONDS), "pipeline did not drain");
+        }
+
+        TrafficInterval traffic = recorder.drain();
+        assertEquals(PACKETS, traffic.count);
+        assertTrue(addresses.size() > 1, "addresses were not interned");
+    }
+
+    // Ethernet/IPv4/UDP frames spread over many flows, so every decode shard gets some
+    private static Path writeUdpCapture(Path file, int packets) throws IOException {
+        int frameLength = 14 + 20 + 8 + 32;
+        ByteBuffer buffer = ByteBuffer.allocate(24 + packets * (16 + frameLength)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0xA1B2C3D4).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0)
+            .putInt(65535).putInt(1);
+        for (int i = 0; i < packets; i++) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(1_700_000_000 + i / 1000).putInt((i % 1000) * 1000).putInt(frameLength).putInt(frameLength);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            buffer.put(new byte[12]).putShort((short) 0x0800);
+            buffer.put((byte) 0x45).put((byte) 0).putShort((short) (frameLength - 14)).putInt(0)
+                .put((byte) 64).put((byte) 17).putShort((short) 0)
+                .putInt(0x0A000001).putInt(0x0A000002 + i % 251);
+            buffer.putShort((short) (1024 + i % 4000)).putShort((short) 9999).putShort((short) 40).putShort((short) 0);
+            buffer.put(new byte[32]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,50 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DisplayFilterTest {
+
+    private static final long FIRST = 1_700_000_000_000_000L;  // on a whole second
+    private static final long[] OFFSETS = {0, 1, 50_000, 99_999, 100_000, 250_000, 999_999,
+        1_000_000, 1_000_001, 1_500_000, 1_999_999, 2_000_000, 2_250_000, 3_000_000, 3_999_999};
+
+    // The index path must agree with the row-by-row test on every operator and bound
+    @Test
+    void timeIndexMatchesRowTest() {
+        CaptureStore store = new CaptureStore(new AddressDictionary());
+        for (long offset : OFFSETS) {
+            store.append(FIRST + offset, 60, 60, 0, 0, CaptureStore.PROTO_UDP, 1, 2, 0, -1, 0);
+        }
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochSecond(FIRST / 1_000_000L), ZoneId.systemDefault());
+        DateTimeFormatter timeOfDay = DateTimeFormatter.ofPattern("HH:mm:ss");
+        DateTimeFormatter full = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        String[] bounds = {
+            "0", "0.0", "0.1", "0.25", "1", "1.0", "1.5", "2", "2.25", "3.999999", "-1", "10",
+            "\"" + start.format(timeOfDay) + "\"",
+            "\"" + start.format(timeOfDay) + ".0\"",
+            "\"" + start.plusSeconds(1).format(timeOfDay) + ".5\"",
+            "\"" + start.plusSeconds(2).format(timeOfDay) + ".25\"",
+            "\"" + start.format(full) + "\"",
+            "\"" + start.plusSeconds(1).format(full) + ".000001\"",
+        };
+        for (String bound : bounds) {
+            String field = bound.startsWith("\"") ? "frame.time" : "frame.time_relative";
+            for (String op : new String[] {"==", "<", "<=", ">", ">="}) {
+                String expression = field + " " + op + " " + bound;
+                DisplayFilter filter = DisplayFilter.compile(expression);
+                long[] words = filter.evaluate(store);
+                for (int row = 0; row < store.size(); row++) {
+                    boolean indexed = (words[row >>> 6] & (1L << row)) != 0;
+                    assertEquals(filter.matches(store, row), indexed, expression + " at +" + OFFSETS[row] + " us");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameHeaderParserTest {
+
+    // tun, WireGuard and VPN interfaces: pcap files say 101, live handles 12 (14 on OpenBSD)
+    @Test
+    void rawIpOnEveryLinkTypeValue() {
+        byte[] frame = {
+            0x45, 0, 0, 28, 0, 1, 0, 0, 64, 17, 0, 0, 10, 0, 0, 1, 10, 0, 0, 2,  // IPv4, UDP
+            0x13, (byte) 0x88, 0, 53, 0, 8, 0, 0                                  // 5000 -> 53
+        };
+        int[] linkTypes = {FrameHeaderParser.LINKTYPE_RAW, FrameHeaderParser.DLT_RAW, FrameHeaderParser.DLT_RAW_OPENBSD};
+        for (int linkType : linkTypes) {
+            PacketSummary summary = new PacketSummary(0, 0, frame.length, frame, null);
+            assertTrue(FrameHeaderParser.parse(frame, frame.length, linkType, summary), "link type " + linkType);
+            assertEquals(FrameHeaderParser.IPPROTO_UDP, summary.ipProtocol);
+            assertEquals(5000, summary.sourcePort);
+            assertEquals(53, summary.destPort);
+
+            List<String> layers = new ArrayList<>();
+            DissectorRegistry.getDefault().dissect(frame, frame.length, linkType, new Layers(layers));
+            assertEquals(Arrays.asList("Internet Protocol Version 4", "User Datagram Protocol"), layers,
+                "link type " + linkType);
+        }
+    }
+
+    private static final class Layers implements DissectionOutput {
+        private final List<String> names;
+
+        Layers(List<String> names) {
+            this.names = names;
+        }
+
+        @Override
+        public void layer(String name) {
+            names.add(name);
+        }
+
+        @Override
+        public DissectionOutput field(String label) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput text(String text) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput decimal(long value) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput hex(long value, int minDigits) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput ascii(byte[] data, int offset, int length) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput mac(byte[] data, int offset) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput ipv4(byte[] data, int offset) {
+            return this;
+        }
+
+        @Override
+        public DissectionOutput ipv6(byte[] data, int offset) {
+            return this;
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
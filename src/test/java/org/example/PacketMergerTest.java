@@ -0,0 +1,59 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacketMergerTest {
+
+    private static final int PACKETS = 600;
+    private static final long WINDOW_MILLIS = 200;
+
+    // A silent interface must not throttle the others to one packet per window
+    @Test
+    void silentSourceDoesNotHoldBackTheOthers() throws Exception {
+        List<CapturedPacket> output = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        PacketMerger merger = new PacketMerger(3, 4096, WINDOW_MILLIS, output::add, done::countDown);
+        merger.start();
+        try {
+            // Sources 0 and 1 interleave their timestamps; source 2 never sends anything
+            for (int i = 0; i < PACKETS; i += 2) {
+                assertTrue(merger.offer(0, packet(i)));
+                assertTrue(merger.offer(1, packet(i + 1)));
+                if (i % 100 == 0) {
+                    Thread.sleep(10);
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10 * WINDOW_MILLIS);
+            while (merger.getMerged() < PACKETS && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(PACKETS, merger.getMerged(), "merged while one source was silent");
+            assertEquals(0, merger.getQueued());
+        } finally {
+            for (int i = 0; i < 3; i++) {
+                merger.finish(i);
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(0, merger.getLate());
+        synchronized (output) {
+            for (int i = 0; i < output.size(); i++) {
+                assertEquals(i, output.get(i).timestampMicros, "out of order at " + i);
+            }
+        }
+    }
+
+    private static CapturedPacket packet(long timestampMicros) {
+        return new CapturedPacket(timestampMicros, new byte[60], null, timestampMicros, 60);
+    }
+}
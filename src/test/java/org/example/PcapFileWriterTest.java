@@ -0,0 +1,98 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PcapFileWriterTest {
+
+    @TempDir
+    Path directory;
+
+    // Stopping and resuming a rotating capture continues in the file written last, not in _0
+    @Test
+    void resumeContinuesTheRing() throws Exception {
+        CaptureConfig config = new CaptureConfig();
+        config.setOutputFile(directory.resolve("ring.pcap").toString());
+        config.setRotateBytes(200);
+        config.setRotateFiles(4);
+        try (PcapFileWriter writer = new PcapFileWriter(config, 1, false)) {
+            for (int i = 0; i < 3; i++) {
+                writer.writeBlocking(packet(i));
+            }
+        }
+        Path first = directory.resolve("ring_0.pcap");
+        Path second = directory.resolve("ring_1.pcap");
+        Path third = directory.resolve("ring_2.pcap");
+        // As after the ring wrapped: _1 was the last one written
+        Files.setLastModifiedTime(first, FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(second, FileTime.fromMillis(3_000_000));
+        Files.setLastModifiedTime(third, FileTime.fromMillis(2_000_000));
+        long size = Files.size(second);
+
+        try (PcapFileWriter writer = new PcapFileWriter(config, 1, true)) {
+            assertEquals(second, writer.getCurrentFile());
+        }
+        assertEquals(size, Files.size(second));
+    }
+
+    // A nanosecond pcap with the same link type must not be truncated by append mode
+    @Test
+    void appendRefusesAnotherFormat() throws Exception {
+        Path file = directory.resolve("nanos.pcap");
+        ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0xA1B23C4D).putShort((short) 2).putShort((short) 4).putInt(0).putInt(0)
+            .putInt(65535).putInt(1);
+        byte[] contents = new byte[24 + 16 + 4];
+        System.arraycopy(header.array(), 0, contents, 0, 24);
+        Files.write(file, contents);
+
+        CaptureConfig config = new CaptureConfig();
+        config.setOutputFile(file.toString());
+        assertThrows(IOException.class, () -> new PcapFileWriter(config, 1, true));
+        assertArrayEquals(contents, Files.readAllBytes(file));
+    }
+
+    // A frame larger than the write buffer (replayed from a file with a bigger snapshot length)
+    // is written as is, between its neighbours
+    @Test
+    void recordLargerThanTheBuffer() throws Exception {
+        Path file = directory.resolve("jumbo.pcap");
+        CaptureConfig config = new CaptureConfig();
+        config.setOutputFile(file.toString());
+        config.setSnapshotLength(1500);
+        config.setWriterBufferSize(4096);
+        byte[] jumbo = new byte[9000];
+        for (int i = 0; i < jumbo.length; i++) {
+            jumbo[i] = (byte) i;
+        }
+        try (PcapFileWriter writer = new PcapFileWriter(config, 1, false)) {
+            writer.writeBlocking(packet(0));
+            writer.writeBlocking(new CapturedPacket(1, jumbo, null, 1_700_000_000_000_001L, jumbo.length));
+            writer.writeBlocking(packet(2));
+        }
+
+        try (PcapFileReader reader = new PcapFileReader(file)) {
+            assertEquals(3, reader.getPacketCount());
+            assertEquals(100, reader.getCapturedLength(0));
+            assertArrayEquals(jumbo, reader.readPacket(1));
+            assertEquals(2, reader.readPacket(2)[0]);
+        }
+    }
+
+    private static CapturedPacket packet(int index) {
+        byte[] frame = new byte[100];
+        frame[0] = (byte) index;
+        return new CapturedPacket(index, frame, null, 1_700_000_000_000_000L + index, frame.length);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowSetTest {
+
+    // Sparse chunks, dense chunks and gaps of empty chunks, against a BitSet
+    @Test
+    void matchesBitSet() {
+        Random random = new Random(42);
+        RowSet set = new RowSet();
+        BitSet expected = new BitSet();
+        int row = 0;
+        for (int i = 0; i < 200_000; i++) {
+            int step = i % 50_000 < 20_000 ? 1 + random.nextInt(3) : 1 + random.nextInt(200);
+            if (i % 30_000 == 0) {
+                step += 5 << 16;  // skip a few chunks entirely
+            }
+            row += step;
+            set.add(row);
+            expected.set(row);
+        }
+        int rows = row + 1;
+        assertEquals(expected.cardinality(), set.size());
+
+        long[] words = new long[(rows + 63) >>> 6];
+        set.orInto(words);
+        assertArrayEquals(expected.toLongArray(), Arrays.copyOf(words, expected.toLongArray().length));
+
+        List<Integer> seen = new ArrayList<>();
+        set.forEach(seen::add);
+        assertEquals(expected.cardinality(), seen.size());
+        for (int i = 0, bit = expected.nextSetBit(0); bit >= 0; i++, bit = expected.nextSetBit(bit + 1)) {
+            assertEquals(bit, (int) seen.get(i));
+        }
+        for (int probe = 0; probe < rows; probe += 7) {
+            assertEquals(expected.get(probe), set.contains(probe), "row " + probe);
+        }
+    }
+
+    // A key first seen deep into a large capture pays only for the chunks it has rows in
+    @Test
+    void lateFirstRowStaysSmall() {
+        RowSet set = new RowSet();
+        set.add(1_500_000_000);
+        set.add(1_500_000_001);
+        assertTrue(set.getMemoryUsage() < 100, "memory " + set.getMemoryUsage());
+        assertTrue(set.contains(1_500_000_001));
+        assertFalse(set.contains(7));
+    }
+}